@@ -43,14 +43,18 @@ public class BenchmarkSuite
                 new CountAggregationBenchmark(localQueryRunner),
                 new DoubleSumAggregationBenchmark(localQueryRunner),
                 new HashAggregationBenchmark(localQueryRunner),
+                new FixedWidthKeysHashAggregationBenchmark(localQueryRunner),
                 new PredicateFilterBenchmark(localQueryRunner),
                 new RawStreamingBenchmark(localQueryRunner),
                 new Top100Benchmark(localQueryRunner),
                 new OrderByBenchmark(localQueryRunner),
+                new OrderByBenchmark(localQueryRunner, 4),
                 new HashBuildBenchmark(localQueryRunner),
                 new HashJoinBenchmark(localQueryRunner),
+                new HashJoinBenchmark(localQueryRunner, true),
                 new HashBuildAndJoinBenchmark(localQueryRunner.getDefaultSession(), localQueryRunner),
                 new HashBuildAndJoinBenchmark(optimizeHashSession, localQueryRunner),
+                new HashBuildAndJoinBenchmark(localQueryRunner.getDefaultSession(), localQueryRunner, true),
                 new HandTpchQuery1(localQueryRunner),
                 new HandTpchQuery6(localQueryRunner),
 
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.benchmark;
+
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.HashAggregationOperator.HashAggregationOperatorFactory;
+import com.facebook.presto.operator.OperatorFactory;
+import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import io.airlift.units.DataSize;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
+import static com.facebook.presto.metadata.FunctionKind.AGGREGATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class FixedWidthKeysHashAggregationBenchmark
+        extends AbstractSimpleOperatorBenchmark
+{
+    private final InternalAggregationFunction doubleSum;
+
+    public FixedWidthKeysHashAggregationBenchmark(LocalQueryRunner localQueryRunner)
+    {
+        super(localQueryRunner, "hash_agg_fixed_width_keys", 5, 25);
+
+        doubleSum = localQueryRunner.getMetadata().getFunctionRegistry().getAggregateFunctionImplementation(
+                new Signature("sum", AGGREGATE, DOUBLE.getTypeSignature(), DOUBLE.getTypeSignature()));
+    }
+
+    @Override
+    protected List<? extends OperatorFactory> createOperatorFactories()
+    {
+        List<Type> tableTypes = getColumnTypes("lineitem", "suppkey", "linenumber", "shipdate", "extendedprice");
+        OperatorFactory tableScanOperator = createTableScanOperator(0, new PlanNodeId("test"), "lineitem", "suppkey", "linenumber", "shipdate", "extendedprice");
+        HashAggregationOperatorFactory aggregationOperator = new HashAggregationOperatorFactory(
+                1,
+                new PlanNodeId("test"),
+                tableTypes.subList(0, 3),
+                Ints.asList(0, 1, 2),
+                ImmutableList.of(),
+                Step.SINGLE,
+                ImmutableList.of(doubleSum.bind(ImmutableList.of(3), Optional.empty())),
+                Optional.empty(),
+                Optional.empty(),
+                100_000,
+                new DataSize(16, MEGABYTE),
+                JOIN_COMPILER);
+        return ImmutableList.of(tableScanOperator, aggregationOperator);
+    }
+
+    public static void main(String[] args)
+    {
+        new FixedWidthKeysHashAggregationBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+    }
+}
@@ -37,6 +37,7 @@ import com.google.common.primitives.Ints;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunnerHashEnabled;
@@ -51,16 +52,44 @@ public class HashBuildAndJoinBenchmark
         extends AbstractOperatorBenchmark
 {
     private final boolean hashEnabled;
-    private final List<Type> ordersTableTypes = getColumnTypes("orders", "orderkey", "totalprice");
-    private final OperatorFactory ordersTableScan = createTableScanOperator(0, new PlanNodeId("test"), "orders", "orderkey", "totalprice");
-    private final List<Type> lineItemTableTypes = getColumnTypes("lineitem", "orderkey", "quantity");
-    private final OperatorFactory lineItemTableScan = createTableScanOperator(0, new PlanNodeId("test"), "lineitem", "orderkey", "quantity");
+    private final List<Type> buildTableTypes;
+    private final OperatorFactory buildTableScan;
+    private final List<Type> probeTableTypes;
+    private final OperatorFactory probeTableScan;
+    private final List<Integer> joinChannels;
     private static final LookupJoinOperators LOOKUP_JOIN_OPERATORS = new LookupJoinOperators();
 
+    /*
+    select orderkey, quantity, totalprice
+    from lineitem join orders using (orderkey)
+     */
     public HashBuildAndJoinBenchmark(Session session, LocalQueryRunner localQueryRunner)
     {
-        super(session, localQueryRunner, "hash_build_and_join_hash_enabled_" + isHashEnabled(session), 4, 5);
+        this(session, localQueryRunner, false);
+    }
+
+    /*
+    select partkey, suppkey, quantity, supplycost
+    from lineitem join partsupp using (partkey, suppkey)
+     */
+    public HashBuildAndJoinBenchmark(Session session, LocalQueryRunner localQueryRunner, boolean multipleJoinKeys)
+    {
+        super(session, localQueryRunner, "hash_build_and_join_" + (multipleJoinKeys ? "multiple_keys_" : "") + "hash_enabled_" + isHashEnabled(session), 4, 5);
         this.hashEnabled = isHashEnabled(session);
+        if (multipleJoinKeys) {
+            buildTableTypes = getColumnTypes("partsupp", "partkey", "suppkey", "supplycost");
+            buildTableScan = createTableScanOperator(0, new PlanNodeId("test"), "partsupp", "partkey", "suppkey", "supplycost");
+            probeTableTypes = getColumnTypes("lineitem", "partkey", "suppkey", "quantity");
+            probeTableScan = createTableScanOperator(0, new PlanNodeId("test"), "lineitem", "partkey", "suppkey", "quantity");
+            joinChannels = Ints.asList(0, 1);
+        }
+        else {
+            buildTableTypes = getColumnTypes("orders", "orderkey", "totalprice");
+            buildTableScan = createTableScanOperator(0, new PlanNodeId("test"), "orders", "orderkey", "totalprice");
+            probeTableTypes = getColumnTypes("lineitem", "orderkey", "quantity");
+            probeTableScan = createTableScanOperator(0, new PlanNodeId("test"), "lineitem", "orderkey", "quantity");
+            joinChannels = Ints.asList(0);
+        }
     }
 
     private static boolean isHashEnabled(Session session)
@@ -68,16 +97,13 @@ public class HashBuildAndJoinBenchmark
         return SystemSessionProperties.isOptimizeHashGenerationEnabled(session);
     }
 
-    /*
-    select orderkey, quantity, totalprice
-    from lineitem join orders using (orderkey)
-     */
     @Override
     protected List<Driver> createDrivers(TaskContext taskContext)
     {
         ImmutableList.Builder<OperatorFactory> driversBuilder = ImmutableList.builder();
-        driversBuilder.add(ordersTableScan);
-        List<Type> sourceTypes = ordersTableTypes;
+        driversBuilder.add(buildTableScan);
+        List<Type> sourceTypes = buildTableTypes;
+        List<Integer> buildOutputChannels = IntStream.range(0, buildTableTypes.size()).boxed().collect(toImmutableList());
         OptionalInt hashChannel = OptionalInt.empty();
         if (hashEnabled) {
             driversBuilder.add(createHashProjectOperator(1, new PlanNodeId("test"), sourceTypes));
@@ -91,10 +117,10 @@ public class HashBuildAndJoinBenchmark
         // hash build
         JoinBridgeDataManager<LookupSourceFactory> lookupSourceFactoryManager = JoinBridgeDataManager.lookupAllAtOnce(new PartitionedLookupSourceFactory(
                 sourceTypes,
-                ImmutableList.of(0, 1).stream()
+                buildOutputChannels.stream()
                         .map(sourceTypes::get)
                         .collect(toImmutableList()),
-                Ints.asList(0).stream()
+                joinChannels.stream()
                         .map(sourceTypes::get)
                         .collect(toImmutableList()),
                 1,
@@ -104,8 +130,8 @@ public class HashBuildAndJoinBenchmark
                 2,
                 new PlanNodeId("test"),
                 lookupSourceFactoryManager,
-                ImmutableList.of(0, 1),
-                Ints.asList(0),
+                buildOutputChannels,
+                joinChannels,
                 hashChannel,
                 Optional.empty(),
                 Optional.empty(),
@@ -121,8 +147,8 @@ public class HashBuildAndJoinBenchmark
 
         // join
         ImmutableList.Builder<OperatorFactory> joinDriversBuilder = ImmutableList.builder();
-        joinDriversBuilder.add(lineItemTableScan);
-        sourceTypes = lineItemTableTypes;
+        joinDriversBuilder.add(probeTableScan);
+        sourceTypes = probeTableTypes;
         hashChannel = OptionalInt.empty();
         if (hashEnabled) {
             joinDriversBuilder.add(createHashProjectOperator(1, new PlanNodeId("test"), sourceTypes));
@@ -138,7 +164,7 @@ public class HashBuildAndJoinBenchmark
                 new PlanNodeId("test"),
                 lookupSourceFactoryManager,
                 sourceTypes,
-                Ints.asList(0),
+                joinChannels,
                 hashChannel,
                 Optional.empty(),
                 OptionalInt.empty(),
@@ -156,5 +182,6 @@ public class HashBuildAndJoinBenchmark
     {
         new HashBuildAndJoinBenchmark(testSessionBuilder().build(), createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
         new HashBuildAndJoinBenchmark(testSessionBuilder().build(), createLocalQueryRunnerHashEnabled()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new HashBuildAndJoinBenchmark(testSessionBuilder().build(), createLocalQueryRunner(), true).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
     }
 }
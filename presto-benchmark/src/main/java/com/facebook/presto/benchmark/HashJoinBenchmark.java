@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
 import static com.facebook.presto.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
@@ -51,31 +52,59 @@ public class HashJoinBenchmark
         extends AbstractOperatorBenchmark
 {
     private static final LookupJoinOperators LOOKUP_JOIN_OPERATORS = new LookupJoinOperators();
+    private final String buildTable;
+    private final String[] buildColumns;
+    private final String probeTable;
+    private final String[] probeColumns;
+    private final List<Integer> joinChannels;
     private JoinBridgeDataManager<LookupSourceFactory> lookupSourceFactoryManager;
 
+    /*
+    select orderkey, quantity, totalprice
+    from lineitem join orders using (orderkey)
+     */
     public HashJoinBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "hash_join", 4, 50);
+        this(localQueryRunner, false);
     }
 
     /*
-    select orderkey, quantity, totalprice
-    from lineitem join orders using (orderkey)
+    select partkey, suppkey, quantity, supplycost
+    from lineitem join partsupp using (partkey, suppkey)
      */
+    public HashJoinBenchmark(LocalQueryRunner localQueryRunner, boolean multipleJoinKeys)
+    {
+        super(localQueryRunner, multipleJoinKeys ? "hash_join_multiple_keys" : "hash_join", 4, 50);
+        if (multipleJoinKeys) {
+            buildTable = "partsupp";
+            buildColumns = new String[] {"partkey", "suppkey", "supplycost"};
+            probeTable = "lineitem";
+            probeColumns = new String[] {"partkey", "suppkey", "quantity"};
+            joinChannels = Ints.asList(0, 1);
+        }
+        else {
+            buildTable = "orders";
+            buildColumns = new String[] {"orderkey", "totalprice"};
+            probeTable = "lineitem";
+            probeColumns = new String[] {"orderkey", "quantity"};
+            joinChannels = Ints.asList(0);
+        }
+    }
 
     @Override
     protected List<Driver> createDrivers(TaskContext taskContext)
     {
         if (lookupSourceFactoryManager == null) {
-            List<Type> ordersTypes = getColumnTypes("orders", "orderkey", "totalprice");
-            OperatorFactory ordersTableScan = createTableScanOperator(0, new PlanNodeId("test"), "orders", "orderkey", "totalprice");
+            List<Type> buildTypes = getColumnTypes(buildTable, buildColumns);
+            OperatorFactory buildTableScan = createTableScanOperator(0, new PlanNodeId("test"), buildTable, buildColumns);
+            List<Integer> buildOutputChannels = IntStream.range(0, buildTypes.size()).boxed().collect(toImmutableList());
             JoinBridgeDataManager<LookupSourceFactory> lookupSourceFactoryManager = JoinBridgeDataManager.lookupAllAtOnce(new PartitionedLookupSourceFactory(
-                    ordersTypes,
-                    ImmutableList.of(0, 1).stream()
-                            .map(ordersTypes::get)
+                    buildTypes,
+                    buildOutputChannels.stream()
+                            .map(buildTypes::get)
                             .collect(toImmutableList()),
-                    Ints.asList(0).stream()
-                            .map(ordersTypes::get)
+                    joinChannels.stream()
+                            .map(buildTypes::get)
                             .collect(toImmutableList()),
                     1,
                     requireNonNull(ImmutableMap.of(), "layout is null"),
@@ -84,8 +113,8 @@ public class HashJoinBenchmark
                     1,
                     new PlanNodeId("test"),
                     lookupSourceFactoryManager,
-                    ImmutableList.of(0, 1),
-                    Ints.asList(0),
+                    buildOutputChannels,
+                    joinChannels,
                     OptionalInt.empty(),
                     Optional.empty(),
                     Optional.empty(),
@@ -96,7 +125,7 @@ public class HashJoinBenchmark
                     SingleStreamSpillerFactory.unsupportedSingleStreamSpillerFactory());
 
             DriverContext driverContext = taskContext.addPipelineContext(0, false, false).addDriverContext();
-            Driver driver = new DriverFactory(0, false, false, ImmutableList.of(ordersTableScan, hashBuilder), OptionalInt.empty(), UNGROUPED_EXECUTION)
+            Driver driver = new DriverFactory(0, false, false, ImmutableList.of(buildTableScan, hashBuilder), OptionalInt.empty(), UNGROUPED_EXECUTION)
                     .createDriver(driverContext);
             Future<LookupSourceProvider> lookupSourceProvider = lookupSourceFactoryManager.forLifespan(Lifespan.taskWide()).createLookupSourceProvider();
             while (!lookupSourceProvider.isDone()) {
@@ -106,14 +135,14 @@ public class HashJoinBenchmark
             this.lookupSourceFactoryManager = lookupSourceFactoryManager;
         }
 
-        List<Type> lineItemTypes = getColumnTypes("lineitem", "orderkey", "quantity");
-        OperatorFactory lineItemTableScan = createTableScanOperator(0, new PlanNodeId("test"), "lineitem", "orderkey", "quantity");
+        List<Type> probeTypes = getColumnTypes(probeTable, probeColumns);
+        OperatorFactory probeTableScan = createTableScanOperator(0, new PlanNodeId("test"), probeTable, probeColumns);
 
-        OperatorFactory joinOperator = LOOKUP_JOIN_OPERATORS.innerJoin(1, new PlanNodeId("test"), lookupSourceFactoryManager, lineItemTypes, Ints.asList(0), OptionalInt.empty(), Optional.empty(), OptionalInt.empty(), unsupportedPartitioningSpillerFactory());
+        OperatorFactory joinOperator = LOOKUP_JOIN_OPERATORS.innerJoin(1, new PlanNodeId("test"), lookupSourceFactoryManager, probeTypes, joinChannels, OptionalInt.empty(), Optional.empty(), OptionalInt.empty(), unsupportedPartitioningSpillerFactory());
 
         NullOutputOperatorFactory output = new NullOutputOperatorFactory(2, new PlanNodeId("test"));
 
-        DriverFactory driverFactory = new DriverFactory(1, true, true, ImmutableList.of(lineItemTableScan, joinOperator, output), OptionalInt.empty(), UNGROUPED_EXECUTION);
+        DriverFactory driverFactory = new DriverFactory(1, true, true, ImmutableList.of(probeTableScan, joinOperator, output), OptionalInt.empty(), UNGROUPED_EXECUTION);
         DriverContext driverContext = taskContext.addPipelineContext(1, true, true).addDriverContext();
         Driver driver = driverFactory.createDriver(driverContext);
         return ImmutableList.of(driver);
@@ -122,5 +151,6 @@ public class HashJoinBenchmark
     public static void main(String[] args)
     {
         new HashJoinBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new HashJoinBenchmark(createLocalQueryRunner(), true).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
     }
 }
@@ -32,9 +32,17 @@ public class OrderByBenchmark
 {
     private static final int ROWS = 1_500_000;
 
+    private final int sortParallelism;
+
     public OrderByBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "in_memory_orderby_1.5M", 5, 10);
+        this(localQueryRunner, 1);
+    }
+
+    public OrderByBenchmark(LocalQueryRunner localQueryRunner, int sortParallelism)
+    {
+        super(localQueryRunner, sortParallelism > 1 ? "in_memory_orderby_parallel_" + sortParallelism + "_1.5M" : "in_memory_orderby_1.5M", 5, 10);
+        this.sortParallelism = sortParallelism;
     }
 
     @Override
@@ -53,7 +61,13 @@ public class OrderByBenchmark
                 ROWS,
                 ImmutableList.of(0),
                 ImmutableList.of(ASC_NULLS_LAST),
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                false,
+                (types, spillContext, memoryContext) -> {
+                    throw new UnsupportedOperationException();
+                },
+                sortParallelism,
+                localQueryRunner.getExecutor());
 
         return ImmutableList.of(tableScanOperator, limitOperator, orderByOperator);
     }
@@ -61,5 +75,6 @@ public class OrderByBenchmark
     public static void main(String[] args)
     {
         new OrderByBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new OrderByBenchmark(createLocalQueryRunner(), 4).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
     }
 }
@@ -137,6 +137,9 @@ public class ClientOptions
     @Option(name = "--ignore-errors", title = "ignore errors", description = "Continue processing in batch mode when an error occurs (default is to exit immediately)")
     public boolean ignoreErrors;
 
+    @Option(name = "--columnar-results", title = "columnar results", description = "Request query results in the binary columnar encoding")
+    public boolean columnarResults;
+
     public enum OutputFormat
     {
         ALIGNED,
@@ -165,7 +168,8 @@ public class ClientOptions
                 toProperties(sessionProperties),
                 emptyMap(),
                 null,
-                clientRequestTimeout);
+                clientRequestTimeout,
+                columnarResults);
     }
 
     public static URI parseServer(String server)
@@ -48,6 +48,7 @@ public class ClientSession
     private final Map<String, String> preparedStatements;
     private final String transactionId;
     private final Duration clientRequestTimeout;
+    private final boolean columnarResults;
 
     public static Builder builder(ClientSession clientSession)
     {
@@ -77,6 +78,27 @@ public class ClientSession
             Map<String, String> preparedStatements,
             String transactionId,
             Duration clientRequestTimeout)
+    {
+        this(server, user, source, traceToken, clientTags, clientInfo, catalog, schema, timeZoneId, locale, resourceEstimates, properties, preparedStatements, transactionId, clientRequestTimeout, false);
+    }
+
+    public ClientSession(
+            URI server,
+            String user,
+            String source,
+            Optional<String> traceToken,
+            Set<String> clientTags,
+            String clientInfo,
+            String catalog,
+            String schema,
+            String timeZoneId,
+            Locale locale,
+            Map<String, String> resourceEstimates,
+            Map<String, String> properties,
+            Map<String, String> preparedStatements,
+            String transactionId,
+            Duration clientRequestTimeout,
+            boolean columnarResults)
     {
         this.server = requireNonNull(server, "server is null");
         this.user = user;
@@ -93,6 +115,7 @@ public class ClientSession
         this.properties = ImmutableMap.copyOf(requireNonNull(properties, "properties is null"));
         this.preparedStatements = ImmutableMap.copyOf(requireNonNull(preparedStatements, "preparedStatements is null"));
         this.clientRequestTimeout = clientRequestTimeout;
+        this.columnarResults = columnarResults;
 
         for (String clientTag : clientTags) {
             checkArgument(!clientTag.contains(","), "client tag cannot contain ','");
@@ -195,6 +218,14 @@ public class ClientSession
         return clientRequestTimeout;
     }
 
+    /**
+     * Whether query results are requested in the {@link ColumnarData} encoding.
+     */
+    public boolean isColumnarResults()
+    {
+        return columnarResults;
+    }
+
     @Override
     public String toString()
     {
@@ -231,6 +262,7 @@ public class ClientSession
         private Map<String, String> preparedStatements;
         private String transactionId;
         private Duration clientRequestTimeout;
+        private boolean columnarResults;
 
         private Builder(ClientSession clientSession)
         {
@@ -250,6 +282,7 @@ public class ClientSession
             preparedStatements = clientSession.getPreparedStatements();
             transactionId = clientSession.getTransactionId();
             clientRequestTimeout = clientSession.getClientRequestTimeout();
+            columnarResults = clientSession.isColumnarResults();
         }
 
         public Builder withCatalog(String catalog)
@@ -288,6 +321,12 @@ public class ClientSession
             return this;
         }
 
+        public Builder withColumnarResults(boolean columnarResults)
+        {
+            this.columnarResults = columnarResults;
+            return this;
+        }
+
         public ClientSession build()
         {
             return new ClientSession(
@@ -305,7 +344,8 @@ public class ClientSession
                     properties,
                     preparedStatements,
                     transactionId,
-                    clientRequestTimeout);
+                    clientRequestTimeout,
+                    columnarResults);
         }
     }
 }
@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.presto.spi.type.Decimals;
+import com.facebook.presto.spi.type.SqlDate;
+import com.facebook.presto.spi.type.SqlTime;
+import com.facebook.presto.spi.type.SqlTimeWithTimeZone;
+import com.facebook.presto.spi.type.SqlTimestamp;
+import com.facebook.presto.spi.type.SqlTimestampWithTimeZone;
+import com.facebook.presto.spi.type.TypeSignature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.client.FixJsonDataUtils.fixValue;
+import static com.facebook.presto.spi.type.StandardTypes.INTEGER;
+import static com.facebook.presto.spi.type.StandardTypes.SMALLINT;
+import static com.facebook.presto.spi.type.StandardTypes.TINYINT;
+import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Columnar binary encoding of query result data. It is requested by sending the
+ * {@link PrestoHeaders#PRESTO_RESULT_FORMAT} header with the {@link #FORMAT_NAME}
+ * value when the query is submitted. The data is decoded directly into the values
+ * the JSON encoding would produce, so clients see no difference.
+ * <p>
+ * Responses for such a query have the {@link #MEDIA_TYPE} content type instead of
+ * JSON, so the data is not base64 encoded into a JSON string: a 4 byte length, the
+ * JSON encoded {@link QueryResults} without data, and the columnar data of the rows,
+ * if the response has any.
+ * <p>
+ * Layout of the data (little endian): format version, row count, column count, and
+ * for each column its value encoding, one null flag byte per row, and the non-null
+ * values. Temporal and decimal values are sent in their binary representation and
+ * formatted by the client.
+ */
+public final class ColumnarData
+{
+    public static final String FORMAT_NAME = "COLUMNAR";
+    public static final String MEDIA_TYPE = "application/x-presto-columnar";
+    public static final byte FORMAT_VERSION = 2;
+
+    // 8 byte two's complement integer
+    public static final byte LONG = 0;
+    // 8 byte IEEE 754 double
+    public static final byte DOUBLE = 1;
+    // 4 byte IEEE 754 float
+    public static final byte REAL = 2;
+    // 1 byte, zero is false
+    public static final byte BOOLEAN = 3;
+    // 4 byte length followed by UTF-8 bytes
+    public static final byte STRING = 4;
+    // 4 byte length followed by raw bytes
+    public static final byte BINARY = 5;
+    // 4 byte length followed by the JSON encoding of the value
+    public static final byte JSON = 6;
+    // 4 byte number of days since the epoch
+    public static final byte DATE = 7;
+    // 8 byte milliseconds of the local time of day
+    public static final byte TIME = 8;
+    // 8 byte milliseconds of the local date and time since the epoch
+    public static final byte TIMESTAMP = 9;
+    // 8 byte milliseconds since the epoch and time zone key, packed
+    public static final byte TIME_WITH_TIME_ZONE = 10;
+    // 8 byte milliseconds since the epoch and time zone key, packed
+    public static final byte TIMESTAMP_WITH_TIME_ZONE = 11;
+    // 8 byte two's complement unscaled value
+    public static final byte SHORT_DECIMAL = 12;
+    // 4 byte length followed by the big endian two's complement unscaled value
+    public static final byte LONG_DECIMAL = 13;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ColumnarData() {}
+
+    /**
+     * Returns the results with the data decoded from the columnar data that
+     * followed them in the response.
+     */
+    public static QueryResults decodeResults(QueryResults results, byte[] data)
+    {
+        if (data.length == 0) {
+            return results;
+        }
+        checkArgument(results.getData() == null, "both data and columnar data present");
+        checkArgument(results.getColumns() != null, "columnar data present without columns");
+        return new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                results.getColumns(),
+                decode(results.getColumns(), data),
+                results.getStats(),
+                results.getError(),
+                results.getUpdateType(),
+                results.getUpdateCount());
+    }
+
+    static List<List<Object>> decode(List<Column> columns, byte[] data)
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(LITTLE_ENDIAN);
+        byte formatVersion = buffer.get();
+        checkArgument(formatVersion == FORMAT_VERSION, "Unsupported columnar data format version: %s", formatVersion);
+        int rowCount = buffer.getInt();
+        int columnCount = buffer.getInt();
+        checkArgument(columnCount == columns.size(), "row/column size mismatch");
+
+        Object[][] rows = new Object[rowCount][columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            TypeSignature signature = parseTypeSignature(columns.get(column).getType());
+            byte encoding = buffer.get();
+            boolean[] nulls = new boolean[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                nulls[row] = buffer.get() != 0;
+            }
+            for (int row = 0; row < rowCount; row++) {
+                if (!nulls[row]) {
+                    rows[row][column] = readValue(buffer, encoding, signature);
+                }
+            }
+        }
+
+        ImmutableList.Builder<List<Object>> result = ImmutableList.builder();
+        for (Object[] row : rows) {
+            result.add(unmodifiableList(Arrays.asList(row))); // allow nulls in list
+        }
+        return result.build();
+    }
+
+    private static Object readValue(ByteBuffer buffer, byte encoding, TypeSignature signature)
+    {
+        switch (encoding) {
+            case LONG:
+                long value = buffer.getLong();
+                switch (signature.getBase()) {
+                    case INTEGER:
+                        return (int) value;
+                    case SMALLINT:
+                        return (short) value;
+                    case TINYINT:
+                        return (byte) value;
+                    default:
+                        return value;
+                }
+            case DOUBLE:
+                return buffer.getDouble();
+            case REAL:
+                return buffer.getFloat();
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case STRING:
+                return new String(readBytes(buffer), UTF_8);
+            case BINARY:
+                return readBytes(buffer);
+            case DATE:
+                return new SqlDate(buffer.getInt()).toString();
+            case TIME:
+                return new SqlTime(buffer.getLong()).toString();
+            case TIMESTAMP:
+                return new SqlTimestamp(buffer.getLong()).toString();
+            case TIME_WITH_TIME_ZONE:
+                return new SqlTimeWithTimeZone(buffer.getLong()).toString();
+            case TIMESTAMP_WITH_TIME_ZONE:
+                return new SqlTimestampWithTimeZone(buffer.getLong()).toString();
+            case SHORT_DECIMAL:
+                return Decimals.toString(buffer.getLong(), getDecimalScale(signature));
+            case LONG_DECIMAL:
+                return Decimals.toString(new BigInteger(readBytes(buffer)), getDecimalScale(signature));
+            case JSON:
+                try {
+                    return fixValue(signature, OBJECT_MAPPER.readValue(readBytes(buffer), Object.class));
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown columnar value encoding: " + encoding);
+        }
+    }
+
+    private static int getDecimalScale(TypeSignature signature)
+    {
+        return signature.getParameters().get(1).getLongLiteral().intValue();
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
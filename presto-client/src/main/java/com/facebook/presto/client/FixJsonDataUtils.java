@@ -85,7 +85,7 @@ final class FixJsonDataUtils
     /**
      * Force values coming from Jackson to have the expected object type.
      */
-    private static Object fixValue(TypeSignature signature, Object value)
+    static Object fixValue(TypeSignature signature, Object value)
     {
         if (value == null) {
             return null;
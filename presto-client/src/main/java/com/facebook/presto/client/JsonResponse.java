@@ -25,10 +25,13 @@ import javax.annotation.Nullable;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.net.HttpHeaders.LOCATION;
 import static java.lang.String.format;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 public final class JsonResponse<T>
@@ -39,6 +42,7 @@ public final class JsonResponse<T>
     private final String responseBody;
     private final boolean hasValue;
     private final T value;
+    private final byte[] binaryData;
     private final IllegalArgumentException exception;
 
     private JsonResponse(int statusCode, String statusMessage, Headers headers, String responseBody)
@@ -50,10 +54,16 @@ public final class JsonResponse<T>
 
         this.hasValue = false;
         this.value = null;
+        this.binaryData = null;
         this.exception = null;
     }
 
     private JsonResponse(int statusCode, String statusMessage, Headers headers, String responseBody, JsonCodec<T> jsonCodec)
+    {
+        this(statusCode, statusMessage, headers, responseBody, jsonCodec, null);
+    }
+
+    private JsonResponse(int statusCode, String statusMessage, Headers headers, String responseBody, JsonCodec<T> jsonCodec, byte[] binaryData)
     {
         this.statusCode = statusCode;
         this.statusMessage = statusMessage;
@@ -70,6 +80,7 @@ public final class JsonResponse<T>
         }
         this.hasValue = (exception == null);
         this.value = value;
+        this.binaryData = binaryData;
         this.exception = exception;
     }
 
@@ -106,6 +117,15 @@ public final class JsonResponse<T>
         return responseBody;
     }
 
+    /**
+     * Binary data that followed the JSON value in a {@link ColumnarData#MEDIA_TYPE} response.
+     */
+    @Nullable
+    public byte[] getBinaryData()
+    {
+        return binaryData;
+    }
+
     @Nullable
     public IllegalArgumentException getException()
     {
@@ -138,6 +158,14 @@ public final class JsonResponse<T>
             }
 
             ResponseBody responseBody = requireNonNull(response.body());
+            if (isColumnarData(responseBody.contentType())) {
+                ByteBuffer body = ByteBuffer.wrap(responseBody.bytes()).order(LITTLE_ENDIAN);
+                byte[] json = new byte[body.getInt()];
+                body.get(json);
+                byte[] binaryData = new byte[body.remaining()];
+                body.get(binaryData);
+                return new JsonResponse<>(response.code(), response.message(), response.headers(), new String(json, UTF_8), codec, binaryData);
+            }
             String body = responseBody.string();
             if (isJson(responseBody.contentType())) {
                 return new JsonResponse<>(response.code(), response.message(), response.headers(), body, codec);
@@ -153,4 +181,9 @@ public final class JsonResponse<T>
     {
         return (type != null) && "application".equals(type.type()) && "json".equals(type.subtype());
     }
+
+    private static boolean isColumnarData(MediaType type)
+    {
+        return (type != null) && ColumnarData.MEDIA_TYPE.equals(type.type() + "/" + type.subtype());
+    }
 }
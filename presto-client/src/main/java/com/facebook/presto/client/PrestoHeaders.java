@@ -36,6 +36,7 @@ public final class PrestoHeaders
     public static final String PRESTO_CLIENT_INFO = "X-Presto-Client-Info";
     public static final String PRESTO_CLIENT_TAGS = "X-Presto-Client-Tags";
     public static final String PRESTO_RESOURCE_ESTIMATE = "X-Presto-Resource-Estimate";
+    public static final String PRESTO_RESULT_FORMAT = "X-Presto-Result-Format";
 
     public static final String PRESTO_CURRENT_STATE = "X-Presto-Current-State";
     public static final String PRESTO_MAX_WAIT = "X-Presto-Max-Wait";
@@ -40,6 +40,7 @@ public class QueryResults
     private final URI nextUri;
     private final List<Column> columns;
     private final Iterable<List<Object>> data;
+    private final byte[] columnarData;
     private final StatementStats stats;
     private final QueryError error;
     private final String updateType;
@@ -72,6 +73,22 @@ public class QueryResults
             QueryError error,
             String updateType,
             Long updateCount)
+    {
+        this(id, infoUri, partialCancelUri, nextUri, columns, data, null, stats, error, updateType, updateCount);
+    }
+
+    public QueryResults(
+            String id,
+            URI infoUri,
+            URI partialCancelUri,
+            URI nextUri,
+            List<Column> columns,
+            Iterable<List<Object>> data,
+            byte[] columnarData,
+            StatementStats stats,
+            QueryError error,
+            String updateType,
+            Long updateCount)
     {
         this.id = requireNonNull(id, "id is null");
         this.infoUri = requireNonNull(infoUri, "infoUri is null");
@@ -79,7 +96,10 @@ public class QueryResults
         this.nextUri = nextUri;
         this.columns = (columns != null) ? ImmutableList.copyOf(columns) : null;
         this.data = (data != null) ? unmodifiableIterable(data) : null;
+        this.columnarData = columnarData;
         checkArgument(data == null || columns != null, "data present without columns");
+        checkArgument(columnarData == null || columns != null, "columnar data present without columns");
+        checkArgument(data == null || columnarData == null, "both data and columnar data present");
         this.stats = requireNonNull(stats, "stats is null");
         this.error = error;
         this.updateType = updateType;
@@ -134,6 +154,18 @@ public class QueryResults
         return data;
     }
 
+    /**
+     * Result data in the {@link ColumnarData} encoding. This is only set on the
+     * server side and is not part of the JSON encoding, as it is sent after the
+     * JSON in a {@link ColumnarData#MEDIA_TYPE} response. Clients decode it into
+     * {@link #getData()}.
+     */
+    @Nullable
+    public byte[] getColumnarData()
+    {
+        return columnarData;
+    }
+
     @Nonnull
     @JsonProperty
     @Override
@@ -175,7 +207,7 @@ public class QueryResults
                 .add("partialCancelUri", partialCancelUri)
                 .add("nextUri", nextUri)
                 .add("columns", columns)
-                .add("hasData", data != null)
+                .add("hasData", data != null || columnarData != null)
                 .add("stats", stats)
                 .add("error", error)
                 .add("updateType", updateType)
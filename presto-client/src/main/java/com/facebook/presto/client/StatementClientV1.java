@@ -55,6 +55,7 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_DEALLOCATED_PREPAR
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_LANGUAGE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PREPARED_STATEMENT;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_RESOURCE_ESTIMATE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_RESULT_FORMAT;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SCHEMA;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_CATALOG;
@@ -126,7 +127,7 @@ class StatementClientV1
             throw requestFailedException("starting query", request, response);
         }
 
-        processResponse(response.getHeaders(), response.getValue());
+        processResponse(response.getHeaders(), getQueryResults(response));
     }
 
     private Request buildQueryRequest(ClientSession session, String query)
@@ -180,6 +181,10 @@ class StatementClientV1
 
         builder.addHeader(PRESTO_TRANSACTION_ID, session.getTransactionId() == null ? "NONE" : session.getTransactionId());
 
+        if (session.isColumnarResults()) {
+            builder.addHeader(PRESTO_RESULT_FORMAT, ColumnarData.FORMAT_NAME);
+        }
+
         return builder.build();
     }
 
@@ -357,7 +362,7 @@ class StatementClientV1
             }
 
             if ((response.getStatusCode() == HTTP_OK) && response.hasValue()) {
-                processResponse(response.getHeaders(), response.getValue());
+                processResponse(response.getHeaders(), getQueryResults(response));
                 return true;
             }
 
@@ -368,6 +373,14 @@ class StatementClientV1
         }
     }
 
+    private static QueryResults getQueryResults(JsonResponse<QueryResults> response)
+    {
+        if (response.getBinaryData() == null) {
+            return response.getValue();
+        }
+        return ColumnarData.decodeResults(response.getValue(), response.getBinaryData());
+    }
+
     private void processResponse(Headers headers, QueryResults results)
     {
         setCatalog.set(headers.get(PRESTO_SET_CATALOG));
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+
+public class TestColumnarData
+{
+    @Test
+    public void testDecode()
+    {
+        List<Column> columns = ImmutableList.of(
+                new Column("a", parseTypeSignature("bigint")),
+                new Column("b", parseTypeSignature("integer")),
+                new Column("c", parseTypeSignature("double")),
+                new Column("d", parseTypeSignature("real")),
+                new Column("e", parseTypeSignature("boolean")),
+                new Column("f", parseTypeSignature("varchar")),
+                new Column("g", parseTypeSignature("varbinary")),
+                new Column("h", parseTypeSignature("map(varchar,bigint)")));
+
+        byte[] json = "{\"x\":1}".getBytes(UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(LITTLE_ENDIAN);
+        buffer.put(ColumnarData.FORMAT_VERSION).putInt(2).putInt(columns.size());
+        buffer.put(ColumnarData.LONG).put((byte) 0).put((byte) 1).putLong(42);
+        buffer.put(ColumnarData.LONG).put((byte) 1).put((byte) 0).putLong(7);
+        buffer.put(ColumnarData.DOUBLE).put((byte) 0).put((byte) 1).putDouble(1.5);
+        buffer.put(ColumnarData.REAL).put((byte) 0).put((byte) 1).putFloat(2.5f);
+        buffer.put(ColumnarData.BOOLEAN).put((byte) 0).put((byte) 0).put((byte) 1).put((byte) 0);
+        buffer.put(ColumnarData.STRING).put((byte) 0).put((byte) 1).putInt(3).put("abc".getBytes(UTF_8));
+        buffer.put(ColumnarData.BINARY).put((byte) 1).put((byte) 1);
+        buffer.put(ColumnarData.JSON).put((byte) 0).put((byte) 1).putInt(json.length).put(json);
+        byte[] data = Arrays.copyOf(buffer.array(), buffer.position());
+
+        List<List<Object>> rows = ColumnarData.decode(columns, data);
+        assertEquals(rows, ImmutableList.of(
+                Arrays.asList(42L, null, 1.5, 2.5f, true, "abc", null, ImmutableMap.of("x", 1L)),
+                Arrays.asList(null, 7, null, null, false, null, null, null)));
+    }
+
+    @Test
+    public void testDecodeTemporalAndDecimal()
+    {
+        List<Column> columns = ImmutableList.of(
+                new Column("a", parseTypeSignature("date")),
+                new Column("b", parseTypeSignature("time")),
+                new Column("c", parseTypeSignature("timestamp")),
+                new Column("d", parseTypeSignature("decimal(10,2)")),
+                new Column("e", parseTypeSignature("decimal(30,3)")));
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(LITTLE_ENDIAN);
+        buffer.put(ColumnarData.FORMAT_VERSION).putInt(1).putInt(columns.size());
+        buffer.put(ColumnarData.DATE).put((byte) 0).putInt(17533);
+        buffer.put(ColumnarData.TIME).put((byte) 0).putLong(11_045_678);
+        buffer.put(ColumnarData.TIMESTAMP).put((byte) 0).putLong(1_514_862_245_678L);
+        buffer.put(ColumnarData.SHORT_DECIMAL).put((byte) 0).putLong(-1234);
+        byte[] unscaled = new BigInteger("-1234567890123456789012345").toByteArray();
+        buffer.put(ColumnarData.LONG_DECIMAL).put((byte) 0).putInt(unscaled.length).put(unscaled);
+        byte[] data = Arrays.copyOf(buffer.array(), buffer.position());
+
+        assertEquals(ColumnarData.decode(columns, data), ImmutableList.of(
+                ImmutableList.of("2018-01-02", "03:04:05.678", "2018-01-02 03:04:05.678", "-12.34", "-1234567890123456789012.345")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Unsupported columnar data format version: 99")
+    public void testUnknownVersion()
+    {
+        ColumnarData.decode(ImmutableList.of(), new byte[] {99, 0, 0, 0, 0, 0, 0, 0, 0});
+    }
+}
@@ -29,16 +29,19 @@ import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Streams;
 import com.google.common.io.CharStreams;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocatedFileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
 import org.apache.hadoop.hive.ql.io.SymlinkTextInputFormat;
 import org.apache.hadoop.mapred.FileInputFormat;
 import org.apache.hadoop.mapred.FileSplit;
@@ -50,17 +53,23 @@ import org.apache.hadoop.mapred.TextInputFormat;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.lang.annotation.Annotation;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.IntPredicate;
 
@@ -99,11 +108,14 @@ public class BackgroundHiveSplitLoader
     private final NamenodeStats namenodeStats;
     private final DirectoryLister directoryLister;
     private final int loaderConcurrency;
+    private final int listingPrefetch;
     private final boolean recursiveDirWalkerEnabled;
     private final Executor executor;
     private final ConnectorSession session;
     private final ConcurrentLazyQueue<HivePartitionMetadata> partitions;
     private final Deque<Iterator<InternalHiveSplit>> fileIterators = new ConcurrentLinkedDeque<>();
+    private final Map<Path, ListingPrefetch> prefetchedListings = new ConcurrentHashMap<>();
+    private final DirectoryLister prefetchingDirectoryLister = this::listDirectory;
 
     // Purpose of this lock:
     // * Write lock: when you need a consistent view across partitions, fileIterators, and hiveSplitSource.
@@ -136,19 +148,27 @@ public class BackgroundHiveSplitLoader
             DirectoryLister directoryLister,
             Executor executor,
             int loaderConcurrency,
+            int listingPrefetch,
             boolean recursiveDirWalkerEnabled)
     {
+        checkArgument(listingPrefetch >= 0, "listingPrefetch is negative");
         this.table = table;
         this.compactEffectivePredicate = compactEffectivePredicate;
         this.tableBucketInfo = tableBucketInfo;
         this.loaderConcurrency = loaderConcurrency;
+        this.listingPrefetch = listingPrefetch;
         this.session = session;
         this.hdfsEnvironment = hdfsEnvironment;
         this.namenodeStats = namenodeStats;
         this.directoryLister = directoryLister;
         this.recursiveDirWalkerEnabled = recursiveDirWalkerEnabled;
         this.executor = executor;
-        this.partitions = new ConcurrentLazyQueue<>(partitions);
+        if (listingPrefetch > 0) {
+            this.partitions = new ConcurrentLazyQueue<>(() -> new PrefetchingPartitionIterator(partitions.iterator()));
+        }
+        else {
+            this.partitions = new ConcurrentLazyQueue<>(partitions);
+        }
         this.hdfsContext = new HdfsContext(session, table.getDatabaseName(), table.getTableName());
     }
 
@@ -165,6 +185,7 @@ public class BackgroundHiveSplitLoader
     public void stop()
     {
         stopped = true;
+        prefetchedListings.clear();
     }
 
     private class HiveSplitLoaderTask
@@ -274,6 +295,8 @@ public class BackgroundHiveSplitLoader
         FileSystem fs = hdfsEnvironment.getFileSystem(hdfsContext, path);
 
         if (inputFormat instanceof SymlinkTextInputFormat) {
+            // the files are not listed by the split loader
+            prefetchedListings.remove(path);
             if (tableBucketInfo.isPresent()) {
                 throw new PrestoException(NOT_SUPPORTED, "Bucketed table in SymlinkTextInputFormat is not yet supported");
             }
@@ -332,6 +355,7 @@ public class BackgroundHiveSplitLoader
         // To support custom input formats, we want to call getSplits()
         // on the input format to obtain file splits.
         if (shouldUseFileSplitsFromInputFormat(inputFormat)) {
+            prefetchedListings.remove(path);
             if (tableBucketInfo.isPresent()) {
                 throw new PrestoException(NOT_SUPPORTED, "Presto cannot read bucketed partition in an input format with UseFileSplitsFromInputFormat annotation: " + inputFormat.getClass().getSimpleName());
             }
@@ -378,7 +402,7 @@ public class BackgroundHiveSplitLoader
 
     private Iterator<InternalHiveSplit> createInternalHiveSplitIterator(Path path, FileSystem fileSystem, InternalHiveSplitFactory splitFactory, boolean splittable)
     {
-        return Streams.stream(new HiveFileIterator(path, fileSystem, directoryLister, namenodeStats, recursiveDirWalkerEnabled ? RECURSE : IGNORED))
+        return Streams.stream(new HiveFileIterator(table, path, fileSystem, prefetchingDirectoryLister, namenodeStats, recursiveDirWalkerEnabled ? RECURSE : IGNORED))
                 .map(status -> splitFactory.createInternalHiveSplit(status, splittable))
                 .filter(Optional::isPresent)
                 .map(Optional::get)
@@ -393,7 +417,7 @@ public class BackgroundHiveSplitLoader
         // list all files in the partition
         ArrayList<LocatedFileStatus> files = new ArrayList<>(partitionBucketCount);
         try {
-            Iterators.addAll(files, new HiveFileIterator(path, fileSystem, directoryLister, namenodeStats, FAIL));
+            Iterators.addAll(files, new HiveFileIterator(table, path, fileSystem, prefetchingDirectoryLister, namenodeStats, FAIL));
         }
         catch (NestedDirectoryNotAllowedException e) {
             // Fail here to be on the safe side. This seems to be the same as what Hive does
@@ -490,6 +514,118 @@ public class BackgroundHiveSplitLoader
         return partition.get().getStorage().getLocation();
     }
 
+    private RemoteIterator<LocatedFileStatus> listDirectory(FileSystem fileSystem, Table table, Path path)
+            throws IOException
+    {
+        ListingPrefetch prefetch = prefetchedListings.remove(path);
+        if (prefetch != null) {
+            Optional<List<LocatedFileStatus>> files = prefetch.getFiles();
+            if (files.isPresent()) {
+                return new SimpleRemoteIterator(files.get().iterator());
+            }
+        }
+        return directoryLister.list(fileSystem, table, path);
+    }
+
+    private void prefetchListing(HivePartitionMetadata partition)
+    {
+        if (stopped) {
+            return;
+        }
+        Path path = new Path(getPartitionLocation(table, partition.getPartition()));
+        ListingPrefetch prefetch = new ListingPrefetch(path);
+        if (prefetchedListings.putIfAbsent(path, prefetch) == null) {
+            executor.execute(prefetch);
+        }
+    }
+
+    /**
+     * Hands out the partitions in order, while the directories of the next
+     * partitions are listed in the background.
+     */
+    private class PrefetchingPartitionIterator
+            extends AbstractIterator<HivePartitionMetadata>
+    {
+        private final Iterator<HivePartitionMetadata> partitions;
+        private final Deque<HivePartitionMetadata> prefetched = new ArrayDeque<>();
+
+        public PrefetchingPartitionIterator(Iterator<HivePartitionMetadata> partitions)
+        {
+            this.partitions = requireNonNull(partitions, "partitions is null");
+        }
+
+        @Override
+        protected HivePartitionMetadata computeNext()
+        {
+            while (prefetched.size() <= listingPrefetch && partitions.hasNext()) {
+                HivePartitionMetadata partition = partitions.next();
+                prefetchListing(partition);
+                prefetched.addLast(partition);
+            }
+            if (prefetched.isEmpty()) {
+                return endOfData();
+            }
+            return prefetched.removeFirst();
+        }
+    }
+
+    private class ListingPrefetch
+            implements Runnable
+    {
+        private final Path path;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final SettableFuture<List<LocatedFileStatus>> files = SettableFuture.create();
+
+        public ListingPrefetch(Path path)
+        {
+            this.path = requireNonNull(path, "path is null");
+        }
+
+        @Override
+        public void run()
+        {
+            if (stopped || !claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                FileSystem fileSystem = hdfsEnvironment.getFileSystem(hdfsContext, path);
+                ImmutableList.Builder<LocatedFileStatus> builder = ImmutableList.builder();
+                RemoteIterator<LocatedFileStatus> iterator = directoryLister.list(fileSystem, table, path);
+                while (iterator.hasNext()) {
+                    builder.add(iterator.next());
+                }
+                files.set(builder.build());
+            }
+            catch (IOException | RuntimeException e) {
+                files.setException(e);
+            }
+        }
+
+        /**
+         * Returns the prefetched files, or empty if the directory must be listed
+         * by the caller. A prefetch that did not start yet is abandoned rather than
+         * waited for, since it may be queued behind the split loader itself.
+         */
+        public Optional<List<LocatedFileStatus>> getFiles()
+                throws InterruptedIOException
+        {
+            if (claimed.compareAndSet(false, true)) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(files.get());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while listing " + path);
+            }
+            catch (ExecutionException e) {
+                // list the directory again, so the failure is reported as without prefetching
+                return Optional.empty();
+            }
+        }
+    }
+
     public static class BucketSplitInfo
     {
         private final List<HiveColumnHandle> bucketColumns;
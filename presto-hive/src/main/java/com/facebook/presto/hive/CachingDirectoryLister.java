@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.spi.SchemaTableName;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the directory listings of the configured tables. The listings are
+ * never invalidated by writes, so the cache is meant for tables whose
+ * partitions are immutable once written.
+ */
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final Cache<Path, List<LocatedFileStatus>> cache;
+    private final List<Predicate<SchemaTableName>> tablePatterns;
+    private final TimeStat listingTime = new TimeStat(MILLISECONDS);
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig hiveClientConfig)
+    {
+        this(
+                new HadoopDirectoryLister(),
+                hiveClientConfig.getFileStatusCacheExpireTime(),
+                hiveClientConfig.getFileStatusCacheMaxSize(),
+                hiveClientConfig.getFileStatusCacheTables());
+    }
+
+    public CachingDirectoryLister(DirectoryLister delegate, Duration expireAfterWrite, long maxFileStatuses, List<String> tables)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        requireNonNull(expireAfterWrite, "expireAfterWrite is null");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxFileStatuses)
+                .weigher((Path path, List<LocatedFileStatus> files) -> files.size())
+                .expireAfterWrite(expireAfterWrite.toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+        this.tablePatterns = requireNonNull(tables, "tables is null").stream()
+                .map(CachingDirectoryLister::parseTablePattern)
+                .collect(toImmutableList());
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Table table, Path path)
+            throws IOException
+    {
+        if (!isCached(table)) {
+            return delegate.list(fs, table, path);
+        }
+
+        List<LocatedFileStatus> files = cache.getIfPresent(path);
+        if (files == null) {
+            ImmutableList.Builder<LocatedFileStatus> builder = ImmutableList.builder();
+            try (TimeStat.BlockTimer ignored = listingTime.time()) {
+                RemoteIterator<LocatedFileStatus> iterator = delegate.list(fs, table, path);
+                while (iterator.hasNext()) {
+                    builder.add(iterator.next());
+                }
+            }
+            files = builder.build();
+            cache.put(path, files);
+        }
+        return new SimpleRemoteIterator(files.iterator());
+    }
+
+    private boolean isCached(Table table)
+    {
+        if (tablePatterns.isEmpty()) {
+            return false;
+        }
+        SchemaTableName tableName = new SchemaTableName(table.getDatabaseName(), table.getTableName());
+        return tablePatterns.stream().anyMatch(pattern -> pattern.test(tableName));
+    }
+
+    private static Predicate<SchemaTableName> parseTablePattern(String pattern)
+    {
+        List<String> parts = Splitter.on('.').splitToList(pattern.toLowerCase(ENGLISH));
+        checkArgument(parts.size() == 2, "Table pattern must be in the form schema.table: %s", pattern);
+        String schemaPattern = parts.get(0);
+        String tablePattern = parts.get(1);
+        return tableName -> matches(schemaPattern, tableName.getSchemaName()) && matches(tablePattern, tableName.getTableName());
+    }
+
+    private static boolean matches(String pattern, String name)
+    {
+        return pattern.equals("*") || pattern.equals(name);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getListingTime()
+    {
+        return listingTime;
+    }
+
+    @Managed
+    public long getFileStatusCount()
+    {
+        return cache.asMap().values().stream()
+                .mapToLong(List::size)
+                .sum();
+    }
+
+    @Managed
+    public long getDirectoryCount()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+}
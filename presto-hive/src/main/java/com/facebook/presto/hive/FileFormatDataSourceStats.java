@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive;
 
+import io.airlift.stats.CounterStat;
 import io.airlift.stats.DistributionStat;
 import io.airlift.stats.TimeStat;
 import org.weakref.jmx.Managed;
@@ -29,6 +30,8 @@ public class FileFormatDataSourceStats
     private final TimeStat time100KBto1MB = new TimeStat(MILLISECONDS);
     private final TimeStat time1MBto10MB = new TimeStat(MILLISECONDS);
     private final TimeStat time10MBPlus = new TimeStat(MILLISECONDS);
+    private final CounterStat cacheHitBytes = new CounterStat();
+    private final CounterStat cacheMissBytes = new CounterStat();
 
     @Managed
     @Nested
@@ -72,6 +75,20 @@ public class FileFormatDataSourceStats
         return time10MBPlus;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getCacheHitBytes()
+    {
+        return cacheHitBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getCacheMissBytes()
+    {
+        return cacheMissBytes;
+    }
+
     public void readDataBytesPerSecond(long bytes, long nanos)
     {
         readBytes.add(bytes);
@@ -93,4 +110,14 @@ public class FileFormatDataSourceStats
     {
         maxCombinedBytesPerRow.add(bytes);
     }
+
+    public void addCacheHitBytes(long bytes)
+    {
+        cacheHitBytes.update(bytes);
+    }
+
+    public void addCacheMissBytes(long bytes)
+    {
+        cacheMissBytes.update(bytes);
+    }
 }
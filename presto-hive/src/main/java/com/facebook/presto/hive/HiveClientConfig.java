@@ -63,7 +63,13 @@ public class HiveClientConfig
     private int domainCompactionThreshold = 100;
     private DataSize writerSortBufferSize = new DataSize(64, MEGABYTE);
     private boolean forceLocalScheduling;
+    private boolean softAffinitySchedulingEnabled;
     private boolean recursiveDirWalkerEnabled;
+    private int splitLoaderListingPrefetch = 8;
+
+    private List<String> fileStatusCacheTables = ImmutableList.of();
+    private Duration fileStatusCacheExpireTime = new Duration(1, TimeUnit.MINUTES);
+    private long fileStatusCacheMaxSize = 1_000_000;
 
     private int maxConcurrentFileRenames = 20;
 
@@ -111,6 +117,9 @@ public class HiveClientConfig
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
     private DataSize orcMaxReadBlockSize = new DataSize(16, MEGABYTE);
     private boolean orcLazyReadSmallRanges = true;
+    private boolean orcMetadataCacheEnabled;
+    private DataSize orcMetadataCacheMaxSize = new DataSize(256, MEGABYTE);
+    private Duration orcMetadataCacheTtl = new Duration(1, TimeUnit.HOURS);
     private boolean orcOptimizedWriterEnabled;
     private double orcWriterValidationPercentage = 100.0;
     private OrcWriteValidationMode orcWriterValidationMode = OrcWriteValidationMode.BOTH;
@@ -133,6 +142,7 @@ public class HiveClientConfig
     private boolean createsOfNonManagedTablesEnabled = true;
 
     private boolean tableStatisticsEnabled = true;
+    private boolean tableDataVersionsEnabled;
 
     public int getMaxInitialSplits()
     {
@@ -214,6 +224,19 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isSoftAffinitySchedulingEnabled()
+    {
+        return softAffinitySchedulingEnabled;
+    }
+
+    @Config("hive.soft-affinity-scheduling-enabled")
+    @ConfigDescription("Prefer scheduling splits of the same file on the same worker, so they can be served from its local cache")
+    public HiveClientConfig setSoftAffinitySchedulingEnabled(boolean softAffinitySchedulingEnabled)
+    {
+        this.softAffinitySchedulingEnabled = softAffinitySchedulingEnabled;
+        return this;
+    }
+
     @Min(1)
     public int getMaxConcurrentFileRenames()
     {
@@ -239,6 +262,61 @@ public class HiveClientConfig
         return recursiveDirWalkerEnabled;
     }
 
+    @Min(0)
+    public int getSplitLoaderListingPrefetch()
+    {
+        return splitLoaderListingPrefetch;
+    }
+
+    @Config("hive.split-loader-listing-prefetch")
+    @ConfigDescription("Number of partitions listed in the background ahead of the split loader")
+    public HiveClientConfig setSplitLoaderListingPrefetch(int splitLoaderListingPrefetch)
+    {
+        this.splitLoaderListingPrefetch = splitLoaderListingPrefetch;
+        return this;
+    }
+
+    @NotNull
+    public List<String> getFileStatusCacheTables()
+    {
+        return fileStatusCacheTables;
+    }
+
+    @Config("hive.file-status-cache-tables")
+    @ConfigDescription("Tables with cached directory listings, as comma separated schema.table patterns where * matches any name")
+    public HiveClientConfig setFileStatusCacheTables(String fileStatusCacheTables)
+    {
+        this.fileStatusCacheTables = SPLITTER.splitToList(fileStatusCacheTables);
+        return this;
+    }
+
+    @NotNull
+    public Duration getFileStatusCacheExpireTime()
+    {
+        return fileStatusCacheExpireTime;
+    }
+
+    @Config("hive.file-status-cache-expire-time")
+    public HiveClientConfig setFileStatusCacheExpireTime(Duration fileStatusCacheExpireTime)
+    {
+        this.fileStatusCacheExpireTime = fileStatusCacheExpireTime;
+        return this;
+    }
+
+    @Min(0)
+    public long getFileStatusCacheMaxSize()
+    {
+        return fileStatusCacheMaxSize;
+    }
+
+    @Config("hive.file-status-cache-size")
+    @ConfigDescription("Maximum number of file statuses in the directory listing cache")
+    public HiveClientConfig setFileStatusCacheMaxSize(long fileStatusCacheMaxSize)
+    {
+        this.fileStatusCacheMaxSize = fileStatusCacheMaxSize;
+        return this;
+    }
+
     public DateTimeZone getDateTimeZone()
     {
         return DateTimeZone.forTimeZone(TimeZone.getTimeZone(timeZone));
@@ -767,6 +845,46 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOrcMetadataCacheEnabled()
+    {
+        return orcMetadataCacheEnabled;
+    }
+
+    @Config("hive.orc.metadata-cache.enabled")
+    @ConfigDescription("Cache decoded ORC file tails, stripe footers and row indexes")
+    public HiveClientConfig setOrcMetadataCacheEnabled(boolean orcMetadataCacheEnabled)
+    {
+        this.orcMetadataCacheEnabled = orcMetadataCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getOrcMetadataCacheMaxSize()
+    {
+        return orcMetadataCacheMaxSize;
+    }
+
+    @Config("hive.orc.metadata-cache.max-size")
+    public HiveClientConfig setOrcMetadataCacheMaxSize(DataSize orcMetadataCacheMaxSize)
+    {
+        this.orcMetadataCacheMaxSize = orcMetadataCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getOrcMetadataCacheTtl()
+    {
+        return orcMetadataCacheTtl;
+    }
+
+    @Config("hive.orc.metadata-cache.ttl")
+    @ConfigDescription("Time since last access after which cached ORC metadata is evicted")
+    public HiveClientConfig setOrcMetadataCacheTtl(Duration orcMetadataCacheTtl)
+    {
+        this.orcMetadataCacheTtl = orcMetadataCacheTtl;
+        return this;
+    }
+
     @Deprecated
     public boolean isOrcLazyReadSmallRanges()
     {
@@ -1044,4 +1162,17 @@ public class HiveClientConfig
     {
         return tableStatisticsEnabled;
     }
+
+    @Config("hive.table-data-versions-enabled")
+    @ConfigDescription("Derive table data versions from metastore metadata, allowing query results to be cached. Only safe if all writes go through the metastore")
+    public HiveClientConfig setTableDataVersionsEnabled(boolean tableDataVersionsEnabled)
+    {
+        this.tableDataVersionsEnabled = tableDataVersionsEnabled;
+        return this;
+    }
+
+    public boolean isTableDataVersionsEnabled()
+    {
+        return tableDataVersionsEnabled;
+    }
 }
@@ -13,12 +13,15 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.hive.cache.HiveCacheConfig;
+import com.facebook.presto.hive.cache.LocalFileCache;
 import com.facebook.presto.hive.metastore.SemiTransactionalHiveMetastore;
 import com.facebook.presto.hive.orc.DwrfPageSourceFactory;
 import com.facebook.presto.hive.orc.OrcPageSourceFactory;
 import com.facebook.presto.hive.parquet.ParquetPageSourceFactory;
 import com.facebook.presto.hive.parquet.ParquetRecordCursorProvider;
 import com.facebook.presto.hive.rcfile.RcFilePageSourceFactory;
+import com.facebook.presto.orc.OrcMetadataCache;
 import com.facebook.presto.spi.connector.ConnectorNodePartitioningProvider;
 import com.facebook.presto.spi.connector.ConnectorPageSinkProvider;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
@@ -29,9 +32,11 @@ import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.multibindings.Multibinder;
 import io.airlift.event.client.EventClient;
+import io.airlift.units.DataSize;
 
 import javax.inject.Singleton;
 
+import java.io.File;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 
@@ -39,6 +44,7 @@ import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.configuration.ConfigBinder.configBinder;
 import static io.airlift.json.JsonCodecBinder.jsonCodecBinder;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.weakref.jmx.ObjectNames.generatedNameOf;
@@ -64,7 +70,8 @@ public class HiveClientModule
         binder.bind(HdfsConfigurationUpdater.class).in(Scopes.SINGLETON);
         binder.bind(HdfsConfiguration.class).to(HiveHdfsConfiguration.class).in(Scopes.SINGLETON);
         binder.bind(HdfsEnvironment.class).in(Scopes.SINGLETON);
-        binder.bind(DirectoryLister.class).to(HadoopDirectoryLister.class).in(Scopes.SINGLETON);
+        binder.bind(DirectoryLister.class).to(CachingDirectoryLister.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(DirectoryLister.class).as(generatedNameOf(CachingDirectoryLister.class, connectorId));
         configBinder(binder).bindConfig(HiveClientConfig.class);
 
         binder.bind(HiveSessionProperties.class).in(Scopes.SINGLETON);
@@ -96,6 +103,9 @@ public class HiveClientModule
 
         binder.bind(FileFormatDataSourceStats.class).in(Scopes.SINGLETON);
         newExporter(binder).export(FileFormatDataSourceStats.class).as(generatedNameOf(FileFormatDataSourceStats.class, connectorId));
+        newExporter(binder).export(OrcMetadataCache.class).as(generatedNameOf(OrcMetadataCache.class, connectorId));
+        configBinder(binder).bindConfig(HiveCacheConfig.class);
+        newExporter(binder).export(LocalFileCache.class).as(generatedNameOf(LocalFileCache.class, connectorId));
 
         Multibinder<HivePageSourceFactory> pageSourceFactoryBinder = newSetBinder(binder, HivePageSourceFactory.class);
         pageSourceFactoryBinder.addBinding().to(OrcPageSourceFactory.class).in(Scopes.SINGLETON);
@@ -129,6 +139,28 @@ public class HiveClientModule
                 daemonThreadsNamed("hive-metastore-" + hiveClientId + "-%s"));
     }
 
+    @Singleton
+    @Provides
+    public OrcMetadataCache createOrcMetadataCache(HiveClientConfig hiveClientConfig)
+    {
+        DataSize maxSize = hiveClientConfig.isOrcMetadataCacheEnabled() ? hiveClientConfig.getOrcMetadataCacheMaxSize() : new DataSize(0, BYTE);
+        return new OrcMetadataCache(maxSize, hiveClientConfig.getOrcMetadataCacheTtl());
+    }
+
+    @Singleton
+    @Provides
+    public LocalFileCache createLocalFileCache(HiveConnectorId hiveClientId, HiveCacheConfig cacheConfig)
+    {
+        if (!cacheConfig.isEnabled()) {
+            return LocalFileCache.NO_CACHE;
+        }
+        // each catalog owns a separate directory, as the cache discards its contents on startup
+        return new LocalFileCache(
+                new File(cacheConfig.getBaseDirectory(), hiveClientId.toString()),
+                cacheConfig.getMaxSize(),
+                cacheConfig.getBlockSize());
+    }
+
     @Singleton
     @Provides
     public Function<HiveTransactionHandle, SemiTransactionalHiveMetastore> createMetastoreGetter(HiveTransactionManager transactionManager)
@@ -75,6 +75,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
 import io.airlift.json.JsonCodec;
 import io.airlift.slice.Slice;
 import org.apache.hadoop.fs.Path;
@@ -94,6 +95,8 @@ import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -121,6 +124,7 @@ import static com.facebook.presto.hive.HiveSessionProperties.isBucketExecutionEn
 import static com.facebook.presto.hive.HiveSessionProperties.isRespectTableFormat;
 import static com.facebook.presto.hive.HiveSessionProperties.isSortedWritingEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isStatisticsEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isTableDataVersionsEnabled;
 import static com.facebook.presto.hive.HiveTableProperties.BUCKETED_BY_PROPERTY;
 import static com.facebook.presto.hive.HiveTableProperties.BUCKET_COUNT_PROPERTY;
 import static com.facebook.presto.hive.HiveTableProperties.EXTERNAL_LOCATION_PROPERTY;
@@ -175,7 +179,9 @@ import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Streams.stream;
+import static com.google.common.hash.Hashing.sha256;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
@@ -196,6 +202,7 @@ public class HiveMetadata
     private static final String ORC_BLOOM_FILTER_FPP_KEY = "orc.bloom.filter.fpp";
 
     private static final String PARTITIONS_TABLE_SUFFIX = "$partitions";
+    private static final int MAX_DATA_VERSION_PARTITIONS = 10_000;
 
     private final boolean allowCorruptWritesForTesting;
     private final SemiTransactionalHiveMetastore metastore;
@@ -514,6 +521,55 @@ public class HiveMetadata
         return hiveStatisticsProvider.getTableStatistics(session, tableHandle, hivePartitions, tableColumns);
     }
 
+    @Override
+    public Optional<String> getTableDataVersion(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        if (!isTableDataVersionsEnabled(session)) {
+            return Optional.empty();
+        }
+        SchemaTableName tableName = schemaTableName(tableHandle);
+        Optional<Table> table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
+        // files of external tables are commonly written without going through the metastore
+        if (!table.isPresent() || !table.get().getTableType().equals(MANAGED_TABLE.name())) {
+            return Optional.empty();
+        }
+
+        // Writes through the metastore update the DDL time, the basic statistics or the
+        // writing query of the table or partition they touch, so the parameters and locations
+        // of the table and all of its partitions identify the current data. Files changed
+        // behind the back of the metastore are not detected, hence the opt-in.
+        Hasher hasher = sha256().newHasher();
+        putDataVersion(hasher, table.get().getStorage().getLocation(), table.get().getParameters());
+        if (!table.get().getPartitionColumns().isEmpty()) {
+            List<String> partitionNames = metastore.getPartitionNames(tableName.getSchemaName(), tableName.getTableName())
+                    .orElseThrow(() -> new TableNotFoundException(tableName));
+            if (partitionNames.size() > MAX_DATA_VERSION_PARTITIONS) {
+                return Optional.empty();
+            }
+            Map<String, Optional<Partition>> partitions = metastore.getPartitionsByNames(tableName.getSchemaName(), tableName.getTableName(), partitionNames);
+            for (String partitionName : new TreeSet<>(partitionNames)) {
+                Optional<Partition> partition = partitions.get(partitionName);
+                if (partition == null || !partition.isPresent()) {
+                    // partition dropped concurrently
+                    return Optional.empty();
+                }
+                hasher.putString(partitionName, UTF_8);
+                putDataVersion(hasher, partition.get().getStorage().getLocation(), partition.get().getParameters());
+            }
+        }
+        return Optional.of(hasher.hash().toString());
+    }
+
+    private static void putDataVersion(Hasher hasher, String location, Map<String, String> parameters)
+    {
+        hasher.putString(location, UTF_8);
+        new TreeMap<>(parameters).forEach((key, value) -> hasher
+                .putInt(key.length())
+                .putString(key, UTF_8)
+                .putInt(value.length())
+                .putString(value, UTF_8));
+    }
+
     private List<HivePartition> getPartitionsAsList(ConnectorTableHandle tableHandle, Constraint<ColumnHandle> constraint)
     {
         HivePartitionResult partitions = partitionManager.getPartitions(metastore, tableHandle, constraint);
@@ -19,10 +19,13 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
@@ -47,6 +50,7 @@ import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.SYNTHESIZED;
 import static com.facebook.presto.hive.HivePageSourceProvider.ColumnMapping.toColumnHandles;
 import static com.facebook.presto.hive.HiveUtil.getPrefilledColumnValue;
+import static com.facebook.presto.hive.HiveUtil.parsePartitionValue;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
@@ -82,6 +86,12 @@ public class HivePageSourceProvider
 
     @Override
     public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns)
+    {
+        return createPageSource(transaction, session, split, columns, TupleDomain.all());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
     {
         List<HiveColumnHandle> hiveColumns = columns.stream()
                 .map(HiveColumnHandle.class::cast)
@@ -90,6 +100,15 @@ public class HivePageSourceProvider
         HiveSplit hiveSplit = (HiveSplit) split;
         Path path = new Path(hiveSplit.getPath());
 
+        TupleDomain<HiveColumnHandle> dynamicPredicate = getDynamicPredicate(hiveSplit, dynamicFilter);
+        if (!partitionMatches(hiveSplit.getPartitionKeys(), dynamicPredicate)) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate().intersect(dynamicPredicate);
+        if (effectivePredicate.isNone()) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+
         Optional<ConnectorPageSource> pageSource = createHivePageSource(
                 cursorProviders,
                 pageSourceFactories,
@@ -101,7 +120,7 @@ public class HivePageSourceProvider
                 hiveSplit.getLength(),
                 hiveSplit.getFileSize(),
                 hiveSplit.getSchema(),
-                hiveSplit.getEffectivePredicate(),
+                effectivePredicate,
                 hiveColumns,
                 hiveSplit.getPartitionKeys(),
                 hiveStorageTimeZone,
@@ -114,6 +133,36 @@ public class HivePageSourceProvider
         throw new RuntimeException("Could not find a file reader for split " + hiveSplit);
     }
 
+    private static TupleDomain<HiveColumnHandle> getDynamicPredicate(HiveSplit hiveSplit, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        // the dynamic filter is expressed in terms of the table schema, so skip
+        // columns that need to be coerced from a different partition schema
+        return dynamicFilter
+                .transform(HiveColumnHandle.class::cast)
+                .transform(column -> hiveSplit.getColumnCoercions().containsKey(column.getHiveColumnIndex()) ? null : column);
+    }
+
+    private boolean partitionMatches(List<HivePartitionKey> partitionKeys, TupleDomain<HiveColumnHandle> dynamicPredicate)
+    {
+        if (dynamicPredicate.isNone()) {
+            return false;
+        }
+        Map<String, HivePartitionKey> partitionKeysByName = uniqueIndex(partitionKeys, HivePartitionKey::getName);
+        for (Map.Entry<HiveColumnHandle, Domain> entry : dynamicPredicate.getDomains().get().entrySet()) {
+            HiveColumnHandle column = entry.getKey();
+            HivePartitionKey partitionKey = partitionKeysByName.get(column.getName());
+            if (!column.isPartitionKey() || partitionKey == null) {
+                continue;
+            }
+            Type type = typeManager.getType(column.getTypeSignature());
+            NullableValue value = parsePartitionValue(partitionKey.getName(), partitionKey.getValue(), type, hiveStorageTimeZone);
+            if (!entry.getValue().includesNullableValue(value.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static Optional<ConnectorPageSource> createHivePageSource(
             Set<HiveRecordCursorProvider> cursorProviders,
             Set<HivePageSourceFactory> pageSourceFactories,
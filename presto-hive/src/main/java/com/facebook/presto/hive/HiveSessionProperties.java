@@ -40,6 +40,7 @@ public final class HiveSessionProperties
 {
     private static final String BUCKET_EXECUTION_ENABLED = "bucket_execution_enabled";
     private static final String FORCE_LOCAL_SCHEDULING = "force_local_scheduling";
+    private static final String SOFT_AFFINITY_SCHEDULING_ENABLED = "soft_affinity_scheduling_enabled";
     private static final String INSERT_EXISTING_PARTITIONS_BEHAVIOR = "insert_existing_partitions_behavior";
     private static final String ORC_BLOOM_FILTERS_ENABLED = "orc_bloom_filters_enabled";
     private static final String ORC_MAX_MERGE_DISTANCE = "orc_max_merge_distance";
@@ -68,6 +69,7 @@ public final class HiveSessionProperties
     private static final String SORTED_WRITING_ENABLED = "sorted_writing_enabled";
     private static final String WRITER_SORT_BUFFER_SIZE = "writer_sort_buffer_size";
     private static final String STATISTICS_ENABLED = "statistics_enabled";
+    private static final String TABLE_DATA_VERSIONS_ENABLED = "table_data_versions_enabled";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -103,6 +105,11 @@ public final class HiveSessionProperties
                         "Only schedule splits on workers colocated with data node",
                         hiveClientConfig.isForceLocalScheduling(),
                         false),
+                booleanSessionProperty(
+                        SOFT_AFFINITY_SCHEDULING_ENABLED,
+                        "Prefer scheduling splits of the same file on the same worker",
+                        hiveClientConfig.isSoftAffinitySchedulingEnabled(),
+                        false),
                 new PropertyMetadata<>(
                         INSERT_EXISTING_PARTITIONS_BEHAVIOR,
                         "Behavior on insert existing partitions; this session property doesn't control behavior on insert existing unpartitioned table",
@@ -246,6 +253,11 @@ public final class HiveSessionProperties
                         STATISTICS_ENABLED,
                         "Experimental: Expose table statistics",
                         hiveClientConfig.isTableStatisticsEnabled(),
+                        false),
+                booleanSessionProperty(
+                        TABLE_DATA_VERSIONS_ENABLED,
+                        "Derive table data versions from metastore metadata, allowing query results to be cached",
+                        hiveClientConfig.isTableDataVersionsEnabled(),
                         false));
     }
 
@@ -264,6 +276,11 @@ public final class HiveSessionProperties
         return session.getProperty(FORCE_LOCAL_SCHEDULING, Boolean.class);
     }
 
+    public static boolean isSoftAffinitySchedulingEnabled(ConnectorSession session)
+    {
+        return session.getProperty(SOFT_AFFINITY_SCHEDULING_ENABLED, Boolean.class);
+    }
+
     public static InsertExistingPartitionsBehavior getInsertExistingPartitionsBehavior(ConnectorSession session)
     {
         return session.getProperty(INSERT_EXISTING_PARTITIONS_BEHAVIOR, InsertExistingPartitionsBehavior.class);
@@ -414,6 +431,11 @@ public final class HiveSessionProperties
         return session.getProperty(STATISTICS_ENABLED, Boolean.class);
     }
 
+    public static boolean isTableDataVersionsEnabled(ConnectorSession session)
+    {
+        return session.getProperty(TABLE_DATA_VERSIONS_ENABLED, Boolean.class);
+    }
+
     public static PropertyMetadata<DataSize> dataSizeSessionProperty(String name, String description, DataSize defaultValue, boolean hidden)
     {
         return new PropertyMetadata<>(
@@ -20,6 +20,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.XxHash64;
 
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,7 @@ import java.util.Properties;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.Slices.utf8Slice;
 import static java.util.Objects.requireNonNull;
 
 public class HiveSplit
@@ -48,6 +50,7 @@ public class HiveSplit
     private final TupleDomain<HiveColumnHandle> effectivePredicate;
     private final OptionalInt bucketNumber;
     private final boolean forceLocalScheduling;
+    private final boolean softAffinity;
     private final Map<Integer, HiveType> columnCoercions; // key: hiveColumnIndex
     private final Optional<BucketConversion> bucketConversion;
 
@@ -65,6 +68,7 @@ public class HiveSplit
             @JsonProperty("addresses") List<HostAddress> addresses,
             @JsonProperty("bucketNumber") OptionalInt bucketNumber,
             @JsonProperty("forceLocalScheduling") boolean forceLocalScheduling,
+            @JsonProperty("softAffinity") boolean softAffinity,
             @JsonProperty("effectivePredicate") TupleDomain<HiveColumnHandle> effectivePredicate,
             @JsonProperty("columnCoercions") Map<Integer, HiveType> columnCoercions,
             @JsonProperty("bucketConversion") Optional<BucketConversion> bucketConversion)
@@ -96,6 +100,7 @@ public class HiveSplit
         this.addresses = ImmutableList.copyOf(addresses);
         this.bucketNumber = bucketNumber;
         this.forceLocalScheduling = forceLocalScheduling;
+        this.softAffinity = softAffinity;
         this.effectivePredicate = effectivePredicate;
         this.columnCoercions = columnCoercions;
         this.bucketConversion = bucketConversion;
@@ -180,6 +185,12 @@ public class HiveSplit
         return forceLocalScheduling;
     }
 
+    @JsonProperty
+    public boolean isSoftAffinity()
+    {
+        return softAffinity;
+    }
+
     @JsonProperty
     public Map<Integer, HiveType> getColumnCoercions()
     {
@@ -198,6 +209,28 @@ public class HiveSplit
         return !forceLocalScheduling;
     }
 
+    @Override
+    public List<HostAddress> getPreferredNodes(List<HostAddress> candidates)
+    {
+        if (!softAffinity || candidates.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        // rendezvous hashing: all splits of a file prefer the same node, and
+        // adding or removing a node only moves the files that node wins or owned
+        long pathHash = XxHash64.hash(utf8Slice(path));
+        HostAddress preferredNode = null;
+        long maxScore = Long.MIN_VALUE;
+        for (HostAddress candidate : candidates) {
+            long score = XxHash64.hash(pathHash, utf8Slice(candidate.toString()));
+            if (preferredNode == null || score > maxScore) {
+                preferredNode = candidate;
+                maxScore = score;
+            }
+        }
+        return ImmutableList.of(preferredNode);
+    }
+
     @Override
     public Object getInfo()
     {
@@ -210,10 +243,49 @@ public class HiveSplit
                 .put("database", database)
                 .put("table", table)
                 .put("forceLocalScheduling", forceLocalScheduling)
+                .put("softAffinity", softAffinity)
                 .put("partitionName", partitionName)
                 .build();
     }
 
+    @Override
+    public boolean isScanShareable()
+    {
+        return true;
+    }
+
+    // the addresses and scheduling flags do not change the data read from the split
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HiveSplit that = (HiveSplit) o;
+        return start == that.start &&
+                length == that.length &&
+                fileSize == that.fileSize &&
+                Objects.equals(path, that.path) &&
+                Objects.equals(schema, that.schema) &&
+                Objects.equals(partitionKeys, that.partitionKeys) &&
+                Objects.equals(database, that.database) &&
+                Objects.equals(table, that.table) &&
+                Objects.equals(partitionName, that.partitionName) &&
+                Objects.equals(effectivePredicate, that.effectivePredicate) &&
+                Objects.equals(bucketNumber, that.bucketNumber) &&
+                Objects.equals(columnCoercions, that.columnCoercions) &&
+                Objects.equals(bucketConversion, that.bucketConversion);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(path, start, length, fileSize, database, table, partitionName, bucketNumber);
+    }
+
     @Override
     public String toString()
     {
@@ -88,6 +88,7 @@ public class HiveSplitManager
     private final int maxPartitionBatchSize;
     private final int maxInitialSplits;
     private final int splitLoaderConcurrency;
+    private final int splitLoaderListingPrefetch;
     private final boolean recursiveDfsWalkerEnabled;
     private final CounterStat highMemorySplitSourceCounter;
 
@@ -115,6 +116,7 @@ public class HiveSplitManager
                 hiveClientConfig.getMaxPartitionBatchSize(),
                 hiveClientConfig.getMaxInitialSplits(),
                 hiveClientConfig.getSplitLoaderConcurrency(),
+                hiveClientConfig.getSplitLoaderListingPrefetch(),
                 hiveClientConfig.getRecursiveDirWalkerEnabled());
     }
 
@@ -132,6 +134,7 @@ public class HiveSplitManager
             int maxPartitionBatchSize,
             int maxInitialSplits,
             int splitLoaderConcurrency,
+            int splitLoaderListingPrefetch,
             boolean recursiveDfsWalkerEnabled)
     {
         this.metastoreProvider = requireNonNull(metastoreProvider, "metastore is null");
@@ -148,6 +151,7 @@ public class HiveSplitManager
         this.maxPartitionBatchSize = maxPartitionBatchSize;
         this.maxInitialSplits = maxInitialSplits;
         this.splitLoaderConcurrency = splitLoaderConcurrency;
+        this.splitLoaderListingPrefetch = splitLoaderListingPrefetch;
         this.recursiveDfsWalkerEnabled = recursiveDfsWalkerEnabled;
     }
 
@@ -203,6 +207,7 @@ public class HiveSplitManager
                 directoryLister,
                 executor,
                 splitLoaderConcurrency,
+                splitLoaderListingPrefetch,
                 recursiveDfsWalkerEnabled);
 
         HiveSplitSource splitSource;
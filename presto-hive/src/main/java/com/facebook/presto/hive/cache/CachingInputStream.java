@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serves all reads of a remote file through the {@link LocalFileCache}.
+ */
+class CachingInputStream
+        extends FSInputStream
+{
+    private final LocalFileCache cache;
+    private final String fileId;
+    private final long fileSize;
+    private final FSDataInputStream remote;
+    private final FileFormatDataSourceStats stats;
+
+    private long position;
+
+    public CachingInputStream(LocalFileCache cache, String fileId, long fileSize, FSDataInputStream remote, FileFormatDataSourceStats stats)
+    {
+        this.cache = requireNonNull(cache, "cache is null");
+        this.fileId = requireNonNull(fileId, "fileId is null");
+        this.fileSize = fileSize;
+        this.remote = requireNonNull(remote, "remote is null");
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        if (position >= fileSize) {
+            return -1;
+        }
+        length = toIntExact(min(length, fileSize - position));
+        cache.readFully(fileId, fileSize, remote, position, buffer, offset, length, stats);
+        return length;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        cache.readFully(fileId, fileSize, remote, position, buffer, offset, length, stats);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        if (length == 0) {
+            return 0;
+        }
+        int bytesRead = read(position, buffer, offset, length);
+        if (bytesRead > 0) {
+            position += bytesRead;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        byte[] buffer = new byte[1];
+        if (read(buffer, 0, 1) < 0) {
+            return -1;
+        }
+        return buffer[0] & 0xFF;
+    }
+
+    @Override
+    public void seek(long position)
+            throws IOException
+    {
+        if (position < 0 || position > fileSize) {
+            throw new EOFException("Cannot seek to " + position + ", file size is " + fileSize);
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long getPos()
+    {
+        return position;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPosition)
+    {
+        return false;
+    }
+
+    @Override
+    public int available()
+    {
+        return toIntExact(min(Integer.MAX_VALUE, fileSize - position));
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        remote.close();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.google.common.base.StandardSystemProperty;
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.MaxDataSize;
+import io.airlift.units.MinDataSize;
+
+import javax.validation.constraints.NotNull;
+
+import java.io.File;
+
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class HiveCacheConfig
+{
+    private boolean enabled;
+    private File baseDirectory = new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "presto-hive-cache");
+    private DataSize maxSize = new DataSize(100, GIGABYTE);
+    private DataSize blockSize = new DataSize(1, MEGABYTE);
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Config("hive.local-cache.enabled")
+    @ConfigDescription("Cache data read from remote file systems on the local disk of the workers")
+    public HiveCacheConfig setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+        return this;
+    }
+
+    @NotNull
+    public File getBaseDirectory()
+    {
+        return baseDirectory;
+    }
+
+    @Config("hive.local-cache.base-directory")
+    @ConfigDescription("Local directory for the cached data, preferably on an SSD")
+    public HiveCacheConfig setBaseDirectory(File baseDirectory)
+    {
+        this.baseDirectory = baseDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxSize()
+    {
+        return maxSize;
+    }
+
+    @Config("hive.local-cache.max-size")
+    @ConfigDescription("Maximum size of the local cache, least recently used blocks are evicted beyond it")
+    public HiveCacheConfig setMaxSize(DataSize maxSize)
+    {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("4kB")
+    @MaxDataSize("64MB")
+    public DataSize getBlockSize()
+    {
+        return blockSize;
+    }
+
+    @Config("hive.local-cache.block-size")
+    @ConfigDescription("Size of the aligned blocks the files are cached in")
+    public HiveCacheConfig setBlockSize(DataSize blockSize)
+    {
+        this.blockSize = blockSize;
+        return this;
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.hash.Hashing.murmur3_128;
+import static com.google.common.io.MoreFiles.deleteDirectoryContents;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Worker local read-through cache of remote files. Files are cached in aligned
+ * blocks, one local file per block, and the least recently used blocks are
+ * evicted once the cache grows beyond its maximum size. Files are identified by
+ * their path and size, so a file that is rewritten with a different size is not
+ * served from stale blocks.
+ * <p>
+ * Failures of the local disk never fail a read, the data is then read from the
+ * remote file system instead.
+ */
+public class LocalFileCache
+{
+    private static final Logger log = Logger.get(LocalFileCache.class);
+
+    public static final LocalFileCache NO_CACHE = new LocalFileCache();
+
+    private final boolean enabled;
+    private final File baseDirectory;
+    private final long maxSizeInBytes;
+    private final int blockSize;
+
+    @GuardedBy("this")
+    private final LinkedHashMap<BlockKey, Integer> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("this")
+    private long sizeInBytes;
+
+    private LocalFileCache()
+    {
+        this.enabled = false;
+        this.baseDirectory = null;
+        this.maxSizeInBytes = 0;
+        this.blockSize = 0;
+    }
+
+    public LocalFileCache(File baseDirectory, DataSize maxSize, DataSize blockSize)
+    {
+        requireNonNull(maxSize, "maxSize is null");
+        requireNonNull(blockSize, "blockSize is null");
+        checkArgument(blockSize.toBytes() > 0, "blockSize must be positive");
+
+        this.enabled = true;
+        this.baseDirectory = requireNonNull(baseDirectory, "baseDirectory is null");
+        this.maxSizeInBytes = maxSize.toBytes();
+        this.blockSize = toIntExact(blockSize.toBytes());
+
+        // blocks left over from a previous run are not tracked, so they are discarded
+        try {
+            Files.createDirectories(baseDirectory.toPath());
+            deleteDirectoryContents(baseDirectory.toPath(), ALLOW_INSECURE);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Cannot initialize local cache directory " + baseDirectory, e);
+        }
+    }
+
+    public FSDataInputStream open(FileSystem fileSystem, Path path, long fileSize, FileFormatDataSourceStats stats)
+            throws IOException
+    {
+        FSDataInputStream inputStream = fileSystem.open(path);
+        if (!enabled) {
+            return inputStream;
+        }
+        String fileId = murmur3_128().newHasher()
+                .putString(path.toString(), UTF_8)
+                .putLong(fileSize)
+                .hash()
+                .toString();
+        return new FSDataInputStream(new CachingInputStream(this, fileId, fileSize, inputStream, stats));
+    }
+
+    void readFully(String fileId, long fileSize, FSDataInputStream remote, long position, byte[] buffer, int offset, int length, FileFormatDataSourceStats stats)
+            throws IOException
+    {
+        if (position + length > fileSize) {
+            throw new EOFException("Read past end of file");
+        }
+
+        while (length > 0) {
+            long blockIndex = position / blockSize;
+            long blockStart = blockIndex * blockSize;
+            int blockLength = toIntExact(min(blockSize, fileSize - blockStart));
+            int positionInBlock = toIntExact(position - blockStart);
+            int chunkLength = min(length, blockLength - positionInBlock);
+
+            BlockKey key = new BlockKey(fileId, blockIndex);
+            if (readCachedBlock(key, positionInBlock, buffer, offset, chunkLength)) {
+                stats.addCacheHitBytes(chunkLength);
+            }
+            else {
+                byte[] block = new byte[blockLength];
+                remote.readFully(blockStart, block, 0, blockLength);
+                System.arraycopy(block, positionInBlock, buffer, offset, chunkLength);
+                cacheBlock(key, block);
+                stats.addCacheMissBytes(chunkLength);
+            }
+
+            position += chunkLength;
+            offset += chunkLength;
+            length -= chunkLength;
+        }
+    }
+
+    private boolean readCachedBlock(BlockKey key, int positionInBlock, byte[] buffer, int offset, int length)
+    {
+        synchronized (this) {
+            // the lookup also marks the block as recently used
+            if (blocks.get(key) == null) {
+                return false;
+            }
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(getBlockFile(key), "r")) {
+            file.seek(positionInBlock);
+            file.readFully(buffer, offset, length);
+            return true;
+        }
+        catch (FileNotFoundException e) {
+            // lost a race with the eviction, forget the block so it is cached again
+            synchronized (this) {
+                Integer blockLength = blocks.remove(key);
+                if (blockLength != null) {
+                    sizeInBytes -= blockLength;
+                }
+            }
+            return false;
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to read cached block %s", key);
+            return false;
+        }
+    }
+
+    private void cacheBlock(BlockKey key, byte[] block)
+    {
+        synchronized (this) {
+            if (blocks.containsKey(key)) {
+                return;
+            }
+        }
+
+        File blockFile = getBlockFile(key);
+        File temporaryFile = new File(blockFile.getParentFile(), blockFile.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(blockFile.getParentFile().toPath());
+            Files.write(temporaryFile.toPath(), block);
+            Files.move(temporaryFile.toPath(), blockFile.toPath(), ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to cache block %s", key);
+            deleteQuietly(temporaryFile);
+            return;
+        }
+
+        List<BlockKey> evicted;
+        synchronized (this) {
+            if (blocks.put(key, block.length) == null) {
+                sizeInBytes += block.length;
+            }
+            evicted = evictBlocks();
+        }
+        for (BlockKey evictedKey : evicted) {
+            deleteQuietly(getBlockFile(evictedKey));
+        }
+    }
+
+    @GuardedBy("this")
+    private List<BlockKey> evictBlocks()
+    {
+        if (sizeInBytes <= maxSizeInBytes) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<BlockKey> evicted = ImmutableList.builder();
+        Iterator<Map.Entry<BlockKey, Integer>> iterator = blocks.entrySet().iterator();
+        while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+            Map.Entry<BlockKey, Integer> entry = iterator.next();
+            iterator.remove();
+            sizeInBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+        }
+        return evicted.build();
+    }
+
+    private File getBlockFile(BlockKey key)
+    {
+        // spread the blocks over subdirectories to keep the directories small
+        File directory = new File(baseDirectory, key.getFileId().substring(0, 2));
+        return new File(directory, key.getFileId() + "-" + key.getBlockIndex());
+    }
+
+    private static void deleteQuietly(File file)
+    {
+        try {
+            Files.deleteIfExists(file.toPath());
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete cached block file %s", file);
+        }
+    }
+
+    @Managed
+    public synchronized long getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+    @Managed
+    public synchronized long getBlockCount()
+    {
+        return blocks.size();
+    }
+
+    private static final class BlockKey
+    {
+        private final String fileId;
+        private final long blockIndex;
+
+        public BlockKey(String fileId, long blockIndex)
+        {
+            this.fileId = requireNonNull(fileId, "fileId is null");
+            this.blockIndex = blockIndex;
+        }
+
+        public String getFileId()
+        {
+            return fileId;
+        }
+
+        public long getBlockIndex()
+        {
+            return blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BlockKey that = (BlockKey) o;
+            return blockIndex == that.blockIndex &&
+                    Objects.equals(fileId, that.fileId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(fileId, blockIndex);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("fileId", fileId)
+                    .add("blockIndex", blockIndex)
+                    .toString();
+        }
+    }
+}
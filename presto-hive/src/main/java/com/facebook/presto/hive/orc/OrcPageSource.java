@@ -32,6 +32,7 @@ import com.google.common.collect.ImmutableList;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
@@ -247,5 +248,33 @@ public class OrcPageSource
 
             loaded = true;
         }
+
+        @Override
+        public boolean isSelectiveLoadSupported()
+        {
+            return !loaded;
+        }
+
+        @Override
+        public Block loadPositions(LazyBlock lazyBlock, int[] positions, int offset, int length)
+        {
+            checkState(!loaded, "block is already loaded");
+            checkState(batchId == expectedBatchId);
+
+            if (offset != 0) {
+                positions = Arrays.copyOfRange(positions, offset, offset + length);
+            }
+            try {
+                Block block = recordReader.readBlock(type, columnIndex, positions, length);
+                loaded = true;
+                return block;
+            }
+            catch (OrcCorruptionException e) {
+                throw new PrestoException(HIVE_BAD_DATA, e);
+            }
+            catch (IOException | RuntimeException e) {
+                throw new PrestoException(HIVE_CURSOR_ERROR, format("Failed to read ORC file: %s", orcDataSource.getId()), e);
+            }
+        }
     }
 }
@@ -66,6 +66,7 @@ import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.slice.Slices.utf8Slice;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Collections.nCopies;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertThrows;
@@ -187,6 +188,34 @@ public class TestBackgroundHiveSplitLoader
         assertEquals(splits.get(0).getLength(), 0);
     }
 
+    @Test
+    public void testMultiplePartitionsWithListingPrefetch()
+            throws Exception
+    {
+        List<HivePartitionMetadata> partitions = nCopies(5, new HivePartitionMetadata(
+                new HivePartition(new SchemaTableName("testSchema", "table_name")),
+                Optional.empty(),
+                ImmutableMap.of()));
+        BackgroundHiveSplitLoader backgroundHiveSplitLoader = new BackgroundHiveSplitLoader(
+                SIMPLE_TABLE,
+                partitions,
+                TupleDomain.none(),
+                Optional.empty(),
+                SESSION,
+                new TestingHdfsEnvironment(),
+                new NamenodeStats(),
+                new TestingDirectoryLister(TEST_FILES),
+                EXECUTOR,
+                2,
+                3,
+                false);
+
+        HiveSplitSource hiveSplitSource = hiveSplitSource(backgroundHiveSplitLoader, TupleDomain.none());
+        backgroundHiveSplitLoader.start(hiveSplitSource);
+
+        assertEquals(drain(hiveSplitSource).size(), 10);
+    }
+
     @Test
     public void testNoHangIfPartitionIsOffline()
             throws Exception
@@ -260,6 +289,7 @@ public class TestBackgroundHiveSplitLoader
                 new TestingDirectoryLister(files),
                 EXECUTOR,
                 2,
+                2,
                 false);
     }
 
@@ -279,6 +309,7 @@ public class TestBackgroundHiveSplitLoader
                 new TestingDirectoryLister(TEST_FILES),
                 directExecutor(),
                 2,
+                2,
                 false);
     }
 
@@ -398,7 +429,7 @@ public class TestBackgroundHiveSplitLoader
         }
 
         @Override
-        public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+        public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Table table, Path path)
         {
             return new RemoteIterator<LocatedFileStatus>()
             {
@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.Column;
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.hive.metastore.Table;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.hive.metastore.TableType;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+
+public class TestCachingDirectoryLister
+{
+    private static final Path PATH = new Path("hdfs://VOL1:9000/warehouse");
+    private static final List<LocatedFileStatus> FILES = ImmutableList.of(
+            locatedFileStatus(new Path(PATH, "000000_0")),
+            locatedFileStatus(new Path(PATH, "000000_1")));
+
+    @Test
+    public void testCachedTable()
+            throws IOException
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, MINUTES), 1000, ImmutableList.of("test_dbname.test_table"));
+
+        assertEquals(list(lister, table("test_dbname", "test_table")), FILES);
+        assertEquals(list(lister, table("test_dbname", "test_table")), FILES);
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(lister.getHitCount(), 1);
+        assertEquals(lister.getMissCount(), 1);
+        assertEquals(lister.getFileStatusCount(), FILES.size());
+
+        lister.flushCache();
+        assertEquals(list(lister, table("test_dbname", "test_table")), FILES);
+        assertEquals(delegate.getListCount(), 2);
+    }
+
+    @Test
+    public void testTablePatterns()
+            throws IOException
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, MINUTES), 1000, ImmutableList.of("web.*", "*.Orders"));
+
+        list(lister, table("web", "clicks"));
+        list(lister, table("web", "clicks"));
+        assertEquals(delegate.getListCount(), 1);
+
+        list(lister, table("tpch", "orders"));
+        list(lister, table("tpch", "orders"));
+        assertEquals(delegate.getListCount(), 2);
+
+        // tables not matching any pattern are always listed
+        list(lister, table("tpch", "lineitem"));
+        list(lister, table("tpch", "lineitem"));
+        assertEquals(delegate.getListCount(), 4);
+        assertEquals(lister.getDirectoryCount(), 2);
+    }
+
+    @Test
+    public void testMaxSize()
+            throws IOException
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, MINUTES), 1, ImmutableList.of("*.*"));
+
+        // the listing is larger than the cache
+        list(lister, table("web", "clicks"));
+        list(lister, table("web", "clicks"));
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getFileStatusCount(), 0);
+    }
+
+    private static List<LocatedFileStatus> list(DirectoryLister lister, Table table)
+            throws IOException
+    {
+        ImmutableList.Builder<LocatedFileStatus> files = ImmutableList.builder();
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(null, table, new Path(table.getStorage().getLocation()));
+        while (iterator.hasNext()) {
+            files.add(iterator.next());
+        }
+        return files.build();
+    }
+
+    private static Table table(String schemaName, String tableName)
+    {
+        Table.Builder tableBuilder = Table.builder();
+        tableBuilder.getStorageBuilder()
+                .setStorageFormat(
+                        StorageFormat.create(
+                                "com.facebook.hive.orc.OrcSerde",
+                                "org.apache.hadoop.hive.ql.io.RCFileInputFormat",
+                                "org.apache.hadoop.hive.ql.io.RCFileInputFormat"))
+                .setLocation(new Path(PATH, schemaName + "." + tableName).toString())
+                .setSkewed(false);
+
+        return tableBuilder
+                .setDatabaseName(schemaName)
+                .setOwner("testOwner")
+                .setTableName(tableName)
+                .setTableType(TableType.MANAGED_TABLE.toString())
+                .setDataColumns(ImmutableList.of(new Column("col1", HIVE_STRING, Optional.empty())))
+                .setParameters(ImmutableMap.of())
+                .build();
+    }
+
+    private static LocatedFileStatus locatedFileStatus(Path path)
+    {
+        return new LocatedFileStatus(0L, false, 0, 0L, 0L, 0L, null, null, null, null, path, new BlockLocation[] {});
+    }
+
+    private static class CountingDirectoryLister
+            implements DirectoryLister
+    {
+        private final AtomicInteger listCount = new AtomicInteger();
+
+        @Override
+        public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Table table, Path path)
+        {
+            listCount.incrementAndGet();
+            return new SimpleRemoteIterator(FILES.iterator());
+        }
+
+        public int getListCount()
+        {
+            return listCount.get();
+        }
+    }
+}
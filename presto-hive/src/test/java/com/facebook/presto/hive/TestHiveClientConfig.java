@@ -60,6 +60,11 @@ public class TestHiveClientConfig
                 .setDomainCompactionThreshold(100)
                 .setWriterSortBufferSize(new DataSize(64, Unit.MEGABYTE))
                 .setForceLocalScheduling(false)
+                .setSoftAffinitySchedulingEnabled(false)
+                .setSplitLoaderListingPrefetch(8)
+                .setFileStatusCacheTables("")
+                .setFileStatusCacheExpireTime(new Duration(1, TimeUnit.MINUTES))
+                .setFileStatusCacheMaxSize(1_000_000)
                 .setMaxConcurrentFileRenames(20)
                 .setRecursiveDirWalkerEnabled(false)
                 .setDfsTimeout(new Duration(60, TimeUnit.SECONDS))
@@ -91,6 +96,9 @@ public class TestHiveClientConfig
                 .setOrcTinyStripeThreshold(new DataSize(8, Unit.MEGABYTE))
                 .setOrcMaxReadBlockSize(new DataSize(16, Unit.MEGABYTE))
                 .setOrcLazyReadSmallRanges(true)
+                .setOrcMetadataCacheEnabled(false)
+                .setOrcMetadataCacheMaxSize(new DataSize(256, Unit.MEGABYTE))
+                .setOrcMetadataCacheTtl(new Duration(1, TimeUnit.HOURS))
                 .setRcfileOptimizedWriterEnabled(true)
                 .setRcfileWriterValidate(false)
                 .setOrcOptimizedWriterEnabled(false)
@@ -103,6 +111,7 @@ public class TestHiveClientConfig
                 .setBucketExecutionEnabled(true)
                 .setFileSystemMaxCacheSize(1000)
                 .setTableStatisticsEnabled(true)
+                .setTableDataVersionsEnabled(false)
                 .setWritesToNonManagedTablesEnabled(false)
                 .setCreatesOfNonManagedTablesEnabled(true));
     }
@@ -149,6 +158,11 @@ public class TestHiveClientConfig
                 .put("hive.max-sort-files-per-bucket", "333")
                 .put("hive.write-validation-threads", "11")
                 .put("hive.force-local-scheduling", "true")
+                .put("hive.soft-affinity-scheduling-enabled", "true")
+                .put("hive.split-loader-listing-prefetch", "16")
+                .put("hive.file-status-cache-tables", "tpch.orders, web.*")
+                .put("hive.file-status-cache-expire-time", "30m")
+                .put("hive.file-status-cache-size", "1000")
                 .put("hive.max-concurrent-file-renames", "100")
                 .put("hive.assume-canonical-partition-keys", "true")
                 .put("hive.parquet.use-column-names", "true")
@@ -163,6 +177,9 @@ public class TestHiveClientConfig
                 .put("hive.orc.tiny-stripe-threshold", "61kB")
                 .put("hive.orc.max-read-block-size", "66kB")
                 .put("hive.orc.lazy-read-small-ranges", "false")
+                .put("hive.orc.metadata-cache.enabled", "true")
+                .put("hive.orc.metadata-cache.max-size", "77MB")
+                .put("hive.orc.metadata-cache.ttl", "15m")
                 .put("hive.rcfile-optimized-writer.enabled", "false")
                 .put("hive.rcfile.writer.validate", "true")
                 .put("hive.orc.optimized-writer.enabled", "true")
@@ -176,6 +193,7 @@ public class TestHiveClientConfig
                 .put("hive.sorted-writing", "false")
                 .put("hive.fs.cache.max-size", "1010")
                 .put("hive.table-statistics-enabled", "false")
+                .put("hive.table-data-versions-enabled", "true")
                 .put("hive.non-managed-table-writes-enabled", "true")
                 .put("hive.non-managed-table-creates-enabled", "false")
                 .build();
@@ -203,6 +221,11 @@ public class TestHiveClientConfig
                 .setDomainCompactionThreshold(42)
                 .setWriterSortBufferSize(new DataSize(13, Unit.MEGABYTE))
                 .setForceLocalScheduling(true)
+                .setSoftAffinitySchedulingEnabled(true)
+                .setSplitLoaderListingPrefetch(16)
+                .setFileStatusCacheTables("tpch.orders,web.*")
+                .setFileStatusCacheExpireTime(new Duration(30, TimeUnit.MINUTES))
+                .setFileStatusCacheMaxSize(1000)
                 .setMaxConcurrentFileRenames(100)
                 .setRecursiveDirWalkerEnabled(true)
                 .setIpcPingInterval(new Duration(34, TimeUnit.SECONDS))
@@ -233,6 +256,9 @@ public class TestHiveClientConfig
                 .setOrcTinyStripeThreshold(new DataSize(61, Unit.KILOBYTE))
                 .setOrcMaxReadBlockSize(new DataSize(66, Unit.KILOBYTE))
                 .setOrcLazyReadSmallRanges(false)
+                .setOrcMetadataCacheEnabled(true)
+                .setOrcMetadataCacheMaxSize(new DataSize(77, Unit.MEGABYTE))
+                .setOrcMetadataCacheTtl(new Duration(15, TimeUnit.MINUTES))
                 .setRcfileOptimizedWriterEnabled(false)
                 .setRcfileWriterValidate(true)
                 .setOrcOptimizedWriterEnabled(true)
@@ -246,6 +272,7 @@ public class TestHiveClientConfig
                 .setSortedWritingEnabled(false)
                 .setFileSystemMaxCacheSize(1010)
                 .setTableStatisticsEnabled(false)
+                .setTableDataVersionsEnabled(true)
                 .setWritesToNonManagedTablesEnabled(true)
                 .setCreatesOfNonManagedTablesEnabled(false);
 
@@ -96,6 +96,7 @@ import static java.util.stream.Collectors.joining;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -1511,6 +1512,44 @@ public class TestHiveIntegrationSmokeTest
         assertFalse(getQueryRunner().tableExists(getSession(), "test_metadata_delete"));
     }
 
+    @Test
+    public void testTableDataVersion()
+    {
+        Session session = Session.builder(getSession())
+                .setCatalogSessionProperty(catalog, "table_data_versions_enabled", "true")
+                .build();
+
+        assertUpdate("CREATE TABLE test_table_data_version AS SELECT orderkey, orderstatus FROM orders WHERE orderkey < 100", "SELECT count(*) FROM orders WHERE orderkey < 100");
+        assertFalse(getTableDataVersion(getSession(), "test_table_data_version").isPresent());
+        Optional<String> version = getTableDataVersion(session, "test_table_data_version");
+        assertTrue(version.isPresent());
+        assertEquals(getTableDataVersion(session, "test_table_data_version"), version);
+
+        assertUpdate("INSERT INTO test_table_data_version SELECT orderkey, orderstatus FROM orders WHERE orderkey < 10", "SELECT count(*) FROM orders WHERE orderkey < 10");
+        Optional<String> insertedVersion = getTableDataVersion(session, "test_table_data_version");
+        assertTrue(insertedVersion.isPresent());
+        assertNotEquals(insertedVersion, version);
+
+        assertUpdate("DROP TABLE test_table_data_version");
+
+        assertUpdate(
+                "CREATE TABLE test_partitioned_table_data_version WITH (partitioned_by = ARRAY['orderstatus']) AS " +
+                        "SELECT orderkey, orderstatus FROM orders WHERE orderstatus = 'F'",
+                "SELECT count(*) FROM orders WHERE orderstatus = 'F'");
+        version = getTableDataVersion(session, "test_partitioned_table_data_version");
+        assertTrue(version.isPresent());
+        assertEquals(getTableDataVersion(session, "test_partitioned_table_data_version"), version);
+
+        assertUpdate(
+                "INSERT INTO test_partitioned_table_data_version SELECT orderkey, orderstatus FROM orders WHERE orderstatus = 'O'",
+                "SELECT count(*) FROM orders WHERE orderstatus = 'O'");
+        insertedVersion = getTableDataVersion(session, "test_partitioned_table_data_version");
+        assertTrue(insertedVersion.isPresent());
+        assertNotEquals(insertedVersion, version);
+
+        assertUpdate("DROP TABLE test_partitioned_table_data_version");
+    }
+
     private TableMetadata getTableMetadata(String catalog, String schema, String tableName)
     {
         Session session = getSession();
@@ -1525,6 +1564,19 @@ public class TestHiveIntegrationSmokeTest
                 });
     }
 
+    private Optional<String> getTableDataVersion(Session session, String tableName)
+    {
+        Metadata metadata = ((DistributedQueryRunner) getQueryRunner()).getCoordinator().getMetadata();
+
+        return transaction(getQueryRunner().getTransactionManager(), getQueryRunner().getAccessControl())
+                .readOnly()
+                .execute(session, transactionSession -> {
+                    Optional<TableHandle> tableHandle = metadata.getTableHandle(transactionSession, new QualifiedObjectName(catalog, TPCH_SCHEMA, tableName));
+                    assertTrue(tableHandle.isPresent());
+                    return metadata.getTableDataVersion(transactionSession, tableHandle.get());
+                });
+    }
+
     private Object getHiveTableProperty(String tableName, Function<HiveTableLayoutHandle, Object> propertyGetter)
     {
         Session session = getSession();
@@ -226,6 +226,7 @@ public class TestHivePageSink
                 ImmutableList.of(),
                 OptionalInt.empty(),
                 false,
+                false,
                 TupleDomain.all(),
                 ImmutableMap.of(),
                 Optional.empty());
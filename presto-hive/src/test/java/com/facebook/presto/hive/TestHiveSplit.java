@@ -18,9 +18,11 @@ import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import io.airlift.json.JsonCodec;
 import org.testng.annotations.Test;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Properties;
@@ -28,7 +30,9 @@ import java.util.Properties;
 import static com.facebook.presto.hive.HiveType.HIVE_LONG;
 import static com.facebook.presto.hive.HiveType.HIVE_STRING;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestHiveSplit
 {
@@ -56,6 +60,7 @@ public class TestHiveSplit
                 addresses,
                 OptionalInt.empty(),
                 true,
+                true,
                 TupleDomain.all(),
                 ImmutableMap.of(1, HIVE_STRING),
                 Optional.of(new HiveSplit.BucketConversion(
@@ -79,5 +84,56 @@ public class TestHiveSplit
         assertEquals(actual.getColumnCoercions(), expected.getColumnCoercions());
         assertEquals(actual.getBucketConversion(), expected.getBucketConversion());
         assertEquals(actual.isForceLocalScheduling(), expected.isForceLocalScheduling());
+        assertEquals(actual.isSoftAffinity(), expected.isSoftAffinity());
+    }
+
+    @Test
+    public void testPreferredNodes()
+    {
+        List<HostAddress> nodes = ImmutableList.of(
+                HostAddress.fromParts("127.0.0.1", 44),
+                HostAddress.fromParts("127.0.0.1", 45),
+                HostAddress.fromParts("127.0.0.1", 46));
+
+        HiveSplit split = createSplit("path", true);
+        List<HostAddress> preferredNodes = split.getPreferredNodes(nodes);
+        assertEquals(preferredNodes.size(), 1);
+        assertTrue(nodes.contains(preferredNodes.get(0)));
+
+        // all splits of a file prefer the same node, regardless of the candidate order
+        assertEquals(createSplit("path", true).getPreferredNodes(Lists.reverse(nodes)), preferredNodes);
+
+        // removing another node does not move the file
+        HostAddress otherNode = nodes.stream()
+                .filter(node -> !preferredNodes.contains(node))
+                .findFirst()
+                .get();
+        List<HostAddress> remainingNodes = nodes.stream()
+                .filter(node -> !node.equals(otherNode))
+                .collect(toImmutableList());
+        assertEquals(split.getPreferredNodes(remainingNodes), preferredNodes);
+
+        assertEquals(createSplit("path", false).getPreferredNodes(nodes), ImmutableList.of());
+    }
+
+    private static HiveSplit createSplit(String path, boolean softAffinity)
+    {
+        return new HiveSplit(
+                "db",
+                "table",
+                "partitionId",
+                path,
+                0,
+                10,
+                10,
+                new Properties(),
+                ImmutableList.of(),
+                ImmutableList.of(),
+                OptionalInt.empty(),
+                false,
+                softAffinity,
+                TupleDomain.all(),
+                ImmutableMap.of(),
+                Optional.empty());
     }
 }
@@ -29,6 +29,7 @@ import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.LazyBlock;
 import com.facebook.presto.spi.classloader.ThreadContextClassLoader;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
@@ -89,6 +90,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.PARTITION_KEY;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
@@ -298,6 +300,47 @@ public class TestOrcPageSourceMemoryTracking
         }
     }
 
+    @Test
+    public void testSelectiveLoad()
+            throws Exception
+    {
+        ConnectorPageSource pageSource = testPreparer.newPageSource();
+        ConnectorPageSource expectedPageSource = testPreparer.newPageSource();
+
+        for (int i = 0; i < 50; i++) {
+            Page page = pageSource.getNextPage();
+            Page expectedPage = expectedPageSource.getNextPage();
+            assertNotNull(page);
+            assertNotNull(expectedPage);
+
+            // some pages are not loaded at all, so the reader also has to skip batches
+            if (i % 3 == 2) {
+                continue;
+            }
+            LazyBlock block = (LazyBlock) page.getBlock(1);
+            assertTrue(block.isSelectiveLoadSupported());
+            int offset = i % 97;
+            int[] positions = IntStream.range(0, page.getPositionCount())
+                    .filter(position -> position % 97 == offset || position == page.getPositionCount() - 1)
+                    .toArray();
+            Block selected = block.loadPositions(positions, 0, positions.length);
+            assertFalse(block.isSelectiveLoadSupported());
+
+            Block expected = expectedPage.getBlock(1);
+            assertEquals(selected.getPositionCount(), positions.length);
+            for (int position = 0; position < positions.length; position++) {
+                assertEquals(
+                        createUnboundedVarcharType().getSlice(selected, position),
+                        createUnboundedVarcharType().getSlice(expected, positions[position]));
+            }
+        }
+
+        assertNull(pageSource.getNextPage());
+        assertTrue(pageSource.isFinished());
+        pageSource.close();
+        expectedPageSource.close();
+    }
+
     @Test
     public void testTableScanOperator()
     {
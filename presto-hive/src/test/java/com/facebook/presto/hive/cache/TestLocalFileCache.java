@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalFileCache
+{
+    private static final int FILE_SIZE = 10_000;
+
+    private File tempDirectory;
+    private Path path;
+    private byte[] data;
+    private FileSystem fileSystem;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        tempDirectory = Files.createTempDirectory("test-local-file-cache").toFile();
+        File file = new File(tempDirectory, "data");
+        data = new byte[FILE_SIZE];
+        ThreadLocalRandom.current().nextBytes(data);
+        Files.write(file.toPath(), data);
+        path = new Path(file.toURI());
+        fileSystem = FileSystem.getLocal(new Configuration());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(tempDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testReadThrough()
+            throws IOException
+    {
+        LocalFileCache cache = new LocalFileCache(new File(tempDirectory, "cache-read"), new DataSize(100, KILOBYTE), new DataSize(1024, BYTE));
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+
+        try (FSDataInputStream inputStream = cache.open(fileSystem, path, FILE_SIZE, stats)) {
+            // spans three blocks
+            assertRead(inputStream, 1000, 1500);
+            assertEquals(stats.getCacheMissBytes().getTotalCount(), 1500);
+            assertEquals(stats.getCacheHitBytes().getTotalCount(), 0);
+
+            assertRead(inputStream, 1100, 100);
+            assertEquals(stats.getCacheMissBytes().getTotalCount(), 1500);
+            assertEquals(stats.getCacheHitBytes().getTotalCount(), 100);
+
+            // the last block is shorter than the block size
+            assertRead(inputStream, FILE_SIZE - 10, 10);
+            assertRead(inputStream, FILE_SIZE - 10, 10);
+            assertEquals(stats.getCacheHitBytes().getTotalCount(), 110);
+        }
+    }
+
+    @Test
+    public void testEviction()
+            throws IOException
+    {
+        LocalFileCache cache = new LocalFileCache(new File(tempDirectory, "cache-evict"), new DataSize(2048, BYTE), new DataSize(1024, BYTE));
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+
+        try (FSDataInputStream inputStream = cache.open(fileSystem, path, FILE_SIZE, stats)) {
+            for (int block = 0; block < 5; block++) {
+                assertRead(inputStream, block * 1024, 1024);
+            }
+            assertEquals(cache.getBlockCount(), 2);
+            assertTrue(cache.getSizeInBytes() <= 2048);
+
+            // the oldest block was evicted, the most recent one is still cached
+            assertRead(inputStream, 0, 1024);
+            assertEquals(stats.getCacheHitBytes().getTotalCount(), 0);
+            assertRead(inputStream, 4 * 1024, 1024);
+            assertEquals(stats.getCacheHitBytes().getTotalCount(), 1024);
+        }
+    }
+
+    @Test
+    public void testSequentialRead()
+            throws IOException
+    {
+        LocalFileCache cache = new LocalFileCache(new File(tempDirectory, "cache-sequential"), new DataSize(1, KILOBYTE), new DataSize(100, BYTE));
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+
+        try (FSDataInputStream inputStream = cache.open(fileSystem, path, FILE_SIZE, stats)) {
+            inputStream.seek(FILE_SIZE - 150);
+            byte[] buffer = new byte[200];
+            int bytesRead = inputStream.read(buffer, 0, buffer.length);
+            assertEquals(bytesRead, 150);
+            assertEquals(Arrays.copyOf(buffer, bytesRead), Arrays.copyOfRange(data, FILE_SIZE - 150, FILE_SIZE));
+            assertEquals(inputStream.read(), -1);
+        }
+    }
+
+    @Test
+    public void testDisabled()
+            throws IOException
+    {
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+        try (FSDataInputStream inputStream = LocalFileCache.NO_CACHE.open(fileSystem, path, FILE_SIZE, stats)) {
+            assertRead(inputStream, 1000, 1500);
+        }
+        assertEquals(stats.getCacheMissBytes().getTotalCount(), 0);
+        assertEquals(stats.getCacheHitBytes().getTotalCount(), 0);
+    }
+
+    private void assertRead(FSDataInputStream inputStream, int position, int length)
+            throws IOException
+    {
+        byte[] buffer = new byte[length];
+        inputStream.readFully(position, buffer);
+        assertEquals(buffer, Arrays.copyOfRange(data, position, position + length));
+    }
+}
@@ -48,6 +48,7 @@ final class ConnectionProperties
     public static final ConnectionProperty<File> KERBEROS_KEYTAB_PATH = new KerberosKeytabPath();
     public static final ConnectionProperty<File> KERBEROS_CREDENTIAL_CACHE_PATH = new KerberosCredentialCachePath();
     public static final ConnectionProperty<String> ACCESS_TOKEN = new AccessToken();
+    public static final ConnectionProperty<Boolean> COLUMNAR_RESULTS = new ColumnarResults();
 
     private static final Set<ConnectionProperty<?>> ALL_PROPERTIES = ImmutableSet.<ConnectionProperty<?>>builder()
             .add(USER)
@@ -67,6 +68,7 @@ final class ConnectionProperties
             .add(KERBEROS_KEYTAB_PATH)
             .add(KERBEROS_CREDENTIAL_CACHE_PATH)
             .add(ACCESS_TOKEN)
+            .add(COLUMNAR_RESULTS)
             .build();
 
     private static final Map<String, ConnectionProperty<?>> KEY_LOOKUP = unmodifiableMap(ALL_PROPERTIES.stream()
@@ -274,4 +276,13 @@ final class ConnectionProperties
             super("accessToken", NOT_REQUIRED, ALLOWED, STRING_CONVERTER);
         }
     }
+
+    private static class ColumnarResults
+            extends AbstractConnectionProperty<Boolean>
+    {
+        public ColumnarResults()
+        {
+            super("columnarResults", NOT_REQUIRED, ALLOWED, BOOLEAN_CONVERTER);
+        }
+    }
 }
@@ -83,6 +83,7 @@ public class PrestoConnection
     private final URI httpUri;
     private final String user;
     private final Optional<String> applicationNamePrefix;
+    private final boolean columnarResults;
     private final Map<String, String> clientInfo = new ConcurrentHashMap<>();
     private final Map<String, String> sessionProperties = new ConcurrentHashMap<>();
     private final Map<String, String> preparedStatements = new ConcurrentHashMap<>();
@@ -99,6 +100,7 @@ public class PrestoConnection
         this.catalog.set(uri.getCatalog());
         this.user = uri.getUser();
         this.applicationNamePrefix = uri.getApplicationNamePrefix();
+        this.columnarResults = uri.isColumnarResults();
 
         this.queryExecutor = requireNonNull(queryExecutor, "queryExecutor is null");
 
@@ -675,7 +677,8 @@ public class PrestoConnection
                 ImmutableMap.copyOf(allProperties),
                 ImmutableMap.copyOf(preparedStatements),
                 transactionId.get(),
-                timeout);
+                timeout,
+                columnarResults);
 
         return queryExecutor.startQuery(session, sql);
     }
@@ -40,6 +40,7 @@ import static com.facebook.presto.client.OkHttpUtil.setupSsl;
 import static com.facebook.presto.client.OkHttpUtil.tokenAuth;
 import static com.facebook.presto.jdbc.ConnectionProperties.ACCESS_TOKEN;
 import static com.facebook.presto.jdbc.ConnectionProperties.APPLICATION_NAME_PREFIX;
+import static com.facebook.presto.jdbc.ConnectionProperties.COLUMNAR_RESULTS;
 import static com.facebook.presto.jdbc.ConnectionProperties.HTTP_PROXY;
 import static com.facebook.presto.jdbc.ConnectionProperties.KERBEROS_CONFIG_PATH;
 import static com.facebook.presto.jdbc.ConnectionProperties.KERBEROS_CREDENTIAL_CACHE_PATH;
@@ -132,6 +133,12 @@ final class PrestoDriverUri
         return APPLICATION_NAME_PREFIX.getValue(properties);
     }
 
+    public boolean isColumnarResults()
+            throws SQLException
+    {
+        return COLUMNAR_RESULTS.getValue(properties).orElse(false);
+    }
+
     public Properties getProperties()
     {
         return properties;
@@ -19,6 +19,8 @@ public final class PrestoMediaTypes
 {
     public static final String PRESTO_PAGES = "application/X-presto-pages";
     public static final MediaType PRESTO_PAGES_TYPE = MediaType.create("application", "X-presto-pages");
+    public static final String PRESTO_TASK_STATUS = "application/X-presto-task-status";
+    public static final MediaType PRESTO_TASK_STATUS_TYPE = MediaType.create("application", "X-presto-task-status");
 
     private PrestoMediaTypes()
     {
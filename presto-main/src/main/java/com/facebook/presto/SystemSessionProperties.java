@@ -15,11 +15,13 @@ package com.facebook.presto;
 
 import com.facebook.presto.execution.QueryManagerConfig;
 import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.execution.buffer.PageCompression;
 import com.facebook.presto.memory.MemoryManagerConfig;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.StandardErrorCode;
 import com.facebook.presto.spi.session.PropertyMetadata;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
@@ -30,10 +32,13 @@ import java.util.List;
 import java.util.OptionalInt;
 
 import static com.facebook.presto.spi.session.PropertyMetadata.booleanSessionProperty;
+import static com.facebook.presto.spi.session.PropertyMetadata.doubleSessionProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.integerSessionProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.stringSessionProperty;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
@@ -50,6 +55,8 @@ public final class SystemSessionProperties
     public static final String TASK_WRITER_COUNT = "task_writer_count";
     public static final String TASK_CONCURRENCY = "task_concurrency";
     public static final String TASK_SHARE_INDEX_LOADING = "task_share_index_loading";
+    public static final String TASK_SHARE_SCANS = "task_share_scans";
+    public static final String TASK_SHARE_BROADCAST_BUILDS = "task_share_broadcast_builds";
     public static final String QUERY_MAX_MEMORY = "query_max_memory";
     public static final String QUERY_MAX_TOTAL_MEMORY = "query_max_total_memory";
     public static final String QUERY_MAX_EXECUTION_TIME = "query_max_execution_time";
@@ -82,6 +89,17 @@ public final class SystemSessionProperties
     public static final String ITERATIVE_OPTIMIZER_TIMEOUT = "iterative_optimizer_timeout";
     public static final String ENABLE_NEW_STATS_CALCULATOR = "enable_new_stats_calculator";
     public static final String EXCHANGE_COMPRESSION = "exchange_compression";
+    public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
+    public static final String EXCHANGE_ADAPTIVE_COMPRESSION = "exchange_adaptive_compression";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION = "adaptive_partial_aggregation";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS = "adaptive_partial_aggregation_min_rows";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD = "adaptive_partial_aggregation_unique_rows_ratio_threshold";
+    public static final String SPREAD_NULL_JOIN_KEYS = "spread_null_join_keys";
+    public static final String SPREAD_NULL_JOIN_KEYS_MIN_NULLS_FRACTION = "spread_null_join_keys_min_nulls_fraction";
+    public static final String SKEWED_JOIN_KEY_VALUES = "skewed_join_key_values";
+    public static final String JOIN_MAX_BROADCAST_TABLE_SIZE = "join_max_broadcast_table_size";
+    public static final String SORT_PARALLELISM = "sort_parallelism";
+    public static final String QUERY_RESULT_CACHE_ENABLED = "query_result_cache_enabled";
     public static final String LEGACY_TIMESTAMP = "legacy_timestamp";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
@@ -94,6 +112,9 @@ public final class SystemSessionProperties
     public static final String USE_MARK_DISTINCT = "use_mark_distinct";
     public static final String PREFER_PARTITIAL_AGGREGATION = "prefer_partial_aggregation";
     public static final String MAX_GROUPING_SETS = "max_grouping_sets";
+    public static final String ENABLE_DYNAMIC_FILTERING = "enable_dynamic_filtering";
+    public static final String DYNAMIC_FILTERING_MAX_DISTINCT_VALUES = "dynamic_filtering_max_distinct_values";
+    public static final String TIERED_EXPRESSION_COMPILATION_ENABLED = "tiered_expression_compilation_enabled";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -192,6 +213,16 @@ public final class SystemSessionProperties
                         "Share index join lookups and caching within a task",
                         taskManagerConfig.isShareIndexLoading(),
                         false),
+                booleanSessionProperty(
+                        TASK_SHARE_SCANS,
+                        "Read a split once for all the queries scanning it concurrently on a worker",
+                        taskManagerConfig.isShareScans(),
+                        false),
+                booleanSessionProperty(
+                        TASK_SHARE_BROADCAST_BUILDS,
+                        "Build the hash table of a broadcast join once for all the queries on a worker joining the same build input",
+                        taskManagerConfig.isShareBroadcastBuilds(),
+                        false),
                 new PropertyMetadata<>(
                         QUERY_MAX_RUN_TIME,
                         "Maximum run time of a query (includes the queueing time)",
@@ -371,6 +402,93 @@ public final class SystemSessionProperties
                         "Enable compression in exchanges",
                         featuresConfig.isExchangeCompressionEnabled(),
                         false),
+                new PropertyMetadata<>(
+                        EXCHANGE_COMPRESSION_CODEC,
+                        "Codec used for compression in exchanges (LZ4 or ZSTD)",
+                        VARCHAR,
+                        PageCompression.class,
+                        featuresConfig.getExchangeCompressionCodec(),
+                        false,
+                        value -> PageCompression.valueOf(((String) value).toUpperCase()),
+                        PageCompression::name),
+                booleanSessionProperty(
+                        EXCHANGE_ADAPTIVE_COMPRESSION,
+                        "Stop compressing the pages of an exchange while the observed compression ratio is poor",
+                        featuresConfig.isExchangeAdaptiveCompressionEnabled(),
+                        false),
+                booleanSessionProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION,
+                        "Stop aggregating in partial aggregations that do not reduce the number of rows",
+                        featuresConfig.isAdaptivePartialAggregationEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS,
+                        "Number of input rows a partial aggregation processes before it decides whether to stop aggregating",
+                        BIGINT,
+                        Long.class,
+                        featuresConfig.getAdaptivePartialAggregationMinRows(),
+                        false,
+                        value -> {
+                            long longValue = ((Number) value).longValue();
+                            if (longValue < 0) {
+                                throw new PrestoException(
+                                        StandardErrorCode.INVALID_SESSION_PROPERTY,
+                                        format("%s must not be negative: %s", ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, longValue));
+                            }
+                            return longValue;
+                        },
+                        value -> value),
+                new PropertyMetadata<>(
+                        ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD,
+                        "Ratio of output groups to input rows above which a partial aggregation stops aggregating",
+                        DOUBLE,
+                        Double.class,
+                        featuresConfig.getAdaptivePartialAggregationUniqueRowsRatioThreshold(),
+                        false,
+                        value -> {
+                            double doubleValue = ((Number) value).doubleValue();
+                            if (!(doubleValue > 0 && doubleValue <= 1)) {
+                                throw new PrestoException(
+                                        StandardErrorCode.INVALID_SESSION_PROPERTY,
+                                        format("%s must be greater than 0 and at most 1: %s", ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD, doubleValue));
+                            }
+                            return doubleValue;
+                        },
+                        value -> value),
+                booleanSessionProperty(
+                        SPREAD_NULL_JOIN_KEYS,
+                        "Distribute rows with null join keys round robin in partitioned joins instead of sending them all to one node",
+                        featuresConfig.isSpreadNullJoinKeys(),
+                        false),
+                doubleSessionProperty(
+                        SPREAD_NULL_JOIN_KEYS_MIN_NULLS_FRACTION,
+                        "Estimated fraction of null join keys above which they are spread on the side of an outer join that keeps unmatched rows",
+                        featuresConfig.getSpreadNullJoinKeysMinNullsFraction(),
+                        false),
+                stringSessionProperty(
+                        SKEWED_JOIN_KEY_VALUES,
+                        "Comma separated join key values, such as sentinels for unknown ids, that are spread on the probe side and replicated on the build side of partitioned joins",
+                        featuresConfig.getSkewedJoinKeyValues(),
+                        false),
+                new PropertyMetadata<>(
+                        JOIN_MAX_BROADCAST_TABLE_SIZE,
+                        "Maximum estimated size of the build side of a join for it to be broadcast regardless of distributed_join, which still applies to joins without an estimate (0 to disable)",
+                        VARCHAR,
+                        DataSize.class,
+                        featuresConfig.getJoinMaxBroadcastTableSize(),
+                        false,
+                        value -> DataSize.valueOf((String) value),
+                        DataSize::toString),
+                integerSessionProperty(
+                        SORT_PARALLELISM,
+                        "Number of threads used to sort the input of an order by operator",
+                        featuresConfig.getSortParallelism(),
+                        false),
+                booleanSessionProperty(
+                        QUERY_RESULT_CACHE_ENABLED,
+                        "Serve the query from the coordinator result cache when the scanned tables did not change",
+                        queryManagerConfig.isResultCacheEnabled(),
+                        false),
                 booleanSessionProperty(
                         LEGACY_TIMESTAMP,
                         "Use legacy TIME & TIMESTAMP semantics (warning: this will be removed)",
@@ -434,7 +552,26 @@ public final class SystemSessionProperties
                         MAX_GROUPING_SETS,
                         "Maximum number of grouping sets in a GROUP BY",
                         featuresConfig.getMaxGroupingSets(),
-                        true));
+                        true),
+                booleanSessionProperty(
+                        ENABLE_DYNAMIC_FILTERING,
+                        "Experimental: Push build side join key domains into probe side table scans",
+                        featuresConfig.isEnableDynamicFiltering(),
+                        false),
+                new PropertyMetadata<>(
+                        DYNAMIC_FILTERING_MAX_DISTINCT_VALUES,
+                        "Experimental: Maximum number of distinct build side values collected per join key before falling back to a range",
+                        INTEGER,
+                        Integer.class,
+                        featuresConfig.getDynamicFilteringMaxDistinctValues(),
+                        false,
+                        value -> validateValueIsPositive(value, DYNAMIC_FILTERING_MAX_DISTINCT_VALUES),
+                        value -> value),
+                booleanSessionProperty(
+                        TIERED_EXPRESSION_COMPILATION_ENABLED,
+                        "Experimental: Interpret new filter and projection expressions until their compiled version is ready",
+                        featuresConfig.isTieredExpressionCompilationEnabled(),
+                        false));
     }
 
     public List<PropertyMetadata<?>> getSessionProperties()
@@ -512,6 +649,16 @@ public final class SystemSessionProperties
         return session.getSystemProperty(TASK_SHARE_INDEX_LOADING, Boolean.class);
     }
 
+    public static boolean isShareScans(Session session)
+    {
+        return session.getSystemProperty(TASK_SHARE_SCANS, Boolean.class);
+    }
+
+    public static boolean isShareBroadcastBuilds(Session session)
+    {
+        return session.getSystemProperty(TASK_SHARE_BROADCAST_BUILDS, Boolean.class);
+    }
+
     public static boolean isDictionaryAggregationEnabled(Session session)
     {
         return session.getSystemProperty(DICTIONARY_AGGREGATION, Boolean.class);
@@ -665,6 +812,67 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_COMPRESSION, Boolean.class);
     }
 
+    public static PageCompression getExchangeCompressionCodec(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_CODEC, PageCompression.class);
+    }
+
+    public static boolean isExchangeAdaptiveCompressionEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_ADAPTIVE_COMPRESSION, Boolean.class);
+    }
+
+    public static boolean isAdaptivePartialAggregationEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION, Boolean.class);
+    }
+
+    public static long getAdaptivePartialAggregationMinRows(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, Long.class);
+    }
+
+    public static double getAdaptivePartialAggregationUniqueRowsRatioThreshold(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD, Double.class);
+    }
+
+    public static boolean isSpreadNullJoinKeys(Session session)
+    {
+        return session.getSystemProperty(SPREAD_NULL_JOIN_KEYS, Boolean.class);
+    }
+
+    public static double getSpreadNullJoinKeysMinNullsFraction(Session session)
+    {
+        return session.getSystemProperty(SPREAD_NULL_JOIN_KEYS_MIN_NULLS_FRACTION, Double.class);
+    }
+
+    public static List<String> getSkewedJoinKeyValues(Session session)
+    {
+        return Splitter.on(',').trimResults().omitEmptyStrings().splitToList(session.getSystemProperty(SKEWED_JOIN_KEY_VALUES, String.class));
+    }
+
+    public static DataSize getJoinMaxBroadcastTableSize(Session session)
+    {
+        return session.getSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, DataSize.class);
+    }
+
+    public static int getSortParallelism(Session session)
+    {
+        int value = session.getSystemProperty(SORT_PARALLELISM, Integer.class);
+        if (value < 1) {
+            throw new PrestoException(
+                    StandardErrorCode.INVALID_SESSION_PROPERTY,
+                    format("%s must be greater than or equal to 1: %s", SORT_PARALLELISM, value));
+        }
+        return value;
+    }
+
+    public static boolean isQueryResultCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(QUERY_RESULT_CACHE_ENABLED, Boolean.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -720,6 +928,32 @@ public final class SystemSessionProperties
         return session.getSystemProperty(MAX_GROUPING_SETS, Integer.class);
     }
 
+    public static boolean isEnableDynamicFiltering(Session session)
+    {
+        return session.getSystemProperty(ENABLE_DYNAMIC_FILTERING, Boolean.class);
+    }
+
+    public static int getDynamicFilteringMaxDistinctValues(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_MAX_DISTINCT_VALUES, Integer.class);
+    }
+
+    public static boolean isTieredExpressionCompilationEnabled(Session session)
+    {
+        return session.getSystemProperty(TIERED_EXPRESSION_COMPILATION_ENABLED, Boolean.class);
+    }
+
+    private static int validateValueIsPositive(Object value, String property)
+    {
+        int intValue = ((Number) requireNonNull(value, "value is null")).intValue();
+        if (intValue < 1) {
+            throw new PrestoException(
+                    StandardErrorCode.INVALID_SESSION_PROPERTY,
+                    format("%s must be positive: %s", property, intValue));
+        }
+        return intValue;
+    }
+
     private static int validateValueIsPowerOfTwo(Object value, String property)
     {
         int intValue = ((Number) requireNonNull(value, "value is null")).intValue();
@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.SubPlan;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanFragmentId;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.isShareBroadcastBuilds;
+import static com.facebook.presto.sql.planner.ExpressionExtractor.extractExpressions;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_BROADCAST_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.hash.Hashing.sha256;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Computes the keys under which workers share the lookup sources of broadcast
+ * joins between queries. The key of a join identifies its build side by the
+ * plans of the fragments producing the build rows, with plan node ids and
+ * fragment ids replaced by their position in the plan, and by the data versions
+ * of the tables these fragments read, and by the user, time zone and session
+ * properties of the query. Builds reading tables without a data
+ * version, or evaluating non-deterministic expressions, get no key.
+ */
+public class BroadcastBuildFingerprinter
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapperProvider().get();
+
+    private final Metadata metadata;
+    private final JsonCodec<PlanNode> planCodec;
+
+    @Inject
+    public BroadcastBuildFingerprinter(Metadata metadata, JsonCodec<PlanNode> planCodec)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.planCodec = requireNonNull(planCodec, "planCodec is null");
+    }
+
+    /**
+     * Returns the plan with the keys of the broadcast joins set on the fragments containing them.
+     */
+    public SubPlan addBroadcastBuildKeys(Session session, SubPlan plan)
+    {
+        if (!isShareBroadcastBuilds(session)) {
+            return plan;
+        }
+        Map<PlanFragmentId, PlanFragment> fragments = new HashMap<>();
+        for (PlanFragment fragment : plan.getAllFragments()) {
+            fragments.put(fragment.getId(), fragment);
+        }
+        return addBroadcastBuildKeys(session, plan, fragments, new HashMap<>());
+    }
+
+    private SubPlan addBroadcastBuildKeys(Session session, SubPlan plan, Map<PlanFragmentId, PlanFragment> fragments, Map<PlanFragmentId, Optional<String>> fingerprints)
+    {
+        List<SubPlan> children = plan.getChildren().stream()
+                .map(child -> addBroadcastBuildKeys(session, child, fragments, fingerprints))
+                .collect(toImmutableList());
+
+        PlanFragment fragment = plan.getFragment();
+        fingerprints.put(fragment.getId(), fingerprint(session, fragment.getRoot(), fingerprints)
+                .map(root -> hash(root + fragment.getPartitioningScheme())));
+
+        ImmutableMap.Builder<PlanNodeId, String> keys = ImmutableMap.builder();
+        for (JoinNode join : searchFrom(fragment.getRoot()).where(JoinNode.class::isInstance).<JoinNode>findAll()) {
+            if (!isShareable(join, fragments)) {
+                continue;
+            }
+            List<Symbol> buildSymbols = join.getCriteria().stream()
+                    .map(JoinNode.EquiJoinClause::getRight)
+                    .collect(toImmutableList());
+            List<Symbol> buildOutputSymbols = join.getOutputSymbols().stream()
+                    .filter(join.getRight().getOutputSymbols()::contains)
+                    .collect(toImmutableList());
+            fingerprint(session, join.getRight(), fingerprints)
+                    .ifPresent(build -> keys.put(join.getId(), hash(build + buildSymbols + join.getRightHashSymbol() + buildOutputSymbols)));
+        }
+        return new SubPlan(fragment.withBroadcastBuildKeys(keys.build()), children);
+    }
+
+    private static boolean isShareable(JoinNode join, Map<PlanFragmentId, PlanFragment> fragments)
+    {
+        // the lookup source of a join with a filter is bound to the session of the query building it
+        if (!join.getDistributionType().equals(Optional.of(REPLICATED)) ||
+                (join.getType() != INNER && join.getType() != LEFT) ||
+                join.getCriteria().isEmpty() ||
+                join.getFilter().isPresent()) {
+            return false;
+        }
+
+        // every task must build from all the rows, so they have to arrive through broadcast exchanges,
+        // and the build must not wait for other builds that could in turn wait for it
+        PlanNode build = join.getRight();
+        if (searchFrom(build).where(node -> !isBuildNode(node)).matches()) {
+            return false;
+        }
+        return searchFrom(build).where(RemoteSourceNode.class::isInstance).<RemoteSourceNode>findAll().stream()
+                .flatMap(remoteSource -> remoteSource.getSourceFragmentIds().stream())
+                .allMatch(fragmentId -> fragments.get(fragmentId).getPartitioningScheme().getPartitioning().getHandle().equals(FIXED_BROADCAST_DISTRIBUTION));
+    }
+
+    private static boolean isBuildNode(PlanNode node)
+    {
+        return node instanceof RemoteSourceNode ||
+                node instanceof ExchangeNode ||
+                node instanceof ProjectNode ||
+                node instanceof FilterNode;
+    }
+
+    private Optional<String> fingerprint(Session session, PlanNode root, Map<PlanFragmentId, Optional<String>> fingerprints)
+    {
+        if (searchFrom(root).where(QueryResultCache::isUncacheable).matches() ||
+                !extractExpressions(root).stream().allMatch(QueryResultCache::isCacheable)) {
+            return Optional.empty();
+        }
+
+        ImmutableList.Builder<String> tableVersions = ImmutableList.builder();
+        for (TableScanNode tableScan : searchFrom(root).where(TableScanNode.class::isInstance).<TableScanNode>findAll()) {
+            Optional<String> version = metadata.getTableDataVersion(session, tableScan.getTable());
+            if (!version.isPresent()) {
+                return Optional.empty();
+            }
+            tableVersions.add(version.get());
+        }
+
+        Map<String, String> sourceFingerprints = new HashMap<>();
+        for (RemoteSourceNode remoteSource : searchFrom(root).where(RemoteSourceNode.class::isInstance).<RemoteSourceNode>findAll()) {
+            for (PlanFragmentId fragmentId : remoteSource.getSourceFragmentIds()) {
+                Optional<String> fingerprint = fingerprints.getOrDefault(fragmentId, Optional.empty());
+                if (!fingerprint.isPresent()) {
+                    return Optional.empty();
+                }
+                sourceFingerprints.put(fragmentId.toString(), fingerprint.get());
+            }
+        }
+
+        Map<String, String> nodeIds = new HashMap<>();
+        for (PlanNode node : searchFrom(root).findAll()) {
+            nodeIds.put(node.getId().toString(), String.valueOf(nodeIds.size()));
+        }
+
+        JsonNode plan;
+        try {
+            plan = OBJECT_MAPPER.readTree(planCodec.toJson(root));
+        }
+        catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+        canonicalize(plan, nodeIds, sourceFingerprints);
+
+        // session properties can change how the filters and projections of the build evaluate
+        return Optional.of(hash(plan.toString() + tableVersions.build() + session.getUser() + session.getTimeZoneKey() + QueryResultCache.getSessionProperties(session)));
+    }
+
+    /**
+     * Replaces the ids of the plan nodes, which depend on the rest of the query,
+     * with their position in the plan, and the ids of the source fragments with
+     * the fingerprints of these fragments.
+     */
+    private static void canonicalize(JsonNode node, Map<String, String> nodeIds, Map<String, String> sourceFingerprints)
+    {
+        if (node.isObject() && node.has("@type")) {
+            ObjectNode object = (ObjectNode) node;
+            String id = object.path("id").asText();
+            if (nodeIds.containsKey(id)) {
+                object.put("id", nodeIds.get(id));
+            }
+            if (object.get("@type").asText().equals("remoteSource")) {
+                ArrayNode sourceFragmentIds = (ArrayNode) object.get("sourceFragmentIds");
+                for (int i = 0; i < sourceFragmentIds.size(); i++) {
+                    sourceFragmentIds.set(i, sourceFragmentIds.textNode(sourceFingerprints.get(sourceFragmentIds.get(i).asText())));
+                }
+            }
+        }
+        for (JsonNode child : node) {
+            canonicalize(child, nodeIds, sourceFingerprints);
+        }
+    }
+
+    private static String hash(String value)
+    {
+        return sha256().hashString(value, UTF_8).toString();
+    }
+}
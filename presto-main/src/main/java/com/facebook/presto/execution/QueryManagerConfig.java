@@ -17,6 +17,7 @@ import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.DefunctConfig;
 import io.airlift.configuration.LegacyConfig;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.airlift.units.MinDuration;
 
@@ -26,6 +27,8 @@ import javax.validation.constraints.NotNull;
 
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
 @DefunctConfig({
         "query.max-pending-splits-per-node",
         "query.queue-config-file",
@@ -59,6 +62,11 @@ public class QueryManagerConfig
     private int initializationRequiredWorkers = 1;
     private Duration initializationTimeout = new Duration(5, TimeUnit.MINUTES);
 
+    private boolean resultCacheEnabled;
+    private DataSize resultCacheMaxSize = new DataSize(100, MEGABYTE);
+    private DataSize resultCacheMaxEntrySize = new DataSize(1, MEGABYTE);
+    private Duration resultCacheTtl = new Duration(10, TimeUnit.MINUTES);
+
     @Min(1)
     public int getScheduleSplitBatchSize()
     {
@@ -316,4 +324,58 @@ public class QueryManagerConfig
         this.initializationTimeout = initializationTimeout;
         return this;
     }
+
+    public boolean isResultCacheEnabled()
+    {
+        return resultCacheEnabled;
+    }
+
+    @Config("query.result-cache.enabled")
+    @ConfigDescription("Serve repeated queries over unchanged tables from the coordinator result cache")
+    public QueryManagerConfig setResultCacheEnabled(boolean resultCacheEnabled)
+    {
+        this.resultCacheEnabled = resultCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getResultCacheMaxSize()
+    {
+        return resultCacheMaxSize;
+    }
+
+    @Config("query.result-cache.max-size")
+    @ConfigDescription("Maximum total size of the results kept in the coordinator result cache")
+    public QueryManagerConfig setResultCacheMaxSize(DataSize resultCacheMaxSize)
+    {
+        this.resultCacheMaxSize = resultCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getResultCacheMaxEntrySize()
+    {
+        return resultCacheMaxEntrySize;
+    }
+
+    @Config("query.result-cache.max-entry-size")
+    @ConfigDescription("Results larger than this are not cached")
+    public QueryManagerConfig setResultCacheMaxEntrySize(DataSize resultCacheMaxEntrySize)
+    {
+        this.resultCacheMaxEntrySize = resultCacheMaxEntrySize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getResultCacheTtl()
+    {
+        return resultCacheTtl;
+    }
+
+    @Config("query.result-cache.ttl")
+    public QueryManagerConfig setResultCacheTtl(Duration resultCacheTtl)
+    {
+        this.resultCacheTtl = resultCacheTtl;
+        return this;
+    }
 }
@@ -0,0 +1,514 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.connector.ConnectorId;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.QualifiedObjectName;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.type.TimeZoneKey;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.analyzer.ExpressionTreeUtils;
+import com.facebook.presto.sql.planner.LiteralEncoder;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.DeleteNode;
+import com.facebook.presto.sql.planner.plan.ExplainAnalyzeNode;
+import com.facebook.presto.sql.planner.plan.IndexSourceNode;
+import com.facebook.presto.sql.planner.plan.MetadataDeleteNode;
+import com.facebook.presto.sql.planner.plan.OutputNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.SampleNode;
+import com.facebook.presto.sql.planner.plan.TableFinishNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.planner.plan.TableWriterNode.CreateHandle;
+import com.facebook.presto.sql.planner.plan.TableWriterNode.DeleteHandle;
+import com.facebook.presto.sql.planner.plan.TableWriterNode.InsertHandle;
+import com.facebook.presto.sql.planner.plan.TableWriterNode.WriterTarget;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import io.airlift.json.JsonCodec;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.presto.SystemSessionProperties.isQueryResultCacheEnabled;
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.facebook.presto.sql.planner.DeterminismEvaluator.isDeterministic;
+import static com.facebook.presto.sql.planner.ExpressionExtractor.extractExpressions;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Keeps the results of read-only queries on the coordinator. A query whose
+ * optimized plan is identical to the plan of a cached query, and whose tables
+ * report the same data versions, is answered from the cached pages instead of
+ * reading the tables again. The user, time zone and session properties of the
+ * queries must match as well, as they can change the results of the same plan.
+ * Tables without a data version are never cached, and the entries of a table
+ * are dropped when a query writing to it finishes.
+ */
+@ThreadSafe
+public class QueryResultCache
+{
+    private static final Set<String> SESSION_DEPENDENT_FUNCTIONS = ImmutableSet.of(
+            "current_date",
+            "current_time",
+            "current_timestamp",
+            "current_timezone",
+            "localtime",
+            "localtimestamp",
+            "now");
+
+    private final Metadata metadata;
+    private final JsonCodec<PlanNode> planCodec;
+    private final SqlQueryManagerStats stats;
+    private final long maxSizeInBytes;
+    private final long maxEntrySizeInBytes;
+    private final Cache<CacheKey, CachedResult> results;
+    private final Cache<QueryId, ResultCapture> captures;
+    // the size of the pages collected by all running captures
+    private final AtomicLong capturedBytes = new AtomicLong();
+
+    @Inject
+    public QueryResultCache(QueryManagerConfig config, Metadata metadata, JsonCodec<PlanNode> planCodec, SqlQueryManagerStats stats)
+    {
+        this(
+                metadata,
+                planCodec,
+                stats,
+                config.getResultCacheMaxSize(),
+                config.getResultCacheMaxEntrySize(),
+                config.getResultCacheTtl());
+    }
+
+    public QueryResultCache(Metadata metadata, JsonCodec<PlanNode> planCodec, SqlQueryManagerStats stats, DataSize maxSize, DataSize maxEntrySize, Duration ttl)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.planCodec = requireNonNull(planCodec, "planCodec is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.maxSizeInBytes = requireNonNull(maxSize, "maxSize is null").toBytes();
+        this.maxEntrySizeInBytes = requireNonNull(maxEntrySize, "maxEntrySize is null").toBytes();
+        requireNonNull(ttl, "ttl is null");
+
+        this.results = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeInBytes)
+                .weigher((CacheKey key, CachedResult result) -> toIntExact(min(Integer.MAX_VALUE, key.getSizeInBytes() + result.getSizeInBytes())))
+                .expireAfterWrite(ttl.toMillis(), MILLISECONDS)
+                .build();
+        // captures of queries whose client went away are never finished
+        this.captures = CacheBuilder.newBuilder()
+                .expireAfterAccess(ttl.toMillis(), MILLISECONDS)
+                .removalListener((RemovalNotification<QueryId, ResultCapture> notification) -> notification.getValue().release())
+                .build();
+    }
+
+    /**
+     * Returns the cache key of the plan, or empty if the results of the plan cannot be cached.
+     */
+    public Optional<CacheKey> createCacheKey(Session session, Plan plan)
+    {
+        if (!isQueryResultCacheEnabled(session)) {
+            return Optional.empty();
+        }
+
+        PlanNode root = plan.getRoot();
+        if (!(root instanceof OutputNode) || searchFrom(root).where(QueryResultCache::isUncacheable).matches()) {
+            return Optional.empty();
+        }
+        List<Expression> expressions = extractExpressions(root);
+        if (!expressions.stream().allMatch(QueryResultCache::isCacheable)) {
+            return Optional.empty();
+        }
+
+        Map<QualifiedObjectName, String> tableVersions = new HashMap<>();
+        for (TableScanNode tableScan : searchFrom(root).where(TableScanNode.class::isInstance).<TableScanNode>findAll()) {
+            Optional<String> version = metadata.getTableDataVersion(session, tableScan.getTable());
+            if (!version.isPresent()) {
+                return Optional.empty();
+            }
+            tableVersions.put(getTableName(session, tableScan.getTable()), version.get());
+        }
+
+        String serializedPlan;
+        try {
+            serializedPlan = planCodec.toJson(root);
+        }
+        catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return Optional.of(new CacheKey(serializedPlan, tableVersions, session.getUser(), session.getTimeZoneKey(), getSessionProperties(session)));
+    }
+
+    /**
+     * Returns the system and catalog session properties set for the session, with
+     * the names of catalog properties prefixed by their catalog.
+     */
+    static Map<String, String> getSessionProperties(Session session)
+    {
+        ImmutableSortedMap.Builder<String, String> properties = ImmutableSortedMap.naturalOrder();
+        properties.putAll(session.getSystemProperties());
+        for (Map.Entry<ConnectorId, Map<String, String>> catalog : session.getConnectorProperties().entrySet()) {
+            catalog.getValue().forEach((name, value) -> properties.put(catalog.getKey().getCatalogName() + "." + name, value));
+        }
+        return properties.build();
+    }
+
+    public Optional<List<Page>> get(CacheKey key)
+    {
+        CachedResult result = results.getIfPresent(key);
+        if (result == null) {
+            stats.resultCacheMiss();
+            return Optional.empty();
+        }
+        stats.resultCacheHit();
+        return Optional.of(result.getPages());
+    }
+
+    /**
+     * Starts collecting the output pages of the query, which are cached under
+     * the key when the query finishes.
+     */
+    public void startCapture(QueryId queryId, CacheKey key)
+    {
+        captures.put(queryId, new ResultCapture(key));
+    }
+
+    public void addPages(QueryId queryId, List<Page> pages)
+    {
+        ResultCapture capture = captures.getIfPresent(queryId);
+        if (capture != null && !capture.addPages(pages)) {
+            // results are too large to be cached, or the running captures hold too much memory
+            captures.invalidate(queryId);
+        }
+    }
+
+    public void finishCapture(QueryId queryId)
+    {
+        ResultCapture capture = captures.asMap().remove(queryId);
+        if (capture != null) {
+            results.put(capture.getKey(), capture.getResult());
+        }
+    }
+
+    public void abortCapture(QueryId queryId)
+    {
+        captures.invalidate(queryId);
+    }
+
+    /**
+     * Drops the cached results of all queries that read the table.
+     */
+    public void invalidate(QualifiedObjectName table)
+    {
+        results.asMap().keySet().removeIf(key -> key.getTables().contains(table));
+    }
+
+    /**
+     * Replaces the plan with one producing the cached pages, which must have
+     * been created by a query with the same plan.
+     */
+    public Plan createCachedResultPlan(Plan plan, List<Page> pages, PlanNodeIdAllocator idAllocator)
+    {
+        checkArgument(plan.getRoot() instanceof OutputNode, "plan root is not an output node");
+        OutputNode output = (OutputNode) plan.getRoot();
+
+        // the output can list a symbol more than once, while values produces each symbol once
+        List<Symbol> outputSymbols = output.getOutputSymbols();
+        List<Symbol> symbols = ImmutableSet.copyOf(outputSymbols).asList();
+
+        LiteralEncoder literalEncoder = new LiteralEncoder(metadata.getBlockEncodingSerde());
+        ImmutableList.Builder<List<Expression>> rows = ImmutableList.builder();
+        for (Page page : pages) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                ImmutableList.Builder<Expression> row = ImmutableList.builder();
+                for (Symbol symbol : symbols) {
+                    Type type = plan.getTypes().get(symbol);
+                    Object value = readNativeValue(type, page.getBlock(outputSymbols.indexOf(symbol)), position);
+                    row.add(literalEncoder.toExpression(value, type));
+                }
+                rows.add(row.build());
+            }
+        }
+
+        ValuesNode values = new ValuesNode(idAllocator.getNextId(), symbols, rows.build());
+        return new Plan(new OutputNode(idAllocator.getNextId(), values, output.getColumnNames(), outputSymbols), plan.getTypes());
+    }
+
+    /**
+     * Returns the tables written by the plan.
+     */
+    public static Set<QualifiedObjectName> getWrittenTables(PlanNode root)
+    {
+        ImmutableSet.Builder<QualifiedObjectName> tables = ImmutableSet.builder();
+        for (PlanNode node : searchFrom(root).where(node -> node instanceof TableFinishNode || node instanceof MetadataDeleteNode).findAll()) {
+            WriterTarget target;
+            if (node instanceof TableFinishNode) {
+                target = ((TableFinishNode) node).getTarget();
+            }
+            else {
+                target = ((MetadataDeleteNode) node).getTarget();
+            }
+            tables.add(getTargetTable(target));
+        }
+        return tables.build();
+    }
+
+    @Managed
+    public long getSizeInBytes()
+    {
+        return results.asMap().entrySet().stream()
+                .mapToLong(entry -> entry.getKey().getSizeInBytes() + entry.getValue().getSizeInBytes())
+                .sum();
+    }
+
+    @Managed
+    public long getCapturedBytes()
+    {
+        return capturedBytes.get();
+    }
+
+    @Managed
+    public long getEntryCount()
+    {
+        return results.size();
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        results.invalidateAll();
+    }
+
+    private QualifiedObjectName getTableName(Session session, TableHandle tableHandle)
+    {
+        SchemaTableName table = metadata.getTableMetadata(session, tableHandle).getTable();
+        return new QualifiedObjectName(tableHandle.getConnectorId().getCatalogName(), table.getSchemaName(), table.getTableName());
+    }
+
+    private static QualifiedObjectName getTargetTable(WriterTarget target)
+    {
+        if (target instanceof CreateHandle) {
+            CreateHandle handle = (CreateHandle) target;
+            return toQualifiedObjectName(handle.getHandle().getConnectorId().getCatalogName(), handle.getSchemaTableName());
+        }
+        if (target instanceof InsertHandle) {
+            InsertHandle handle = (InsertHandle) target;
+            return toQualifiedObjectName(handle.getHandle().getConnectorId().getCatalogName(), handle.getSchemaTableName());
+        }
+        if (target instanceof DeleteHandle) {
+            DeleteHandle handle = (DeleteHandle) target;
+            return toQualifiedObjectName(handle.getHandle().getConnectorId().getCatalogName(), handle.getSchemaTableName());
+        }
+        throw new IllegalArgumentException("Unhandled target type: " + target.getClass().getSimpleName());
+    }
+
+    private static QualifiedObjectName toQualifiedObjectName(String catalogName, SchemaTableName table)
+    {
+        return new QualifiedObjectName(catalogName, table.getSchemaName(), table.getTableName());
+    }
+
+    static boolean isUncacheable(PlanNode node)
+    {
+        return node instanceof TableWriterNode ||
+                node instanceof TableFinishNode ||
+                node instanceof DeleteNode ||
+                node instanceof MetadataDeleteNode ||
+                node instanceof ExplainAnalyzeNode ||
+                node instanceof IndexSourceNode ||
+                node instanceof SampleNode;
+    }
+
+    static boolean isCacheable(Expression expression)
+    {
+        if (!isDeterministic(expression)) {
+            return false;
+        }
+        return ExpressionTreeUtils.extractExpressions(ImmutableList.of(expression), FunctionCall.class).stream()
+                .noneMatch(call -> SESSION_DEPENDENT_FUNCTIONS.contains(call.getName().toString()));
+    }
+
+    public static final class CacheKey
+    {
+        private final String plan;
+        private final Map<QualifiedObjectName, String> tableVersions;
+        private final String user;
+        private final TimeZoneKey timeZoneKey;
+        private final Map<String, String> sessionProperties;
+
+        public CacheKey(String plan, Map<QualifiedObjectName, String> tableVersions, String user, TimeZoneKey timeZoneKey, Map<String, String> sessionProperties)
+        {
+            this.plan = requireNonNull(plan, "plan is null");
+            this.tableVersions = ImmutableMap.copyOf(requireNonNull(tableVersions, "tableVersions is null"));
+            this.user = requireNonNull(user, "user is null");
+            this.timeZoneKey = requireNonNull(timeZoneKey, "timeZoneKey is null");
+            this.sessionProperties = ImmutableMap.copyOf(requireNonNull(sessionProperties, "sessionProperties is null"));
+        }
+
+        public Set<QualifiedObjectName> getTables()
+        {
+            return tableVersions.keySet();
+        }
+
+        public long getSizeInBytes()
+        {
+            return plan.length() * (long) Character.BYTES;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return Objects.equals(plan, other.plan) &&
+                    Objects.equals(tableVersions, other.tableVersions) &&
+                    Objects.equals(user, other.user) &&
+                    Objects.equals(timeZoneKey, other.timeZoneKey) &&
+                    Objects.equals(sessionProperties, other.sessionProperties);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(plan, tableVersions, user, timeZoneKey, sessionProperties);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("tables", tableVersions)
+                    .add("user", user)
+                    .add("timeZoneKey", timeZoneKey)
+                    .add("sessionProperties", sessionProperties)
+                    .toString();
+        }
+    }
+
+    private static class CachedResult
+    {
+        private final List<Page> pages;
+        private final long sizeInBytes;
+
+        public CachedResult(List<Page> pages, long sizeInBytes)
+        {
+            this.pages = ImmutableList.copyOf(requireNonNull(pages, "pages is null"));
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        public List<Page> getPages()
+        {
+            return pages;
+        }
+
+        public long getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+    }
+
+    private class ResultCapture
+    {
+        private final CacheKey key;
+
+        @GuardedBy("this")
+        private final List<Page> pages = new ArrayList<>();
+        @GuardedBy("this")
+        private long sizeInBytes;
+        @GuardedBy("this")
+        private boolean released;
+
+        public ResultCapture(CacheKey key)
+        {
+            this.key = requireNonNull(key, "key is null");
+        }
+
+        public CacheKey getKey()
+        {
+            return key;
+        }
+
+        /**
+         * Returns false if the results are too large to be cached, or if the running
+         * captures together exceed the size of the cache.
+         */
+        public synchronized boolean addPages(List<Page> newPages)
+        {
+            if (released) {
+                return false;
+            }
+            long addedBytes = 0;
+            for (Page page : newPages) {
+                addedBytes += page.getRetainedSizeInBytes();
+                pages.add(page);
+            }
+            sizeInBytes += addedBytes;
+            long totalBytes = capturedBytes.addAndGet(addedBytes);
+            return sizeInBytes <= maxEntrySizeInBytes && totalBytes <= maxSizeInBytes;
+        }
+
+        /**
+         * Called once the capture is no longer running.
+         */
+        public synchronized void release()
+        {
+            if (!released) {
+                released = true;
+                capturedBytes.addAndGet(-sizeInBytes);
+            }
+        }
+
+        public synchronized CachedResult getResult()
+        {
+            return new CachedResult(pages, sizeInBytes);
+        }
+    }
+}
@@ -362,6 +362,8 @@ public class QueryStateMachine
 
         long physicalWrittenDataSize = 0;
 
+        long totalCompileTime = 0;
+
         ImmutableList.Builder<StageGcStatistics> stageGcStatistics = ImmutableList.builder();
 
         boolean fullyBlocked = rootStage.isPresent();
@@ -404,6 +406,8 @@ public class QueryStateMachine
 
             physicalWrittenDataSize += stageStats.getPhysicalWrittenDataSize().toBytes();
 
+            totalCompileTime += stageStats.getTotalCompileTime().roundTo(NANOSECONDS);
+
             stageGcStatistics.add(stageStats.getGcInfo());
 
             completeInfo = completeInfo && stageInfo.isCompleteInfo();
@@ -467,6 +471,8 @@ public class QueryStateMachine
 
                 succinctBytes(physicalWrittenDataSize),
 
+                succinctNanos(totalCompileTime),
+
                 stageGcStatistics.build(),
 
                 operatorStatsSummary.build());
@@ -923,6 +929,7 @@ public class QueryStateMachine
                 queryStats.getOutputDataSize(),
                 queryStats.getOutputPositions(),
                 queryStats.getPhysicalWrittenDataSize(),
+                queryStats.getTotalCompileTime(),
                 queryStats.getStageGcStatistics(),
                 ImmutableList.of()); // Remove the operator summaries as OperatorInfo (especially ExchangeClientStatus) can hold onto a large amount of memory
     }
@@ -89,6 +89,8 @@ public class QueryStats
 
     private final DataSize physicalWrittenDataSize;
 
+    private final Duration totalCompileTime;
+
     private final List<StageGcStatistics> stageGcStatistics;
 
     private final List<OperatorStats> operatorSummaries;
@@ -135,6 +137,7 @@ public class QueryStats
         this.outputDataSize = null;
         this.outputPositions = 0;
         this.physicalWrittenDataSize = null;
+        this.totalCompileTime = null;
         this.stageGcStatistics = null;
         this.operatorSummaries = null;
     }
@@ -190,6 +193,8 @@ public class QueryStats
 
             @JsonProperty("physicalWrittenDataSize") DataSize physicalWrittenDataSize,
 
+            @JsonProperty("totalCompileTime") Duration totalCompileTime,
+
             @JsonProperty("stageGcStatistics") List<StageGcStatistics> stageGcStatistics,
 
             @JsonProperty("operatorSummaries") List<OperatorStats> operatorSummaries)
@@ -253,6 +258,8 @@ public class QueryStats
 
         this.physicalWrittenDataSize = requireNonNull(physicalWrittenDataSize, "physicalWrittenDataSize is null");
 
+        this.totalCompileTime = requireNonNull(totalCompileTime, "totalCompileTime is null");
+
         this.stageGcStatistics = ImmutableList.copyOf(requireNonNull(stageGcStatistics, "stageGcStatistics is null"));
 
         this.operatorSummaries = ImmutableList.copyOf(requireNonNull(operatorSummaries, "operatorSummaries is null"));
@@ -507,6 +514,12 @@ public class QueryStats
         return physicalWrittenDataSize;
     }
 
+    @JsonProperty
+    public Duration getTotalCompileTime()
+    {
+        return totalCompileTime;
+    }
+
     @JsonProperty
     public long getWrittenPositions()
     {
@@ -18,6 +18,7 @@ import com.facebook.presto.OutputBuffers.OutputBufferId;
 import com.facebook.presto.Session;
 import com.facebook.presto.SystemSessionProperties;
 import com.facebook.presto.connector.ConnectorId;
+import com.facebook.presto.execution.QueryResultCache.CacheKey;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.scheduler.ExecutionPolicy;
 import com.facebook.presto.execution.scheduler.NodeScheduler;
@@ -27,9 +28,11 @@ import com.facebook.presto.failureDetector.FailureDetector;
 import com.facebook.presto.memory.ClusterMemoryManager;
 import com.facebook.presto.memory.VersionedMemoryPoolId;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.QualifiedObjectName;
 import com.facebook.presto.metadata.TableHandle;
 import com.facebook.presto.operator.ForScheduler;
 import com.facebook.presto.security.AccessControl;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.resourceGroups.ResourceGroupId;
@@ -79,6 +82,8 @@ import java.util.function.Consumer;
 
 import static com.facebook.presto.OutputBuffers.BROADCAST_PARTITION_ID;
 import static com.facebook.presto.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.execution.QueryResultCache.getWrittenTables;
+import static com.facebook.presto.execution.QueryState.FINISHED;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Throwables.throwIfInstanceOf;
@@ -113,6 +118,8 @@ public class SqlQueryExecution
     private final NodeTaskMap nodeTaskMap;
     private final ExecutionPolicy executionPolicy;
     private final SplitSchedulerStats schedulerStats;
+    private final QueryResultCache queryResultCache;
+    private final BroadcastBuildFingerprinter broadcastBuildFingerprinter;
     private final Analysis analysis;
 
     public SqlQueryExecution(QueryId queryId,
@@ -138,7 +145,9 @@ public class SqlQueryExecution
             QueryExplainer queryExplainer,
             ExecutionPolicy executionPolicy,
             List<Expression> parameters,
-            SplitSchedulerStats schedulerStats)
+            SplitSchedulerStats schedulerStats,
+            QueryResultCache queryResultCache,
+            BroadcastBuildFingerprinter broadcastBuildFingerprinter)
     {
         try (SetThreadName ignored = new SetThreadName("Query-%s", queryId)) {
             this.metadata = requireNonNull(metadata, "metadata is null");
@@ -154,6 +163,8 @@ public class SqlQueryExecution
             this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
             this.executionPolicy = requireNonNull(executionPolicy, "executionPolicy is null");
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
+            this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
+            this.broadcastBuildFingerprinter = requireNonNull(broadcastBuildFingerprinter, "broadcastBuildFingerprinter is null");
 
             checkArgument(scheduleSplitBatchSize > 0, "scheduleSplitBatchSize must be greater than 0");
             this.scheduleSplitBatchSize = scheduleSplitBatchSize;
@@ -339,7 +350,6 @@ public class SqlQueryExecution
         PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
         LogicalPlanner logicalPlanner = new LogicalPlanner(stateMachine.getSession(), planOptimizers, idAllocator, metadata, sqlParser);
         Plan plan = logicalPlanner.plan(analysis);
-        queryPlan.set(plan);
 
         // extract inputs
         List<Input> inputs = new InputExtractor(metadata, stateMachine.getSession()).extractInputs(plan.getRoot());
@@ -349,8 +359,12 @@ public class SqlQueryExecution
         Optional<Output> output = new OutputExtractor().extractOutput(plan.getRoot());
         stateMachine.setOutput(output);
 
+        plan = applyResultCache(plan, idAllocator);
+        queryPlan.set(plan);
+
         // fragment the plan
         SubPlan fragmentedPlan = PlanFragmenter.createSubPlans(stateMachine.getSession(), metadata, nodePartitioningManager, plan, false);
+        fragmentedPlan = broadcastBuildFingerprinter.addBroadcastBuildKeys(stateMachine.getSession(), fragmentedPlan);
 
         // record analysis time
         stateMachine.recordAnalysisTime(analysisStart);
@@ -359,6 +373,40 @@ public class SqlQueryExecution
         return new PlanRoot(fragmentedPlan, !explainAnalyze, extractConnectors(analysis));
     }
 
+    private Plan applyResultCache(Plan plan, PlanNodeIdAllocator idAllocator)
+    {
+        // results read from the tables written by this query are stale once it commits
+        Set<QualifiedObjectName> writtenTables = getWrittenTables(plan.getRoot());
+        if (!writtenTables.isEmpty()) {
+            stateMachine.addStateChangeListener(state -> {
+                if (state == FINISHED) {
+                    writtenTables.forEach(queryResultCache::invalidate);
+                }
+            });
+            return plan;
+        }
+
+        Optional<CacheKey> cacheKey = queryResultCache.createCacheKey(stateMachine.getSession(), plan);
+        if (!cacheKey.isPresent()) {
+            return plan;
+        }
+
+        Optional<List<Page>> cachedPages = queryResultCache.get(cacheKey.get());
+        if (cachedPages.isPresent()) {
+            return queryResultCache.createCachedResultPlan(plan, cachedPages.get(), idAllocator);
+        }
+
+        // the output pages are captured as the client reads them, see Query
+        QueryId queryId = stateMachine.getQueryId();
+        queryResultCache.startCapture(queryId, cacheKey.get());
+        stateMachine.addStateChangeListener(state -> {
+            if (state.isDone() && state != FINISHED) {
+                queryResultCache.abortCapture(queryId);
+            }
+        });
+        return plan;
+    }
+
     private Set<ConnectorId> extractConnectors(Analysis analysis)
     {
         ImmutableSet.Builder<ConnectorId> connectors = ImmutableSet.builder();
@@ -616,6 +664,8 @@ public class SqlQueryExecution
         private final Map<String, ExecutionPolicy> executionPolicies;
         private final ClusterMemoryManager clusterMemoryManager;
         private final DataSize preAllocateMemoryThreshold;
+        private final QueryResultCache queryResultCache;
+        private final BroadcastBuildFingerprinter broadcastBuildFingerprinter;
 
         @Inject
         SqlQueryExecutionFactory(QueryManagerConfig config,
@@ -637,7 +687,9 @@ public class SqlQueryExecution
                 QueryExplainer queryExplainer,
                 Map<String, ExecutionPolicy> executionPolicies,
                 SplitSchedulerStats schedulerStats,
-                ClusterMemoryManager clusterMemoryManager)
+                ClusterMemoryManager clusterMemoryManager,
+                QueryResultCache queryResultCache,
+                BroadcastBuildFingerprinter broadcastBuildFingerprinter)
         {
             requireNonNull(config, "config is null");
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
@@ -660,6 +712,8 @@ public class SqlQueryExecution
             this.executionPolicies = requireNonNull(executionPolicies, "schedulerPolicies is null");
             this.clusterMemoryManager = requireNonNull(clusterMemoryManager, "clusterMemoryManager is null");
             this.preAllocateMemoryThreshold = requireNonNull(featuresConfig, "featuresConfig is null").getPreAllocateMemoryThreshold();
+            this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
+            this.broadcastBuildFingerprinter = requireNonNull(broadcastBuildFingerprinter, "broadcastBuildFingerprinter is null");
             this.planOptimizers = planOptimizers.get();
         }
 
@@ -694,7 +748,9 @@ public class SqlQueryExecution
                     queryExplainer,
                     executionPolicy,
                     parameters,
-                    schedulerStats);
+                    schedulerStats,
+                    queryResultCache,
+                    broadcastBuildFingerprinter);
 
             if (preAllocateMemoryThreshold.toBytes() > 0 && session.getResourceEstimates().getPeakMemory().isPresent() &&
                     session.getResourceEstimates().getPeakMemory().get().compareTo(preAllocateMemoryThreshold) >= 0) {
@@ -151,7 +151,7 @@ public class SqlQueryManager
 
     private final Map<Class<? extends Statement>, QueryExecutionFactory<?>> executionFactories;
 
-    private final SqlQueryManagerStats stats = new SqlQueryManagerStats();
+    private final SqlQueryManagerStats stats;
 
     private final AtomicBoolean acceptQueries = new AtomicBoolean();
 
@@ -170,9 +170,11 @@ public class SqlQueryManager
             SessionSupplier sessionSupplier,
             InternalNodeManager internalNodeManager,
             Map<Class<? extends Statement>, QueryExecutionFactory<?>> executionFactories,
-            Metadata metadata)
+            Metadata metadata,
+            SqlQueryManagerStats stats)
     {
         this.sqlParser = requireNonNull(sqlParser, "sqlParser is null");
+        this.stats = requireNonNull(stats, "stats is null");
 
         this.executionFactories = requireNonNull(executionFactories, "executionFactories is null");
 
@@ -45,6 +45,7 @@ import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
@@ -286,10 +287,24 @@ public class SqlTask
         return ImmutableSet.of();
     }
 
+    private static OptionalLong getMaxAcknowledgedSplit(TaskHolder taskHolder)
+    {
+        TaskInfo finalTaskInfo = taskHolder.getFinalTaskInfo();
+        if (finalTaskInfo != null) {
+            return finalTaskInfo.getMaxAcknowledgedSplit();
+        }
+        SqlTaskExecution taskExecution = taskHolder.getTaskExecution();
+        if (taskExecution != null) {
+            return taskExecution.getMaxAcknowledgedSplit();
+        }
+        return OptionalLong.empty();
+    }
+
     private TaskInfo createTaskInfo(TaskHolder taskHolder)
     {
         TaskStats taskStats = getTaskStats(taskHolder);
         Set<PlanNodeId> noMoreSplits = getNoMoreSplits(taskHolder);
+        OptionalLong maxAcknowledgedSplit = getMaxAcknowledgedSplit(taskHolder);
 
         TaskStatus taskStatus = createTaskStatus(taskHolder);
         return new TaskInfo(
@@ -297,6 +312,7 @@ public class SqlTask
                 lastHeartbeat.get(),
                 outputBuffer.getInfo(),
                 noMoreSplits,
+                maxAcknowledgedSplit,
                 taskStats,
                 needsPlan.get(),
                 taskStatus.getState().isDone());
@@ -476,7 +492,7 @@ public class SqlTask
             }
             // get IoStats from the current task execution
             TaskContext taskContext = taskExecution.getTaskContext();
-            return new SqlTaskIoStats(taskContext.getInputDataSize(), taskContext.getInputPositions(), taskContext.getOutputDataSize(), taskContext.getOutputPositions());
+            return new SqlTaskIoStats(taskContext.getInputDataSize(), taskContext.getInputPositions(), taskContext.getOutputDataSize(), taskContext.getOutputPositions(), taskContext.getPageCompressionStats());
         }
     }
 
@@ -56,6 +56,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -69,6 +70,7 @@ import static com.facebook.presto.execution.SqlTaskExecution.SplitsState.ADDING_
 import static com.facebook.presto.execution.SqlTaskExecution.SplitsState.FINISHED;
 import static com.facebook.presto.execution.SqlTaskExecution.SplitsState.NO_MORE_SPLITS;
 import static com.facebook.presto.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
+import static com.facebook.presto.util.CompilerUtils.getCurrentThreadCompileNanos;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -543,6 +545,18 @@ public class SqlTaskExecution
         }
     }
 
+    /**
+     * Returns the highest split sequence id received by this task. Splits with
+     * a lower or equal sequence id are ignored when they are sent again.
+     */
+    public synchronized OptionalLong getMaxAcknowledgedSplit()
+    {
+        if (maxAcknowledgedSplit == Long.MIN_VALUE) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(maxAcknowledgedSplit);
+    }
+
     public synchronized Set<PlanNodeId> getNoMoreSplits()
     {
         ImmutableSet.Builder<PlanNodeId> noMoreSplits = ImmutableSet.builder();
@@ -956,21 +970,28 @@ public class SqlTaskExecution
         @Override
         public ListenableFuture<?> processFor(Duration duration)
         {
-            Driver driver;
-            synchronized (this) {
-                // if close() was called before we get here, there's not point in even creating the driver
-                if (closed) {
-                    return Futures.immediateFuture(null);
-                }
+            // operators may compile classes lazily, e.g. when building a lookup source
+            long compileStartNanos = getCurrentThreadCompileNanos();
+            try {
+                Driver driver;
+                synchronized (this) {
+                    // if close() was called before we get here, there's not point in even creating the driver
+                    if (closed) {
+                        return Futures.immediateFuture(null);
+                    }
+
+                    if (this.driver == null) {
+                        this.driver = driverSplitRunnerFactory.createDriver(driverContext, partitionedSplit);
+                    }
 
-                if (this.driver == null) {
-                    this.driver = driverSplitRunnerFactory.createDriver(driverContext, partitionedSplit);
+                    driver = this.driver;
                 }
 
-                driver = this.driver;
+                return driver.processFor(duration);
+            }
+            finally {
+                driverContext.getPipelineContext().getTaskContext().addCompileTime(getCurrentThreadCompileNanos() - compileStartNanos);
             }
-
-            return driver.processFor(duration);
         }
 
         @Override
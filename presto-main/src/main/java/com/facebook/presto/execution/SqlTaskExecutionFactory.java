@@ -37,6 +37,7 @@ import static com.facebook.presto.execution.SqlTaskExecution.createSqlTaskExecut
 import static com.facebook.presto.operator.PipelineExecutionStrategy.GROUPED_EXECUTION;
 import static com.facebook.presto.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.util.CompilerUtils.getCurrentThreadCompileNanos;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Throwables.throwIfUnchecked;
 import static java.util.Objects.requireNonNull;
@@ -82,6 +83,7 @@ public class SqlTaskExecutionFactory
         LocalExecutionPlan localExecutionPlan;
         try (SetThreadName ignored = new SetThreadName("Task-%s", taskStateMachine.getTaskId())) {
             try {
+                long compileStartNanos = getCurrentThreadCompileNanos();
                 localExecutionPlan = planner.plan(
                         taskContext,
                         fragment.getRoot(),
@@ -89,7 +91,9 @@ public class SqlTaskExecutionFactory
                         fragment.getPartitioningScheme(),
                         fragment.getPipelineExecutionStrategy() == GROUPED_EXECUTION,
                         fragment.getPartitionedSources(),
-                        outputBuffer);
+                        outputBuffer,
+                        fragment.getBroadcastBuildKeys());
+                taskContext.addCompileTime(getCurrentThreadCompileNanos() - compileStartNanos);
 
                 for (DriverFactory driverFactory : localExecutionPlan.getDriverFactories()) {
                     Optional<PlanNodeId> sourceId = driverFactory.getSourceId();
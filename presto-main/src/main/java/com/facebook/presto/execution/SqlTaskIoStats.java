@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.execution;
 
+import com.facebook.presto.execution.buffer.PageCompressionStats;
 import io.airlift.stats.CounterStat;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
@@ -25,18 +26,20 @@ public final class SqlTaskIoStats
     private final CounterStat inputPositions;
     private final CounterStat outputDataSize;
     private final CounterStat outputPositions;
+    private final PageCompressionStats pageCompression;
 
     public SqlTaskIoStats()
     {
-        this(new CounterStat(), new CounterStat(), new CounterStat(), new CounterStat());
+        this(new CounterStat(), new CounterStat(), new CounterStat(), new CounterStat(), new PageCompressionStats());
     }
 
-    public SqlTaskIoStats(CounterStat inputDataSize, CounterStat inputPositions, CounterStat outputDataSize, CounterStat outputPositions)
+    public SqlTaskIoStats(CounterStat inputDataSize, CounterStat inputPositions, CounterStat outputDataSize, CounterStat outputPositions, PageCompressionStats pageCompression)
     {
         this.inputDataSize = requireNonNull(inputDataSize, "inputDataSize is null");
         this.inputPositions = requireNonNull(inputPositions, "inputPositions is null");
         this.outputDataSize = requireNonNull(outputDataSize, "outputDataSize is null");
         this.outputPositions = requireNonNull(outputPositions, "outputPositions is null");
+        this.pageCompression = requireNonNull(pageCompression, "pageCompression is null");
     }
 
     @Managed
@@ -67,12 +70,20 @@ public final class SqlTaskIoStats
         return outputPositions;
     }
 
+    @Managed
+    @Nested
+    public PageCompressionStats getPageCompression()
+    {
+        return pageCompression;
+    }
+
     public void merge(SqlTaskIoStats ioStats)
     {
         inputDataSize.merge(ioStats.inputDataSize);
         inputPositions.merge(ioStats.inputPositions);
         outputDataSize.merge(ioStats.outputDataSize);
         outputPositions.merge(ioStats.outputPositions);
+        pageCompression.merge(ioStats.pageCompression);
     }
 
     @SuppressWarnings("deprecation")
@@ -82,5 +93,6 @@ public final class SqlTaskIoStats
         inputPositions.resetTo(ioStats.inputPositions);
         outputDataSize.resetTo(ioStats.outputDataSize);
         outputPositions.resetTo(ioStats.outputPositions);
+        pageCompression.resetTo(ioStats.pageCompression);
     }
 }
@@ -55,6 +55,7 @@ import static com.facebook.presto.execution.StageState.TERMINAL_STAGE_STATES;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static io.airlift.units.DataSize.succinctBytes;
 import static io.airlift.units.Duration.succinctDuration;
+import static java.lang.Math.max;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
@@ -235,6 +236,7 @@ public class StageStateMachine
 
         long processedInputDataSize = 0;
         long processedInputPositions = 0;
+        long maxTaskProcessedInputPositions = 0;
 
         long bufferedDataSize = 0;
         long outputDataSize = 0;
@@ -242,6 +244,8 @@ public class StageStateMachine
 
         long physicalWrittenDataSize = 0;
 
+        long totalCompileTime = 0;
+
         int fullGcCount = 0;
         int fullGcTaskCount = 0;
         int minFullGcSec = 0;
@@ -290,6 +294,7 @@ public class StageStateMachine
 
             processedInputDataSize += taskStats.getProcessedInputDataSize().toBytes();
             processedInputPositions += taskStats.getProcessedInputPositions();
+            maxTaskProcessedInputPositions = max(maxTaskProcessedInputPositions, taskStats.getProcessedInputPositions());
 
             bufferedDataSize += taskInfo.getOutputBuffers().getTotalBufferedBytes();
             outputDataSize += taskStats.getOutputDataSize().toBytes();
@@ -297,6 +302,8 @@ public class StageStateMachine
 
             physicalWrittenDataSize += taskStats.getPhysicalWrittenDataSize().toBytes();
 
+            totalCompileTime += taskStats.getCompileTime().roundTo(NANOSECONDS);
+
             fullGcCount += taskStats.getFullGcCount();
             fullGcTaskCount += taskStats.getFullGcCount() > 0 ? 1 : 0;
 
@@ -313,6 +320,11 @@ public class StageStateMachine
             }
         }
 
+        double processedInputPositionsSkew = 0;
+        if (processedInputPositions > 0) {
+            processedInputPositionsSkew = maxTaskProcessedInputPositions / ((double) processedInputPositions / totalTasks);
+        }
+
         StageStats stageStats = new StageStats(
                 schedulingComplete.get(),
                 getSplitDistribution.snapshot(),
@@ -344,11 +356,14 @@ public class StageStateMachine
                 rawInputPositions,
                 succinctBytes(processedInputDataSize),
                 processedInputPositions,
+                processedInputPositionsSkew,
                 succinctBytes(bufferedDataSize),
                 succinctBytes(outputDataSize),
                 outputPositions,
                 succinctBytes(physicalWrittenDataSize),
 
+                succinctDuration(totalCompileTime, NANOSECONDS),
+
                 new StageGcStatistics(
                         stageId.getId(),
                         totalTasks,
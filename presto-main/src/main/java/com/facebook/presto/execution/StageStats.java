@@ -69,6 +69,7 @@ public class StageStats
 
     private final DataSize processedInputDataSize;
     private final long processedInputPositions;
+    private final double processedInputPositionsSkew;
 
     private final DataSize bufferedDataSize;
     private final DataSize outputDataSize;
@@ -76,6 +77,8 @@ public class StageStats
 
     private final DataSize physicalWrittenDataSize;
 
+    private final Duration totalCompileTime;
+
     private final StageGcStatistics gcInfo;
 
     private final List<OperatorStats> operatorSummaries;
@@ -115,6 +118,7 @@ public class StageStats
 
             @JsonProperty("processedInputDataSize") DataSize processedInputDataSize,
             @JsonProperty("processedInputPositions") long processedInputPositions,
+            @JsonProperty("processedInputPositionsSkew") double processedInputPositionsSkew,
 
             @JsonProperty("bufferedDataSize") DataSize bufferedDataSize,
             @JsonProperty("outputDataSize") DataSize outputDataSize,
@@ -122,6 +126,8 @@ public class StageStats
 
             @JsonProperty("physicalWrittenDataSize") DataSize physicalWrittenDataSize,
 
+            @JsonProperty("totalCompileTime") Duration totalCompileTime,
+
             @JsonProperty("gcInfo") StageGcStatistics gcInfo,
 
             @JsonProperty("operatorSummaries") List<OperatorStats> operatorSummaries)
@@ -168,6 +174,8 @@ public class StageStats
         this.processedInputDataSize = requireNonNull(processedInputDataSize, "processedInputDataSize is null");
         checkArgument(processedInputPositions >= 0, "processedInputPositions is negative");
         this.processedInputPositions = processedInputPositions;
+        checkArgument(processedInputPositionsSkew >= 0, "processedInputPositionsSkew is negative");
+        this.processedInputPositionsSkew = processedInputPositionsSkew;
 
         this.bufferedDataSize = requireNonNull(bufferedDataSize, "bufferedDataSize is null");
         this.outputDataSize = requireNonNull(outputDataSize, "outputDataSize is null");
@@ -176,6 +184,8 @@ public class StageStats
 
         this.physicalWrittenDataSize = requireNonNull(physicalWrittenDataSize, "writtenDataSize is null");
 
+        this.totalCompileTime = requireNonNull(totalCompileTime, "totalCompileTime is null");
+
         this.gcInfo = requireNonNull(gcInfo, "gcInfo is null");
 
         this.operatorSummaries = ImmutableList.copyOf(requireNonNull(operatorSummaries, "operatorSummaries is null"));
@@ -337,6 +347,17 @@ public class StageStats
         return processedInputPositions;
     }
 
+    /**
+     * Ratio of the input positions processed by the busiest task of the stage to the
+     * average over all its tasks. In a hash partitioned stage each task processes one
+     * partition, so a high value means that a few keys dominate the partitioning.
+     */
+    @JsonProperty
+    public double getProcessedInputPositionsSkew()
+    {
+        return processedInputPositionsSkew;
+    }
+
     @JsonProperty
     public DataSize getBufferedDataSize()
     {
@@ -361,6 +382,12 @@ public class StageStats
         return physicalWrittenDataSize;
     }
 
+    @JsonProperty
+    public Duration getTotalCompileTime()
+    {
+        return totalCompileTime;
+    }
+
     @JsonProperty
     public StageGcStatistics getGcInfo()
     {
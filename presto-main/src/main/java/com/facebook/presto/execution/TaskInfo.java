@@ -26,6 +26,7 @@ import javax.annotation.concurrent.Immutable;
 
 import java.net.URI;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.Set;
 
 import static com.facebook.presto.execution.TaskStatus.initialTaskStatus;
@@ -40,6 +41,7 @@ public class TaskInfo
     private final DateTime lastHeartbeat;
     private final OutputBufferInfo outputBuffers;
     private final Set<PlanNodeId> noMoreSplits;
+    private final OptionalLong maxAcknowledgedSplit;
     private final TaskStats stats;
 
     private final boolean needsPlan;
@@ -50,6 +52,7 @@ public class TaskInfo
             @JsonProperty("lastHeartbeat") DateTime lastHeartbeat,
             @JsonProperty("outputBuffers") OutputBufferInfo outputBuffers,
             @JsonProperty("noMoreSplits") Set<PlanNodeId> noMoreSplits,
+            @JsonProperty("maxAcknowledgedSplit") OptionalLong maxAcknowledgedSplit,
             @JsonProperty("stats") TaskStats stats,
             @JsonProperty("needsPlan") boolean needsPlan,
             @JsonProperty("complete") boolean complete)
@@ -58,6 +61,8 @@ public class TaskInfo
         this.lastHeartbeat = requireNonNull(lastHeartbeat, "lastHeartbeat is null");
         this.outputBuffers = requireNonNull(outputBuffers, "outputBuffers is null");
         this.noMoreSplits = requireNonNull(noMoreSplits, "noMoreSplits is null");
+        // workers of an older version do not report acknowledged splits
+        this.maxAcknowledgedSplit = maxAcknowledgedSplit == null ? OptionalLong.empty() : maxAcknowledgedSplit;
         this.stats = requireNonNull(stats, "stats is null");
 
         this.needsPlan = needsPlan;
@@ -88,6 +93,15 @@ public class TaskInfo
         return noMoreSplits;
     }
 
+    /**
+     * Highest sequence id of the splits received by the task, if any.
+     */
+    @JsonProperty
+    public OptionalLong getMaxAcknowledgedSplit()
+    {
+        return maxAcknowledgedSplit;
+    }
+
     @JsonProperty
     public TaskStats getStats()
     {
@@ -109,9 +123,9 @@ public class TaskInfo
     public TaskInfo summarize()
     {
         if (taskStatus.getState().isDone()) {
-            return new TaskInfo(taskStatus, lastHeartbeat, outputBuffers.summarize(), noMoreSplits, stats.summarizeFinal(), needsPlan, complete);
+            return new TaskInfo(taskStatus, lastHeartbeat, outputBuffers.summarize(), noMoreSplits, maxAcknowledgedSplit, stats.summarizeFinal(), needsPlan, complete);
         }
-        return new TaskInfo(taskStatus, lastHeartbeat, outputBuffers.summarize(), noMoreSplits, stats.summarize(), needsPlan, complete);
+        return new TaskInfo(taskStatus, lastHeartbeat, outputBuffers.summarize(), noMoreSplits, maxAcknowledgedSplit, stats.summarize(), needsPlan, complete);
     }
 
     @Override
@@ -130,6 +144,7 @@ public class TaskInfo
                 DateTime.now(),
                 new OutputBufferInfo("UNINITIALIZED", OPEN, true, true, 0, 0, 0, 0, bufferStates),
                 ImmutableSet.of(),
+                OptionalLong.empty(),
                 taskStats,
                 true,
                 false);
@@ -137,6 +152,6 @@ public class TaskInfo
 
     public TaskInfo withTaskStatus(TaskStatus newTaskStatus)
     {
-        return new TaskInfo(newTaskStatus, lastHeartbeat, outputBuffers, noMoreSplits, stats, needsPlan, complete);
+        return new TaskInfo(newTaskStatus, lastHeartbeat, outputBuffers, noMoreSplits, maxAcknowledgedSplit, stats, needsPlan, complete);
     }
 }
@@ -47,6 +47,12 @@ public class TaskManagerConfig
     private DataSize maxLocalExchangeBufferSize = new DataSize(32, Unit.MEGABYTE);
     private DataSize maxIndexMemoryUsage = new DataSize(64, Unit.MEGABYTE);
     private boolean shareIndexLoading;
+    private boolean shareScans;
+    private DataSize sharedScanMaxSize = new DataSize(256, Unit.MEGABYTE);
+    private DataSize sharedScanMaxEntrySize = new DataSize(16, Unit.MEGABYTE);
+    private Duration sharedScanRetention = new Duration(10, TimeUnit.SECONDS);
+    private Duration sharedScanMaxWait = new Duration(5, TimeUnit.SECONDS);
+    private boolean shareBroadcastBuilds;
     private int maxWorkerThreads = Runtime.getRuntime().availableProcessors() * 2;
     private Integer minDrivers;
     private Integer initialSplitsPerNode;
@@ -62,6 +68,7 @@ public class TaskManagerConfig
 
     private Duration statusRefreshMaxWait = new Duration(1, TimeUnit.SECONDS);
     private Duration infoUpdateInterval = new Duration(3, TimeUnit.SECONDS);
+    private boolean binaryStatusEnabled = true;
 
     private int writerCount = 1;
     private int taskConcurrency = 16;
@@ -70,6 +77,7 @@ public class TaskManagerConfig
 
     private int taskNotificationThreads = 5;
     private int taskYieldThreads = 3;
+    private int taskSortThreads = Runtime.getRuntime().availableProcessors();
 
     private BigDecimal levelTimeMultiplier = new BigDecimal(2.0);
 
@@ -104,6 +112,19 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isBinaryStatusEnabled()
+    {
+        return binaryStatusEnabled;
+    }
+
+    @Config("task.binary-status-enabled")
+    @ConfigDescription("Request task status updates from workers in the binary encoding instead of JSON")
+    public TaskManagerConfig setBinaryStatusEnabled(boolean binaryStatusEnabled)
+    {
+        this.binaryStatusEnabled = binaryStatusEnabled;
+        return this;
+    }
+
     public boolean isVerboseStats()
     {
         return verboseStats;
@@ -180,6 +201,88 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isShareScans()
+    {
+        return shareScans;
+    }
+
+    @Config("task.share-scans")
+    @ConfigDescription("Read a split once for all the queries scanning it concurrently on a worker")
+    public TaskManagerConfig setShareScans(boolean shareScans)
+    {
+        this.shareScans = shareScans;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getSharedScanMaxSize()
+    {
+        return sharedScanMaxSize;
+    }
+
+    @Config("task.shared-scan.max-size")
+    @ConfigDescription("Maximum total size of the split data kept for shared scans on a worker, which is reserved in the general memory pool while no scan uses it")
+    public TaskManagerConfig setSharedScanMaxSize(DataSize sharedScanMaxSize)
+    {
+        this.sharedScanMaxSize = sharedScanMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getSharedScanMaxEntrySize()
+    {
+        return sharedScanMaxEntrySize;
+    }
+
+    @Config("task.shared-scan.max-entry-size")
+    @ConfigDescription("Splits producing more data than this are not shared")
+    public TaskManagerConfig setSharedScanMaxEntrySize(DataSize sharedScanMaxEntrySize)
+    {
+        this.sharedScanMaxEntrySize = sharedScanMaxEntrySize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getSharedScanRetention()
+    {
+        return sharedScanRetention;
+    }
+
+    @Config("task.shared-scan.retention")
+    @ConfigDescription("How long the data of a shared split is kept for scans starting after it was read")
+    public TaskManagerConfig setSharedScanRetention(Duration sharedScanRetention)
+    {
+        this.sharedScanRetention = sharedScanRetention;
+        return this;
+    }
+
+    @NotNull
+    public Duration getSharedScanMaxWait()
+    {
+        return sharedScanMaxWait;
+    }
+
+    @Config("task.shared-scan.max-wait")
+    @ConfigDescription("How long a scan waits for another query reading the same split before reading it itself")
+    public TaskManagerConfig setSharedScanMaxWait(Duration sharedScanMaxWait)
+    {
+        this.sharedScanMaxWait = sharedScanMaxWait;
+        return this;
+    }
+
+    public boolean isShareBroadcastBuilds()
+    {
+        return shareBroadcastBuilds;
+    }
+
+    @Config("task.share-broadcast-builds")
+    @ConfigDescription("Build the hash table of a broadcast join once for all the queries on a worker joining the same build input")
+    public TaskManagerConfig setShareBroadcastBuilds(boolean shareBroadcastBuilds)
+    {
+        this.shareBroadcastBuilds = shareBroadcastBuilds;
+        return this;
+    }
+
     public BigDecimal getLevelTimeMultiplier()
     {
         return levelTimeMultiplier;
@@ -417,4 +520,18 @@ public class TaskManagerConfig
         this.taskYieldThreads = taskYieldThreads;
         return this;
     }
+
+    @Min(1)
+    public int getTaskSortThreads()
+    {
+        return taskSortThreads;
+    }
+
+    @Config("task.task-sort-threads")
+    @ConfigDescription("Number of threads shared by all tasks for sorting runs of order by operators in parallel")
+    public TaskManagerConfig setTaskSortThreads(int taskSortThreads)
+    {
+        this.taskSortThreads = taskSortThreads;
+        return this;
+    }
 }
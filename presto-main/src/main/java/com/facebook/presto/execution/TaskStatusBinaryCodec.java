@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.json.JsonCodec;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.units.Duration;
+
+import java.net.URI;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.json.JsonCodec.listJsonCodec;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.succinctBytes;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Compact binary encoding of {@link TaskStatus}, used for the task status long poll
+ * between the coordinator and the workers. The encoding is negotiated with the
+ * {@code Accept} header, so JSON remains available to clients that do not support it.
+ * <p>
+ * Failures are rare and deeply nested, so they are embedded as JSON.
+ */
+public final class TaskStatusBinaryCodec
+{
+    private static final byte FORMAT_VERSION = 1;
+    private static final JsonCodec<List<ExecutionFailureInfo>> FAILURES_CODEC = listJsonCodec(ExecutionFailureInfo.class);
+    private static final TaskState[] TASK_STATES = TaskState.values();
+
+    private TaskStatusBinaryCodec() {}
+
+    public static Slice encode(TaskStatus status)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(256);
+        output.writeByte(FORMAT_VERSION);
+        writeString(output, status.getTaskId().toString());
+        writeString(output, status.getTaskInstanceId());
+        output.writeLong(status.getVersion());
+        output.writeByte(status.getState().ordinal());
+        writeString(output, status.getSelf().toString());
+        writeString(output, status.getNodeId());
+
+        output.writeInt(status.getCompletedDriverGroups().size());
+        for (Lifespan lifespan : status.getCompletedDriverGroups()) {
+            // task wide lifespans are encoded as a negative group id
+            output.writeInt(lifespan.isTaskWide() ? -1 : lifespan.getId());
+        }
+
+        output.writeInt(status.getQueuedPartitionedDrivers());
+        output.writeInt(status.getRunningPartitionedDrivers());
+        output.writeBoolean(status.isOutputBufferOverutilized());
+        output.writeLong(status.getPhysicalWrittenDataSize().toBytes());
+        output.writeLong(status.getMemoryReservation().toBytes());
+        output.writeLong(status.getSystemMemoryReservation().toBytes());
+        output.writeLong(status.getFullGcCount());
+        output.writeDouble(status.getFullGcTime().getValue(MILLISECONDS));
+
+        if (status.getFailures().isEmpty()) {
+            output.writeInt(0);
+        }
+        else {
+            byte[] failures = FAILURES_CODEC.toJsonBytes(status.getFailures());
+            output.writeInt(failures.length);
+            output.writeBytes(failures);
+        }
+        return output.slice();
+    }
+
+    public static TaskStatus decode(Slice slice)
+    {
+        SliceInput input = slice.getInput();
+        byte formatVersion = input.readByte();
+        checkArgument(formatVersion == FORMAT_VERSION, "Unsupported task status format version: %s", formatVersion);
+
+        TaskId taskId = TaskId.valueOf(readString(input));
+        String taskInstanceId = readString(input);
+        long version = input.readLong();
+        int state = input.readByte();
+        checkArgument(state >= 0 && state < TASK_STATES.length, "Invalid task state: %s", state);
+        URI self = URI.create(readString(input));
+        String nodeId = readString(input);
+
+        int completedDriverGroupCount = input.readInt();
+        ImmutableSet.Builder<Lifespan> completedDriverGroups = ImmutableSet.builder();
+        for (int i = 0; i < completedDriverGroupCount; i++) {
+            int groupId = input.readInt();
+            completedDriverGroups.add(groupId < 0 ? Lifespan.taskWide() : Lifespan.driverGroup(groupId));
+        }
+
+        int queuedPartitionedDrivers = input.readInt();
+        int runningPartitionedDrivers = input.readInt();
+        boolean outputBufferOverutilized = input.readBoolean();
+        long physicalWrittenBytes = input.readLong();
+        long memoryReservation = input.readLong();
+        long systemMemoryReservation = input.readLong();
+        long fullGcCount = input.readLong();
+        double fullGcTimeMillis = input.readDouble();
+
+        List<ExecutionFailureInfo> failures = ImmutableList.of();
+        int failuresLength = input.readInt();
+        if (failuresLength > 0) {
+            byte[] bytes = new byte[failuresLength];
+            input.readBytes(bytes);
+            failures = FAILURES_CODEC.fromJson(bytes);
+        }
+
+        return new TaskStatus(
+                taskId,
+                taskInstanceId,
+                version,
+                TASK_STATES[state],
+                self,
+                nodeId,
+                completedDriverGroups.build(),
+                failures,
+                queuedPartitionedDrivers,
+                runningPartitionedDrivers,
+                outputBufferOverutilized,
+                succinctBytes(physicalWrittenBytes),
+                succinctBytes(memoryReservation),
+                succinctBytes(systemMemoryReservation),
+                fullGcCount,
+                new Duration(fullGcTimeMillis, MILLISECONDS).convertToMostSuccinctTimeUnit());
+    }
+
+    private static void writeString(SliceOutput output, String value)
+    {
+        Slice slice = utf8Slice(value);
+        output.writeInt(slice.length());
+        output.writeBytes(slice);
+    }
+
+    private static String readString(SliceInput input)
+    {
+        int length = input.readInt();
+        return input.readSlice(length).toStringUtf8();
+    }
+}
@@ -14,13 +14,29 @@
 package com.facebook.presto.execution.buffer;
 
 import com.facebook.presto.spi.PrestoException;
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
 
 import static com.facebook.presto.spi.StandardErrorCode.CORRUPT_PAGE;
 
 public enum PageCompression
 {
     UNCOMPRESSED((byte) 0),
-    COMPRESSED((byte) 1);
+    LZ4((byte) 1),
+    ZSTD((byte) 2);
+
+    private static final PageCompression[] BY_MARKER;
+
+    static {
+        BY_MARKER = new PageCompression[values().length];
+        for (PageCompression compression : values()) {
+            BY_MARKER[compression.getMarker()] = compression;
+        }
+    }
 
     private final byte marker;
 
@@ -34,11 +50,40 @@ public enum PageCompression
         return marker;
     }
 
+    public boolean isCompressed()
+    {
+        return this != UNCOMPRESSED;
+    }
+
+    public Compressor createCompressor()
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Compressor();
+            case ZSTD:
+                return new ZstdCompressor();
+            default:
+                throw new IllegalStateException("No compressor for " + this);
+        }
+    }
+
+    public Decompressor createDecompressor()
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Decompressor();
+            case ZSTD:
+                return new ZstdDecompressor();
+            default:
+                throw new IllegalStateException("No decompressor for " + this);
+        }
+    }
+
     public static PageCompression lookupCodecFromMarker(byte marker)
     {
-        if (marker != UNCOMPRESSED.getMarker() && marker != COMPRESSED.getMarker()) {
+        if (marker < 0 || marker >= BY_MARKER.length) {
             throw new PrestoException(CORRUPT_PAGE, "Page marker did not contain expected value");
         }
-        return UNCOMPRESSED.getMarker() == marker ? UNCOMPRESSED : COMPRESSED;
+        return BY_MARKER[marker];
     }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import io.airlift.stats.CounterStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.facebook.presto.execution.buffer.PageCompression.LZ4;
+import static com.google.common.base.Preconditions.checkArgument;
+
+@ThreadSafe
+public final class PageCompressionStats
+{
+    private final CodecStats lz4 = new CodecStats();
+    private final CodecStats zstd = new CodecStats();
+
+    public void recordCompression(PageCompression compression, long uncompressedBytes, long compressedBytes, long nanos)
+    {
+        CodecStats stats = getCodecStats(compression);
+        stats.uncompressedBytes.update(uncompressedBytes);
+        stats.compressedBytes.update(compressedBytes);
+        stats.compressionNanos.update(nanos);
+    }
+
+    public void recordDecompression(PageCompression compression, long nanos)
+    {
+        getCodecStats(compression).decompressionNanos.update(nanos);
+    }
+
+    private CodecStats getCodecStats(PageCompression compression)
+    {
+        checkArgument(compression.isCompressed(), "compression is not a codec: %s", compression);
+        return compression == LZ4 ? lz4 : zstd;
+    }
+
+    @Managed
+    @Nested
+    public CodecStats getLz4()
+    {
+        return lz4;
+    }
+
+    @Managed
+    @Nested
+    public CodecStats getZstd()
+    {
+        return zstd;
+    }
+
+    public void merge(PageCompressionStats stats)
+    {
+        lz4.merge(stats.lz4);
+        zstd.merge(stats.zstd);
+    }
+
+    @SuppressWarnings("deprecation")
+    public void resetTo(PageCompressionStats stats)
+    {
+        lz4.resetTo(stats.lz4);
+        zstd.resetTo(stats.zstd);
+    }
+
+    public static final class CodecStats
+    {
+        // bytes of the pages which compression was attempted for, including the pages sent uncompressed due to a poor ratio
+        private final CounterStat uncompressedBytes = new CounterStat();
+        private final CounterStat compressedBytes = new CounterStat();
+        private final CounterStat compressionNanos = new CounterStat();
+        private final CounterStat decompressionNanos = new CounterStat();
+
+        @Managed
+        @Nested
+        public CounterStat getUncompressedBytes()
+        {
+            return uncompressedBytes;
+        }
+
+        @Managed
+        @Nested
+        public CounterStat getCompressedBytes()
+        {
+            return compressedBytes;
+        }
+
+        @Managed
+        @Nested
+        public CounterStat getCompressionNanos()
+        {
+            return compressionNanos;
+        }
+
+        @Managed
+        @Nested
+        public CounterStat getDecompressionNanos()
+        {
+            return decompressionNanos;
+        }
+
+        @Managed
+        public double getCompressionRatio()
+        {
+            long uncompressed = uncompressedBytes.getTotalCount();
+            if (uncompressed == 0) {
+                return Double.NaN;
+            }
+            return (double) compressedBytes.getTotalCount() / uncompressed;
+        }
+
+        private void merge(CodecStats stats)
+        {
+            uncompressedBytes.merge(stats.uncompressedBytes);
+            compressedBytes.merge(stats.compressedBytes);
+            compressionNanos.merge(stats.compressionNanos);
+            decompressionNanos.merge(stats.decompressionNanos);
+        }
+
+        @SuppressWarnings("deprecation")
+        private void resetTo(CodecStats stats)
+        {
+            uncompressedBytes.resetTo(stats.uncompressedBytes);
+            compressedBytes.resetTo(stats.compressedBytes);
+            compressionNanos.resetTo(stats.compressionNanos);
+            decompressionNanos.resetTo(stats.decompressionNanos);
+        }
+    }
+}
@@ -23,15 +23,15 @@ import io.airlift.slice.Slices;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 
-import static com.facebook.presto.execution.buffer.PageCompression.COMPRESSED;
 import static com.facebook.presto.execution.buffer.PageCompression.UNCOMPRESSED;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.readRawPage;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writeRawPage;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
-import static io.airlift.compress.lz4.Lz4RawCompressor.maxCompressedLength;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
@@ -40,16 +40,31 @@ public class PagesSerde
 {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
 
+    // with adaptive compression, the ratio is sampled over this many pages
+    private static final int ADAPTIVE_SAMPLE_PAGES = 16;
+    // number of pages sent uncompressed after a sample with a poor ratio, before compression is attempted again
+    private static final int ADAPTIVE_SKIP_PAGES = 256;
+
     private final BlockEncodingSerde blockEncodingSerde;
+    private final PageCompression compression;
     private final Optional<Compressor> compressor;
-    private final Optional<Decompressor> decompressor;
+    private final Map<PageCompression, Decompressor> decompressors = new EnumMap<>(PageCompression.class);
+    private final boolean adaptiveCompression;
+    private final Optional<PageCompressionStats> compressionStats;
+
+    private int sampledPages;
+    private long sampledUncompressedBytes;
+    private long sampledCompressedBytes;
+    private int pagesToSkip;
 
-    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor)
+    public PagesSerde(BlockEncodingSerde blockEncodingSerde, PageCompression compression, boolean adaptiveCompression, Optional<PageCompressionStats> compressionStats)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
-        this.compressor = requireNonNull(compressor, "compressor is null");
-        this.decompressor = requireNonNull(decompressor, "decompressor is null");
-        checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
+        this.compression = requireNonNull(compression, "compression is null");
+        this.compressor = compression.isCompressed() ? Optional.of(compression.createCompressor()) : Optional.empty();
+        checkArgument(!adaptiveCompression || compression.isCompressed(), "adaptive compression requires a compression codec");
+        this.adaptiveCompression = adaptiveCompression;
+        this.compressionStats = requireNonNull(compressionStats, "compressionStats is null");
     }
 
     public SerializedPage serialize(Page page)
@@ -57,13 +72,20 @@ public class PagesSerde
         SliceOutput serializationBuffer = new DynamicSliceOutput(toIntExact((page.getSizeInBytes() + Integer.BYTES))); // block length is an int
         writeRawPage(page, serializationBuffer, blockEncodingSerde);
 
-        if (!compressor.isPresent()) {
+        if (!compressor.isPresent() || !shouldCompress()) {
             return new SerializedPage(serializationBuffer.slice(), UNCOMPRESSED, page.getPositionCount(), serializationBuffer.size());
         }
 
-        int maxCompressedLength = maxCompressedLength(serializationBuffer.size());
+        long start = System.nanoTime();
+        int maxCompressedLength = compressor.get().maxCompressedLength(serializationBuffer.size());
         byte[] compressionBuffer = new byte[maxCompressedLength];
         int actualCompressedLength = compressor.get().compress(serializationBuffer.slice().getBytes(), 0, serializationBuffer.size(), compressionBuffer, 0, maxCompressedLength);
+        long compressionNanos = System.nanoTime() - start;
+
+        compressionStats.ifPresent(stats -> stats.recordCompression(compression, serializationBuffer.size(), actualCompressedLength, compressionNanos));
+        if (adaptiveCompression) {
+            recordCompressionRatio(serializationBuffer.size(), actualCompressedLength);
+        }
 
         if (((1.0 * actualCompressedLength) / serializationBuffer.size()) > MINIMUM_COMPRESSION_RATIO) {
             return new SerializedPage(serializationBuffer.slice(), UNCOMPRESSED, page.getPositionCount(), serializationBuffer.size());
@@ -71,23 +93,57 @@ public class PagesSerde
 
         return new SerializedPage(
                 Slices.copyOf(Slices.wrappedBuffer(compressionBuffer, 0, actualCompressedLength)),
-                COMPRESSED,
+                compression,
                 page.getPositionCount(),
                 serializationBuffer.size());
     }
 
+    private boolean shouldCompress()
+    {
+        if (pagesToSkip > 0) {
+            pagesToSkip--;
+            return false;
+        }
+        return true;
+    }
+
+    private void recordCompressionRatio(long uncompressedBytes, long compressedBytes)
+    {
+        sampledPages++;
+        sampledUncompressedBytes += uncompressedBytes;
+        sampledCompressedBytes += compressedBytes;
+        if (sampledPages < ADAPTIVE_SAMPLE_PAGES) {
+            return;
+        }
+
+        // the data of this stream does not compress well, so stop spending CPU on it for a while
+        if (((1.0 * sampledCompressedBytes) / sampledUncompressedBytes) > MINIMUM_COMPRESSION_RATIO) {
+            pagesToSkip = ADAPTIVE_SKIP_PAGES;
+        }
+        sampledPages = 0;
+        sampledUncompressedBytes = 0;
+        sampledCompressedBytes = 0;
+    }
+
     public Page deserialize(SerializedPage serializedPage)
     {
         checkArgument(serializedPage != null, "serializedPage is null");
 
-        if (!decompressor.isPresent() || serializedPage.getCompression() == UNCOMPRESSED) {
+        if (!serializedPage.getCompression().isCompressed()) {
             return readRawPage(serializedPage.getPositionCount(), serializedPage.getSlice().getInput(), blockEncodingSerde);
         }
 
+        // pages are decompressed with the codec they have been written with, regardless of the codec used by this serde
+        PageCompression pageCompression = serializedPage.getCompression();
+        Decompressor decompressor = decompressors.computeIfAbsent(pageCompression, PageCompression::createDecompressor);
+
+        long start = System.nanoTime();
         int uncompressedSize = serializedPage.getUncompressedSizeInBytes();
         byte[] decompressed = new byte[uncompressedSize];
-        int actualUncompressedSize = decompressor.get().decompress(serializedPage.getSlice().getBytes(), 0, serializedPage.getSlice().length(), decompressed, 0, uncompressedSize);
+        int actualUncompressedSize = decompressor.decompress(serializedPage.getSlice().getBytes(), 0, serializedPage.getSlice().length(), decompressed, 0, uncompressedSize);
         checkState(uncompressedSize == actualUncompressedSize);
+        long decompressionNanos = System.nanoTime() - start;
+        compressionStats.ifPresent(stats -> stats.recordDecompression(pageCompression, decompressionNanos));
 
         return readRawPage(serializedPage.getPositionCount(), Slices.wrappedBuffer(decompressed, 0, uncompressedSize).getInput(), blockEncodingSerde);
     }
@@ -14,30 +14,38 @@
 package com.facebook.presto.execution.buffer;
 
 import com.facebook.presto.spi.block.BlockEncodingSerde;
-import io.airlift.compress.lz4.Lz4Compressor;
-import io.airlift.compress.lz4.Lz4Decompressor;
 
 import java.util.Optional;
 
+import static com.facebook.presto.execution.buffer.PageCompression.LZ4;
+import static com.facebook.presto.execution.buffer.PageCompression.UNCOMPRESSED;
 import static java.util.Objects.requireNonNull;
 
 public class PagesSerdeFactory
 {
     private final BlockEncodingSerde blockEncodingSerde;
-    private final boolean compressionEnabled;
+    private final PageCompression compression;
+    private final boolean adaptiveCompression;
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled)
+    {
+        this(blockEncodingSerde, compressionEnabled ? LZ4 : UNCOMPRESSED, false);
+    }
+
+    public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, PageCompression compression, boolean adaptiveCompression)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
-        this.compressionEnabled = compressionEnabled;
+        this.compression = requireNonNull(compression, "compression is null");
+        this.adaptiveCompression = adaptiveCompression && compression.isCompressed();
     }
 
     public PagesSerde createPagesSerde()
     {
-        if (compressionEnabled) {
-            return new PagesSerde(blockEncodingSerde, Optional.of(new Lz4Compressor()), Optional.of(new Lz4Decompressor()));
-        }
+        return new PagesSerde(blockEncodingSerde, compression, adaptiveCompression, Optional.empty());
+    }
 
-        return new PagesSerde(blockEncodingSerde, Optional.empty(), Optional.empty());
+    public PagesSerde createPagesSerde(PageCompressionStats compressionStats)
+    {
+        return new PagesSerde(blockEncodingSerde, compression, adaptiveCompression, Optional.of(compressionStats));
     }
 }
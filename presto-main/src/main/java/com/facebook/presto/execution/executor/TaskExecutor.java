@@ -38,7 +38,6 @@ import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -99,15 +98,15 @@ public class TaskExecutor
 
     /**
      * All splits registered with the task executor.
+     * Splits are added with the lock held, but removed without it.
      */
-    @GuardedBy("this")
-    private final Set<PrioritizedSplitRunner> allSplits = new HashSet<>();
+    private final Set<PrioritizedSplitRunner> allSplits = newConcurrentHashSet();
 
     /**
      * Intermediate splits (i.e. splits that should not be queued).
+     * Splits are added with the lock held, but removed without it.
      */
-    @GuardedBy("this")
-    private final Set<PrioritizedSplitRunner> intermediateSplits = new HashSet<>();
+    private final Set<PrioritizedSplitRunner> intermediateSplits = newConcurrentHashSet();
 
     /**
      * Splits waiting for a runner thread.
@@ -209,7 +208,7 @@ public class TaskExecutor
     }
 
     @Override
-    public synchronized String toString()
+    public String toString()
     {
         return toStringHelper(this)
                 .add("runnerThreads", runnerThreads)
@@ -259,14 +258,15 @@ public class TaskExecutor
         synchronized (this) {
             tasks.remove(taskHandle);
             splits = taskHandle.destroy();
-
-            // stop tracking splits (especially blocked splits which may never unblock)
-            allSplits.removeAll(splits);
-            intermediateSplits.removeAll(splits);
-            blockedSplits.keySet().removeAll(splits);
-            waitingSplits.removeAll(splits);
         }
 
+        // stop tracking splits (especially blocked splits which may never unblock)
+        // no new splits are added for the task once its handle is destroyed, so this does not need the lock
+        allSplits.removeAll(splits);
+        intermediateSplits.removeAll(splits);
+        blockedSplits.keySet().removeAll(splits);
+        waitingSplits.removeAll(splits);
+
         // call destroy outside of synchronized block as it is expensive and doesn't need a lock on the task executor
         for (PrioritizedSplitRunner split : splits) {
             split.destroy();
@@ -283,17 +283,20 @@ public class TaskExecutor
     {
         List<PrioritizedSplitRunner> splitsToDestroy = new ArrayList<>();
         List<ListenableFuture<?>> finishedFutures = new ArrayList<>(taskSplits.size());
+        // create the runners before taking the lock, only the admission needs to be serialized
+        List<PrioritizedSplitRunner> prioritizedSplitRunners = new ArrayList<>(taskSplits.size());
+        for (SplitRunner taskSplit : taskSplits) {
+            prioritizedSplitRunners.add(new PrioritizedSplitRunner(
+                    taskHandle,
+                    taskSplit,
+                    ticker,
+                    globalCpuTimeMicros,
+                    globalScheduledTimeMicros,
+                    blockedQuantaWallTime,
+                    unblockedQuantaWallTime));
+        }
         synchronized (this) {
-            for (SplitRunner taskSplit : taskSplits) {
-                PrioritizedSplitRunner prioritizedSplitRunner = new PrioritizedSplitRunner(
-                        taskHandle,
-                        taskSplit,
-                        ticker,
-                        globalCpuTimeMicros,
-                        globalScheduledTimeMicros,
-                        blockedQuantaWallTime,
-                        unblockedQuantaWallTime);
-
+            for (PrioritizedSplitRunner prioritizedSplitRunner : prioritizedSplitRunners) {
                 if (taskHandle.isDestroyed()) {
                     // If the handle is destroyed, we destroy the task splits to complete the future
                     splitsToDestroy.add(prioritizedSplitRunner);
@@ -309,12 +312,12 @@ public class TaskExecutor
                     taskHandle.enqueueSplit(prioritizedSplitRunner);
                     // if task is under the limit for guaranteed splits, start one
                     scheduleTaskIfNecessary(taskHandle);
-                    // if globally we have more resources, start more
-                    addNewEntrants();
                 }
 
                 finishedFutures.add(prioritizedSplitRunner.getFinishedFuture());
             }
+            // if globally we have more resources, start more
+            addNewEntrants();
         }
         for (PrioritizedSplitRunner split : splitsToDestroy) {
             split.destroy();
@@ -325,28 +328,31 @@ public class TaskExecutor
     private void splitFinished(PrioritizedSplitRunner split)
     {
         completedSplitsPerLevel.incrementAndGet(split.getPriority().getLevel());
-        synchronized (this) {
-            allSplits.remove(split);
 
-            long wallNanos = System.nanoTime() - split.getCreatedNanos();
-            splitWallTime.add(Duration.succinctNanos(wallNanos));
+        // the split sets and the stats are thread safe, so only the scheduling of
+        // the replacement splits is done with the lock held
+        allSplits.remove(split);
 
-            if (intermediateSplits.remove(split)) {
-                intermediateSplitWallTime.add(wallNanos);
-                intermediateSplitScheduledTime.add(split.getScheduledNanos());
-                intermediateSplitWaitTime.add(split.getWaitNanos());
-                intermediateSplitCpuTime.add(split.getCpuTimeNanos());
-            }
-            else {
-                leafSplitWallTime.add(wallNanos);
-                leafSplitScheduledTime.add(split.getScheduledNanos());
-                leafSplitWaitTime.add(split.getWaitNanos());
-                leafSplitCpuTime.add(split.getCpuTimeNanos());
-            }
+        long wallNanos = System.nanoTime() - split.getCreatedNanos();
+        splitWallTime.add(Duration.succinctNanos(wallNanos));
 
-            TaskHandle taskHandle = split.getTaskHandle();
-            taskHandle.splitComplete(split);
+        if (intermediateSplits.remove(split)) {
+            intermediateSplitWallTime.add(wallNanos);
+            intermediateSplitScheduledTime.add(split.getScheduledNanos());
+            intermediateSplitWaitTime.add(split.getWaitNanos());
+            intermediateSplitCpuTime.add(split.getCpuTimeNanos());
+        }
+        else {
+            leafSplitWallTime.add(wallNanos);
+            leafSplitScheduledTime.add(split.getScheduledNanos());
+            leafSplitWaitTime.add(split.getWaitNanos());
+            leafSplitCpuTime.add(split.getCpuTimeNanos());
+        }
+
+        TaskHandle taskHandle = split.getTaskHandle();
+        taskHandle.splitComplete(split);
 
+        synchronized (this) {
             scheduleTaskIfNecessary(taskHandle);
 
             addNewEntrants();
@@ -547,13 +553,13 @@ public class TaskExecutor
     }
 
     @Managed
-    public synchronized int getTotalSplits()
+    public int getTotalSplits()
     {
         return allSplits.size();
     }
 
     @Managed
-    public synchronized int getIntermediateSplits()
+    public int getIntermediateSplits()
     {
         return intermediateSplits.size();
     }
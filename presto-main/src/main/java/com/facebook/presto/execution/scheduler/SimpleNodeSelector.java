@@ -17,6 +17,7 @@ import com.facebook.presto.execution.NodeTaskMap;
 import com.facebook.presto.execution.RemoteTask;
 import com.facebook.presto.metadata.InternalNodeManager;
 import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.Node;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.sql.planner.NodePartitionMap;
@@ -31,6 +32,8 @@ import io.airlift.log.Logger;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -41,6 +44,7 @@ import static com.facebook.presto.execution.scheduler.NodeScheduler.selectExactN
 import static com.facebook.presto.execution.scheduler.NodeScheduler.selectNodes;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.toWhenHasSplitQueueSpaceFuture;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Objects.requireNonNull;
 
 public class SimpleNodeSelector
@@ -107,11 +111,25 @@ public class SimpleNodeSelector
         NodeAssignmentStats assignmentStats = new NodeAssignmentStats(nodeTaskMap, nodeMap, existingTasks);
 
         ResettableRandomizedIterator<Node> randomCandidates = randomizedNodes(nodeMap, includeCoordinator, ImmutableSet.of());
+        List<HostAddress> preferredNodeCandidates = nodeMap.getNodesByHostAndPort().entries().stream()
+                .filter(entry -> includeCoordinator || !nodeMap.getCoordinatorNodeIds().contains(entry.getValue().getNodeIdentifier()))
+                .map(Map.Entry::getKey)
+                .distinct()
+                .collect(toImmutableList());
         Set<Node> blockedExactNodes = new HashSet<>();
         boolean splitWaitingForAnyNode = false;
         for (Split split : splits) {
             randomCandidates.reset();
 
+            if (split.isRemotelyAccessible()) {
+                Optional<Node> preferredNode = selectPreferredNode(nodeMap, split.getPreferredNodes(preferredNodeCandidates), assignmentStats);
+                if (preferredNode.isPresent()) {
+                    assignment.put(preferredNode.get(), split);
+                    assignmentStats.addAssignedSplit(preferredNode.get());
+                    continue;
+                }
+            }
+
             List<Node> candidateNodes;
             if (!split.isRemotelyAccessible()) {
                 candidateNodes = selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator);
@@ -169,6 +187,20 @@ public class SimpleNodeSelector
         return new SplitPlacementResult(blocked, assignment);
     }
 
+    private Optional<Node> selectPreferredNode(NodeMap nodeMap, List<HostAddress> preferredNodes, NodeAssignmentStats assignmentStats)
+    {
+        // the preference is soft: a busy preferred node falls back to the regular selection
+        for (HostAddress address : preferredNodes) {
+            for (Node node : nodeMap.getNodesByHostAndPort().get(address)) {
+                if ((includeCoordinator || !nodeMap.getCoordinatorNodeIds().contains(node.getNodeIdentifier())) &&
+                        assignmentStats.getTotalSplitCount(node) < maxSplitsPerNode) {
+                    return Optional.of(node);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
     @Override
     public SplitPlacementResult computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks, NodePartitionMap partitioning)
     {
@@ -86,6 +86,11 @@ public interface Metadata
      */
     TableStatistics getTableStatistics(Session session, TableHandle tableHandle, Constraint<ColumnHandle> constraint);
 
+    /**
+     * Returns a token that changes whenever the data of the table changes, if the connector provides one.
+     */
+    Optional<String> getTableDataVersion(Session session, TableHandle tableHandle);
+
     /**
      * Get the names that match the specified table prefix (never null).
      */
@@ -390,6 +390,14 @@ public class MetadataManager
         return metadata.getTableStatistics(session.toConnectorSession(connectorId), tableHandle.getConnectorHandle(), constraint);
     }
 
+    @Override
+    public Optional<String> getTableDataVersion(Session session, TableHandle tableHandle)
+    {
+        ConnectorId connectorId = tableHandle.getConnectorId();
+        ConnectorMetadata metadata = getMetadata(session, connectorId);
+        return metadata.getTableDataVersion(session.toConnectorSession(connectorId), tableHandle.getConnectorHandle());
+    }
+
     @Override
     public Map<String, ColumnHandle> getColumnHandles(Session session, TableHandle tableHandle)
     {
@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import org.openjdk.jol.info.ClassLayout;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Bloom filter over raw hashes in which all bits of a value fall into a single
+ * 512 bit block, so adding or testing a value touches a single cache line.
+ */
+public final class BlockedBloomFilter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BlockedBloomFilter.class).instanceSize();
+
+    private static final int LONGS_PER_BLOCK = 8;
+    private static final int BITS_PER_BLOCK = LONGS_PER_BLOCK * Long.SIZE;
+    private static final int BIT_INDEX_BITS = 9;
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASH_FUNCTIONS = 4;
+    // block index is taken from the low bits of the hash and the bit indexes from the bits above
+    private static final int BLOCK_INDEX_BITS = 20;
+    private static final int MAX_BLOCK_COUNT = 1 << BLOCK_INDEX_BITS;
+
+    private final long[] blocks;
+    private final int blockMask;
+
+    public BlockedBloomFilter(int expectedEntries)
+    {
+        checkArgument(expectedEntries >= 0, "expectedEntries is negative");
+        long minimumBlockCount = max(1, ((long) expectedEntries * BITS_PER_ENTRY + BITS_PER_BLOCK - 1) / BITS_PER_BLOCK);
+        int blockCount = 1;
+        while (blockCount < min(minimumBlockCount, MAX_BLOCK_COUNT)) {
+            blockCount <<= 1;
+        }
+        this.blocks = new long[blockCount * LONGS_PER_BLOCK];
+        this.blockMask = blockCount - 1;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(blocks);
+    }
+
+    public void add(long rawHash)
+    {
+        long hash = mix(rawHash);
+        int blockOffset = getBlockOffset(hash);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = getBit(hash, i);
+            blocks[blockOffset + (bit >>> 6)] |= 1L << (bit & 63);
+        }
+    }
+
+    public boolean mightContain(long rawHash)
+    {
+        long hash = mix(rawHash);
+        return mightContain(getBlockOffset(hash), hash);
+    }
+
+    /**
+     * Tests the first {@code count} entries of {@code positions}, whose raw hashes are
+     * in the same entries of {@code rawHashes}, and compacts the positions that might
+     * be in the filter to the start of {@code positions}.
+     *
+     * @return the number of positions that might be in the filter
+     */
+    public int filter(int[] positions, long[] rawHashes, int count)
+    {
+        long[] hashes = new long[count];
+        int[] blockOffsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = mix(rawHashes[i]);
+            blockOffsets[i] = getBlockOffset(hashes[i]);
+        }
+
+        int candidateCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (mightContain(blockOffsets[i], hashes[i])) {
+                positions[candidateCount] = positions[i];
+                candidateCount++;
+            }
+        }
+        return candidateCount;
+    }
+
+    private boolean mightContain(int blockOffset, long hash)
+    {
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = getBit(hash, i);
+            if ((blocks[blockOffset + (bit >>> 6)] & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getBlockOffset(long hash)
+    {
+        return ((int) hash & blockMask) * LONGS_PER_BLOCK;
+    }
+
+    private static int getBit(long hash, int function)
+    {
+        return (int) (hash >>> (BLOCK_INDEX_BITS + function * BIT_INDEX_BITS)) & (BITS_PER_BLOCK - 1);
+    }
+
+    private static long mix(long rawHash)
+    {
+        // finalisation step of MurmurHash3
+        rawHash ^= rawHash >>> 33;
+        rawHash *= 0xff51afd7ed558ccdL;
+        rawHash ^= rawHash >>> 33;
+        rawHash *= 0xc4ceb9fe1a85ec53L;
+        rawHash ^= rawHash >>> 33;
+        return rawHash;
+    }
+}
@@ -47,4 +47,12 @@ public class BucketPartitionFunction
         int bucket = bucketFunction.getBucket(functionArguments, position);
         return bucketToPartition[bucket];
     }
+
+    @Override
+    public void getPartitions(Page functionArguments, int[] partitions)
+    {
+        for (int position = 0; position < functionArguments.getPositionCount(); position++) {
+            partitions[position] = bucketToPartition[bucketFunction.getBucket(functionArguments, position)];
+        }
+    }
 }
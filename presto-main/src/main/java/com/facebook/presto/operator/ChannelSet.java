@@ -31,12 +31,14 @@ import static java.util.Objects.requireNonNull;
 public class ChannelSet
 {
     private final GroupByHash hash;
+    private final BlockedBloomFilter bloomFilter;
     private final boolean containsNull;
     private final int[] hashChannels;
 
-    public ChannelSet(GroupByHash hash, boolean containsNull, int[] hashChannels)
+    public ChannelSet(GroupByHash hash, BlockedBloomFilter bloomFilter, boolean containsNull, int[] hashChannels)
     {
         this.hash = hash;
+        this.bloomFilter = requireNonNull(bloomFilter, "bloomFilter is null");
         this.containsNull = containsNull;
         this.hashChannels = hashChannels;
     }
@@ -48,7 +50,17 @@ public class ChannelSet
 
     public long getEstimatedSizeInBytes()
     {
-        return hash.getEstimatedSize();
+        return hash.getEstimatedSize() + bloomFilter.getRetainedSizeInBytes();
+    }
+
+    /**
+     * Returns a bloom filter over the hashes of the values of this set, which can
+     * reject most of the values that are not in the set before looking them up.
+     * The hash of a value is {@link com.facebook.presto.type.TypeUtils#hashPosition}.
+     */
+    public BlockedBloomFilter getBloomFilter()
+    {
+        return bloomFilter;
     }
 
     public int size()
@@ -98,7 +110,12 @@ public class ChannelSet
 
         public ChannelSet build()
         {
-            return new ChannelSet(hash, hash.contains(0, nullBlockPage, HASH_CHANNELS), HASH_CHANNELS);
+            BlockedBloomFilter bloomFilter = new BlockedBloomFilter(hash.getGroupCount());
+            for (int groupId = 0; groupId < hash.getGroupCount(); groupId++) {
+                bloomFilter.add(hash.getRawHash(groupId));
+            }
+            localMemoryContext.setBytes(hash.getEstimatedSize() + bloomFilter.getRetainedSizeInBytes());
+            return new ChannelSet(hash, bloomFilter, hash.contains(0, nullBlockPage, HASH_CHANNELS), HASH_CHANNELS);
         }
 
         public long getEstimatedSize()
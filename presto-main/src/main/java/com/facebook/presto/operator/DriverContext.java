@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.Session;
 import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.buffer.PageCompressionStats;
 import com.facebook.presto.memory.QueryContextVisitor;
 import com.facebook.presto.memory.context.MemoryTrackingContext;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
@@ -147,6 +148,11 @@ public class DriverContext
         return pipelineContext.getSession();
     }
 
+    public PageCompressionStats getPageCompressionStats()
+    {
+        return pipelineContext.getTaskContext().getPageCompressionStats();
+    }
+
     public void startProcessTimer()
     {
         if (startNanos.compareAndSet(0, System.nanoTime())) {
@@ -78,7 +78,7 @@ public class ExchangeOperator
             return new ExchangeOperator(
                     operatorContext,
                     sourceId,
-                    serdeFactory.createPagesSerde(),
+                    serdeFactory.createPagesSerde(driverContext.getPageCompressionStats()),
                     exchangeClient);
         }
 
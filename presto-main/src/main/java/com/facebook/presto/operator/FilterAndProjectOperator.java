@@ -85,6 +85,9 @@ public class FilterAndProjectOperator
         requireNonNull(page, "page is null");
         checkState(mergingOutput.needsInput(), "Page buffer is full");
 
+        if (processor.isInterpreted()) {
+            operatorContext.recordInterpretedInput(page.getPositionCount());
+        }
         mergingOutput.addInput(processor.process(operatorContext.getSession().toConnectorSession(), operatorContext.getDriverContext().getYieldSignal(), page));
         outputMemoryContext.setBytes(mergingOutput.getRetainedSizeInBytes());
     }
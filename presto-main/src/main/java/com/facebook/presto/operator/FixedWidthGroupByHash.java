@@ -0,0 +1,567 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.array.IntBigArray;
+import com.facebook.presto.array.LongBigArray;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer;
+import com.facebook.presto.type.TypeUtils;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimeType.TIME;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Group by hash for keys of fixed width types, whose values are equal exactly when
+ * their long representations are equal. The keys of a group are packed into a flat
+ * row of longs, with the nulls of the row in a bitmask, so keys are compared without
+ * going through the blocks. The keys and the hashes of an input page are extracted
+ * column by column before the page is probed.
+ */
+public class FixedWidthGroupByHash
+        implements GroupByHash
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(FixedWidthGroupByHash.class).instanceSize();
+
+    private static final float FILL_RATIO = 0.75f;
+
+    // the nulls of a row are tracked in an int
+    private static final int MAX_KEY_COUNT = Integer.SIZE;
+    private static final Set<Type> SUPPORTED_TYPES = ImmutableSet.of(BIGINT, INTEGER, SMALLINT, TINYINT, BOOLEAN, DATE, TIME, TIMESTAMP);
+
+    private final List<Type> hashTypes;
+    private final List<Type> types;
+    private final int[] channels;
+    private final Optional<Integer> inputHashChannel;
+    private final int keyCount;
+
+    private int hashCapacity;
+    private int maxFill;
+    private int mask;
+
+    // the hash table from the raw hashes to groupIds
+    private LongBigArray rawHashByHashPosition;
+    private IntBigArray groupIdsByHash;
+
+    // reverse index from the groupId back to the keys, one row of keyCount values for each group
+    private final LongBigArray keysByGroupId;
+    private final IntBigArray nullsByGroupId;
+    private final LongBigArray rawHashByGroupId;
+
+    private int nextGroupId;
+    private long hashCollisions;
+    private double expectedHashCollisions;
+
+    // reserve enough memory before rehash
+    private final UpdateMemory updateMemory;
+    private long preallocatedMemoryInBytes;
+    private long currentPageSizeInBytes;
+
+    public FixedWidthGroupByHash(List<? extends Type> hashTypes, int[] hashChannels, Optional<Integer> inputHashChannel, int expectedSize, UpdateMemory updateMemory)
+    {
+        this.hashTypes = ImmutableList.copyOf(requireNonNull(hashTypes, "hashTypes is null"));
+        requireNonNull(hashChannels, "hashChannels is null");
+        checkArgument(hashTypes.size() == hashChannels.length, "hashTypes and hashChannels have different sizes");
+        checkArgument(isSupported(hashTypes), "Unsupported key types: %s", hashTypes);
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+
+        this.inputHashChannel = requireNonNull(inputHashChannel, "inputHashChannel is null");
+        this.types = inputHashChannel.isPresent() ? ImmutableList.copyOf(Iterables.concat(hashTypes, ImmutableList.of(BIGINT))) : this.hashTypes;
+        this.channels = hashChannels.clone();
+        this.keyCount = hashChannels.length;
+
+        hashCapacity = arraySize(expectedSize, FILL_RATIO);
+
+        maxFill = calculateMaxFill(hashCapacity);
+        mask = hashCapacity - 1;
+        rawHashByHashPosition = new LongBigArray();
+        rawHashByHashPosition.ensureCapacity(hashCapacity);
+        groupIdsByHash = new IntBigArray(-1);
+        groupIdsByHash.ensureCapacity(hashCapacity);
+
+        keysByGroupId = new LongBigArray();
+        keysByGroupId.ensureCapacity((long) maxFill * keyCount);
+        nullsByGroupId = new IntBigArray();
+        nullsByGroupId.ensureCapacity(maxFill);
+        rawHashByGroupId = new LongBigArray();
+        rawHashByGroupId.ensureCapacity(maxFill);
+
+        // This interface is used for actively reserving memory (push model) for rehash.
+        // The caller can also query memory usage on this object (pull model)
+        this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+    }
+
+    public static boolean isSupported(List<? extends Type> hashTypes)
+    {
+        return !hashTypes.isEmpty() && hashTypes.size() <= MAX_KEY_COUNT && SUPPORTED_TYPES.containsAll(hashTypes);
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE +
+                rawHashByHashPosition.sizeOf() +
+                groupIdsByHash.sizeOf() +
+                keysByGroupId.sizeOf() +
+                nullsByGroupId.sizeOf() +
+                rawHashByGroupId.sizeOf() +
+                preallocatedMemoryInBytes;
+    }
+
+    @Override
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    @Override
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions + estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        checkArgument(groupId >= 0, "groupId is negative");
+        int nulls = nullsByGroupId.get(groupId);
+        long keysOffset = (long) groupId * keyCount;
+        for (int channel = 0; channel < keyCount; channel++) {
+            BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(outputChannelOffset + channel);
+            if ((nulls & (1 << channel)) != 0) {
+                blockBuilder.appendNull();
+                continue;
+            }
+            Type type = hashTypes.get(channel);
+            long key = keysByGroupId.get(keysOffset + channel);
+            if (type.getJavaType() == boolean.class) {
+                type.writeBoolean(blockBuilder, key != 0);
+            }
+            else {
+                type.writeLong(blockBuilder, key);
+            }
+        }
+
+        if (inputHashChannel.isPresent()) {
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(outputChannelOffset + keyCount), rawHashByGroupId.get(groupId));
+        }
+    }
+
+    @Override
+    public Work<?> addPage(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new AddPageWork(new PageKeys(page));
+    }
+
+    @Override
+    public Work<GroupByIdBlock> getGroupIds(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new GetGroupIdsWork(new PageKeys(page));
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels)
+    {
+        long rawHash = HashGenerationOptimizer.INITIAL_HASH_VALUE;
+        for (int channel = 0; channel < keyCount; channel++) {
+            rawHash = CombineHashFunction.getHash(rawHash, TypeUtils.hashPosition(hashTypes.get(channel), page.getBlock(hashChannels[channel]), position));
+        }
+        long hashPosition = getHashPosition(rawHash, mask);
+
+        // look for an empty slot or a slot containing this key
+        while (true) {
+            int groupId = groupIdsByHash.get(hashPosition);
+            if (groupId == -1) {
+                return false;
+            }
+            if (rawHashByHashPosition.get(hashPosition) == rawHash && keysEqual(groupId, position, page, hashChannels)) {
+                return true;
+            }
+
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+    }
+
+    @Override
+    public long getRawHash(int groupId)
+    {
+        return rawHashByGroupId.get(groupId);
+    }
+
+    @VisibleForTesting
+    @Override
+    public int getCapacity()
+    {
+        return hashCapacity;
+    }
+
+    private int putIfAbsent(PageKeys pageKeys, int position)
+    {
+        long rawHash = pageKeys.getRawHash(position);
+        long hashPosition = getHashPosition(rawHash, mask);
+
+        // look for an empty slot or a slot containing this key
+        while (true) {
+            int groupId = groupIdsByHash.get(hashPosition);
+            if (groupId == -1) {
+                break;
+            }
+
+            if (rawHashByHashPosition.get(hashPosition) == rawHash && pageKeys.keysEqual(position, groupId)) {
+                return groupId;
+            }
+
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+            hashCollisions++;
+        }
+
+        return addNewGroup(hashPosition, rawHash, pageKeys, position);
+    }
+
+    private int addNewGroup(long hashPosition, long rawHash, PageKeys pageKeys, int position)
+    {
+        // record group id in hash
+        int groupId = nextGroupId++;
+
+        rawHashByHashPosition.set(hashPosition, rawHash);
+        groupIdsByHash.set(hashPosition, groupId);
+
+        pageKeys.copyKeys(position, groupId);
+        rawHashByGroupId.set(groupId, rawHash);
+
+        // increase capacity, if necessary
+        if (needRehash()) {
+            tryRehash();
+        }
+        return groupId;
+    }
+
+    private boolean keysEqual(int groupId, int position, Page page, int[] hashChannels)
+    {
+        int nulls = nullsByGroupId.get(groupId);
+        long keysOffset = (long) groupId * keyCount;
+        for (int channel = 0; channel < keyCount; channel++) {
+            Block block = page.getBlock(hashChannels[channel]);
+            boolean groupNull = (nulls & (1 << channel)) != 0;
+            if (block.isNull(position)) {
+                if (!groupNull) {
+                    return false;
+                }
+            }
+            else if (groupNull || getKey(hashTypes.get(channel), block, position) != keysByGroupId.get(keysOffset + channel)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean tryRehash()
+    {
+        long newCapacityLong = hashCapacity * 2L;
+        if (newCapacityLong > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of hash table cannot exceed 1 billion entries");
+        }
+        int newCapacity = toIntExact(newCapacityLong);
+
+        // An estimate of how much extra memory is needed before we can go ahead and expand the hash table.
+        // This includes the new capacity for the hash table and the rows of the groups as well as the size of the current page
+        long rowSizeInBytes = (long) keyCount * Long.BYTES + Integer.BYTES + Long.BYTES;
+        preallocatedMemoryInBytes = (newCapacity - hashCapacity) * (long) (Long.BYTES + Integer.BYTES) + (calculateMaxFill(newCapacity) - maxFill) * rowSizeInBytes + currentPageSizeInBytes;
+        if (!updateMemory.update()) {
+            // reserved memory but has exceeded the limit
+            return false;
+        }
+        preallocatedMemoryInBytes = 0;
+
+        expectedHashCollisions += estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+
+        int newMask = newCapacity - 1;
+        LongBigArray newRawHashByHashPosition = new LongBigArray();
+        newRawHashByHashPosition.ensureCapacity(newCapacity);
+        IntBigArray newGroupIdsByHash = new IntBigArray(-1);
+        newGroupIdsByHash.ensureCapacity(newCapacity);
+
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            long rawHash = rawHashByGroupId.get(groupId);
+
+            // find an empty slot for the group
+            long hashPosition = getHashPosition(rawHash, newMask);
+            while (newGroupIdsByHash.get(hashPosition) != -1) {
+                hashPosition = (hashPosition + 1) & newMask;
+                hashCollisions++;
+            }
+
+            // record the mapping
+            newRawHashByHashPosition.set(hashPosition, rawHash);
+            newGroupIdsByHash.set(hashPosition, groupId);
+        }
+
+        mask = newMask;
+        hashCapacity = newCapacity;
+        maxFill = calculateMaxFill(hashCapacity);
+        rawHashByHashPosition = newRawHashByHashPosition;
+        groupIdsByHash = newGroupIdsByHash;
+
+        keysByGroupId.ensureCapacity((long) maxFill * keyCount);
+        nullsByGroupId.ensureCapacity(maxFill);
+        rawHashByGroupId.ensureCapacity(maxFill);
+        return true;
+    }
+
+    private boolean needRehash()
+    {
+        return nextGroupId >= maxFill;
+    }
+
+    private static long getKey(Type type, Block block, int position)
+    {
+        if (type.getJavaType() == boolean.class) {
+            return type.getBoolean(block, position) ? 1 : 0;
+        }
+        return type.getLong(block, position);
+    }
+
+    private static long getHashPosition(long rawHash, int mask)
+    {
+        return murmurHash3(rawHash) & mask;
+    }
+
+    private static int calculateMaxFill(int hashSize)
+    {
+        checkArgument(hashSize > 0, "hashSize must be greater than 0");
+        int maxFill = (int) Math.ceil(hashSize * FILL_RATIO);
+        if (maxFill == hashSize) {
+            maxFill--;
+        }
+        checkArgument(hashSize > maxFill, "hashSize must be larger than maxFill");
+        return maxFill;
+    }
+
+    /**
+     * The keys, nulls and raw hashes of the rows of a page, in the same layout as the groups.
+     */
+    private class PageKeys
+    {
+        private final int positionCount;
+        private final long[] keys;
+        private final int[] nulls;
+        private final long[] rawHashes;
+
+        public PageKeys(Page page)
+        {
+            positionCount = page.getPositionCount();
+            keys = new long[positionCount * keyCount];
+            nulls = new int[positionCount];
+            rawHashes = new long[positionCount];
+
+            boolean computeHashes = !inputHashChannel.isPresent();
+            for (int channel = 0; channel < keyCount; channel++) {
+                Type type = hashTypes.get(channel);
+                Block block = page.getBlock(channels[channel]);
+                boolean isBoolean = type.getJavaType() == boolean.class;
+                int nullMask = 1 << channel;
+                for (int position = 0; position < positionCount; position++) {
+                    if (block.isNull(position)) {
+                        nulls[position] |= nullMask;
+                        if (computeHashes) {
+                            rawHashes[position] = CombineHashFunction.getHash(rawHashes[position], TypeUtils.NULL_HASH_CODE);
+                        }
+                        continue;
+                    }
+                    keys[position * keyCount + channel] = isBoolean ? (type.getBoolean(block, position) ? 1 : 0) : type.getLong(block, position);
+                    if (computeHashes) {
+                        rawHashes[position] = CombineHashFunction.getHash(rawHashes[position], type.hash(block, position));
+                    }
+                }
+            }
+
+            if (!computeHashes) {
+                Block hashBlock = page.getBlock(inputHashChannel.get());
+                for (int position = 0; position < positionCount; position++) {
+                    rawHashes[position] = BIGINT.getLong(hashBlock, position);
+                }
+            }
+        }
+
+        public int getPositionCount()
+        {
+            return positionCount;
+        }
+
+        public long getRawHash(int position)
+        {
+            return rawHashes[position];
+        }
+
+        public boolean keysEqual(int position, int groupId)
+        {
+            if (nulls[position] != nullsByGroupId.get(groupId)) {
+                return false;
+            }
+            int offset = position * keyCount;
+            long groupOffset = (long) groupId * keyCount;
+            for (int channel = 0; channel < keyCount; channel++) {
+                if (keys[offset + channel] != keysByGroupId.get(groupOffset + channel)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void copyKeys(int position, int groupId)
+        {
+            int offset = position * keyCount;
+            long groupOffset = (long) groupId * keyCount;
+            for (int channel = 0; channel < keyCount; channel++) {
+                keysByGroupId.set(groupOffset + channel, keys[offset + channel]);
+            }
+            nullsByGroupId.set(groupId, nulls[position]);
+        }
+    }
+
+    private class AddPageWork
+            implements Work<Void>
+    {
+        private final PageKeys pageKeys;
+
+        private int lastPosition;
+
+        public AddPageWork(PageKeys pageKeys)
+        {
+            this.pageKeys = requireNonNull(pageKeys, "pageKeys is null");
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = pageKeys.getPositionCount();
+            checkState(lastPosition < positionCount, "position count out of bound");
+
+            // needRehash() == false indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                // get the group for the current row
+                putIfAbsent(pageKeys, lastPosition);
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public Void getResult()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class GetGroupIdsWork
+            implements Work<GroupByIdBlock>
+    {
+        private final BlockBuilder blockBuilder;
+        private final PageKeys pageKeys;
+
+        private boolean finished;
+        private int lastPosition;
+
+        public GetGroupIdsWork(PageKeys pageKeys)
+        {
+            this.pageKeys = requireNonNull(pageKeys, "pageKeys is null");
+            // we know the exact size required for the block
+            this.blockBuilder = BIGINT.createFixedSizeBlockBuilder(pageKeys.getPositionCount());
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = pageKeys.getPositionCount();
+            checkState(lastPosition < positionCount, "position count out of bound");
+            checkState(!finished);
+
+            // needRehash() == false indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                // output the group id for this row
+                BIGINT.writeLong(blockBuilder, putIfAbsent(pageKeys, lastPosition));
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public GroupByIdBlock getResult()
+        {
+            checkState(lastPosition == pageKeys.getPositionCount(), "process has not yet finished");
+            checkState(!finished, "result has produced");
+            finished = true;
+            return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        }
+    }
+}
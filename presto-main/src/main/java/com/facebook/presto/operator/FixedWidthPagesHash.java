@@ -0,0 +1,298 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.openjdk.jol.info.ClassLayout;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
+import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimeType.TIME;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Open addressing hash table for joins on a few keys of fixed width types whose equality
+ * is the equality of their long representation. Each bucket stores the address index of
+ * a build row tagged with the upper bits of its hash, followed by the keys of the row, so
+ * a lookup compares keys inside the bucket array instead of going through the build pages.
+ */
+// This implementation assumes arrays used in the hash are always a power of 2
+public final class FixedWidthPagesHash
+        implements PagesHash
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(FixedWidthPagesHash.class).instanceSize();
+    private static final Set<Type> SUPPORTED_TYPES = ImmutableSet.of(BIGINT, INTEGER, SMALLINT, TINYINT, BOOLEAN, DATE, TIME, TIMESTAMP);
+    // keys are stored inline in the buckets, so wide keys would make the buckets span several cache lines
+    private static final int MAX_KEY_COUNT = 4;
+    private static final long EMPTY_BUCKET = -1;
+
+    private final LongArrayList addresses;
+    private final PagesHashStrategy pagesHashStrategy;
+    private final List<Type> keyTypes;
+
+    private final int channelCount;
+    private final int keyCount;
+    private final int bucketSize;
+    private final int mask;
+    private final long[] buckets;
+    private final long size;
+    private final long hashCollisions;
+    private final double expectedHashCollisions;
+
+    public FixedWidthPagesHash(
+            LongArrayList addresses,
+            PagesHashStrategy pagesHashStrategy,
+            PositionLinks.FactoryBuilder positionLinks,
+            List<Type> keyTypes,
+            List<List<Block>> keyChannels)
+    {
+        this.addresses = requireNonNull(addresses, "addresses is null");
+        this.pagesHashStrategy = requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
+        this.keyTypes = ImmutableList.copyOf(requireNonNull(keyTypes, "keyTypes is null"));
+        requireNonNull(keyChannels, "keyChannels is null");
+        checkArgument(isSupported(keyTypes, addresses.size()), "Unsupported key types %s or position count %s", keyTypes, addresses.size());
+        checkArgument(keyChannels.size() == keyTypes.size(), "keyChannels and keyTypes have different sizes");
+        this.channelCount = pagesHashStrategy.getChannelCount();
+        this.keyCount = keyTypes.size();
+        this.bucketSize = keyCount + 1;
+
+        int hashSize = HashCommon.arraySize(addresses.size(), 0.75f);
+        mask = hashSize - 1;
+        buckets = new long[hashSize * bucketSize];
+        for (int bucket = 0; bucket < hashSize; bucket++) {
+            buckets[bucket * bucketSize] = EMPTY_BUCKET;
+        }
+
+        long[] rowKeys = new long[keyCount];
+        long hashCollisionsLocal = 0;
+        for (int position = 0; position < addresses.size(); position++) {
+            long pageAddress = addresses.getLong(position);
+            int blockIndex = decodeSliceIndex(pageAddress);
+            int blockPosition = decodePosition(pageAddress);
+            if (pagesHashStrategy.isPositionNull(blockIndex, blockPosition)) {
+                continue;
+            }
+
+            for (int channel = 0; channel < keyCount; channel++) {
+                rowKeys[channel] = getKey(keyTypes.get(channel), keyChannels.get(channel).get(blockIndex), blockPosition);
+            }
+            long hash = pagesHashStrategy.hashPosition(blockIndex, blockPosition);
+            int tag = getTag(hash);
+
+            // look for an empty bucket or a bucket containing this key
+            int realPosition = position;
+            int bucket = getHashPosition(hash, mask);
+            while (buckets[bucket * bucketSize] != EMPTY_BUCKET) {
+                int offset = bucket * bucketSize;
+                long header = buckets[offset];
+                if (getTag(header) == tag && keysEqual(offset, rowKeys, 0)) {
+                    // link the new key position to the current key position
+                    realPosition = positionLinks.link(realPosition, getAddressIndex(header));
+                    break;
+                }
+                // increment position and mask to handler wrap around
+                bucket = (bucket + 1) & mask;
+                hashCollisionsLocal++;
+            }
+
+            int offset = bucket * bucketSize;
+            buckets[offset] = ((long) tag << 32) | realPosition;
+            System.arraycopy(rowKeys, 0, buckets, offset + 1, keyCount);
+        }
+
+        size = sizeOf(addresses.elements()) + pagesHashStrategy.getSizeInBytes() + sizeOf(buckets);
+        hashCollisions = hashCollisionsLocal;
+        expectedHashCollisions = estimateNumberOfHashCollisions(addresses.size(), hashSize);
+    }
+
+    public static boolean isSupported(List<Type> keyTypes, int positionCount)
+    {
+        if (keyTypes.isEmpty() || keyTypes.size() > MAX_KEY_COUNT || !SUPPORTED_TYPES.containsAll(keyTypes)) {
+            return false;
+        }
+        // the bucket array must be addressable with an int
+        return (long) HashCommon.arraySize(positionCount, 0.75f) * (keyTypes.size() + 1) <= Integer.MAX_VALUE - 8;
+    }
+
+    @Override
+    public int getChannelCount()
+    {
+        return channelCount;
+    }
+
+    @Override
+    public int getPositionCount()
+    {
+        return addresses.size();
+    }
+
+    @Override
+    public long getInMemorySizeInBytes()
+    {
+        return INSTANCE_SIZE + size;
+    }
+
+    @Override
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    @Override
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions;
+    }
+
+    @Override
+    public int getAddressIndex(int position, Page hashChannelsPage)
+    {
+        return getAddressIndex(position, hashChannelsPage, pagesHashStrategy.hashRow(position, hashChannelsPage));
+    }
+
+    @Override
+    public int getAddressIndex(int rightPosition, Page hashChannelsPage, long rawHash)
+    {
+        long[] probeKeys = new long[keyCount];
+        for (int channel = 0; channel < keyCount; channel++) {
+            probeKeys[channel] = getKey(keyTypes.get(channel), hashChannelsPage.getBlock(channel), rightPosition);
+        }
+        int bucket = getHashPosition(rawHash, mask);
+        return findAddressIndex(bucket, buckets[bucket * bucketSize], getTag(rawHash), probeKeys, 0);
+    }
+
+    @Override
+    public void getAddressIndexes(int[] positions, int positionCount, Page hashChannelsPage, @Nullable long[] rawHashes, int[] addressIndexes)
+    {
+        int[] tags = new int[positionCount];
+        int[] hashPositions = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            long rawHash = rawHashes == null ? pagesHashStrategy.hashRow(positions[i], hashChannelsPage) : rawHashes[i];
+            tags[i] = getTag(rawHash);
+            hashPositions[i] = getHashPosition(rawHash, mask);
+        }
+
+        // extract the probe keys column by column
+        long[] probeKeys = new long[positionCount * keyCount];
+        for (int channel = 0; channel < keyCount; channel++) {
+            Type type = keyTypes.get(channel);
+            Block block = hashChannelsPage.getBlock(channel);
+            for (int i = 0; i < positionCount; i++) {
+                probeKeys[i * keyCount + channel] = getKey(type, block, positions[i]);
+            }
+        }
+
+        // Load the first bucket of every position before comparing any keys. The loads
+        // do not depend on each other, so their cache misses overlap instead of being
+        // serialized behind the key comparisons.
+        long[] headers = new long[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            headers[i] = buckets[hashPositions[i] * bucketSize];
+        }
+
+        for (int i = 0; i < positionCount; i++) {
+            addressIndexes[i] = findAddressIndex(hashPositions[i], headers[i], tags[i], probeKeys, i * keyCount);
+        }
+    }
+
+    @Override
+    public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        long pageAddress = addresses.getLong(toIntExact(position));
+        int blockIndex = decodeSliceIndex(pageAddress);
+        int blockPosition = decodePosition(pageAddress);
+
+        pagesHashStrategy.appendTo(blockIndex, blockPosition, pageBuilder, outputChannelOffset);
+    }
+
+    private int findAddressIndex(int bucket, long header, int tag, long[] probeKeys, int probeKeysOffset)
+    {
+        while (header != EMPTY_BUCKET) {
+            if (getTag(header) == tag && keysEqual(bucket * bucketSize, probeKeys, probeKeysOffset)) {
+                return getAddressIndex(header);
+            }
+            // increment position and mask to handler wrap around
+            bucket = (bucket + 1) & mask;
+            header = buckets[bucket * bucketSize];
+        }
+        return -1;
+    }
+
+    private boolean keysEqual(int bucketOffset, long[] keys, int keysOffset)
+    {
+        if (keyCount == 1) {
+            // single BIGINT like key
+            return buckets[bucketOffset + 1] == keys[keysOffset];
+        }
+        for (int channel = 0; channel < keyCount; channel++) {
+            if (buckets[bucketOffset + 1 + channel] != keys[keysOffset + channel]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getTag(long rawHashOrHeader)
+    {
+        return (int) (rawHashOrHeader >>> 32);
+    }
+
+    private static int getAddressIndex(long header)
+    {
+        return (int) header;
+    }
+
+    private static long getKey(Type type, Block block, int position)
+    {
+        if (type == BOOLEAN) {
+            return type.getBoolean(block, position) ? 1 : 0;
+        }
+        return type.getLong(block, position);
+    }
+
+    private static int getHashPosition(long rawHash, long mask)
+    {
+        // finalisation step of MurmurHash3, see DefaultPagesHash
+        rawHash ^= rawHash >>> 33;
+        rawHash *= 0xff51afd7ed558ccdL;
+        rawHash ^= rawHash >>> 33;
+        rawHash *= 0xc4ceb9fe1a85ec53L;
+        rawHash ^= rawHash >>> 33;
+
+        return (int) (rawHash & mask);
+    }
+}
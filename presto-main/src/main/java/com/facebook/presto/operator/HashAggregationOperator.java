@@ -13,10 +13,12 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.aggregation.Accumulator;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.builder.HashAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder;
+import com.facebook.presto.operator.aggregation.builder.SkipAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.SpillableHashAggregationBuilder;
 import com.facebook.presto.operator.scalar.CombineHashFunction;
 import com.facebook.presto.spi.Page;
@@ -36,6 +38,9 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationMinRows;
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationUniqueRowsRatioThreshold;
+import static com.facebook.presto.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
 import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
 import static com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer.INITIAL_HASH_VALUE;
 import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
@@ -260,6 +265,15 @@ public class HashAggregationOperator
     private final List<Type> types;
     private final HashCollisionsCounter hashCollisionsCounter;
 
+    private final boolean adaptivePartialAggregation;
+    private final long adaptivePartialAggregationMinRows;
+    private final double adaptivePartialAggregationUniqueRowsRatioThreshold;
+    private final LocalMemoryContext skipAggregationMemoryContext;
+    // rows seen and groups produced by the partial hash aggregation builders that were already flushed
+    private long partialAggregationInputRows;
+    private long partialAggregationUniqueRows;
+    private boolean skipPartialAggregation;
+
     private HashAggregationBuilder aggregationBuilder;
     private WorkProcessor<Page> outputPages;
     private boolean inputProcessed;
@@ -310,6 +324,15 @@ public class HashAggregationOperator
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.hashCollisionsCounter = new HashCollisionsCounter(operatorContext);
         operatorContext.setInfoSupplier(hashCollisionsCounter);
+
+        this.adaptivePartialAggregation = step == Step.PARTIAL
+                && !groupByChannels.isEmpty()
+                && !hasOrderBy()
+                && !hasDistinct()
+                && isAdaptivePartialAggregationEnabled(operatorContext.getSession());
+        this.adaptivePartialAggregationMinRows = getAdaptivePartialAggregationMinRows(operatorContext.getSession());
+        this.adaptivePartialAggregationUniqueRowsRatioThreshold = getAdaptivePartialAggregationUniqueRowsRatioThreshold(operatorContext.getSession());
+        this.skipAggregationMemoryContext = operatorContext.newLocalSystemMemoryContext();
     }
 
     @Override
@@ -336,7 +359,7 @@ public class HashAggregationOperator
         if (finishing || outputPages != null) {
             return false;
         }
-        else if (aggregationBuilder != null && aggregationBuilder.isFull()) {
+        else if (aggregationBuilder != null && (aggregationBuilder.isFull() || isPartialAggregationBuilderToBeSkipped())) {
             return false;
         }
         else {
@@ -353,8 +376,15 @@ public class HashAggregationOperator
         inputProcessed = true;
 
         if (aggregationBuilder == null) {
+            if (skipPartialAggregation) {
+                aggregationBuilder = new SkipAggregationBuilder(
+                        groupByChannels,
+                        hashChannel,
+                        accumulatorFactories,
+                        skipAggregationMemoryContext);
+            }
             // TODO: We ignore spillEnabled here if any aggregate has ORDER BY clause or DISTINCT because they are not yet implemented for spilling.
-            if (step.isOutputPartial() || !spillEnabled || hasOrderBy() || hasDistinct()) {
+            else if (step.isOutputPartial() || !spillEnabled || hasOrderBy() || hasDistinct()) {
                 aggregationBuilder = new InMemoryHashAggregationBuilder(
                         accumulatorFactories,
                         step,
@@ -394,6 +424,32 @@ public class HashAggregationOperator
             unfinishedWork = null;
         }
         aggregationBuilder.updateMemory();
+
+        if (aggregationBuilder instanceof SkipAggregationBuilder) {
+            hashCollisionsCounter.recordPartialAggregationSkippedPositions(page.getPositionCount());
+        }
+        else if (adaptivePartialAggregation && !skipPartialAggregation) {
+            updateSkipPartialAggregation((InMemoryHashAggregationBuilder) aggregationBuilder);
+        }
+    }
+
+    /**
+     * Switches the partial aggregation to pass-through mode once it has seen enough rows
+     * to tell that hashing them is not reducing the amount of data sent to the final aggregation.
+     */
+    private void updateSkipPartialAggregation(InMemoryHashAggregationBuilder builder)
+    {
+        long inputRows = partialAggregationInputRows + builder.getInputPositions();
+        long uniqueRows = partialAggregationUniqueRows + builder.getGroupCount();
+        if (inputRows >= adaptivePartialAggregationMinRows && uniqueRows > inputRows * adaptivePartialAggregationUniqueRowsRatioThreshold) {
+            skipPartialAggregation = true;
+        }
+    }
+
+    private boolean isPartialAggregationBuilderToBeSkipped()
+    {
+        // the current hash aggregation builder is flushed before switching to pass-through mode
+        return skipPartialAggregation && aggregationBuilder instanceof InMemoryHashAggregationBuilder;
     }
 
     private boolean hasOrderBy()
@@ -455,7 +511,7 @@ public class HashAggregationOperator
             }
 
             // only flush if we are finishing or the aggregation builder is full
-            if (!finishing && (aggregationBuilder == null || !aggregationBuilder.isFull())) {
+            if (!finishing && (aggregationBuilder == null || !(aggregationBuilder.isFull() || isPartialAggregationBuilderToBeSkipped()))) {
                 return null;
             }
 
@@ -490,6 +546,11 @@ public class HashAggregationOperator
     {
         outputPages = null;
         if (aggregationBuilder != null) {
+            if (adaptivePartialAggregation && aggregationBuilder instanceof InMemoryHashAggregationBuilder) {
+                InMemoryHashAggregationBuilder builder = (InMemoryHashAggregationBuilder) aggregationBuilder;
+                partialAggregationInputRows += builder.getInputPositions();
+                partialAggregationUniqueRows += builder.getGroupCount();
+            }
             aggregationBuilder.recordHashCollisions(hashCollisionsCounter);
             aggregationBuilder.close();
             // aggregationBuilder.close() will release all memory reserved in memory accounting.
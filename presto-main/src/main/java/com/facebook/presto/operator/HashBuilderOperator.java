@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.SharedBuildManager.SharedBuild;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spiller.SingleStreamSpiller;
 import com.facebook.presto.spiller.SingleStreamSpillerFactory;
@@ -23,6 +24,7 @@ import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.Closer;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import javax.annotation.Nullable;
@@ -37,6 +39,7 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Queue;
+import java.util.concurrent.ExecutionException;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -68,9 +71,15 @@ public class HashBuilderOperator
         private final int expectedPositions;
         private final boolean spillEnabled;
         private final SingleStreamSpillerFactory singleStreamSpillerFactory;
+        private final Optional<LocalDynamicFilter> dynamicFilter;
+        private final SharedBuildManager sharedBuildManager;
+        private final Optional<String> sharedBuildKey;
 
         private final Map<Lifespan, Integer> partitionIndexManager = new HashMap<>();
 
+        @Nullable
+        private SharedBuild sharedBuild;
+        private boolean sharedBuildOwner;
         private boolean closed;
 
         public HashBuilderOperatorFactory(
@@ -87,6 +96,80 @@ public class HashBuilderOperator
                 PagesIndex.Factory pagesIndexFactory,
                 boolean spillEnabled,
                 SingleStreamSpillerFactory singleStreamSpillerFactory)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    lookupSourceFactory,
+                    outputChannels,
+                    hashChannels,
+                    preComputedHashChannel,
+                    filterFunctionFactory,
+                    sortChannel,
+                    searchFunctionFactories,
+                    expectedPositions,
+                    pagesIndexFactory,
+                    spillEnabled,
+                    singleStreamSpillerFactory,
+                    Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                JoinBridgeDataManager<LookupSourceFactory> lookupSourceFactory,
+                List<Integer> outputChannels,
+                List<Integer> hashChannels,
+                OptionalInt preComputedHashChannel,
+                Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+                Optional<Integer> sortChannel,
+                List<JoinFilterFunctionFactory> searchFunctionFactories,
+                int expectedPositions,
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                SingleStreamSpillerFactory singleStreamSpillerFactory,
+                Optional<LocalDynamicFilter> dynamicFilter)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    lookupSourceFactory,
+                    outputChannels,
+                    hashChannels,
+                    preComputedHashChannel,
+                    filterFunctionFactory,
+                    sortChannel,
+                    searchFunctionFactories,
+                    expectedPositions,
+                    pagesIndexFactory,
+                    spillEnabled,
+                    singleStreamSpillerFactory,
+                    dynamicFilter,
+                    new SharedBuildManager(),
+                    Optional.empty());
+        }
+
+        /**
+         * When a shared build key is given, the task-wide lookup source is shared through the
+         * manager with the tasks of other queries building under the same key.
+         */
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                JoinBridgeDataManager<LookupSourceFactory> lookupSourceFactory,
+                List<Integer> outputChannels,
+                List<Integer> hashChannels,
+                OptionalInt preComputedHashChannel,
+                Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+                Optional<Integer> sortChannel,
+                List<JoinFilterFunctionFactory> searchFunctionFactories,
+                int expectedPositions,
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                SingleStreamSpillerFactory singleStreamSpillerFactory,
+                Optional<LocalDynamicFilter> dynamicFilter,
+                SharedBuildManager sharedBuildManager,
+                Optional<String> sharedBuildKey)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -104,6 +187,10 @@ public class HashBuilderOperator
             this.pagesIndexFactory = requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
             this.spillEnabled = spillEnabled;
             this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+            this.sharedBuildManager = requireNonNull(sharedBuildManager, "sharedBuildManager is null");
+            this.sharedBuildKey = requireNonNull(sharedBuildKey, "sharedBuildKey is null");
+            checkArgument(!sharedBuildKey.isPresent() || (!spillEnabled && !filterFunctionFactory.isPresent() && !dynamicFilter.isPresent()), "shared builds can not spill, filter or collect a dynamic filter");
 
             this.expectedPositions = expectedPositions;
         }
@@ -117,6 +204,20 @@ public class HashBuilderOperator
             LookupSourceFactory lookupSourceFactory = this.lookupSourceFactoryManager.forLifespan(driverContext.getLifespan());
             int partitionIndex = getAndIncrementPartitionIndex(driverContext.getLifespan());
             verify(partitionIndex < lookupSourceFactory.partitions());
+
+            // all partitions of the task must take the same role, so the build is acquired once per task
+            Optional<SharedBuild> sharedBuild = Optional.empty();
+            if (sharedBuildKey.isPresent() && driverContext.getLifespan().equals(Lifespan.taskWide())) {
+                if (this.sharedBuild == null) {
+                    this.sharedBuild = sharedBuildManager.acquire(sharedBuildKey.get(), lookupSourceFactory.partitions(), driverContext.getTaskId());
+                    this.sharedBuildOwner = this.sharedBuild.isOwner(driverContext.getTaskId());
+                }
+                else {
+                    this.sharedBuild.retain();
+                }
+                sharedBuild = Optional.of(this.sharedBuild);
+            }
+
             return new HashBuilderOperator(
                     operatorContext,
                     lookupSourceFactory,
@@ -130,13 +231,22 @@ public class HashBuilderOperator
                     expectedPositions,
                     pagesIndexFactory,
                     spillEnabled,
-                    singleStreamSpillerFactory);
+                    singleStreamSpillerFactory,
+                    dynamicFilter.map(filter -> filter.createCollector(hashChannels)),
+                    sharedBuild,
+                    sharedBuildOwner);
         }
 
         @Override
         public void noMoreOperators()
         {
             closed = true;
+            if (sharedBuild != null && sharedBuildOwner) {
+                // the task is done, so partitions without an operator are never going to be built
+                for (int partition = partitionIndexManager.getOrDefault(Lifespan.taskWide(), 0); partition < sharedBuild.getPartitionCount(); partition++) {
+                    sharedBuild.abort(partition);
+                }
+            }
         }
 
         @Override
@@ -159,6 +269,11 @@ public class HashBuilderOperator
          */
         CONSUMING_INPUT,
 
+        /**
+         * LookupSource built by another query has been passed on, operator accepts input and discards it
+         */
+        DISCARDING_INPUT,
+
         /**
          * Memory revoking occurred during {@link #CONSUMING_INPUT}. Operator accepts input and spills it
          */
@@ -212,8 +327,12 @@ public class HashBuilderOperator
     private final SingleStreamSpillerFactory singleStreamSpillerFactory;
 
     private final HashCollisionsCounter hashCollisionsCounter;
+    private final Optional<LocalDynamicFilter.Collector> dynamicFilterCollector;
+    private final Optional<SharedBuild> sharedBuild;
+    private final boolean sharedBuildOwner;
 
     private State state = State.CONSUMING_INPUT;
+    private boolean lookupSourceShared;
     private Optional<ListenableFuture<?>> lookupSourceNotNeeded = Optional.empty();
     private SpilledLookupSourceHandle spilledLookupSourceHandle = new SpilledLookupSourceHandle();
     private Optional<SingleStreamSpiller> spiller = Optional.empty();
@@ -239,6 +358,76 @@ public class HashBuilderOperator
             PagesIndex.Factory pagesIndexFactory,
             boolean spillEnabled,
             SingleStreamSpillerFactory singleStreamSpillerFactory)
+    {
+        this(
+                operatorContext,
+                lookupSourceFactory,
+                partitionIndex,
+                outputChannels,
+                hashChannels,
+                preComputedHashChannel,
+                filterFunctionFactory,
+                sortChannel,
+                searchFunctionFactories,
+                expectedPositions,
+                pagesIndexFactory,
+                spillEnabled,
+                singleStreamSpillerFactory,
+                Optional.empty());
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            LookupSourceFactory lookupSourceFactory,
+            int partitionIndex,
+            List<Integer> outputChannels,
+            List<Integer> hashChannels,
+            OptionalInt preComputedHashChannel,
+            Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+            Optional<Integer> sortChannel,
+            List<JoinFilterFunctionFactory> searchFunctionFactories,
+            int expectedPositions,
+            PagesIndex.Factory pagesIndexFactory,
+            boolean spillEnabled,
+            SingleStreamSpillerFactory singleStreamSpillerFactory,
+            Optional<LocalDynamicFilter.Collector> dynamicFilterCollector)
+    {
+        this(
+                operatorContext,
+                lookupSourceFactory,
+                partitionIndex,
+                outputChannels,
+                hashChannels,
+                preComputedHashChannel,
+                filterFunctionFactory,
+                sortChannel,
+                searchFunctionFactories,
+                expectedPositions,
+                pagesIndexFactory,
+                spillEnabled,
+                singleStreamSpillerFactory,
+                dynamicFilterCollector,
+                Optional.empty(),
+                false);
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            LookupSourceFactory lookupSourceFactory,
+            int partitionIndex,
+            List<Integer> outputChannels,
+            List<Integer> hashChannels,
+            OptionalInt preComputedHashChannel,
+            Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+            Optional<Integer> sortChannel,
+            List<JoinFilterFunctionFactory> searchFunctionFactories,
+            int expectedPositions,
+            PagesIndex.Factory pagesIndexFactory,
+            boolean spillEnabled,
+            SingleStreamSpillerFactory singleStreamSpillerFactory,
+            Optional<LocalDynamicFilter.Collector> dynamicFilterCollector,
+            Optional<SharedBuild> sharedBuild,
+            boolean sharedBuildOwner)
     {
         requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
 
@@ -263,6 +452,9 @@ public class HashBuilderOperator
 
         this.spillEnabled = spillEnabled;
         this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
+        this.dynamicFilterCollector = requireNonNull(dynamicFilterCollector, "dynamicFilterCollector is null");
+        this.sharedBuild = requireNonNull(sharedBuild, "sharedBuild is null");
+        this.sharedBuildOwner = sharedBuildOwner;
     }
 
     @Override
@@ -282,6 +474,7 @@ public class HashBuilderOperator
     {
         switch (state) {
             case CONSUMING_INPUT:
+            case DISCARDING_INPUT:
                 return NOT_BLOCKED;
 
             case SPILLING_INPUT:
@@ -309,6 +502,7 @@ public class HashBuilderOperator
     public boolean needsInput()
     {
         boolean stateNeedsInput = (state == State.CONSUMING_INPUT)
+                || (state == State.DISCARDING_INPUT)
                 || (state == State.SPILLING_INPUT && spillInProgress.isDone());
 
         return stateNeedsInput && !lookupSourceFactoryDestroyed.isDone();
@@ -324,11 +518,26 @@ public class HashBuilderOperator
             return;
         }
 
+        dynamicFilterCollector.ifPresent(collector -> collector.add(page));
+
         if (state == State.SPILLING_INPUT) {
             spillInput(page);
             return;
         }
 
+        // the input of a query following a shared build is read until it is finished, so that
+        // the local exchange feeding it is drained, but it is only kept until the build is published
+        if (state == State.CONSUMING_INPUT && isFollowingSharedBuild()) {
+            Optional<LookupSourceSupplier> sharedLookupSource = getPublishedLookupSource();
+            if (sharedLookupSource.isPresent()) {
+                lendSharedLookupSource(sharedLookupSource.get());
+                state = State.DISCARDING_INPUT;
+            }
+        }
+        if (state == State.DISCARDING_INPUT) {
+            return;
+        }
+
         checkState(state == State.CONSUMING_INPUT);
         updateIndex(page);
     }
@@ -442,6 +651,11 @@ public class HashBuilderOperator
                 finishInput();
                 return;
 
+            case DISCARDING_INPUT:
+                state = State.LOOKUP_SOURCE_BUILT;
+                disposeLookupSourceIfRequested();
+                return;
+
             case LOOKUP_SOURCE_BUILT:
                 disposeLookupSourceIfRequested();
                 return;
@@ -483,6 +697,25 @@ public class HashBuilderOperator
             return;
         }
 
+        // a query following a shared build does not wait for a lookup source that is not
+        // published yet, since the owner may be slow or blocked, and its input is already kept
+        if (isFollowingSharedBuild()) {
+            Optional<LookupSourceSupplier> sharedLookupSource = getPublishedLookupSource();
+            if (sharedLookupSource.isPresent()) {
+                lendSharedLookupSource(sharedLookupSource.get());
+                state = State.LOOKUP_SOURCE_BUILT;
+                return;
+            }
+        }
+
+        buildLookupSourceFromInput();
+    }
+
+    private void buildLookupSourceFromInput()
+    {
+        // publish the dynamic filter before the lookup source, so it is complete by the time probing starts
+        dynamicFilterCollector.ifPresent(LocalDynamicFilter.Collector::finish);
+
         LookupSourceSupplier partition = buildLookupSource();
         if (spillEnabled) {
             localRevocableMemoryContext.setBytes(partition.get().getInMemorySizeInBytes());
@@ -490,22 +723,63 @@ public class HashBuilderOperator
         else {
             localUserMemoryContext.setBytes(partition.get().getInMemorySizeInBytes());
         }
+        if (sharedBuildOwner) {
+            sharedBuild.get().publish(partitionIndex, partition, partition.get().getInMemorySizeInBytes(), localUserMemoryContext);
+            lookupSourceShared = true;
+        }
         lookupSourceNotNeeded = Optional.of(lookupSourceFactory.lendPartitionLookupSource(partitionIndex, partition));
 
         state = State.LOOKUP_SOURCE_BUILT;
     }
 
+    private boolean isFollowingSharedBuild()
+    {
+        return sharedBuild.isPresent() && !sharedBuildOwner;
+    }
+
+    /**
+     * Returns the lookup source published by the owner of the shared build, or empty if it is
+     * not published yet or the owner gave up building it.
+     */
+    private Optional<LookupSourceSupplier> getPublishedLookupSource()
+    {
+        ListenableFuture<LookupSourceSupplier> sharedLookupSource = sharedBuild.get().getLookupSource(partitionIndex);
+        if (!sharedLookupSource.isDone()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Futures.getDone(sharedLookupSource));
+        }
+        catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void lendSharedLookupSource(LookupSourceSupplier partition)
+    {
+        // the input kept so far is no longer needed
+        index.clear();
+        localUserMemoryContext.setBytes(0);
+        sharedBuild.get().hold(partitionIndex, localUserMemoryContext);
+        lookupSourceShared = true;
+        lookupSourceSupplier = partition;
+        lookupSourceNotNeeded = Optional.of(lookupSourceFactory.lendPartitionLookupSource(partitionIndex, partition));
+    }
+
     private void disposeLookupSourceIfRequested()
     {
-        checkState(state == State.LOOKUP_SOURCE_BUILT);
+        checkState(state == State.LOOKUP_SOURCE_BUILT || state == State.DISCARDING_INPUT);
         verify(lookupSourceNotNeeded.isPresent());
         if (!lookupSourceNotNeeded.get().isDone()) {
             return;
         }
 
-        index.clear();
-        localRevocableMemoryContext.setBytes(0);
-        localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes());
+        // the pages of a shared index may still be used by other queries
+        if (!lookupSourceShared) {
+            index.clear();
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes());
+        }
         lookupSourceSupplier = null;
         close();
     }
@@ -518,6 +792,7 @@ public class HashBuilderOperator
             return;
         }
         checkSuccess(spillInProgress, "spilling failed");
+        dynamicFilterCollector.ifPresent(LocalDynamicFilter.Collector::finish);
         state = State.INPUT_SPILLED;
     }
 
@@ -602,6 +877,11 @@ public class HashBuilderOperator
             return true;
         }
 
+        // a query using a shared lookup source may no longer need it before its own input is finished
+        if (state == State.DISCARDING_INPUT) {
+            disposeLookupSourceIfRequested();
+        }
+
         return state == State.CLOSED;
     }
 
@@ -623,13 +903,26 @@ public class HashBuilderOperator
         finishMemoryRevoke = finishMemoryRevoke.map(ifPresent -> () -> {});
 
         try (Closer closer = Closer.create()) {
-            closer.register(index::clear);
+            if (!lookupSourceShared) {
+                closer.register(index::clear);
+            }
             spiller.ifPresent(closer::register);
             closer.register(() -> localUserMemoryContext.setBytes(0));
             closer.register(() -> localRevocableMemoryContext.setBytes(0));
+            // registered last to run first, so the share of the memory is not resized after it is cleared
+            sharedBuild.ifPresent(build -> closer.register(() -> releaseSharedBuild(build)));
         }
         catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
+
+    private void releaseSharedBuild(SharedBuild build)
+    {
+        if (sharedBuildOwner && !lookupSourceShared) {
+            // let the queries waiting for this partition build it themselves
+            build.abort(partitionIndex);
+        }
+        build.release(partitionIndex, localUserMemoryContext);
+    }
 }
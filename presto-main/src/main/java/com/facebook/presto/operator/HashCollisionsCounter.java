@@ -24,6 +24,7 @@ public class HashCollisionsCounter
 
     private long hashCollisions;
     private double expectedHashCollisions;
+    private long partialAggregationSkippedPositions;
 
     public HashCollisionsCounter(OperatorContext operatorContext)
     {
@@ -36,9 +37,14 @@ public class HashCollisionsCounter
         this.expectedHashCollisions += expectedHashCollisions;
     }
 
+    public void recordPartialAggregationSkippedPositions(long positions)
+    {
+        this.partialAggregationSkippedPositions += positions;
+    }
+
     @Override
     public HashCollisionsInfo get()
     {
-        return createHashCollisionsInfo(operatorContext.getInputPositions().getTotalCount(), hashCollisions, expectedHashCollisions);
+        return createHashCollisionsInfo(operatorContext.getInputPositions().getTotalCount(), hashCollisions, expectedHashCollisions, partialAggregationSkippedPositions);
     }
 }
@@ -23,29 +23,40 @@ public class HashCollisionsInfo
     public static final String WEIGHTED_HASH_COLLISIONS_PROPERTY = "weightedHashCollisions";
     public static final String WEIGHTED_SUM_SQUARED_HASH_COLLISIONS = "weightedSumSquaredHashCollisions";
     public static final String WEIGHTED_EXPECTED_HASH_COLLISIONS = "weightedExpectedHashCollisions";
+    public static final String PARTIAL_AGGREGATION_SKIPPED_POSITIONS = "partialAggregationSkippedPositions";
 
     private final double weightedHashCollisions;
     private final double weightedSumSquaredHashCollisions;
     private final double weightedExpectedHashCollisions;
+    private final long partialAggregationSkippedPositions;
 
     public static HashCollisionsInfo createHashCollisionsInfo(
             long inputPositionsCount, double hashCollisionsCount, double expectedHashCollisions)
+    {
+        return createHashCollisionsInfo(inputPositionsCount, hashCollisionsCount, expectedHashCollisions, 0);
+    }
+
+    public static HashCollisionsInfo createHashCollisionsInfo(
+            long inputPositionsCount, double hashCollisionsCount, double expectedHashCollisions, long partialAggregationSkippedPositions)
     {
         return new HashCollisionsInfo(
                 hashCollisionsCount * inputPositionsCount,
                 hashCollisionsCount * hashCollisionsCount * inputPositionsCount,
-                expectedHashCollisions * inputPositionsCount);
+                expectedHashCollisions * inputPositionsCount,
+                partialAggregationSkippedPositions);
     }
 
     @JsonCreator
     public HashCollisionsInfo(
             @JsonProperty(WEIGHTED_HASH_COLLISIONS_PROPERTY) double weightedHashCollisions,
             @JsonProperty(WEIGHTED_SUM_SQUARED_HASH_COLLISIONS) double weightedSumSquaredHashCollisions,
-            @JsonProperty(WEIGHTED_EXPECTED_HASH_COLLISIONS) double weightedExpectedHashCollisions)
+            @JsonProperty(WEIGHTED_EXPECTED_HASH_COLLISIONS) double weightedExpectedHashCollisions,
+            @JsonProperty(PARTIAL_AGGREGATION_SKIPPED_POSITIONS) long partialAggregationSkippedPositions)
     {
         this.weightedHashCollisions = weightedHashCollisions;
         this.weightedSumSquaredHashCollisions = weightedSumSquaredHashCollisions;
         this.weightedExpectedHashCollisions = weightedExpectedHashCollisions;
+        this.partialAggregationSkippedPositions = partialAggregationSkippedPositions;
     }
 
     @JsonProperty
@@ -66,12 +77,23 @@ public class HashCollisionsInfo
         return weightedExpectedHashCollisions;
     }
 
+    /**
+     * Number of input positions a partial aggregation passed through without
+     * aggregating them, because it was not reducing the number of rows.
+     */
+    @JsonProperty
+    public long getPartialAggregationSkippedPositions()
+    {
+        return partialAggregationSkippedPositions;
+    }
+
     @Override
     public HashCollisionsInfo mergeWith(HashCollisionsInfo other)
     {
         return new HashCollisionsInfo(
                 this.weightedHashCollisions + other.getWeightedHashCollisions(),
                 this.weightedSumSquaredHashCollisions + other.getWeightedSumSquaredHashCollisions(),
-                this.weightedExpectedHashCollisions + other.getWeightedExpectedHashCollisions());
+                this.weightedExpectedHashCollisions + other.getWeightedExpectedHashCollisions(),
+                this.partialAggregationSkippedPositions + other.getPartialAggregationSkippedPositions());
     }
 }
@@ -15,15 +15,22 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.SetBuilderOperator.SetSupplier;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.util.Mergeable;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.type.TypeUtils.hashPosition;
+import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
@@ -82,6 +89,10 @@ public class HashSemiJoinOperator
     private Page outputPage;
     private boolean finishing;
 
+    private final AtomicLong bloomFilterProbes = new AtomicLong();
+    private final AtomicLong bloomFilterPasses = new AtomicLong();
+    private final AtomicLong bloomFilterFalsePositives = new AtomicLong();
+
     public HashSemiJoinOperator(OperatorContext operatorContext, SetSupplier channelSetFuture, int probeJoinChannel)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
@@ -92,6 +103,8 @@ public class HashSemiJoinOperator
 
         this.channelSetFuture = channelSetFuture.getChannelSet();
         this.probeJoinChannel = probeJoinChannel;
+
+        operatorContext.setInfoSupplier(() -> new HashSemiJoinInfo(bloomFilterProbes.get(), bloomFilterPasses.get(), bloomFilterFalsePositives.get()));
     }
 
     @Override
@@ -143,11 +156,14 @@ public class HashSemiJoinOperator
         // we know the exact size required for the block
         BlockBuilder blockBuilder = BOOLEAN.createFixedSizeBlockBuilder(page.getPositionCount());
 
-        Page probeJoinPage = new Page(page.getBlock(probeJoinChannel));
+        Block probeJoinBlock = page.getBlock(probeJoinChannel);
+        Page probeJoinPage = new Page(probeJoinBlock);
+        boolean[] candidates = getCandidates(probeJoinBlock);
 
         // update hashing strategy to use probe cursor
+        long falsePositives = 0;
         for (int position = 0; position < page.getPositionCount(); position++) {
-            if (probeJoinPage.getBlock(0).isNull(position)) {
+            if (probeJoinBlock.isNull(position)) {
                 if (channelSet.isEmpty()) {
                     BOOLEAN.writeBoolean(blockBuilder, false);
                 }
@@ -156,7 +172,10 @@ public class HashSemiJoinOperator
                 }
             }
             else {
-                boolean contains = channelSet.contains(position, probeJoinPage);
+                boolean contains = candidates[position] && channelSet.contains(position, probeJoinPage);
+                if (candidates[position] && !contains) {
+                    falsePositives++;
+                }
                 if (!contains && channelSet.containsNull()) {
                     blockBuilder.appendNull();
                 }
@@ -166,10 +185,42 @@ public class HashSemiJoinOperator
             }
         }
 
+        bloomFilterFalsePositives.addAndGet(falsePositives);
+
         // add the new boolean column to the page
         outputPage = page.appendColumn(blockBuilder.build());
     }
 
+    /**
+     * Tests all non null positions of the block against the bloom filter of the set
+     * at once, so only the positions that pass are looked up in the set.
+     */
+    private boolean[] getCandidates(Block probeJoinBlock)
+    {
+        int positionCount = probeJoinBlock.getPositionCount();
+        Type type = channelSet.getType();
+        int[] positions = new int[positionCount];
+        long[] rawHashes = new long[positionCount];
+        int count = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (!probeJoinBlock.isNull(position)) {
+                positions[count] = position;
+                rawHashes[count] = hashPosition(type, probeJoinBlock, position);
+                count++;
+            }
+        }
+
+        int candidateCount = channelSet.getBloomFilter().filter(positions, rawHashes, count);
+        boolean[] candidates = new boolean[positionCount];
+        for (int i = 0; i < candidateCount; i++) {
+            candidates[positions[i]] = true;
+        }
+
+        bloomFilterProbes.addAndGet(count);
+        bloomFilterPasses.addAndGet(candidateCount);
+        return candidates;
+    }
+
     @Override
     public Page getOutput()
     {
@@ -177,4 +228,80 @@ public class HashSemiJoinOperator
         outputPage = null;
         return result;
     }
+
+    public static class HashSemiJoinInfo
+            implements Mergeable<HashSemiJoinInfo>, OperatorInfo
+    {
+        private final long bloomFilterProbes;
+        private final long bloomFilterPasses;
+        private final long bloomFilterFalsePositives;
+
+        @JsonCreator
+        public HashSemiJoinInfo(
+                @JsonProperty("bloomFilterProbes") long bloomFilterProbes,
+                @JsonProperty("bloomFilterPasses") long bloomFilterPasses,
+                @JsonProperty("bloomFilterFalsePositives") long bloomFilterFalsePositives)
+        {
+            this.bloomFilterProbes = bloomFilterProbes;
+            this.bloomFilterPasses = bloomFilterPasses;
+            this.bloomFilterFalsePositives = bloomFilterFalsePositives;
+        }
+
+        @JsonProperty
+        public long getBloomFilterProbes()
+        {
+            return bloomFilterProbes;
+        }
+
+        @JsonProperty
+        public long getBloomFilterPasses()
+        {
+            return bloomFilterPasses;
+        }
+
+        @JsonProperty
+        public long getBloomFilterFalsePositives()
+        {
+            return bloomFilterFalsePositives;
+        }
+
+        /**
+         * Fraction of the probed values that are not in the set but passed the bloom filter.
+         */
+        @JsonProperty
+        public double getBloomFilterFalsePositiveRate()
+        {
+            long negatives = bloomFilterProbes - bloomFilterPasses + bloomFilterFalsePositives;
+            if (negatives == 0) {
+                return 0;
+            }
+            return (double) bloomFilterFalsePositives / negatives;
+        }
+
+        @Override
+        public HashSemiJoinInfo mergeWith(HashSemiJoinInfo other)
+        {
+            return new HashSemiJoinInfo(
+                    bloomFilterProbes + other.bloomFilterProbes,
+                    bloomFilterPasses + other.bloomFilterPasses,
+                    bloomFilterFalsePositives + other.bloomFilterFalsePositives);
+        }
+
+        @Override
+        public boolean isFinal()
+        {
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("bloomFilterProbes", bloomFilterProbes)
+                    .add("bloomFilterPasses", bloomFilterPasses)
+                    .add("bloomFilterFalsePositives", bloomFilterFalsePositives)
+                    .add("bloomFilterFalsePositiveRate", getBloomFilterFalsePositiveRate())
+                    .toString();
+        }
+    }
 }
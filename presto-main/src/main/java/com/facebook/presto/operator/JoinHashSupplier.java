@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.Session;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
 import com.google.common.collect.ImmutableList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
@@ -43,6 +44,8 @@ public class JoinHashSupplier
             PagesHashStrategy pagesHashStrategy,
             LongArrayList addresses,
             List<List<Block>> channels,
+            List<Type> joinChannelTypes,
+            List<Integer> joinChannels,
             Optional<JoinFilterFunctionFactory> filterFunctionFactory,
             Optional<Integer> sortChannel,
             List<JoinFilterFunctionFactory> searchFunctionFactories)
@@ -53,6 +56,8 @@ public class JoinHashSupplier
         this.filterFunctionFactory = requireNonNull(filterFunctionFactory, "filterFunctionFactory is null");
         this.searchFunctionFactories = ImmutableList.copyOf(searchFunctionFactories);
         requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
+        requireNonNull(joinChannelTypes, "joinChannelTypes is null");
+        requireNonNull(joinChannels, "joinChannels is null");
 
         PositionLinks.FactoryBuilder positionLinksFactoryBuilder;
         if (sortChannel.isPresent() &&
@@ -67,7 +72,15 @@ public class JoinHashSupplier
             positionLinksFactoryBuilder = ArrayPositionLinks.builder(addresses.size());
         }
 
-        this.pagesHash = new PagesHash(addresses, pagesHashStrategy, positionLinksFactoryBuilder);
+        if (FixedWidthPagesHash.isSupported(joinChannelTypes, addresses.size())) {
+            List<List<Block>> joinChannelBlocks = joinChannels.stream()
+                    .map(channels::get)
+                    .collect(toImmutableList());
+            this.pagesHash = new FixedWidthPagesHash(addresses, pagesHashStrategy, positionLinksFactoryBuilder, joinChannelTypes, joinChannelBlocks);
+        }
+        else {
+            this.pagesHash = new DefaultPagesHash(addresses, pagesHashStrategy, positionLinksFactoryBuilder);
+        }
         this.positionLinks = positionLinksFactoryBuilder.isEmpty() ? Optional.empty() : Optional.of(positionLinksFactoryBuilder.build());
     }
 
@@ -16,6 +16,9 @@ package com.facebook.presto.operator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -52,6 +55,12 @@ public class JoinProbe
 
     private int position = -1;
 
+    // join positions of the page, looked up in one batch on first use
+    @Nullable
+    private long[] joinPositions;
+    @Nullable
+    private LookupSource joinPositionsLookupSource;
+
     private JoinProbe(int[] probeOutputChannels, Page page, List<Integer> probeJoinChannels, OptionalInt probeHashChannel)
     {
         this.probeOutputChannels = probeOutputChannels;
@@ -79,14 +88,38 @@ public class JoinProbe
 
     public long getCurrentJoinPosition(LookupSource lookupSource)
     {
-        if (currentRowContainsNull()) {
-            return -1;
+        if (joinPositionsLookupSource != lookupSource) {
+            lookupJoinPositions(lookupSource);
         }
-        if (probeHashBlock.isPresent()) {
-            long rawHash = BIGINT.getLong(probeHashBlock.get(), position);
-            return lookupSource.getJoinPosition(position, probePage, page, rawHash);
+        return joinPositions[position];
+    }
+
+    private void lookupJoinPositions(LookupSource lookupSource)
+    {
+        // look up the current and all following positions at once, so the lookup source can overlap the memory accesses of the rows
+        joinPositions = new long[positionCount];
+        Arrays.fill(joinPositions, -1);
+
+        int[] positions = new int[positionCount - position];
+        long[] rawHashes = probeHashBlock.isPresent() ? new long[positions.length] : null;
+        int batchSize = 0;
+        for (int current = position; current < positionCount; current++) {
+            if (rowContainsNull(current)) {
+                continue;
+            }
+            positions[batchSize] = current;
+            if (rawHashes != null) {
+                rawHashes[batchSize] = BIGINT.getLong(probeHashBlock.get(), current);
+            }
+            batchSize++;
+        }
+
+        long[] batchJoinPositions = new long[batchSize];
+        lookupSource.getJoinPositions(positions, batchSize, probePage, page, rawHashes, batchJoinPositions);
+        for (int i = 0; i < batchSize; i++) {
+            joinPositions[positions[i]] = batchJoinPositions[i];
         }
-        return lookupSource.getJoinPosition(position, probePage, page);
+        joinPositionsLookupSource = lookupSource;
     }
 
     public int getPosition()
@@ -99,7 +132,7 @@ public class JoinProbe
         return page;
     }
 
-    private boolean currentRowContainsNull()
+    private boolean rowContainsNull(int position)
     {
         for (Block probeBlock : probeBlocks) {
             if (probeBlock.isNull(position)) {
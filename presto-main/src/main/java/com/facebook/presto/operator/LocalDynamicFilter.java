@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.slice.Slice;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.getDone;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the domains of the build side join keys of a single lookup join
+ * and exposes them as a predicate over the columns of the probe side table scan.
+ * The predicate becomes available once every build partition has finished its input.
+ */
+@ThreadSafe
+public class LocalDynamicFilter
+{
+    // join key index -> probe side table scan column
+    private final Map<Integer, ColumnHandle> probeColumns;
+    private final List<Type> keyTypes;
+    private final int maxDistinctValues;
+
+    private final SettableFuture<TupleDomain<Integer>> resultFuture = SettableFuture.create();
+    private final ListenableFuture<TupleDomain<ColumnHandle>> predicateFuture;
+
+    @GuardedBy("this")
+    private int expectedPartitions = -1;
+    @GuardedBy("this")
+    private final List<TupleDomain<Integer>> partitionDomains = new ArrayList<>();
+
+    public LocalDynamicFilter(Map<Integer, ColumnHandle> probeColumns, List<Type> keyTypes, int maxDistinctValues)
+    {
+        this.probeColumns = ImmutableMap.copyOf(requireNonNull(probeColumns, "probeColumns is null"));
+        this.keyTypes = ImmutableList.copyOf(requireNonNull(keyTypes, "keyTypes is null"));
+        checkArgument(maxDistinctValues > 0, "maxDistinctValues must be positive");
+        this.maxDistinctValues = maxDistinctValues;
+        this.predicateFuture = transform(resultFuture, this::toProbePredicate, directExecutor());
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        // floating point types are excluded, as NaN does not fit into value ranges
+        Class<?> javaType = type.getJavaType();
+        return type.isComparable() && !type.equals(REAL) && (javaType == long.class || javaType == boolean.class || javaType == Slice.class);
+    }
+
+    private TupleDomain<ColumnHandle> toProbePredicate(TupleDomain<Integer> domain)
+    {
+        if (!domain.getDomains().isPresent()) {
+            return TupleDomain.none();
+        }
+        // several join keys may be compared to the same probe column, e.g. a.x = b.y AND a.x = b.z
+        Map<ColumnHandle, Domain> domains = new HashMap<>();
+        for (Map.Entry<Integer, Domain> entry : domain.getDomains().get().entrySet()) {
+            domains.merge(probeColumns.get(entry.getKey()), entry.getValue(), Domain::intersect);
+        }
+        return TupleDomain.withColumnDomains(domains);
+    }
+
+    public synchronized void setPartitionCount(int partitionCount)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        checkState(expectedPartitions == -1, "partition count is already set");
+        expectedPartitions = partitionCount;
+        completeIfReady();
+    }
+
+    /**
+     * Returns the predicate collected from the build side, or {@code TupleDomain.all()}
+     * if the build side has not finished yet.
+     */
+    public TupleDomain<ColumnHandle> getCurrentPredicate()
+    {
+        if (!predicateFuture.isDone()) {
+            return TupleDomain.all();
+        }
+        return getDone(predicateFuture);
+    }
+
+    public ListenableFuture<TupleDomain<ColumnHandle>> getPredicateFuture()
+    {
+        return predicateFuture;
+    }
+
+    public Collector createCollector(List<Integer> keyChannels)
+    {
+        return new Collector(keyChannels);
+    }
+
+    private synchronized void addPartition(TupleDomain<Integer> partitionDomain)
+    {
+        checkState(!resultFuture.isDone(), "dynamic filter is already complete");
+        partitionDomains.add(partitionDomain);
+        completeIfReady();
+    }
+
+    @GuardedBy("this")
+    private void completeIfReady()
+    {
+        if (expectedPartitions == -1 || partitionDomains.size() < expectedPartitions) {
+            return;
+        }
+        resultFuture.set(TupleDomain.columnWiseUnion(partitionDomains));
+        partitionDomains.clear();
+    }
+
+    /**
+     * Accumulates the key values of a single build partition. Not thread safe.
+     */
+    public class Collector
+    {
+        private final int[] keyChannels;
+        private final List<Set<Object>> values = new ArrayList<>();
+        private final Block[] minValues;
+        private final Block[] maxValues;
+        private boolean finished;
+
+        private Collector(List<Integer> keyChannels)
+        {
+            requireNonNull(keyChannels, "keyChannels is null");
+            checkArgument(keyChannels.size() == keyTypes.size(), "expected %s key channels, but got %s", keyTypes.size(), keyChannels.size());
+            this.keyChannels = keyChannels.stream().mapToInt(Integer::intValue).toArray();
+            for (int i = 0; i < this.keyChannels.length; i++) {
+                values.add(probeColumns.containsKey(i) ? new HashSet<>() : null);
+            }
+            this.minValues = new Block[this.keyChannels.length];
+            this.maxValues = new Block[this.keyChannels.length];
+        }
+
+        public void add(Page page)
+        {
+            checkState(!finished, "collector is already finished");
+            for (int key = 0; key < keyChannels.length; key++) {
+                if (!probeColumns.containsKey(key)) {
+                    continue;
+                }
+                Type type = keyTypes.get(key);
+                Block block = page.getBlock(keyChannels[key]);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    // null keys never match in an equi-join
+                    if (block.isNull(position)) {
+                        continue;
+                    }
+                    addValue(key, type, block, position);
+                }
+            }
+        }
+
+        private void addValue(int key, Type type, Block block, int position)
+        {
+            Set<Object> keyValues = values.get(key);
+            if (keyValues != null) {
+                keyValues.add(readNativeValue(type, block, position));
+                if (keyValues.size() > maxDistinctValues) {
+                    values.set(key, null);
+                }
+            }
+            if (!type.isOrderable()) {
+                return;
+            }
+            if (minValues[key] == null || type.compareTo(block, position, minValues[key], 0) < 0) {
+                minValues[key] = block.getSingleValueBlock(position);
+            }
+            if (maxValues[key] == null || type.compareTo(block, position, maxValues[key], 0) > 0) {
+                maxValues[key] = block.getSingleValueBlock(position);
+            }
+        }
+
+        public void finish()
+        {
+            if (finished) {
+                return;
+            }
+            finished = true;
+
+            ImmutableMap.Builder<Integer, Domain> domains = ImmutableMap.builder();
+            for (int key : probeColumns.keySet()) {
+                domains.put(key, toDomain(key));
+            }
+            values.clear();
+            addPartition(TupleDomain.withColumnDomains(domains.build()));
+        }
+
+        private Domain toDomain(int key)
+        {
+            Type type = keyTypes.get(key);
+            Set<Object> keyValues = values.get(key);
+            if (keyValues != null) {
+                if (keyValues.isEmpty()) {
+                    return Domain.none(type);
+                }
+                return Domain.create(ValueSet.copyOf(type, keyValues), false);
+            }
+            if (minValues[key] == null) {
+                return Domain.notNull(type);
+            }
+            Range range = Range.range(type, readNativeValue(type, minValues[key], 0), true, readNativeValue(type, maxValues[key], 0), true);
+            return Domain.create(ValueSet.ofRanges(range), false);
+        }
+    }
+}
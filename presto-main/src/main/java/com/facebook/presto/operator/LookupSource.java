@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import java.io.Closeable;
@@ -36,6 +37,23 @@ public interface LookupSource
 
     long getJoinPosition(int position, Page hashChannelsPage, Page allChannelsPage);
 
+    /**
+     * Looks up the join positions of the given probe positions at once, storing -1 for
+     * the positions without a match. When {@code rawHashes} is not null it holds the
+     * precomputed hash of each probe position.
+     */
+    default void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, @Nullable long[] rawHashes, long[] joinPositions)
+    {
+        for (int i = 0; i < positionCount; i++) {
+            if (rawHashes == null) {
+                joinPositions[i] = getJoinPosition(positions[i], hashChannelsPage, allChannelsPage);
+            }
+            else {
+                joinPositions[i] = getJoinPosition(positions[i], hashChannelsPage, allChannelsPage, rawHashes[i]);
+            }
+        }
+    }
+
     long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage);
 
     void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset);
@@ -15,12 +15,15 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.Session;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,6 +51,44 @@ public class MarkDistinctHash
         return groupByHash.getEstimatedSize();
     }
 
+    /**
+     * Types of the pages returned by {@link #getMarkedDistinctValues}: the distinct channels,
+     * followed by the hash if the hash channel is present.
+     */
+    public List<Type> getTypes()
+    {
+        return groupByHash.getTypes();
+    }
+
+    /**
+     * Returns the values of the rows that have already been marked as distinct. Values added by
+     * an unfinished {@link #markDistinctRows} work are not included.
+     */
+    public Iterator<Page> getMarkedDistinctValues()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private final PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+            private int groupId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (groupId == nextDistinctId) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && groupId < nextDistinctId) {
+                    pageBuilder.declarePosition();
+                    groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+                    groupId++;
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
     public Work<Block> markDistinctRows(Page page)
     {
         return new TransformWork<>(
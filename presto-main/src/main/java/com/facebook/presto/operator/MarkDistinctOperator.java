@@ -14,27 +14,44 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class MarkDistinctOperator
         implements Operator
 {
+    private static final int SPILL_PARTITION_COUNT = 8;
+
     public static class MarkDistinctOperatorFactory
             implements OperatorFactory
     {
@@ -44,6 +61,8 @@ public class MarkDistinctOperator
         private final List<Integer> markDistinctChannels;
         private final List<Type> types;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
         private boolean closed;
 
         public MarkDistinctOperatorFactory(
@@ -53,6 +72,19 @@ public class MarkDistinctOperator
                 Collection<Integer> markDistinctChannels,
                 Optional<Integer> hashChannel,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, markDistinctChannels, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public MarkDistinctOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                Collection<Integer> markDistinctChannels,
+                Optional<Integer> hashChannel,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -64,6 +96,8 @@ public class MarkDistinctOperator
                     .addAll(sourceTypes)
                     .add(BOOLEAN)
                     .build();
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -71,7 +105,7 @@ public class MarkDistinctOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MarkDistinctOperator.class.getSimpleName());
-            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -83,13 +117,32 @@ public class MarkDistinctOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
-    private final MarkDistinctHash markDistinctHash;
+    private final List<Type> sourceTypes;
+    private final List<Type> distinctTypes;
+    private final int[] markDistinctChannels;
+    private final Optional<Integer> hashChannel;
+    private final JoinCompiler joinCompiler;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+
+    // released once the marked values are spilled, after that all input is spilled
+    private MarkDistinctHash markDistinctHash;
+    private Optional<PartitioningSpiller> distinctValuesSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputSpiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+
+    // partition by partition processing of the spilled input
+    private int unspillPartition;
+    private Iterator<Page> spilledDistinctValues = emptyIterator();
+    private Iterator<Page> spilledInput = emptyIterator();
 
     private Page inputPage;
     private boolean finishing;
@@ -97,19 +150,35 @@ public class MarkDistinctOperator
     // for yield when memory is not available
     private Work<Block> unfinishedWork;
 
-    public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, List<Integer> markDistinctChannels, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
+    public MarkDistinctOperator(
+            OperatorContext operatorContext,
+            List<Type> types,
+            List<Integer> markDistinctChannels,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
-        requireNonNull(hashChannel, "hashChannel is null");
+        requireNonNull(types, "types is null");
         requireNonNull(markDistinctChannels, "markDistinctChannels is null");
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
 
         ImmutableList.Builder<Type> distinctTypes = ImmutableList.builder();
         for (int channel : markDistinctChannels) {
             distinctTypes.add(types.get(channel));
         }
-        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), distinctTypes.build(), Ints.toArray(markDistinctChannels), hashChannel, joinCompiler, this::updateMemoryReservation);
+        this.distinctTypes = distinctTypes.build();
+        this.sourceTypes = ImmutableList.copyOf(types.subList(0, types.size() - 1));
+        this.markDistinctChannels = Ints.toArray(markDistinctChannels);
+        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), this.distinctTypes, this.markDistinctChannels, hashChannel, joinCompiler, this::updateMemoryReservation);
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
     }
 
     @Override
@@ -122,18 +191,34 @@ public class MarkDistinctOperator
     public void finish()
     {
         finishing = true;
+        if (spillEnabled) {
+            // the hash can no longer be spilled
+            updateMemoryReservation();
+        }
     }
 
     @Override
     public boolean isFinished()
     {
-        return finishing && !hasUnfinishedInput();
+        if (!finishing || hasUnfinishedInput() || !spillInProgress.isDone()) {
+            return false;
+        }
+        return !inputSpiller.isPresent() || unspillPartition == SPILL_PARTITION_COUNT;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
@@ -141,6 +226,12 @@ public class MarkDistinctOperator
     {
         requireNonNull(page, "page is null");
         checkState(needsInput());
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (inputSpiller.isPresent()) {
+            spillInProgress = inputSpiller.get().partitionAndSpill(page, partition -> true).getSpillingFuture();
+            return;
+        }
 
         inputPage = page;
 
@@ -151,6 +242,15 @@ public class MarkDistinctOperator
     @Override
     public Page getOutput()
     {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (unfinishedWork == null && finishing && inputSpiller.isPresent()) {
+            unspillNextPage();
+        }
+
         if (unfinishedWork == null) {
             return null;
         }
@@ -158,17 +258,129 @@ public class MarkDistinctOperator
         if (!unfinishedWork.process()) {
             return null;
         }
+        Block marks = unfinishedWork.getResult();
+        unfinishedWork = null;
 
-        // add the new boolean column to the page
-        Page outputPage = inputPage.appendColumn(unfinishedWork.getResult());
+        // spilled distinct values are only added to the hash, they were already marked when first seen
+        if (inputPage == null) {
+            return null;
+        }
 
-        unfinishedWork = null;
+        // add the new boolean column to the page
+        Page outputPage = inputPage.appendColumn(marks);
         inputPage = null;
 
         updateMemoryReservation();
         return outputPage;
     }
 
+    private void unspillNextPage()
+    {
+        while (unspillPartition < SPILL_PARTITION_COUNT) {
+            if (spilledDistinctValues.hasNext()) {
+                unfinishedWork = markDistinctHash.markDistinctRows(spilledDistinctValues.next());
+                return;
+            }
+            if (spilledInput.hasNext()) {
+                inputPage = spilledInput.next();
+                unfinishedWork = markDistinctHash.markDistinctRows(getDistinctValues(inputPage));
+                return;
+            }
+
+            if (markDistinctHash != null) {
+                // the partition has been processed
+                markDistinctHash = null;
+                unspillPartition++;
+                updateMemoryReservation();
+                continue;
+            }
+
+            // the spilled pages are in the layout of MarkDistinctHash#getMarkedDistinctValues, so the
+            // input is projected to the distinct channels to be marked by the same hash
+            markDistinctHash = new MarkDistinctHash(
+                    operatorContext.getSession(),
+                    distinctTypes,
+                    IntStream.range(0, distinctTypes.size()).toArray(),
+                    hashChannel.map(channel -> distinctTypes.size()),
+                    joinCompiler,
+                    this::updateMemoryReservation);
+            spilledDistinctValues = distinctValuesSpiller
+                    .map(spiller -> spiller.getSpilledPages(unspillPartition))
+                    .orElse(emptyIterator());
+            spilledInput = inputSpiller.get().getSpilledPages(unspillPartition);
+        }
+    }
+
+    private Page getDistinctValues(Page page)
+    {
+        Block[] blocks = new Block[markDistinctChannels.length + (hashChannel.isPresent() ? 1 : 0)];
+        for (int i = 0; i < markDistinctChannels.length; i++) {
+            blocks[i] = page.getBlock(markDistinctChannels[i]);
+        }
+        hashChannel.ifPresent(channel -> blocks[markDistinctChannels.length] = page.getBlock(channel));
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (finishing || inputSpiller.isPresent()) {
+            // the marked values are already spilled or are needed for the output
+            return NOT_BLOCKED;
+        }
+        checkState(spillEnabled, "Spill not enabled, no revokable memory should be reserved");
+
+        // values added by a page that has not been fully processed are not spilled,
+        // the page is spilled as input once the values are written
+        distinctValuesSpiller = Optional.of(createSpiller(
+                markDistinctHash.getTypes(),
+                hashChannel.isPresent() ? new PrecomputedHashGenerator(distinctTypes.size()) : new InterpretedHashGenerator(distinctTypes, IntStream.range(0, distinctTypes.size()).toArray())));
+        inputSpiller = Optional.of(createSpiller(
+                sourceTypes,
+                hashChannel.isPresent() ? new PrecomputedHashGenerator(hashChannel.get()) : new InterpretedHashGenerator(distinctTypes, markDistinctChannels)));
+        spillInProgress = spillPages(distinctValuesSpiller.get(), markDistinctHash.getMarkedDistinctValues());
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (markDistinctHash == null || !inputSpiller.isPresent() || finishing) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        markDistinctHash = null;
+        unfinishedWork = null;
+        updateMemoryReservation();
+        if (inputPage != null) {
+            spillInProgress = inputSpiller.get().partitionAndSpill(inputPage, partition -> true).getSpillingFuture();
+            inputPage = null;
+        }
+    }
+
+    private PartitioningSpiller createSpiller(List<Type> types, HashGenerator hashGenerator)
+    {
+        return partitioningSpillerFactory.create(
+                types,
+                new LocalPartitionGenerator(hashGenerator, SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.newAggregateSystemMemoryContext());
+    }
+
+    private static ListenableFuture<?> spillPages(PartitioningSpiller spiller, Iterator<Page> pages)
+    {
+        while (pages.hasNext()) {
+            ListenableFuture<?> spillingFuture = spiller.partitionAndSpill(pages.next(), partition -> true).getSpillingFuture();
+            if (!spillingFuture.isDone()) {
+                // the spiller accepts the next page only once the previous one is written
+                return transformAsync(spillingFuture, ignored -> spillPages(spiller, pages), directExecutor());
+            }
+            getFutureValue(spillingFuture);
+        }
+        return immediateFuture(null);
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
@@ -184,13 +396,35 @@ public class MarkDistinctOperator
     // The following implementation is a hybrid model, where the push model is going to call the pull model causing reentrancy
     private boolean updateMemoryReservation()
     {
+        long hashSize = markDistinctHash == null ? 0 : markDistinctHash.getEstimatedSize();
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+        if (spillEnabled && !finishing && !inputSpiller.isPresent()) {
+            // the hash can be spilled until the input is finished or it has been spilled once
+            localRevocableMemoryContext.setBytes(hashSize);
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(hashSize);
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
 
+    @Override
+    public void close()
+    {
+        try (Closer closer = Closer.create()) {
+            distinctValuesSpiller.ifPresent(closer::register);
+            inputSpiller.ifPresent(closer::register);
+            closer.register(() -> localUserMemoryContext.setBytes(0));
+            closer.register(() -> localRevocableMemoryContext.setBytes(0));
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @VisibleForTesting
     public int getCapacity()
     {
@@ -99,7 +99,7 @@ public class MergeOperator
                     operatorContext,
                     sourceId,
                     exchangeClientSupplier,
-                    serdeFactory.createPagesSerde(),
+                    serdeFactory.createPagesSerde(driverContext.getPageCompressionStats()),
                     orderingCompiler.compilePageWithPositionComparator(types, sortChannels, sortOrder),
                     outputChannels,
                     outputTypes);
@@ -83,6 +83,8 @@ public class OperatorContext
 
     private final AtomicLong physicalWrittenDataSize = new AtomicLong();
 
+    private final AtomicLong interpretedInputPositions = new AtomicLong();
+
     private final AtomicReference<SettableFuture<?>> memoryFuture;
     private final AtomicReference<SettableFuture<?>> revocableMemoryFuture;
     private final AtomicReference<BlockedMonitor> blockedMonitor = new AtomicReference<>();
@@ -216,6 +218,11 @@ public class OperatorContext
         physicalWrittenDataSize.getAndAdd(sizeInBytes);
     }
 
+    public void recordInterpretedInput(long positions)
+    {
+        interpretedInputPositions.getAndAdd(positions);
+    }
+
     public void recordBlocked(ListenableFuture<?> blocked)
     {
         requireNonNull(blocked, "blocked is null");
@@ -469,6 +476,8 @@ public class OperatorContext
 
                 succinctBytes(physicalWrittenDataSize.get()),
 
+                interpretedInputPositions.get(),
+
                 new Duration(blockedWallNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
 
                 finishCalls.get(),
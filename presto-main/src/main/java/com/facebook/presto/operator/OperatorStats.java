@@ -58,6 +58,8 @@ public class OperatorStats
 
     private final DataSize physicalWrittenDataSize;
 
+    private final long interpretedInputPositions;
+
     private final Duration blockedWall;
 
     private final long finishCalls;
@@ -98,6 +100,8 @@ public class OperatorStats
 
             @JsonProperty("physicalWrittenDataSize") DataSize physicalWrittenDataSize,
 
+            @JsonProperty("interpretedInputPositions") long interpretedInputPositions,
+
             @JsonProperty("blockedWall") Duration blockedWall,
 
             @JsonProperty("finishCalls") long finishCalls,
@@ -140,6 +144,9 @@ public class OperatorStats
 
         this.physicalWrittenDataSize = requireNonNull(physicalWrittenDataSize, "writtenDataSize is null");
 
+        checkArgument(interpretedInputPositions >= 0, "interpretedInputPositions is negative");
+        this.interpretedInputPositions = interpretedInputPositions;
+
         this.blockedWall = requireNonNull(blockedWall, "blockedWall is null");
 
         this.finishCalls = finishCalls;
@@ -269,6 +276,12 @@ public class OperatorStats
         return physicalWrittenDataSize;
     }
 
+    @JsonProperty
+    public long getInterpretedInputPositions()
+    {
+        return interpretedInputPositions;
+    }
+
     @JsonProperty
     public Duration getBlockedWall()
     {
@@ -356,6 +369,8 @@ public class OperatorStats
 
         long physicalWrittenDataSize = this.physicalWrittenDataSize.toBytes();
 
+        long interpretedInputPositions = this.interpretedInputPositions;
+
         long blockedWall = this.blockedWall.roundTo(NANOSECONDS);
 
         long finishCalls = this.finishCalls;
@@ -391,6 +406,8 @@ public class OperatorStats
 
             physicalWrittenDataSize += operator.getPhysicalWrittenDataSize().toBytes();
 
+            interpretedInputPositions += operator.getInterpretedInputPositions();
+
             finishCalls += operator.getFinishCalls();
             finishWall += operator.getFinishWall().roundTo(NANOSECONDS);
             finishCpu += operator.getFinishCpu().roundTo(NANOSECONDS);
@@ -436,6 +453,8 @@ public class OperatorStats
 
                 succinctBytes(physicalWrittenDataSize),
 
+                interpretedInputPositions,
+
                 new Duration(blockedWall, NANOSECONDS).convertToMostSuccinctTimeUnit(),
 
                 finishCalls,
@@ -489,6 +508,7 @@ public class OperatorStats
                 outputDataSize,
                 outputPositions,
                 physicalWrittenDataSize,
+                interpretedInputPositions,
                 blockedWall,
                 finishCalls,
                 finishWall,
@@ -18,13 +18,26 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 
+import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static java.util.Objects.requireNonNull;
 
 public class OrderByOperator
@@ -42,6 +55,10 @@ public class OrderByOperator
         private final List<SortOrder> sortOrder;
         private boolean closed;
         private final PagesIndex.Factory pagesIndexFactory;
+        private final boolean spillEnabled;
+        private final SpillerFactory spillerFactory;
+        private final int sortParallelism;
+        private final Executor sortExecutor;
 
         public OrderByOperatorFactory(
                 int operatorId,
@@ -53,6 +70,64 @@ public class OrderByOperator
                 List<SortOrder> sortOrder,
                 PagesIndex.Factory pagesIndexFactory)
         {
+            this(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    expectedPositions,
+                    sortChannels,
+                    sortOrder,
+                    pagesIndexFactory,
+                    false,
+                    (types, spillContext, memoryContext) -> {
+                        throw new UnsupportedOperationException();
+                    });
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                SpillerFactory spillerFactory)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    expectedPositions,
+                    sortChannels,
+                    sortOrder,
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory,
+                    1,
+                    directExecutor());
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                SpillerFactory spillerFactory,
+                int sortParallelism,
+                Executor sortExecutor)
+        {
+            checkArgument(sortParallelism > 0, "sortParallelism must be positive");
+
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
             this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
@@ -62,6 +137,10 @@ public class OrderByOperator
             this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
 
             this.pagesIndexFactory = requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
+            this.spillEnabled = spillEnabled;
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            this.sortParallelism = sortParallelism;
+            this.sortExecutor = requireNonNull(sortExecutor, "sortExecutor is null");
         }
 
         @Override
@@ -77,7 +156,11 @@ public class OrderByOperator
                     expectedPositions,
                     sortChannels,
                     sortOrder,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory,
+                    sortParallelism,
+                    sortExecutor);
         }
 
         @Override
@@ -89,28 +172,42 @@ public class OrderByOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new OrderByOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, pagesIndexFactory);
+            return new OrderByOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, pagesIndexFactory, spillEnabled, spillerFactory, sortParallelism, sortExecutor);
         }
     }
 
     private enum State
     {
         NEEDS_INPUT,
+        SPILLING_LAST_RUN,
         HAS_OUTPUT,
         FINISHED
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
     private final int[] outputChannels;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+    private final LocalMemoryContext sortMemoryContext;
 
     private final PagesIndex pageIndex;
 
     private final PageBuilder pageBuilder;
     private int currentPosition;
 
+    private final boolean spillEnabled;
+    private final SpillerFactory spillerFactory;
+    private final int sortParallelism;
+    private final Executor sortExecutor;
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    // the index has been spilled by a memory revoke, but is not cleared until the revoke is finished
+    private boolean revokePending;
+    private Optional<WorkProcessor<Page>> mergedPages = Optional.empty();
+
     private State state = State.NEEDS_INPUT;
 
     public OrderByOperator(
@@ -120,19 +217,31 @@ public class OrderByOperator
             int expectedPositions,
             List<Integer> sortChannels,
             List<SortOrder> sortOrder,
-            PagesIndex.Factory pagesIndexFactory)
+            PagesIndex.Factory pagesIndexFactory,
+            boolean spillEnabled,
+            SpillerFactory spillerFactory,
+            int sortParallelism,
+            Executor sortExecutor)
     {
         requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
 
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(requireNonNull(outputChannels, "outputChannels is null"));
         this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
         this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.sortMemoryContext = operatorContext.aggregateUserMemoryContext().newLocalMemoryContext();
 
         this.pageIndex = pagesIndexFactory.newPagesIndex(sourceTypes, expectedPositions);
 
         this.pageBuilder = new PageBuilder(toTypes(sourceTypes, outputChannels));
+
+        this.spillEnabled = spillEnabled;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.sortParallelism = sortParallelism;
+        this.sortExecutor = requireNonNull(sortExecutor, "sortExecutor is null");
     }
 
     @Override
@@ -144,12 +253,56 @@ public class OrderByOperator
     @Override
     public void finish()
     {
-        if (state == State.NEEDS_INPUT) {
+        // while a revoke is pending, the index still holds the rows of the run that was spilled
+        if (state != State.NEEDS_INPUT || revokePending) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
+        // sort the index
+        sortIndex();
+
+        if (spiller.isPresent()) {
+            // spill the last sorted run as well, so that all runs can be merged from disk
+            spillInProgress = spiller.get().spill(pageIndex.getSortedPages());
+            state = State.SPILLING_LAST_RUN;
+        }
+        else {
+            // the sorted index can no longer be spilled
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(pageIndex.getEstimatedSize().toBytes());
             state = State.HAS_OUTPUT;
+        }
+    }
 
-            // sort the index
-            pageIndex.sort(sortChannels, sortOrder);
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (state == State.SPILLING_LAST_RUN) {
+            return spillInProgress;
         }
+        return NOT_BLOCKED;
+    }
+
+    private void startMergingSpilledRuns()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+        pageIndex.clear();
+        updateMemory();
+
+        List<WorkProcessor<Page>> sortedRuns = spiller.get().getSpills().stream()
+                .map(WorkProcessor::fromIterator)
+                .collect(toImmutableList());
+        mergedPages = Optional.of(mergeSortedPages(
+                sortedRuns,
+                new SimplePageWithPositionComparator(sourceTypes, sortChannels, sortOrder),
+                Ints.asList(outputChannels),
+                pageBuilder.getTypes(),
+                (pageBuilder, pageWithPosition) -> pageBuilder.isFull(),
+                false,
+                operatorContext.newAggregateSystemMemoryContext(),
+                operatorContext.getDriverContext().getYieldSignal()));
+        state = State.HAS_OUTPUT;
     }
 
     @Override
@@ -161,7 +314,7 @@ public class OrderByOperator
     @Override
     public boolean needsInput()
     {
-        return state == State.NEEDS_INPUT;
+        return state == State.NEEDS_INPUT && spillInProgress.isDone();
     }
 
     @Override
@@ -170,21 +323,86 @@ public class OrderByOperator
         checkState(state == State.NEEDS_INPUT, "Operator is already finishing");
         requireNonNull(page, "page is null");
 
+        checkSuccess(spillInProgress, "spilling failed");
+
         pageIndex.addPage(page);
+        updateMemory();
+    }
 
-        if (!localUserMemoryContext.trySetBytes(pageIndex.getEstimatedSize().toBytes())) {
+    private void updateMemory()
+    {
+        if (spillEnabled) {
+            localRevocableMemoryContext.setBytes(pageIndex.getEstimatedSize().toBytes());
+        }
+        else if (!localUserMemoryContext.trySetBytes(pageIndex.getEstimatedSize().toBytes())) {
             pageIndex.compact();
             localUserMemoryContext.setBytes(pageIndex.getEstimatedSize().toBytes());
         }
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (state != State.NEEDS_INPUT || pageIndex.getPositionCount() == 0) {
+            // the index is either empty or already sorted for output
+            return NOT_BLOCKED;
+        }
+        checkState(spillEnabled, "Spill not enabled, no revokable memory should be reserved");
+        checkState(spillInProgress.isDone(), "Previous spill still in progress");
+
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(
+                    sourceTypes,
+                    operatorContext.getSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+
+        // each spill writes a sorted run, which are merged back when the input is finished
+        sortIndex();
+        spillInProgress = spiller.get().spill(pageIndex.getSortedPages());
+        revokePending = true;
+        return spillInProgress;
+    }
+
+    private void sortIndex()
+    {
+        if (sortParallelism > 1) {
+            // the runs the sort executor has not picked up yet are sorted by the driver thread
+            pageIndex.parallelSort(sortChannels, sortOrder, sortParallelism, sortExecutor, sortMemoryContext);
+        }
+        else {
+            pageIndex.sort(sortChannels, sortOrder);
+        }
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (!revokePending) {
+            return;
+        }
+        revokePending = false;
+        pageIndex.clear();
+        updateMemory();
+    }
+
     @Override
     public Page getOutput()
     {
+        if (state == State.SPILLING_LAST_RUN) {
+            if (!spillInProgress.isDone()) {
+                return null;
+            }
+            startMergingSpilledRuns();
+        }
         if (state != State.HAS_OUTPUT) {
             return null;
         }
 
+        if (mergedPages.isPresent()) {
+            return getMergedOutput(mergedPages.get());
+        }
+
         if (currentPosition >= pageIndex.getPositionCount()) {
             state = State.FINISHED;
             return null;
@@ -204,10 +422,33 @@ public class OrderByOperator
         return page;
     }
 
+    private Page getMergedOutput(WorkProcessor<Page> pages)
+    {
+        if (!pages.process()) {
+            return null;
+        }
+
+        if (pages.isFinished()) {
+            state = State.FINISHED;
+            return null;
+        }
+
+        return pages.getResult();
+    }
+
     @Override
     public void close()
     {
-        pageIndex.clear();
+        try (Closer closer = Closer.create()) {
+            closer.register(pageIndex::clear);
+            spiller.ifPresent(closer::register);
+            closer.register(() -> localUserMemoryContext.setBytes(0));
+            closer.register(() -> localRevocableMemoryContext.setBytes(0));
+            closer.register(sortMemoryContext::close);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.Session;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.metadata.FunctionRegistry;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.MetadataManager;
@@ -46,6 +47,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.Executor;
 import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
@@ -381,6 +383,11 @@ public class PagesIndex
         createPagesIndexComparator(sortChannels, sortOrders).sort(this, startPosition, endPosition);
     }
 
+    public void parallelSort(List<Integer> sortChannels, List<SortOrder> sortOrders, int parallelism, Executor executor, LocalMemoryContext mergeMemoryContext)
+    {
+        createPagesIndexComparator(sortChannels, sortOrders).parallelSort(this, 0, getPositionCount(), parallelism, executor, mergeMemoryContext);
+    }
+
     public boolean positionEqualsPosition(PagesHashStrategy partitionHashStrategy, int leftPosition, int rightPosition)
     {
         long leftAddress = valueAddresses.getLong(leftPosition);
@@ -514,6 +521,10 @@ public class PagesIndex
                 hashStrategy,
                 valueAddresses,
                 channels,
+                joinChannels.stream()
+                        .map(types::get)
+                        .collect(toImmutableList()),
+                joinChannels,
                 filterFunctionFactory,
                 sortChannel,
                 searchFunctionFactories);
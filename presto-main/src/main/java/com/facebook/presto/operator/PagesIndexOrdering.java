@@ -13,12 +13,24 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.memory.context.LocalMemoryContext;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static io.airlift.slice.SizeOf.sizeOfLongArray;
+import static java.lang.Math.min;
 import static java.util.Objects.requireNonNull;
 
 public class PagesIndexOrdering
 {
     private static final int SMALL = 7;
     private static final int MEDIUM = 40;
+    private static final int MIN_PARALLEL_RUN_LENGTH = 16 * 1024;
 
     private final PagesIndexComparator comparator;
 
@@ -37,6 +49,82 @@ public class PagesIndexOrdering
         quickSort(pagesIndex, startPosition, endPosition);
     }
 
+    /**
+     * Sorts the range by splitting it into up to {@code parallelism} runs, sorting the runs
+     * concurrently and merging them with a loser tree. The calling thread sorts the runs that
+     * the executor has not started yet, so it never waits for a run to be scheduled.
+     * The merge needs a temporary copy of the addresses of the range, which is reserved
+     * in the memory context while it is in use.
+     */
+    public void parallelSort(PagesIndex pagesIndex, int startPosition, int endPosition, int parallelism, Executor executor, LocalMemoryContext mergeMemoryContext)
+    {
+        checkArgument(parallelism > 0, "parallelism must be positive");
+        requireNonNull(executor, "executor is null");
+        requireNonNull(mergeMemoryContext, "mergeMemoryContext is null");
+
+        int length = endPosition - startPosition;
+        int runCount = min(parallelism, length / MIN_PARALLEL_RUN_LENGTH);
+        if (runCount <= 1) {
+            quickSort(pagesIndex, startPosition, endPosition);
+            return;
+        }
+
+        int[] runStarts = new int[runCount];
+        int[] runEnds = new int[runCount];
+        for (int run = 0; run < runCount; run++) {
+            runStarts[run] = startPosition + (int) ((long) length * run / runCount);
+            runEnds[run] = startPosition + (int) ((long) length * (run + 1) / runCount);
+        }
+
+        // reserve the merge buffer before any work is done, so that a sort that does not fit fails early
+        mergeMemoryContext.setBytes(sizeOfLongArray(length));
+        try {
+            // the runs are disjoint ranges of the index, so they can be swapped independently
+            AtomicInteger nextRun = new AtomicInteger();
+            CountDownLatch sortedRuns = new CountDownLatch(runCount);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Runnable sortRuns = () -> {
+                for (int run = nextRun.getAndIncrement(); run < runCount; run = nextRun.getAndIncrement()) {
+                    try {
+                        quickSort(pagesIndex, runStarts[run], runEnds[run]);
+                    }
+                    catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                    finally {
+                        sortedRuns.countDown();
+                    }
+                }
+            };
+            for (int run = 1; run < runCount; run++) {
+                executor.execute(sortRuns);
+            }
+            sortRuns.run();
+            try {
+                sortedRuns.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            if (failure.get() != null) {
+                throwIfUnchecked(failure.get());
+                throw new RuntimeException(failure.get());
+            }
+
+            long[] addresses = pagesIndex.getValueAddresses().elements();
+            long[] merged = new long[length];
+            LoserTree loserTree = new LoserTree(pagesIndex, runStarts, runEnds);
+            for (int i = 0; i < length; i++) {
+                merged[i] = addresses[loserTree.nextPosition()];
+            }
+            System.arraycopy(merged, 0, addresses, startPosition, length);
+        }
+        finally {
+            mergeMemoryContext.setBytes(0);
+        }
+    }
+
     /**
      * Sorts the specified range of elements using the specified swapper and according to the order induced by the specified
      * comparator using quickSort.
@@ -160,4 +248,70 @@ public class PagesIndexOrdering
             pagesIndex.swap(from, l);
         }
     }
+
+    /**
+     * Tournament tree over the heads of sorted runs, which keeps the loser of every match
+     * in the inner nodes, so advancing the winner only replays the matches on its path to the root.
+     */
+    private class LoserTree
+    {
+        private final PagesIndex pagesIndex;
+        private final int[] heads;
+        private final int[] ends;
+        // losers[0] is unused, the leaf of run i is node runCount + i
+        private final int[] losers;
+        private int winner;
+
+        public LoserTree(PagesIndex pagesIndex, int[] runStarts, int[] runEnds)
+        {
+            this.pagesIndex = pagesIndex;
+            this.heads = runStarts.clone();
+            this.ends = runEnds;
+            this.losers = new int[runStarts.length];
+            this.winner = play(1);
+        }
+
+        public int nextPosition()
+        {
+            int run = winner;
+            int position = heads[run]++;
+
+            for (int node = (losers.length + run) / 2; node > 0; node /= 2) {
+                if (precedes(losers[node], run)) {
+                    int loser = run;
+                    run = losers[node];
+                    losers[node] = loser;
+                }
+            }
+            winner = run;
+            return position;
+        }
+
+        private int play(int node)
+        {
+            if (node >= losers.length) {
+                return node - losers.length;
+            }
+            int left = play(2 * node);
+            int right = play(2 * node + 1);
+            if (precedes(right, left)) {
+                losers[node] = left;
+                return right;
+            }
+            losers[node] = right;
+            return left;
+        }
+
+        private boolean precedes(int leftRun, int rightRun)
+        {
+            if (heads[leftRun] == ends[leftRun]) {
+                return false;
+            }
+            if (heads[rightRun] == ends[rightRun]) {
+                return true;
+            }
+            int comparison = comparator.compareTo(pagesIndex, heads[leftRun], heads[rightRun]);
+            return comparison < 0 || (comparison == 0 && leftRun < rightRun);
+        }
+    }
 }
@@ -20,4 +20,14 @@ public interface PartitionFunction
     int getPartitionCount();
 
     int getPartition(Page page, int position);
+
+    /**
+     * Computes the partitions of all positions of the page.
+     */
+    default void getPartitions(Page page, int[] partitions)
+    {
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            partitions[position] = getPartition(page, position);
+        }
+    }
 }
@@ -147,6 +147,69 @@ public class PartitionedLookupSource
         return encodePartitionedJoinPosition(partition, toIntExact(joinPosition));
     }
 
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, @Nullable long[] rawHashes, long[] joinPositions)
+    {
+        if (rawHashes == null) {
+            rawHashes = new long[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                rawHashes[i] = partitionGenerator.getRawHash(hashChannelsPage, positions[i]);
+            }
+        }
+
+        if (lookupSources.length == 1) {
+            lookupSources[0].getJoinPositions(positions, positionCount, hashChannelsPage, allChannelsPage, rawHashes, joinPositions);
+            for (int i = 0; i < positionCount; i++) {
+                if (joinPositions[i] >= 0) {
+                    joinPositions[i] = encodePartitionedJoinPosition(0, toIntExact(joinPositions[i]));
+                }
+            }
+            return;
+        }
+
+        // group the positions by partition, so each partition is probed with a single batch
+        int[] partitions = new int[positionCount];
+        int[] partitionOffsets = new int[lookupSources.length + 1];
+        for (int i = 0; i < positionCount; i++) {
+            partitions[i] = partitionGenerator.getPartition(rawHashes[i]);
+            partitionOffsets[partitions[i] + 1]++;
+        }
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            partitionOffsets[partition + 1] += partitionOffsets[partition];
+        }
+
+        int[] batchIndexes = new int[positionCount];
+        int[] partitionPositions = new int[positionCount];
+        long[] partitionRawHashes = new long[positionCount];
+        int[] nextOffsets = Arrays.copyOf(partitionOffsets, lookupSources.length);
+        for (int i = 0; i < positionCount; i++) {
+            int offset = nextOffsets[partitions[i]]++;
+            batchIndexes[offset] = i;
+            partitionPositions[offset] = positions[i];
+            partitionRawHashes[offset] = rawHashes[i];
+        }
+
+        long[] partitionJoinPositions = new long[positionCount];
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            int start = partitionOffsets[partition];
+            int count = partitionOffsets[partition + 1] - start;
+            if (count == 0) {
+                continue;
+            }
+            lookupSources[partition].getJoinPositions(
+                    Arrays.copyOfRange(partitionPositions, start, start + count),
+                    count,
+                    hashChannelsPage,
+                    allChannelsPage,
+                    Arrays.copyOfRange(partitionRawHashes, start, start + count),
+                    partitionJoinPositions);
+            for (int i = 0; i < count; i++) {
+                long joinPosition = partitionJoinPositions[i];
+                joinPositions[batchIndexes[start + i]] = joinPosition < 0 ? joinPosition : encodePartitionedJoinPosition(partition, toIntExact(joinPosition));
+            }
+        }
+    }
+
     @Override
     public long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
@@ -19,8 +19,8 @@ import com.facebook.presto.execution.buffer.PagesSerdeFactory;
 import com.facebook.presto.execution.buffer.SerializedPage;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.Page;
-import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
 import com.facebook.presto.spi.block.RunLengthEncodedBlock;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.type.Type;
@@ -28,10 +28,14 @@ import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.util.Mergeable;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.atomic.AtomicLong;
@@ -57,6 +61,9 @@ public class PartitionedOutputOperator
         private final OutputBuffer outputBuffer;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel;
+        private final List<Integer> spreadNullChannels;
+        private final Map<Integer, List<NullableValue>> skewedKeyValues;
+        private final boolean replicateSkewedKeys;
         private final DataSize maxMemory;
 
         public PartitionedOutputFactory(
@@ -65,6 +72,32 @@ public class PartitionedOutputOperator
                 List<Optional<NullableValue>> partitionConstants,
                 boolean replicatesAnyRow,
                 OptionalInt nullChannel,
+                List<Integer> spreadNullChannels,
+                OutputBuffer outputBuffer,
+                DataSize maxMemory)
+        {
+            this(
+                    partitionFunction,
+                    partitionChannels,
+                    partitionConstants,
+                    replicatesAnyRow,
+                    nullChannel,
+                    spreadNullChannels,
+                    ImmutableMap.of(),
+                    false,
+                    outputBuffer,
+                    maxMemory);
+        }
+
+        public PartitionedOutputFactory(
+                PartitionFunction partitionFunction,
+                List<Integer> partitionChannels,
+                List<Optional<NullableValue>> partitionConstants,
+                boolean replicatesAnyRow,
+                OptionalInt nullChannel,
+                List<Integer> spreadNullChannels,
+                Map<Integer, List<NullableValue>> skewedKeyValues,
+                boolean replicateSkewedKeys,
                 OutputBuffer outputBuffer,
                 DataSize maxMemory)
         {
@@ -73,6 +106,9 @@ public class PartitionedOutputOperator
             this.partitionConstants = requireNonNull(partitionConstants, "partitionConstants is null");
             this.replicatesAnyRow = replicatesAnyRow;
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
+            this.spreadNullChannels = ImmutableList.copyOf(requireNonNull(spreadNullChannels, "spreadNullChannels is null"));
+            this.skewedKeyValues = ImmutableMap.copyOf(requireNonNull(skewedKeyValues, "skewedKeyValues is null"));
+            this.replicateSkewedKeys = replicateSkewedKeys;
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
         }
@@ -95,6 +131,9 @@ public class PartitionedOutputOperator
                     partitionConstants,
                     replicatesAnyRow,
                     nullChannel,
+                    spreadNullChannels,
+                    skewedKeyValues,
+                    replicateSkewedKeys,
                     outputBuffer,
                     serdeFactory,
                     maxMemory);
@@ -113,6 +152,9 @@ public class PartitionedOutputOperator
         private final List<Optional<NullableValue>> partitionConstants;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel;
+        private final List<Integer> spreadNullChannels;
+        private final Map<Integer, List<NullableValue>> skewedKeyValues;
+        private final boolean replicateSkewedKeys;
         private final OutputBuffer outputBuffer;
         private final PagesSerdeFactory serdeFactory;
         private final DataSize maxMemory;
@@ -127,6 +169,9 @@ public class PartitionedOutputOperator
                 List<Optional<NullableValue>> partitionConstants,
                 boolean replicatesAnyRow,
                 OptionalInt nullChannel,
+                List<Integer> spreadNullChannels,
+                Map<Integer, List<NullableValue>> skewedKeyValues,
+                boolean replicateSkewedKeys,
                 OutputBuffer outputBuffer,
                 PagesSerdeFactory serdeFactory,
                 DataSize maxMemory)
@@ -140,6 +185,9 @@ public class PartitionedOutputOperator
             this.partitionConstants = requireNonNull(partitionConstants, "partitionConstants is null");
             this.replicatesAnyRow = replicatesAnyRow;
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
+            this.spreadNullChannels = ImmutableList.copyOf(requireNonNull(spreadNullChannels, "spreadNullChannels is null"));
+            this.skewedKeyValues = ImmutableMap.copyOf(requireNonNull(skewedKeyValues, "skewedKeyValues is null"));
+            this.replicateSkewedKeys = replicateSkewedKeys;
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.serdeFactory = requireNonNull(serdeFactory, "serdeFactory is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
@@ -158,6 +206,9 @@ public class PartitionedOutputOperator
                     partitionConstants,
                     replicatesAnyRow,
                     nullChannel,
+                    spreadNullChannels,
+                    skewedKeyValues,
+                    replicateSkewedKeys,
                     outputBuffer,
                     serdeFactory,
                     maxMemory);
@@ -181,6 +232,9 @@ public class PartitionedOutputOperator
                     partitionConstants,
                     replicatesAnyRow,
                     nullChannel,
+                    spreadNullChannels,
+                    skewedKeyValues,
+                    replicateSkewedKeys,
                     outputBuffer,
                     serdeFactory,
                     maxMemory);
@@ -203,6 +257,9 @@ public class PartitionedOutputOperator
             List<Optional<NullableValue>> partitionConstants,
             boolean replicatesAnyRow,
             OptionalInt nullChannel,
+            List<Integer> spreadNullChannels,
+            Map<Integer, List<NullableValue>> skewedKeyValues,
+            boolean replicateSkewedKeys,
             OutputBuffer outputBuffer,
             PagesSerdeFactory serdeFactory,
             DataSize maxMemory)
@@ -215,8 +272,11 @@ public class PartitionedOutputOperator
                 partitionConstants,
                 replicatesAnyRow,
                 nullChannel,
+                spreadNullChannels,
+                skewedKeyValues,
+                replicateSkewedKeys,
                 outputBuffer,
-                serdeFactory,
+                requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde(operatorContext.getDriverContext().getPageCompressionStats()),
                 sourceTypes,
                 maxMemory);
 
@@ -300,12 +360,26 @@ public class PartitionedOutputOperator
         private final List<Integer> partitionChannels;
         private final List<Optional<Block>> partitionConstants;
         private final PagesSerde serde;
-        private final PageBuilder[] pageBuilders;
+        private final PositionsPageBuilder[] pageBuilders;
+        private final int maxPageSizeInBytes;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel; // when present, send the position to every partition if this channel is null.
+        private final List<Integer> spreadNullChannels; // when not empty, send the position to the next partition round robin if any of these channels is null.
+        // when not empty, send the position to every partition, or to the next partition round robin when the skewed keys are not replicated,
+        // if any of these channels holds one of its skewed values
+        private final int[] skewedKeyChannels;
+        private final Block[][] skewedKeyValues;
+        private final boolean replicateSkewedKeys;
         private final AtomicLong rowsAdded = new AtomicLong();
         private final AtomicLong pagesAdded = new AtomicLong();
         private boolean hasAnyRowBeenReplicated;
+        private int nextSpreadPartition;
+
+        // reused across pages: the partition of each position, and the positions of each partition
+        private int[] positionPartitions = new int[0];
+        private boolean[] skewedPositions = new boolean[0];
+        private final int[][] partitionPositions;
+        private final int[] partitionPositionCounts;
 
         public PagePartitioner(
                 PartitionFunction partitionFunction,
@@ -313,8 +387,11 @@ public class PartitionedOutputOperator
                 List<Optional<NullableValue>> partitionConstants,
                 boolean replicatesAnyRow,
                 OptionalInt nullChannel,
+                List<Integer> spreadNullChannels,
+                Map<Integer, List<NullableValue>> skewedKeyValues,
+                boolean replicateSkewedKeys,
                 OutputBuffer outputBuffer,
-                PagesSerdeFactory serdeFactory,
+                PagesSerde serde,
                 List<Type> sourceTypes,
                 DataSize maxMemory)
         {
@@ -325,18 +402,35 @@ public class PartitionedOutputOperator
                     .collect(toImmutableList());
             this.replicatesAnyRow = replicatesAnyRow;
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
+            this.spreadNullChannels = ImmutableList.copyOf(requireNonNull(spreadNullChannels, "spreadNullChannels is null"));
+            requireNonNull(skewedKeyValues, "skewedKeyValues is null");
+            this.skewedKeyChannels = skewedKeyValues.keySet().stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            this.skewedKeyValues = new Block[skewedKeyChannels.length][];
+            for (int i = 0; i < skewedKeyChannels.length; i++) {
+                this.skewedKeyValues[i] = skewedKeyValues.get(skewedKeyChannels[i]).stream()
+                        .map(NullableValue::asBlock)
+                        .toArray(Block[]::new);
+            }
+            this.replicateSkewedKeys = replicateSkewedKeys;
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.sourceTypes = requireNonNull(sourceTypes, "sourceTypes is null");
-            this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
+            this.serde = requireNonNull(serde, "serde is null");
 
             int partitionCount = partitionFunction.getPartitionCount();
             int pageSize = min(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, ((int) maxMemory.toBytes()) / partitionCount);
             pageSize = max(1, pageSize);
+            this.maxPageSizeInBytes = pageSize;
 
-            this.pageBuilders = new PageBuilder[partitionCount];
+            this.pageBuilders = new PositionsPageBuilder[partitionCount];
             for (int i = 0; i < partitionCount; i++) {
-                pageBuilders[i] = PageBuilder.withMaxPageSize(pageSize, sourceTypes);
+                pageBuilders[i] = new PositionsPageBuilder(sourceTypes, pageSize);
             }
+
+            this.partitionPositions = new int[partitionCount][];
+            Arrays.fill(partitionPositions, new int[0]);
+            this.partitionPositionCounts = new int[partitionCount];
         }
 
         public ListenableFuture<?> isFull()
@@ -349,7 +443,7 @@ public class PartitionedOutputOperator
             // We use a foreach loop instead of streams
             // as it has much better performance.
             long sizeInBytes = 0;
-            for (PageBuilder pageBuilder : pageBuilders) {
+            for (PositionsPageBuilder pageBuilder : pageBuilders) {
                 sizeInBytes += pageBuilder.getSizeInBytes();
             }
             return sizeInBytes;
@@ -361,7 +455,7 @@ public class PartitionedOutputOperator
         public long getRetainedSizeInBytes()
         {
             long sizeInBytes = 0;
-            for (PageBuilder pageBuilder : pageBuilders) {
+            for (PositionsPageBuilder pageBuilder : pageBuilders) {
                 sizeInBytes += pageBuilder.getRetainedSizeInBytes();
             }
             return sizeInBytes;
@@ -376,24 +470,150 @@ public class PartitionedOutputOperator
         {
             requireNonNull(page, "page is null");
 
-            Page partitionFunctionArgs = getPartitionFunctionArguments(page);
-            for (int position = 0; position < page.getPositionCount(); position++) {
+            int positionCount = page.getPositionCount();
+            if (positionCount == 0) {
+                return;
+            }
+
+            // compute the partitions of the whole page at once
+            if (positionPartitions.length < positionCount) {
+                positionPartitions = new int[positionCount];
+            }
+            partitionFunction.getPartitions(getPartitionFunctionArguments(page), positionPartitions);
+            if (!spreadNullChannels.isEmpty()) {
+                spreadNulls(page);
+            }
+            boolean replicateSkewedPositions = false;
+            if (skewedKeyChannels.length > 0) {
+                distributeSkewedKeys(page);
+                replicateSkewedPositions = replicateSkewedKeys;
+            }
+
+            // group the positions by partition
+            Arrays.fill(partitionPositionCounts, 0);
+            for (int position = 0; position < positionCount; position++) {
                 boolean shouldReplicate = (replicatesAnyRow && !hasAnyRowBeenReplicated) ||
-                        nullChannel.isPresent() && page.getBlock(nullChannel.getAsInt()).isNull(position);
+                        nullChannel.isPresent() && page.getBlock(nullChannel.getAsInt()).isNull(position) ||
+                        (replicateSkewedPositions && skewedPositions[position]);
                 if (shouldReplicate) {
-                    for (PageBuilder pageBuilder : pageBuilders) {
-                        appendRow(pageBuilder, page, position);
+                    for (int partition = 0; partition < partitionPositions.length; partition++) {
+                        addPosition(partition, position, positionCount);
                     }
                     hasAnyRowBeenReplicated = true;
                 }
                 else {
-                    int partition = partitionFunction.getPartition(partitionFunctionArgs, position);
-                    appendRow(pageBuilders[partition], page, position);
+                    addPosition(positionPartitions[position], position, positionCount);
+                }
+            }
+
+            // append the positions of each partition a whole block at a time, however few they are, unless they
+            // make a page on their own, which then keeps its dictionary and run length encoded blocks
+            boolean hasEncodedBlock = hasEncodedBlock(page);
+            long averagePositionSize = page.getSizeInBytes() / positionCount;
+            for (int partition = 0; partition < partitionPositions.length; partition++) {
+                int partitionPositionCount = partitionPositionCounts[partition];
+                if (partitionPositionCount == 0) {
+                    continue;
+                }
+                if (partitionPositionCount == positionCount) {
+                    // every position goes to this partition, in order
+                    enqueuePage(partition, page);
+                }
+                else if (hasEncodedBlock && partitionPositionCount * averagePositionSize >= maxPageSizeInBytes / 2) {
+                    enqueuePage(partition, copyPositions(page, partitionPositions[partition], partitionPositionCount));
+                }
+                else {
+                    pageBuilders[partition].appendPositions(page, partitionPositions[partition], partitionPositionCount);
                 }
             }
             flush(false);
         }
 
+        private static boolean hasEncodedBlock(Page page)
+        {
+            for (int channel = 0; channel < page.getChannelCount(); channel++) {
+                Block block = page.getBlock(channel);
+                if (block instanceof DictionaryBlock || block instanceof RunLengthEncodedBlock) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static Page copyPositions(Page page, int[] positions, int positionCount)
+        {
+            Block[] blocks = new Block[page.getChannelCount()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                blocks[channel] = page.getBlock(channel).copyPositions(positions, 0, positionCount);
+            }
+            return new Page(positionCount, blocks);
+        }
+
+        private void spreadNulls(Page page)
+        {
+            // rows with a null key never match in a join, so they do not need to be
+            // co-located and can be spread instead of all landing in the same partition
+            for (int channel : spreadNullChannels) {
+                Block block = page.getBlock(channel);
+                if (!block.mayHaveNull()) {
+                    continue;
+                }
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    if (block.isNull(position)) {
+                        positionPartitions[position] = nextSpreadPartition;
+                        nextSpreadPartition = (nextSpreadPartition + 1) % partitionPositions.length;
+                    }
+                }
+            }
+        }
+
+        private void distributeSkewedKeys(Page page)
+        {
+            // a few hot keys hash to the same partition; the side of the join that is spread sends them round robin,
+            // and the other side replicates them so that every partition still has all the rows they can match
+            int positionCount = page.getPositionCount();
+            if (skewedPositions.length < positionCount) {
+                skewedPositions = new boolean[positionCount];
+            }
+            Arrays.fill(skewedPositions, 0, positionCount, false);
+            for (int i = 0; i < skewedKeyChannels.length; i++) {
+                Type type = sourceTypes.get(skewedKeyChannels[i]);
+                Block block = page.getBlock(skewedKeyChannels[i]);
+                for (int position = 0; position < positionCount; position++) {
+                    if (skewedPositions[position] || block.isNull(position)) {
+                        continue;
+                    }
+                    for (Block value : skewedKeyValues[i]) {
+                        if (type.equalTo(block, position, value, 0)) {
+                            skewedPositions[position] = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (replicateSkewedKeys) {
+                return;
+            }
+            for (int position = 0; position < positionCount; position++) {
+                if (skewedPositions[position]) {
+                    positionPartitions[position] = nextSpreadPartition;
+                    nextSpreadPartition = (nextSpreadPartition + 1) % partitionPositions.length;
+                }
+            }
+        }
+
+        private void addPosition(int partition, int position, int positionCount)
+        {
+            int[] positions = partitionPositions[partition];
+            int count = partitionPositionCounts[partition];
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, max(count * 2, min(positionCount, 16)));
+                partitionPositions[partition] = positions;
+            }
+            positions[count] = position;
+            partitionPositionCounts[partition] = count + 1;
+        }
+
         private Page getPartitionFunctionArguments(Page page)
         {
             Block[] blocks = new Block[partitionChannels.size()];
@@ -409,35 +629,28 @@ public class PartitionedOutputOperator
             return new Page(page.getPositionCount(), blocks);
         }
 
-        private void appendRow(PageBuilder pageBuilder, Page page, int position)
-        {
-            pageBuilder.declarePosition();
-
-            for (int channel = 0; channel < sourceTypes.size(); channel++) {
-                Type type = sourceTypes.get(channel);
-                type.appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
-            }
-        }
-
         public void flush(boolean force)
         {
             // add all full pages to output buffer
             for (int partition = 0; partition < pageBuilders.length; partition++) {
-                PageBuilder partitionPageBuilder = pageBuilders[partition];
+                PositionsPageBuilder partitionPageBuilder = pageBuilders[partition];
                 if (!partitionPageBuilder.isEmpty() && (force || partitionPageBuilder.isFull())) {
                     Page pagePartition = partitionPageBuilder.build();
-                    partitionPageBuilder.reset();
-
-                    List<SerializedPage> serializedPages = splitPage(pagePartition, DEFAULT_MAX_PAGE_SIZE_IN_BYTES).stream()
-                            .map(serde::serialize)
-                            .collect(toImmutableList());
-
-                    outputBuffer.enqueue(partition, serializedPages);
-                    pagesAdded.incrementAndGet();
-                    rowsAdded.addAndGet(pagePartition.getPositionCount());
+                    enqueuePage(partition, pagePartition);
                 }
             }
         }
+
+        private void enqueuePage(int partition, Page pagePartition)
+        {
+            List<SerializedPage> serializedPages = splitPage(pagePartition, DEFAULT_MAX_PAGE_SIZE_IN_BYTES).stream()
+                    .map(serde::serialize)
+                    .collect(toImmutableList());
+
+            outputBuffer.enqueue(partition, serializedPages);
+            pagesAdded.incrementAndGet();
+            rowsAdded.addAndGet(pagePartition.getPositionCount());
+        }
     }
 
     public static class PartitionedOutputInfo
@@ -0,0 +1,471 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.ByteArrayBlock;
+import com.facebook.presto.spi.block.ByteArrayBlockBuilder;
+import com.facebook.presto.spi.block.IntArrayBlock;
+import com.facebook.presto.spi.block.IntArrayBlockBuilder;
+import com.facebook.presto.spi.block.LongArrayBlock;
+import com.facebook.presto.spi.block.LongArrayBlockBuilder;
+import com.facebook.presto.spi.block.ShortArrayBlock;
+import com.facebook.presto.spi.block.ShortArrayBlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Builds the pages of one output partition from the positions of whole input blocks.
+ * Unlike a {@link com.facebook.presto.spi.PageBuilder}, which is appended to one position and
+ * one type call at a time, each column is appended with a single call per input block; fixed
+ * width columns gather the positions straight into primitive arrays, and only the other
+ * columns go through {@link Type#appendTo}.
+ */
+final class PositionsPageBuilder
+{
+    private final PositionsAppender[] appenders;
+    private final long maxPageSizeInBytes;
+    private int positionCount;
+
+    public PositionsPageBuilder(List<Type> types, long maxPageSizeInBytes)
+    {
+        requireNonNull(types, "types is null");
+        checkArgument(maxPageSizeInBytes > 0, "maxPageSizeInBytes must be positive");
+        this.appenders = types.stream()
+                .map(PositionsPageBuilder::createPositionsAppender)
+                .toArray(PositionsAppender[]::new);
+        this.maxPageSizeInBytes = maxPageSizeInBytes;
+    }
+
+    /**
+     * Appends the first {@code length} of {@code positions} of every block of the page.
+     */
+    public void appendPositions(Page page, int[] positions, int length)
+    {
+        checkArgument(page.getChannelCount() == appenders.length, "expected %s channels, but page has %s", appenders.length, page.getChannelCount());
+        for (int channel = 0; channel < appenders.length; channel++) {
+            appenders[channel].append(page.getBlock(channel), positions, length);
+        }
+        positionCount += length;
+    }
+
+    public boolean isEmpty()
+    {
+        return positionCount == 0;
+    }
+
+    public boolean isFull()
+    {
+        return getSizeInBytes() >= maxPageSizeInBytes;
+    }
+
+    public long getSizeInBytes()
+    {
+        long sizeInBytes = 0;
+        for (PositionsAppender appender : appenders) {
+            sizeInBytes += appender.getSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        long sizeInBytes = 0;
+        for (PositionsAppender appender : appenders) {
+            sizeInBytes += appender.getRetainedSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    /**
+     * Returns the appended positions as a page, and starts a new one.
+     */
+    public Page build()
+    {
+        Block[] blocks = new Block[appenders.length];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = appenders[channel].build();
+        }
+        Page page = new Page(positionCount, blocks);
+        positionCount = 0;
+        return page;
+    }
+
+    private static PositionsAppender createPositionsAppender(Type type)
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, 1);
+        if (blockBuilder instanceof LongArrayBlockBuilder) {
+            return new LongPositionsAppender();
+        }
+        if (blockBuilder instanceof IntArrayBlockBuilder) {
+            return new IntPositionsAppender();
+        }
+        if (blockBuilder instanceof ShortArrayBlockBuilder) {
+            return new ShortPositionsAppender();
+        }
+        if (blockBuilder instanceof ByteArrayBlockBuilder) {
+            return new BytePositionsAppender();
+        }
+        return new TypedPositionsAppender(type);
+    }
+
+    private interface PositionsAppender
+    {
+        void append(Block block, int[] positions, int length);
+
+        /**
+         * Returns the appended values as a block, and starts a new one.
+         */
+        Block build();
+
+        long getSizeInBytes();
+
+        long getRetainedSizeInBytes();
+    }
+
+    private abstract static class FixedWidthPositionsAppender
+            implements PositionsAppender
+    {
+        private final int entrySize;
+        // the size of the last block built, used as the initial capacity of the next one
+        private int expectedEntries;
+        protected int positionCount;
+        protected boolean hasNullValue;
+        protected boolean[] valueIsNull = new boolean[0];
+
+        protected FixedWidthPositionsAppender(int entrySize)
+        {
+            this.entrySize = entrySize;
+        }
+
+        protected final void ensureCapacity(int capacity)
+        {
+            if (valueIsNull.length >= capacity) {
+                return;
+            }
+            int newCapacity = max(max(capacity, expectedEntries), valueIsNull.length * 2);
+            valueIsNull = Arrays.copyOf(valueIsNull, newCapacity);
+            growValues(newCapacity);
+        }
+
+        protected abstract void growValues(int capacity);
+
+        protected final Optional<boolean[]> buildValueIsNull()
+        {
+            Optional<boolean[]> result = hasNullValue ? Optional.of(valueIsNull) : Optional.empty();
+            // the arrays are handed over to the block, so the next block starts with new ones
+            expectedEntries = positionCount;
+            positionCount = 0;
+            hasNullValue = false;
+            valueIsNull = new boolean[0];
+            return result;
+        }
+
+        @Override
+        public long getSizeInBytes()
+        {
+            return (long) positionCount * (entrySize + Byte.BYTES);
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return sizeOf(valueIsNull) + (long) valueIsNull.length * entrySize;
+        }
+    }
+
+    private static class LongPositionsAppender
+            extends FixedWidthPositionsAppender
+    {
+        private static final int INSTANCE_SIZE = ClassLayout.parseClass(LongPositionsAppender.class).instanceSize();
+
+        private long[] values = new long[0];
+
+        public LongPositionsAppender()
+        {
+            super(Long.BYTES);
+        }
+
+        @Override
+        public void append(Block block, int[] positions, int length)
+        {
+            ensureCapacity(positionCount + length);
+            if (block.mayHaveNull()) {
+                for (int i = 0; i < length; i++) {
+                    int position = positions[i];
+                    if (block.isNull(position)) {
+                        valueIsNull[positionCount + i] = true;
+                        hasNullValue = true;
+                    }
+                    else {
+                        values[positionCount + i] = block.getLong(position, 0);
+                    }
+                }
+            }
+            else {
+                for (int i = 0; i < length; i++) {
+                    values[positionCount + i] = block.getLong(positions[i], 0);
+                }
+            }
+            positionCount += length;
+        }
+
+        @Override
+        protected void growValues(int capacity)
+        {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        public Block build()
+        {
+            int positionCount = this.positionCount;
+            long[] values = this.values;
+            this.values = new long[0];
+            return new LongArrayBlock(positionCount, buildValueIsNull(), values);
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return INSTANCE_SIZE + super.getRetainedSizeInBytes();
+        }
+    }
+
+    private static class IntPositionsAppender
+            extends FixedWidthPositionsAppender
+    {
+        private static final int INSTANCE_SIZE = ClassLayout.parseClass(IntPositionsAppender.class).instanceSize();
+
+        private int[] values = new int[0];
+
+        public IntPositionsAppender()
+        {
+            super(Integer.BYTES);
+        }
+
+        @Override
+        public void append(Block block, int[] positions, int length)
+        {
+            ensureCapacity(positionCount + length);
+            if (block.mayHaveNull()) {
+                for (int i = 0; i < length; i++) {
+                    int position = positions[i];
+                    if (block.isNull(position)) {
+                        valueIsNull[positionCount + i] = true;
+                        hasNullValue = true;
+                    }
+                    else {
+                        values[positionCount + i] = block.getInt(position, 0);
+                    }
+                }
+            }
+            else {
+                for (int i = 0; i < length; i++) {
+                    values[positionCount + i] = block.getInt(positions[i], 0);
+                }
+            }
+            positionCount += length;
+        }
+
+        @Override
+        protected void growValues(int capacity)
+        {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        public Block build()
+        {
+            int positionCount = this.positionCount;
+            int[] values = this.values;
+            this.values = new int[0];
+            return new IntArrayBlock(positionCount, buildValueIsNull(), values);
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return INSTANCE_SIZE + super.getRetainedSizeInBytes();
+        }
+    }
+
+    private static class ShortPositionsAppender
+            extends FixedWidthPositionsAppender
+    {
+        private static final int INSTANCE_SIZE = ClassLayout.parseClass(ShortPositionsAppender.class).instanceSize();
+
+        private short[] values = new short[0];
+
+        public ShortPositionsAppender()
+        {
+            super(Short.BYTES);
+        }
+
+        @Override
+        public void append(Block block, int[] positions, int length)
+        {
+            ensureCapacity(positionCount + length);
+            if (block.mayHaveNull()) {
+                for (int i = 0; i < length; i++) {
+                    int position = positions[i];
+                    if (block.isNull(position)) {
+                        valueIsNull[positionCount + i] = true;
+                        hasNullValue = true;
+                    }
+                    else {
+                        values[positionCount + i] = block.getShort(position, 0);
+                    }
+                }
+            }
+            else {
+                for (int i = 0; i < length; i++) {
+                    values[positionCount + i] = block.getShort(positions[i], 0);
+                }
+            }
+            positionCount += length;
+        }
+
+        @Override
+        protected void growValues(int capacity)
+        {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        public Block build()
+        {
+            int positionCount = this.positionCount;
+            short[] values = this.values;
+            this.values = new short[0];
+            return new ShortArrayBlock(positionCount, buildValueIsNull(), values);
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return INSTANCE_SIZE + super.getRetainedSizeInBytes();
+        }
+    }
+
+    private static class BytePositionsAppender
+            extends FixedWidthPositionsAppender
+    {
+        private static final int INSTANCE_SIZE = ClassLayout.parseClass(BytePositionsAppender.class).instanceSize();
+
+        private byte[] values = new byte[0];
+
+        public BytePositionsAppender()
+        {
+            super(Byte.BYTES);
+        }
+
+        @Override
+        public void append(Block block, int[] positions, int length)
+        {
+            ensureCapacity(positionCount + length);
+            if (block.mayHaveNull()) {
+                for (int i = 0; i < length; i++) {
+                    int position = positions[i];
+                    if (block.isNull(position)) {
+                        valueIsNull[positionCount + i] = true;
+                        hasNullValue = true;
+                    }
+                    else {
+                        values[positionCount + i] = block.getByte(position, 0);
+                    }
+                }
+            }
+            else {
+                for (int i = 0; i < length; i++) {
+                    values[positionCount + i] = block.getByte(positions[i], 0);
+                }
+            }
+            positionCount += length;
+        }
+
+        @Override
+        protected void growValues(int capacity)
+        {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        public Block build()
+        {
+            int positionCount = this.positionCount;
+            byte[] values = this.values;
+            this.values = new byte[0];
+            return new ByteArrayBlock(positionCount, buildValueIsNull(), values);
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return INSTANCE_SIZE + super.getRetainedSizeInBytes();
+        }
+    }
+
+    private static class TypedPositionsAppender
+            implements PositionsAppender
+    {
+        private final Type type;
+        private BlockBuilder blockBuilder;
+
+        public TypedPositionsAppender(Type type)
+        {
+            this.type = requireNonNull(type, "type is null");
+            this.blockBuilder = type.createBlockBuilder(null, 1);
+        }
+
+        @Override
+        public void append(Block block, int[] positions, int length)
+        {
+            for (int i = 0; i < length; i++) {
+                type.appendTo(block, positions[i], blockBuilder);
+            }
+        }
+
+        @Override
+        public Block build()
+        {
+            Block block = blockBuilder.build();
+            blockBuilder = blockBuilder.newBlockBuilderLike(null);
+            return block;
+        }
+
+        @Override
+        public long getSizeInBytes()
+        {
+            return blockBuilder.getSizeInBytes();
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return blockBuilder.getRetainedSizeInBytes();
+        }
+    }
+}
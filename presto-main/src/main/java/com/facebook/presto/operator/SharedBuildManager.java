@@ -0,0 +1,254 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lets the tasks of different queries on a worker share the lookup sources of
+ * broadcast joins building from the same rows. The first task acquiring a key
+ * owns the build and publishes the lookup source of each partition once it is
+ * built, while tasks acquiring the key later use the published lookup sources
+ * instead of building their own. These tasks still read their build input to
+ * the end, keeping it only until the lookup source is published, and build the
+ * lookup source themselves if it is not published by the time their input is
+ * finished, so that no query waits for another one. The memory of a lookup source
+ * is divided between the queries holding it, and a build is dropped as soon as
+ * none of its operators references it any more. When a holder releases a lookup
+ * source, the shares of the others grow only as far as their queries have memory
+ * left, and the remainder is reported as {@link #getUnaccountedBytes()}.
+ */
+@ThreadSafe
+public class SharedBuildManager
+{
+    @GuardedBy("this")
+    private final Map<String, SharedBuild> builds = new HashMap<>();
+
+    /**
+     * Returns the build registered under the key, registering a build owned by
+     * the task if there is none. Every call must be matched by a release.
+     */
+    public synchronized SharedBuild acquire(String key, int partitionCount, TaskId taskId)
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(taskId, "taskId is null");
+        SharedBuild build = builds.computeIfAbsent(key, ignored -> new SharedBuild(key, partitionCount, taskId));
+        checkArgument(build.lookupSources.size() == partitionCount, "Build %s has %s partitions, but %s were requested", key, build.lookupSources.size(), partitionCount);
+        build.references++;
+        return build;
+    }
+
+    @Managed
+    public synchronized int getBuildCount()
+    {
+        return builds.size();
+    }
+
+    @Managed
+    public synchronized int getFollowerCount()
+    {
+        return builds.values().stream()
+                .flatMap(build -> build.holders.stream())
+                .mapToInt(holders -> Math.max(holders.size() - 1, 0))
+                .sum();
+    }
+
+    /**
+     * Returns the memory of the lookup sources that is not accounted to any of the
+     * queries holding them, because the queries had no memory left for their share.
+     */
+    @Managed
+    public synchronized long getUnaccountedBytes()
+    {
+        long unaccountedBytes = 0;
+        for (SharedBuild build : builds.values()) {
+            for (int partition = 0; partition < build.holders.size(); partition++) {
+                List<LocalMemoryContext> partitionHolders = build.holders.get(partition);
+                if (!partitionHolders.isEmpty()) {
+                    unaccountedBytes += Math.max(build.sizesInBytes[partition] - partitionHolders.stream().mapToLong(LocalMemoryContext::getBytes).sum(), 0);
+                }
+            }
+        }
+        return unaccountedBytes;
+    }
+
+    @ThreadSafe
+    public final class SharedBuild
+    {
+        private final String key;
+        private final TaskId owner;
+        private final List<SettableFuture<LookupSourceSupplier>> lookupSources;
+        @GuardedBy("SharedBuildManager.this")
+        private final long[] sizesInBytes;
+        @GuardedBy("SharedBuildManager.this")
+        private final List<List<LocalMemoryContext>> holders;
+        @GuardedBy("SharedBuildManager.this")
+        private int references;
+
+        private SharedBuild(String key, int partitionCount, TaskId owner)
+        {
+            checkArgument(partitionCount > 0, "partitionCount must be positive");
+            this.key = key;
+            this.owner = owner;
+            ImmutableList.Builder<SettableFuture<LookupSourceSupplier>> lookupSources = ImmutableList.builder();
+            ImmutableList.Builder<List<LocalMemoryContext>> holders = ImmutableList.builder();
+            for (int partition = 0; partition < partitionCount; partition++) {
+                lookupSources.add(SettableFuture.create());
+                holders.add(new ArrayList<>());
+            }
+            this.lookupSources = lookupSources.build();
+            this.holders = holders.build();
+            this.sizesInBytes = new long[partitionCount];
+        }
+
+        /**
+         * Returns whether the task builds the lookup sources. Other tasks use the published ones.
+         */
+        public boolean isOwner(TaskId taskId)
+        {
+            return owner.equals(taskId);
+        }
+
+        public int getPartitionCount()
+        {
+            return lookupSources.size();
+        }
+
+        /**
+         * Acquires another reference, for a partition of a task that acquired the build.
+         */
+        public void retain()
+        {
+            synchronized (SharedBuildManager.this) {
+                references++;
+            }
+        }
+
+        /**
+         * Returns a future with the lookup source of the partition, which fails if the owner
+         * gives up building it.
+         */
+        public ListenableFuture<LookupSourceSupplier> getLookupSource(int partition)
+        {
+            return lookupSources.get(partition);
+        }
+
+        /**
+         * Publishes the lookup source built by the owner, whose memory is accounted to
+         * the given context until other queries hold the lookup source too.
+         */
+        public void publish(int partition, LookupSourceSupplier lookupSource, long sizeInBytes, LocalMemoryContext memoryContext)
+        {
+            synchronized (SharedBuildManager.this) {
+                sizesInBytes[partition] = sizeInBytes;
+                holders.get(partition).add(memoryContext);
+            }
+            lookupSources.get(partition).set(lookupSource);
+        }
+
+        /**
+         * Makes the context hold the published lookup source of the partition, with an
+         * equal share of its memory.
+         */
+        public void hold(int partition, LocalMemoryContext memoryContext)
+        {
+            synchronized (SharedBuildManager.this) {
+                checkState(lookupSources.get(partition).isDone(), "Lookup source of partition %s is not published", partition);
+                List<LocalMemoryContext> partitionHolders = holders.get(partition);
+                partitionHolders.add(memoryContext);
+                // the new holder must pay its share, while the shares of the others only shrink
+                memoryContext.setBytes(getShare(partition));
+                resizeShares(partition);
+            }
+        }
+
+        /**
+         * Fails the lookup source of the partition if it is not published yet, so that the
+         * tasks waiting for it build it themselves, and stops other tasks from joining the build.
+         */
+        public void abort(int partition)
+        {
+            synchronized (SharedBuildManager.this) {
+                builds.remove(key, this);
+            }
+            lookupSources.get(partition).setException(new IllegalStateException("Owner of shared build " + key + " did not build partition " + partition));
+        }
+
+        /**
+         * Releases a reference acquired for the partition, along with the share of the
+         * memory of its lookup source if the context held it.
+         */
+        public void release(int partition, LocalMemoryContext memoryContext)
+        {
+            synchronized (SharedBuildManager.this) {
+                if (holders.get(partition).remove(memoryContext)) {
+                    resizeShares(partition);
+                }
+                checkState(references > 0, "Build %s is already released", key);
+                references--;
+                if (references == 0) {
+                    builds.remove(key, this);
+                }
+            }
+        }
+
+        @GuardedBy("SharedBuildManager.this")
+        private long getShare(int partition)
+        {
+            int holderCount = holders.get(partition).size();
+            return (sizesInBytes[partition] + holderCount - 1) / holderCount;
+        }
+
+        @GuardedBy("SharedBuildManager.this")
+        private void resizeShares(int partition)
+        {
+            if (holders.get(partition).isEmpty()) {
+                return;
+            }
+            // growing shares are only reserved if the queries have memory left, since a failure
+            // would surface in the query releasing its share, and the rest shows in getUnaccountedBytes
+            long share = getShare(partition);
+            for (LocalMemoryContext holder : holders.get(partition)) {
+                holder.trySetBytes(share);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("key", key)
+                    .add("owner", owner)
+                    .toString();
+        }
+    }
+}
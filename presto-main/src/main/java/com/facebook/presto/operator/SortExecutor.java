@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskManagerConfig;
+import io.airlift.concurrent.ThreadPoolExecutorMBean;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+/**
+ * Holder of the {@link ExecutorService} shared by all tasks for sorting runs in parallel.
+ * It is bounded, so that parallel sorts cannot take more cores than it was given.
+ */
+public final class SortExecutor
+        implements AutoCloseable
+{
+    private final ExecutorService sortExecutor;
+    private final ThreadPoolExecutorMBean sortExecutorMBean;
+
+    @Inject
+    public SortExecutor(TaskManagerConfig config)
+    {
+        sortExecutor = newFixedThreadPool(config.getTaskSortThreads(), daemonThreadsNamed("task-sort-%s"));
+        sortExecutorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) sortExecutor);
+    }
+
+    @PreDestroy
+    public void close()
+    {
+        sortExecutor.shutdownNow();
+    }
+
+    public ExecutorService getExecutor()
+    {
+        return sortExecutor;
+    }
+
+    @Managed(description = "Parallel sort executor")
+    @Nested
+    public ThreadPoolExecutorMBean getSortExecutor()
+    {
+        return sortExecutorMBean;
+    }
+}
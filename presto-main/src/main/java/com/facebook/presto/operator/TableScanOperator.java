@@ -19,6 +19,7 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.UpdatablePageSource;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.split.EmptySplit;
 import com.facebook.presto.split.EmptySplitPageSource;
 import com.facebook.presto.split.PageSourceProvider;
@@ -49,6 +50,7 @@ public class TableScanOperator
         private final PlanNodeId sourceId;
         private final PageSourceProvider pageSourceProvider;
         private final List<ColumnHandle> columns;
+        private final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
         private boolean closed;
 
         public TableScanOperatorFactory(
@@ -56,11 +58,22 @@ public class TableScanOperator
                 PlanNodeId sourceId,
                 PageSourceProvider pageSourceProvider,
                 Iterable<ColumnHandle> columns)
+        {
+            this(operatorId, sourceId, pageSourceProvider, columns, TupleDomain::all);
+        }
+
+        public TableScanOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                Iterable<ColumnHandle> columns,
+                Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.sourceId = requireNonNull(sourceId, "sourceId is null");
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -78,7 +91,8 @@ public class TableScanOperator
                     operatorContext,
                     sourceId,
                     pageSourceProvider,
-                    columns);
+                    columns,
+                    dynamicFilter);
         }
 
         @Override
@@ -92,6 +106,7 @@ public class TableScanOperator
     private final PlanNodeId planNodeId;
     private final PageSourceProvider pageSourceProvider;
     private final List<ColumnHandle> columns;
+    private final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
     private final LocalMemoryContext systemMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
 
@@ -108,11 +123,22 @@ public class TableScanOperator
             PlanNodeId planNodeId,
             PageSourceProvider pageSourceProvider,
             Iterable<ColumnHandle> columns)
+    {
+        this(operatorContext, planNodeId, pageSourceProvider, columns, TupleDomain::all);
+    }
+
+    public TableScanOperator(
+            OperatorContext operatorContext,
+            PlanNodeId planNodeId,
+            PageSourceProvider pageSourceProvider,
+            Iterable<ColumnHandle> columns,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
         this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         this.systemMemoryContext = operatorContext.newLocalSystemMemoryContext();
     }
 
@@ -236,7 +262,7 @@ public class TableScanOperator
             return null;
         }
         if (source == null) {
-            source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns);
+            source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns, dynamicFilter.get());
         }
 
         Page page = source.getNextPage();
@@ -18,6 +18,7 @@ import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskState;
 import com.facebook.presto.execution.TaskStateMachine;
+import com.facebook.presto.execution.buffer.PageCompressionStats;
 import com.facebook.presto.memory.QueryContext;
 import com.facebook.presto.memory.QueryContextVisitor;
 import com.facebook.presto.memory.context.LocalMemoryContext;
@@ -77,6 +78,8 @@ public class TaskContext
     private final AtomicLong endFullGcCount = new AtomicLong(-1);
     private final AtomicLong endFullGcTimeNanos = new AtomicLong(-1);
 
+    private final AtomicLong compileTimeNanos = new AtomicLong();
+
     private final AtomicReference<DateTime> executionStartTime = new AtomicReference<>();
     private final AtomicReference<DateTime> lastExecutionStartTime = new AtomicReference<>();
     private final AtomicReference<DateTime> executionEndTime = new AtomicReference<>();
@@ -101,6 +104,8 @@ public class TaskContext
 
     private final MemoryTrackingContext taskMemoryContext;
 
+    private final PageCompressionStats pageCompressionStats = new PageCompressionStats();
+
     public static TaskContext createTaskContext(
             QueryContext queryContext,
             TaskStateMachine taskStateMachine,
@@ -293,6 +298,11 @@ public class TaskContext
         return cpuTimerEnabled;
     }
 
+    public PageCompressionStats getPageCompressionStats()
+    {
+        return pageCompressionStats;
+    }
+
     public CounterStat getInputDataSize()
     {
         CounterStat stat = new CounterStat();
@@ -365,6 +375,11 @@ public class TaskContext
         return toIntExact(max(0, endFullGcCount - startFullGcCount));
     }
 
+    public void addCompileTime(long nanos)
+    {
+        compileTimeNanos.addAndGet(nanos);
+    }
+
     public TaskStats getTaskStats()
     {
         // check for end state to avoid callback ordering problems
@@ -504,6 +519,7 @@ public class TaskContext
                 succinctBytes(physicalWrittenDataSize),
                 fullGcCount,
                 fullGcTime,
+                new Duration(compileTimeNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
                 pipelineStats);
     }
 
@@ -98,7 +98,7 @@ public class TaskOutputOperator
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
         this.pagePreprocessor = requireNonNull(pagePreprocessor, "pagePreprocessor is null");
-        this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
+        this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde(operatorContext.getDriverContext().getPageCompressionStats());
     }
 
     @Override
@@ -77,6 +77,8 @@ public class TaskStats
     private final int fullGcCount;
     private final Duration fullGcTime;
 
+    private final Duration compileTime;
+
     private final List<PipelineStats> pipelines;
 
     public TaskStats(DateTime createTime, DateTime endTime)
@@ -114,6 +116,7 @@ public class TaskStats
                 new DataSize(0, BYTE),
                 0,
                 new Duration(0, MILLISECONDS),
+                new Duration(0, MILLISECONDS),
                 ImmutableList.of());
     }
 
@@ -161,6 +164,8 @@ public class TaskStats
             @JsonProperty("fullGcCount") int fullGcCount,
             @JsonProperty("fullGcTime") Duration fullGcTime,
 
+            @JsonProperty("compileTime") Duration compileTime,
+
             @JsonProperty("pipelines") List<PipelineStats> pipelines)
     {
         this.createTime = requireNonNull(createTime, "createTime is null");
@@ -219,6 +224,8 @@ public class TaskStats
         this.fullGcCount = fullGcCount;
         this.fullGcTime = requireNonNull(fullGcTime, "fullGcTime is null");
 
+        this.compileTime = requireNonNull(compileTime, "compileTime is null");
+
         this.pipelines = ImmutableList.copyOf(requireNonNull(pipelines, "pipelines is null"));
     }
 
@@ -430,6 +437,12 @@ public class TaskStats
         return fullGcTime;
     }
 
+    @JsonProperty
+    public Duration getCompileTime()
+    {
+        return compileTime;
+    }
+
     public TaskStats summarize()
     {
         return new TaskStats(
@@ -466,6 +479,7 @@ public class TaskStats
                 physicalWrittenDataSize,
                 fullGcCount,
                 fullGcTime,
+                compileTime,
                 ImmutableList.of());
     }
 
@@ -505,6 +519,7 @@ public class TaskStats
                 physicalWrittenDataSize,
                 fullGcCount,
                 fullGcTime,
+                compileTime,
                 pipelines.stream()
                         .map(PipelineStats::summarize)
                         .collect(Collectors.toList()));
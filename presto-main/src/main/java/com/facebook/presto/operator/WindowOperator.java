@@ -21,13 +21,18 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -36,11 +41,14 @@ import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
+import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 
@@ -63,6 +71,8 @@ public class WindowOperator
         private final int expectedPositions;
         private boolean closed;
         private final PagesIndex.Factory pagesIndexFactory;
+        private final boolean spillEnabled;
+        private final SpillerFactory spillerFactory;
 
         public WindowOperatorFactory(
                 int operatorId,
@@ -77,6 +87,41 @@ public class WindowOperator
                 int preSortedChannelPrefix,
                 int expectedPositions,
                 PagesIndex.Factory pagesIndexFactory)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    windowFunctionDefinitions,
+                    partitionChannels,
+                    preGroupedChannels,
+                    sortChannels,
+                    sortOrder,
+                    preSortedChannelPrefix,
+                    expectedPositions,
+                    pagesIndexFactory,
+                    false,
+                    (types, spillContext, memoryContext) -> {
+                        throw new UnsupportedOperationException();
+                    });
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> preGroupedChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int preSortedChannelPrefix,
+                int expectedPositions,
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                SpillerFactory spillerFactory)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(planNodeId, "planNodeId is null");
@@ -104,6 +149,8 @@ public class WindowOperator
             this.sortOrder = ImmutableList.copyOf(sortOrder);
             this.preSortedChannelPrefix = preSortedChannelPrefix;
             this.expectedPositions = expectedPositions;
+            this.spillEnabled = spillEnabled;
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         }
 
         @Override
@@ -123,7 +170,9 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory);
         }
 
         @Override
@@ -147,7 +196,9 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory);
         }
     }
 
@@ -155,20 +206,25 @@ public class WindowOperator
     {
         NEEDS_INPUT,
         HAS_OUTPUT,
+        SPILLING_LAST_RUN,
         FINISHING,
         FINISHED
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
     private final List<FramedWindowFunction> windowFunctions;
     private final List<Integer> orderChannels;
     private final List<SortOrder> ordering;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
     private final int[] preGroupedChannels;
+    private final int[] partitionChannels;
 
     private final PagesHashStrategy preGroupedPartitionHashStrategy;
+    private final PagesHashStrategy partitionHashStrategy;
     private final PagesHashStrategy unGroupedPartitionHashStrategy;
     private final PagesHashStrategy preSortedPartitionHashStrategy;
     private final PagesHashStrategy peerGroupHashStrategy;
@@ -186,6 +242,14 @@ public class WindowOperator
 
     private Page pendingInput;
 
+    private final boolean spillEnabled;
+    private final SpillerFactory spillerFactory;
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    // the index has been spilled by a memory revoke, but is not cleared until the revoke is finished
+    private boolean revokePending;
+    private Optional<WorkProcessor<Page>> mergedPages = Optional.empty();
+
     public WindowOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -197,7 +261,9 @@ public class WindowOperator
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix,
             int expectedPositions,
-            PagesIndex.Factory pagesIndexFactory)
+            PagesIndex.Factory pagesIndexFactory,
+            boolean spillEnabled,
+            SpillerFactory spillerFactory)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -213,7 +279,9 @@ public class WindowOperator
         checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
 
         this.operatorContext = operatorContext;
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
         this.outputChannels = Ints.toArray(outputChannels);
         this.windowFunctions = windowFunctionDefinitions.stream()
                 .map(functionDefinition -> new FramedWindowFunction(functionDefinition.createWindowFunction(), functionDefinition.getFrameInfo()))
@@ -229,6 +297,8 @@ public class WindowOperator
         this.pagesIndex = pagesIndexFactory.newPagesIndex(sourceTypes, expectedPositions);
         this.preGroupedChannels = Ints.toArray(preGroupedChannels);
         this.preGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(preGroupedChannels, OptionalInt.empty());
+        this.partitionChannels = Ints.toArray(partitionChannels);
+        this.partitionHashStrategy = pagesIndex.createPagesHashStrategy(partitionChannels, OptionalInt.empty());
         List<Integer> unGroupedPartitionChannels = partitionChannels.stream()
                 .filter(channel -> !preGroupedChannels.contains(channel))
                 .collect(toImmutableList());
@@ -252,6 +322,11 @@ public class WindowOperator
             this.ordering = ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder));
         }
 
+        // Spilling is only supported when the whole input is buffered before it is sorted, as sorted runs
+        // can then be merged back by the partition and sort channels, one partition at a time.
+        this.spillEnabled = spillEnabled && preGroupedChannels.isEmpty() && preSortedChannelPrefix == 0;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+
         windowInfo = new WindowInfo.DriverWindowInfoBuilder();
         operatorContext.setInfoSupplier(this::getWindowInfo);
     }
@@ -270,14 +345,37 @@ public class WindowOperator
     @Override
     public void finish()
     {
-        if (state == State.FINISHING || state == State.FINISHED) {
+        if (state == State.SPILLING_LAST_RUN || state == State.FINISHING || state == State.FINISHED) {
             return;
         }
         if (state == State.NEEDS_INPUT) {
+            // while a revoke is pending, the index still holds the rows of the run that was spilled
+            if (revokePending) {
+                return;
+            }
+            checkSuccess(spillInProgress, "spilling failed");
+
+            if (spiller.isPresent()) {
+                // spill the remaining input as the last sorted run
+                sortPagesIndexIfNecessary();
+                spillInProgress = spiller.get().spill(pagesIndex.getSortedPages());
+                state = State.SPILLING_LAST_RUN;
+                return;
+            }
             // Since was waiting for more input, prepare what we have for output since we will not be getting any more input
             finishPagesIndex();
         }
         state = State.FINISHING;
+        updateMemoryUsage();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (state == State.SPILLING_LAST_RUN) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
@@ -289,7 +387,7 @@ public class WindowOperator
     @Override
     public boolean needsInput()
     {
-        return state == State.NEEDS_INPUT;
+        return state == State.NEEDS_INPUT && spillInProgress.isDone();
     }
 
     @Override
@@ -298,6 +396,7 @@ public class WindowOperator
         checkState(state == State.NEEDS_INPUT, "Operator can not take input at this time");
         requireNonNull(page, "page is null");
         checkState(pendingInput == null, "Operator already has pending input");
+        checkSuccess(spillInProgress, "spilling failed");
 
         if (page.getPositionCount() == 0) {
             return;
@@ -307,7 +406,98 @@ public class WindowOperator
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
+    }
+
+    private void updateMemoryUsage()
+    {
+        long bytes = pagesIndex.getEstimatedSize().toBytes();
+        if (spillEnabled && state == State.NEEDS_INPUT) {
+            localRevocableMemoryContext.setBytes(bytes);
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(bytes);
+        }
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (state != State.NEEDS_INPUT || pagesIndex.getPositionCount() == 0) {
+            return NOT_BLOCKED;
+        }
+        checkState(spillEnabled, "Spill not enabled, no revokable memory should be reserved");
+        checkState(spillInProgress.isDone(), "Previous spill still in progress");
+
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(
+                    sourceTypes,
+                    operatorContext.getSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+
+        sortPagesIndexIfNecessary();
+        spillInProgress = spiller.get().spill(pagesIndex.getSortedPages());
+        revokePending = true;
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (!revokePending) {
+            return;
+        }
+        revokePending = false;
+        pagesIndex.clear();
+        updateMemoryUsage();
+    }
+
+    private void mergeSpilledRuns(Spiller spiller)
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+        pagesIndex.clear();
+
+        List<WorkProcessor<Page>> sortedRuns = spiller.getSpills().stream()
+                .map(WorkProcessor::fromIterator)
+                .collect(toImmutableList());
+        // spilled runs are read synchronously, so the merge is never asked to yield
+        mergedPages = Optional.of(mergeSortedPages(
+                sortedRuns,
+                new SimplePageWithPositionComparator(sourceTypes, orderChannels, ordering),
+                sourceTypes,
+                operatorContext.newAggregateSystemMemoryContext(),
+                new DriverYieldSignal()));
+    }
+
+    /**
+     * Loads the next partition of the merged spilled runs into the (empty) pagesIndex.
+     *
+     * @return true if a partition has been loaded, false if all spilled runs have been consumed
+     */
+    private boolean loadSpilledPartition(WorkProcessor<Page> pages)
+    {
+        while (true) {
+            if (pendingInput == null) {
+                checkState(pages.process(), "merging of spilled runs should not yield");
+                if (pages.isFinished()) {
+                    break;
+                }
+                pendingInput = pages.getResult();
+            }
+            pendingInput = updatePagesIndex(pendingInput, partitionChannels, partitionHashStrategy);
+            if (pendingInput != null) {
+                break;
+            }
+        }
+
+        if (pagesIndex.getPositionCount() == 0) {
+            return false;
+        }
+        // the merged runs are already sorted by the partition and sort channels
+        windowInfo.addIndex(pagesIndex);
+        return true;
     }
 
     /**
@@ -316,7 +506,7 @@ public class WindowOperator
     private boolean processPendingInput()
     {
         checkState(pendingInput != null);
-        pendingInput = updatePagesIndex(pendingInput);
+        pendingInput = updatePagesIndex(pendingInput, preGroupedChannels, preGroupedPartitionHashStrategy);
 
         // If we have unused input or are finishing, then we have buffered a full group
         if (pendingInput != null || state == State.FINISHING) {
@@ -332,15 +522,15 @@ public class WindowOperator
      * @return the unused section of the page, or null if fully applied.
      * pagesIndex guaranteed to have at least one row after this method returns
      */
-    private Page updatePagesIndex(Page page)
+    private Page updatePagesIndex(Page page, int[] groupChannels, PagesHashStrategy groupHashStrategy)
     {
         checkArgument(page.getPositionCount() > 0);
 
         // TODO: Fix pagesHashStrategy to allow specifying channels for comparison, it currently requires us to rearrange the right side blocks in consecutive channel order
-        Page preGroupedPage = rearrangePage(page, preGroupedChannels);
-        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage)) {
-            // Find the position where the pre-grouped columns change
-            int groupEnd = findGroupEnd(preGroupedPage, preGroupedPartitionHashStrategy, 0);
+        Page groupedPage = rearrangePage(page, groupChannels);
+        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(groupHashStrategy, 0, 0, groupedPage)) {
+            // Find the position where the grouped columns change
+            int groupEnd = findGroupEnd(groupedPage, groupHashStrategy, 0);
 
             // Add the section of the page that contains values for the current group
             pagesIndex.addPage(page.getRegion(0, groupEnd));
@@ -372,12 +562,19 @@ public class WindowOperator
     @Override
     public Page getOutput()
     {
+        if (state == State.SPILLING_LAST_RUN) {
+            if (!spillInProgress.isDone()) {
+                return null;
+            }
+            mergeSpilledRuns(spiller.get());
+            state = State.FINISHING;
+        }
         if (state == State.NEEDS_INPUT || state == State.FINISHED) {
             return null;
         }
 
         Page page = extractOutput();
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
         return page;
     }
 
@@ -395,8 +592,8 @@ public class WindowOperator
                     partition = null;
                     pagesIndex.clear();
 
-                    // Try to extract more partitions from the pendingInput
-                    if (pendingInput != null && processPendingInput()) {
+                    // Try to extract more partitions from the pendingInput or from the spilled runs
+                    if (loadNextPartitions()) {
                         partitionStart = 0;
                     }
                     else if (state == State.FINISHING) {
@@ -428,6 +625,14 @@ public class WindowOperator
         return page;
     }
 
+    private boolean loadNextPartitions()
+    {
+        if (mergedPages.isPresent()) {
+            return loadSpilledPartition(mergedPages.get());
+        }
+        return pendingInput != null && processPendingInput();
+    }
+
     private void sortPagesIndexIfNecessary()
     {
         if (pagesIndex.getPositionCount() > 1 && !orderChannels.isEmpty()) {
@@ -525,5 +730,15 @@ public class WindowOperator
     public void close()
     {
         driverWindowInfo.set(Optional.of(windowInfo.build()));
+
+        try (Closer closer = Closer.create()) {
+            closer.register(pagesIndex::clear);
+            spiller.ifPresent(closer::register);
+            closer.register(() -> localUserMemoryContext.setBytes(0));
+            closer.register(() -> localRevocableMemoryContext.setBytes(0));
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
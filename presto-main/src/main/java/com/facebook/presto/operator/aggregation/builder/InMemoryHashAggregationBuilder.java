@@ -64,6 +64,7 @@ public class InMemoryHashAggregationBuilder
     private final LocalMemoryContext localUserMemoryContext;
 
     private boolean full;
+    private long inputPositions;
 
     public InMemoryHashAggregationBuilder(
             List<AccumulatorFactory> accumulatorFactories,
@@ -158,6 +159,7 @@ public class InMemoryHashAggregationBuilder
     @Override
     public Work<?> processPage(Page page)
     {
+        inputPositions += page.getPositionCount();
         if (aggregators.isEmpty()) {
             return groupByHash.addPage(page);
         }
@@ -249,6 +251,11 @@ public class InMemoryHashAggregationBuilder
         return groupByHash.getGroupCount();
     }
 
+    public long getInputPositions()
+    {
+        return inputPositions;
+    }
+
     @Override
     public WorkProcessor<Page> buildResult()
     {
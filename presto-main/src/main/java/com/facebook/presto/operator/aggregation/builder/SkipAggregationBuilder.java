@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation.builder;
+
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.CompletedWork;
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.operator.HashCollisionsCounter;
+import com.facebook.presto.operator.Work;
+import com.facebook.presto.operator.WorkProcessor;
+import com.facebook.presto.operator.WorkProcessor.ProcessorState;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.operator.aggregation.GroupedAccumulator;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Partial aggregation builder used once the partial aggregation stopped reducing
+ * the number of rows. Instead of hashing the input, every row becomes a group of
+ * its own and is emitted right away with the intermediate state of the aggregations.
+ */
+public class SkipAggregationBuilder
+        implements HashAggregationBuilder
+{
+    private final LocalMemoryContext memoryContext;
+    private final int[] groupByChannels;
+    private final Optional<Integer> hashChannel;
+    private final List<AccumulatorFactory> accumulatorFactories;
+    @Nullable
+    private Page currentPage;
+
+    public SkipAggregationBuilder(
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            List<AccumulatorFactory> accumulatorFactories,
+            LocalMemoryContext memoryContext)
+    {
+        this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+        this.groupByChannels = Ints.toArray(requireNonNull(groupByChannels, "groupByChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.accumulatorFactories = ImmutableList.copyOf(requireNonNull(accumulatorFactories, "accumulatorFactories is null"));
+    }
+
+    @Override
+    public Work<?> processPage(Page page)
+    {
+        checkArgument(currentPage == null, "previous page has not been consumed");
+        currentPage = requireNonNull(page, "page is null");
+        return new CompletedWork<>(page);
+    }
+
+    @Override
+    public WorkProcessor<Page> buildResult()
+    {
+        return WorkProcessor.create(() -> {
+            if (currentPage == null) {
+                return ProcessorState.finished();
+            }
+
+            Page result = buildOutputPage(currentPage);
+            currentPage = null;
+            return ProcessorState.ofResult(result);
+        });
+    }
+
+    @Override
+    public boolean isFull()
+    {
+        return currentPage != null;
+    }
+
+    @Override
+    public void updateMemory()
+    {
+        memoryContext.setBytes(currentPage == null ? 0 : currentPage.getSizeInBytes());
+    }
+
+    @Override
+    public void recordHashCollisions(HashCollisionsCounter hashCollisionsCounter)
+    {
+        // no hashing is done
+    }
+
+    @Override
+    public void close()
+    {
+        currentPage = null;
+        memoryContext.setBytes(0);
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        throw new UnsupportedOperationException("startMemoryRevoke not supported for SkipAggregationBuilder");
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        throw new UnsupportedOperationException("finishMemoryRevoke not supported for SkipAggregationBuilder");
+    }
+
+    private Page buildOutputPage(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        Block[] outputBlocks = new Block[groupByChannels.length + (hashChannel.isPresent() ? 1 : 0) + accumulatorFactories.size()];
+
+        int outputChannel = 0;
+        for (int groupByChannel : groupByChannels) {
+            outputBlocks[outputChannel++] = page.getBlock(groupByChannel);
+        }
+        if (hashChannel.isPresent()) {
+            outputBlocks[outputChannel++] = page.getBlock(hashChannel.get());
+        }
+
+        // every row is a group of its own
+        BlockBuilder groupIdsBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            BIGINT.writeLong(groupIdsBuilder, position);
+        }
+        GroupByIdBlock groupIds = new GroupByIdBlock(positionCount, groupIdsBuilder.build());
+
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            GroupedAccumulator accumulator = accumulatorFactory.createGroupedAccumulator();
+            accumulator.addInput(groupIds, page);
+            BlockBuilder output = accumulator.getIntermediateType().createBlockBuilder(null, positionCount);
+            for (int groupId = 0; groupId < positionCount; groupId++) {
+                accumulator.evaluateIntermediate(groupId, output);
+            }
+            outputBlocks[outputChannel++] = output.build();
+        }
+
+        return new Page(positionCount, outputBlocks);
+    }
+}
@@ -15,13 +15,16 @@ package com.facebook.presto.operator.project;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.TreeSet;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 
 public class InputChannels
 {
@@ -56,6 +59,29 @@ public class InputChannels
         return new Page(page.getPositionCount(), blocks);
     }
 
+    /**
+     * Returns the sorted channels read by either of the given lists.
+     */
+    public static InputChannels union(InputChannels first, InputChannels second)
+    {
+        TreeSet<Integer> channels = new TreeSet<>(first.getInputChannels());
+        channels.addAll(second.getInputChannels());
+        return new InputChannels(ImmutableList.copyOf(channels));
+    }
+
+    /**
+     * Returns the channels that select the blocks of {@code channels} from a page laid out as this list.
+     */
+    public InputChannels indexesOf(InputChannels channels)
+    {
+        int[] indexes = new int[channels.inputChannels.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = Ints.indexOf(inputChannels, channels.inputChannels[i]);
+            checkArgument(indexes[i] >= 0, "Channel %s is not in %s", channels.inputChannels[i], this);
+        }
+        return new InputChannels(indexes);
+    }
+
     @Override
     public String toString()
     {
@@ -24,14 +24,17 @@ import com.facebook.presto.spi.block.DictionaryId;
 import com.facebook.presto.spi.block.LazyBlock;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
 import io.airlift.slice.SizeOf;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
 import static com.facebook.presto.operator.project.PageProcessorOutput.EMPTY_PAGE_PROCESSOR_OUTPUT;
@@ -48,10 +51,13 @@ public class PageProcessor
     static final int MAX_BATCH_SIZE = 8 * 1024;
     static final int MAX_PAGE_SIZE_IN_BYTES = 4 * 1024 * 1024;
     static final int MIN_PAGE_SIZE_IN_BYTES = 1024 * 1024;
+    // decoding only the selected positions pays off when most of the positions are filtered out
+    static final double MAX_SELECTIVE_LOAD_RATIO = 0.5;
 
     private final DictionarySourceIdFunction dictionarySourceIdFunction = new DictionarySourceIdFunction();
     private final Optional<PageFilter> filter;
     private final List<PageProjection> projections;
+    private final List<BooleanSupplier> tieredExpressions;
 
     private int projectBatchSize = MAX_BATCH_SIZE;
 
@@ -72,6 +78,27 @@ public class PageProcessor
                     return projection;
                 })
                 .collect(toImmutableList());
+
+        ImmutableList.Builder<BooleanSupplier> tieredExpressions = ImmutableList.builder();
+        filter.filter(TieredPageFilter.class::isInstance)
+                .ifPresent(pageFilter -> tieredExpressions.add(((TieredPageFilter) pageFilter)::isCompiled));
+        projections.stream()
+                .filter(TieredPageProjection.class::isInstance)
+                .forEach(projection -> tieredExpressions.add(((TieredPageProjection) projection)::isCompiled));
+        this.tieredExpressions = tieredExpressions.build();
+    }
+
+    /**
+     * Returns true while the filter or any projection is still evaluated by the interpreter.
+     */
+    public boolean isInterpreted()
+    {
+        for (BooleanSupplier compiled : tieredExpressions) {
+            if (!compiled.getAsBoolean()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public PageProcessorOutput process(ConnectorSession session, DriverYieldSignal yieldSignal, Page page)
@@ -94,6 +121,11 @@ public class PageProcessor
             }
 
             if (selectedPositions.size() != page.getPositionCount()) {
+                if (isSelectiveLoadBeneficial(page, selectedPositions)) {
+                    Page selectedPage = selectPositions(page, selectedPositions);
+                    PositionsPageProcessorIterator pages = new PositionsPageProcessorIterator(session, yieldSignal, selectedPage, positionsRange(0, selectedPage.getPositionCount()));
+                    return new PageProcessorOutput(pages::getRetainedSizeInBytes, pages);
+                }
                 PositionsPageProcessorIterator pages = new PositionsPageProcessorIterator(session, yieldSignal, page, selectedPositions);
                 return new PageProcessorOutput(pages::getRetainedSizeInBytes, pages);
             }
@@ -109,6 +141,60 @@ public class PageProcessor
         return projections;
     }
 
+    private static boolean isSelectiveLoadBeneficial(Page page, SelectedPositions selectedPositions)
+    {
+        if (selectedPositions.size() > page.getPositionCount() * MAX_SELECTIVE_LOAD_RATIO) {
+            return false;
+        }
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            if ((block instanceof LazyBlock) && ((LazyBlock) block).isSelectiveLoadSupported()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compacts the page to the selected positions. The columns that were not
+     * loaded by the filter stay lazy and, when the loader supports it, only
+     * the selected positions of them are decoded.
+     */
+    private static Page selectPositions(Page page, SelectedPositions selectedPositions)
+    {
+        int positionCount = selectedPositions.size();
+        int[] positions;
+        int offset;
+        if (selectedPositions.isList()) {
+            positions = selectedPositions.getPositions();
+            offset = selectedPositions.getOffset();
+        }
+        else {
+            positions = new int[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                positions[i] = selectedPositions.getOffset() + i;
+            }
+            offset = 0;
+        }
+
+        // a block in several channels is selected once, since a selective load consumes the lazy block
+        Map<Block, Block> selectedBlocks = new IdentityHashMap<>();
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            blocks[channel] = selectedBlocks.computeIfAbsent(page.getBlock(channel), block -> {
+                if (isUnloadedLazyBlock(block)) {
+                    LazyBlock lazyBlock = (LazyBlock) block;
+                    return new LazyBlock(positionCount, selectedBlock -> selectedBlock.setBlock(lazyBlock.loadPositions(positions, offset, positionCount)));
+                }
+                if (selectedPositions.isList()) {
+                    return block.copyPositions(positions, offset, positionCount);
+                }
+                return block.getRegion(selectedPositions.getOffset(), positionCount);
+            });
+        }
+        return new Page(positionCount, blocks);
+    }
+
     private static boolean isUnloadedLazyBlock(Block block)
     {
         return (block instanceof LazyBlock) && !((LazyBlock) block).isLoaded();
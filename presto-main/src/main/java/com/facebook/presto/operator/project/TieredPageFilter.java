@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import static com.google.common.util.concurrent.Futures.getDone;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates a filter with the interpreter until its compiled version is
+ * ready, and with the compiled version from then on.
+ */
+@NotThreadSafe
+public class TieredPageFilter
+        implements PageFilter
+{
+    private final PageFilter interpreted;
+    private final ListenableFuture<Supplier<PageFilter>> compiled;
+    private final InputChannels inputChannels;
+    private final InputChannels interpretedChannels;
+
+    private PageFilter compiledFilter;
+    private InputChannels compiledChannels;
+    private boolean compilationFailed;
+
+    public TieredPageFilter(PageFilter interpreted, InputChannels compiledInputChannels, ListenableFuture<Supplier<PageFilter>> compiled)
+    {
+        this.interpreted = requireNonNull(interpreted, "interpreted is null");
+        this.compiled = requireNonNull(compiled, "compiled is null");
+        this.inputChannels = InputChannels.union(interpreted.getInputChannels(), requireNonNull(compiledInputChannels, "compiledInputChannels is null"));
+        this.interpretedChannels = inputChannels.indexesOf(interpreted.getInputChannels());
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return interpreted.isDeterministic();
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    public boolean isCompiled()
+    {
+        return getCompiledFilter() != null;
+    }
+
+    @Override
+    public SelectedPositions filter(ConnectorSession session, Page page)
+    {
+        PageFilter filter = getCompiledFilter();
+        if (filter != null) {
+            return filter.filter(session, compiledChannels.getInputChannels(page));
+        }
+        return interpreted.filter(session, interpretedChannels.getInputChannels(page));
+    }
+
+    private PageFilter getCompiledFilter()
+    {
+        if (compiledFilter != null || compilationFailed || !compiled.isDone()) {
+            return compiledFilter;
+        }
+
+        PageFilter filter;
+        try {
+            filter = getDone(compiled).get();
+        }
+        catch (ExecutionException | RuntimeException e) {
+            // the interpreter evaluates the expression just as well, so keep using it
+            compilationFailed = true;
+            return null;
+        }
+        compiledChannels = inputChannels.indexesOf(filter.getInputChannels());
+        compiledFilter = filter;
+        return compiledFilter;
+    }
+}
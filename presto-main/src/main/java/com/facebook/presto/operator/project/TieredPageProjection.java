@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.operator.DriverYieldSignal;
+import com.facebook.presto.operator.Work;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import static com.google.common.util.concurrent.Futures.getDone;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates a projection with the interpreter until its compiled version is
+ * ready, and with the compiled version from then on. The switch happens
+ * between two batches, never within one.
+ */
+@NotThreadSafe
+public class TieredPageProjection
+        implements PageProjection
+{
+    private final PageProjection interpreted;
+    private final ListenableFuture<Supplier<PageProjection>> compiled;
+    private final InputChannels inputChannels;
+    private final InputChannels interpretedChannels;
+
+    private PageProjection compiledProjection;
+    private InputChannels compiledChannels;
+    private boolean compilationFailed;
+
+    public TieredPageProjection(PageProjection interpreted, InputChannels compiledInputChannels, ListenableFuture<Supplier<PageProjection>> compiled)
+    {
+        this.interpreted = requireNonNull(interpreted, "interpreted is null");
+        this.compiled = requireNonNull(compiled, "compiled is null");
+        this.inputChannels = InputChannels.union(interpreted.getInputChannels(), requireNonNull(compiledInputChannels, "compiledInputChannels is null"));
+        this.interpretedChannels = inputChannels.indexesOf(interpreted.getInputChannels());
+    }
+
+    @Override
+    public Type getType()
+    {
+        return interpreted.getType();
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return interpreted.isDeterministic();
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    public boolean isCompiled()
+    {
+        return getCompiledProjection() != null;
+    }
+
+    @Override
+    public Work<Block> project(ConnectorSession session, DriverYieldSignal yieldSignal, Page page, SelectedPositions selectedPositions)
+    {
+        PageProjection projection = getCompiledProjection();
+        if (projection != null) {
+            return projection.project(session, yieldSignal, compiledChannels.getInputChannels(page), selectedPositions);
+        }
+        return interpreted.project(session, yieldSignal, interpretedChannels.getInputChannels(page), selectedPositions);
+    }
+
+    private PageProjection getCompiledProjection()
+    {
+        if (compiledProjection != null || compilationFailed || !compiled.isDone()) {
+            return compiledProjection;
+        }
+
+        PageProjection projection;
+        try {
+            projection = getDone(compiled).get();
+        }
+        catch (ExecutionException | RuntimeException e) {
+            // the interpreter evaluates the expression just as well, so keep using it
+            compilationFailed = true;
+            return null;
+        }
+        compiledChannels = inputChannels.indexesOf(projection.getInputChannels());
+        compiledProjection = projection;
+        return compiledProjection;
+    }
+}
@@ -64,6 +64,7 @@ public class HttpRemoteTaskFactory
     private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final Duration maxErrorDuration;
     private final Duration taskStatusRefreshMaxWait;
+    private final boolean binaryTaskStatusEnabled;
     private final Duration taskInfoUpdateInterval;
     private final ExecutorService coreExecutor;
     private final Executor executor;
@@ -89,6 +90,7 @@ public class HttpRemoteTaskFactory
         this.taskUpdateRequestCodec = taskUpdateRequestCodec;
         this.maxErrorDuration = config.getRemoteTaskMaxErrorDuration();
         this.taskStatusRefreshMaxWait = taskConfig.getStatusRefreshMaxWait();
+        this.binaryTaskStatusEnabled = taskConfig.isBinaryStatusEnabled();
         this.taskInfoUpdateInterval = taskConfig.getInfoUpdateInterval();
         this.coreExecutor = newCachedThreadPool(daemonThreadsNamed("remote-task-callback-%s"));
         this.executor = new BoundedExecutor(coreExecutor, config.getRemoteTaskMaxCallbackThreads());
@@ -139,6 +141,7 @@ public class HttpRemoteTaskFactory
                 errorScheduledExecutor,
                 maxErrorDuration,
                 taskStatusRefreshMaxWait,
+                binaryTaskStatusEnabled,
                 taskInfoUpdateInterval,
                 summarizeTaskInfo,
                 taskStatusCodec,
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.TaskStatus;
+import io.airlift.slice.Slice;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_TASK_STATUS;
+import static com.facebook.presto.execution.TaskStatusBinaryCodec.encode;
+
+@Provider
+@Produces(PRESTO_TASK_STATUS)
+public class TaskStatusResponseWriter
+        implements MessageBodyWriter<TaskStatus>
+{
+    private static final MediaType PRESTO_TASK_STATUS_TYPE = MediaType.valueOf(PRESTO_TASK_STATUS);
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return TaskStatus.class.isAssignableFrom(type) && mediaType.isCompatible(PRESTO_TASK_STATUS_TYPE);
+    }
+
+    @Override
+    public long getSize(TaskStatus taskStatus, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(TaskStatus taskStatus,
+            Class<?> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream output)
+            throws IOException, WebApplicationException
+    {
+        Slice slice = encode(taskStatus);
+        output.write(slice.byteArray(), slice.byteArrayOffset(), slice.length());
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.protocol;
+
+import com.facebook.presto.client.ColumnarData;
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.SqlVarbinary;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarcharType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static com.facebook.presto.client.ColumnarData.BINARY;
+import static com.facebook.presto.client.ColumnarData.BOOLEAN;
+import static com.facebook.presto.client.ColumnarData.DATE;
+import static com.facebook.presto.client.ColumnarData.DOUBLE;
+import static com.facebook.presto.client.ColumnarData.JSON;
+import static com.facebook.presto.client.ColumnarData.LONG;
+import static com.facebook.presto.client.ColumnarData.LONG_DECIMAL;
+import static com.facebook.presto.client.ColumnarData.REAL;
+import static com.facebook.presto.client.ColumnarData.SHORT_DECIMAL;
+import static com.facebook.presto.client.ColumnarData.STRING;
+import static com.facebook.presto.client.ColumnarData.TIME;
+import static com.facebook.presto.client.ColumnarData.TIMESTAMP;
+import static com.facebook.presto.client.ColumnarData.TIMESTAMP_WITH_TIME_ZONE;
+import static com.facebook.presto.client.ColumnarData.TIME_WITH_TIME_ZONE;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.type.Decimals.decodeUnscaledValue;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Encodes result pages in the {@link ColumnarData} format. Primitive, temporal and
+ * decimal values are written straight from the blocks, so only nested types and the
+ * remaining types rendered as text pay for building a value object.
+ */
+final class ColumnarDataEncoder
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapperProvider().get();
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+
+    private ColumnarDataEncoder() {}
+
+    /**
+     * Creates the body of a {@link ColumnarData#MEDIA_TYPE} response: the length of
+     * the JSON encoded results, the JSON, and the columnar data, if any.
+     */
+    public static byte[] encodeResponse(QueryResults queryResults)
+    {
+        byte[] json = QUERY_RESULTS_CODEC.toJsonBytes(queryResults);
+        byte[] data = queryResults.getColumnarData();
+        int dataLength = (data == null) ? 0 : data.length;
+
+        SliceOutput output = new DynamicSliceOutput(SIZE_OF_INT + json.length + dataLength);
+        output.writeInt(json.length);
+        output.writeBytes(json);
+        if (data != null) {
+            output.writeBytes(data);
+        }
+        return output.slice().getBytes();
+    }
+
+    public static byte[] encode(ConnectorSession session, List<Type> types, List<Page> pages)
+    {
+        // legacy time and timestamp values are rendered in the session time zone
+        ZoneId sessionZone = session.isLegacyTimestamp() ? ZoneId.of(session.getTimeZoneKey().getId()) : null;
+
+        int positionCount = pages.stream().mapToInt(Page::getPositionCount).sum();
+        long sizeInBytes = pages.stream().mapToLong(Page::getSizeInBytes).sum();
+
+        SliceOutput output = new DynamicSliceOutput(toIntExact(sizeInBytes));
+        output.writeByte(ColumnarData.FORMAT_VERSION);
+        output.writeInt(positionCount);
+        output.writeInt(types.size());
+        for (int channel = 0; channel < types.size(); channel++) {
+            Type type = types.get(channel);
+            byte encoding = getEncoding(type);
+            output.writeByte(encoding);
+            for (Page page : pages) {
+                Block block = page.getBlock(channel);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    output.writeBoolean(block.isNull(position));
+                }
+            }
+            for (Page page : pages) {
+                Block block = page.getBlock(channel);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    if (!block.isNull(position)) {
+                        writeValue(output, session, sessionZone, type, encoding, block, position);
+                    }
+                }
+            }
+        }
+        return output.slice().getBytes();
+    }
+
+    private static byte getEncoding(Type type)
+    {
+        switch (type.getTypeSignature().getBase()) {
+            case StandardTypes.BIGINT:
+            case StandardTypes.INTEGER:
+            case StandardTypes.SMALLINT:
+            case StandardTypes.TINYINT:
+                return LONG;
+            case StandardTypes.DOUBLE:
+                return DOUBLE;
+            case StandardTypes.REAL:
+                return REAL;
+            case StandardTypes.BOOLEAN:
+                return BOOLEAN;
+            case StandardTypes.DECIMAL:
+                return ((DecimalType) type).isShort() ? SHORT_DECIMAL : LONG_DECIMAL;
+            case StandardTypes.DATE:
+                return DATE;
+            case StandardTypes.TIME:
+                return TIME;
+            case StandardTypes.TIME_WITH_TIME_ZONE:
+                return TIME_WITH_TIME_ZONE;
+            case StandardTypes.TIMESTAMP:
+                return TIMESTAMP;
+            case StandardTypes.TIMESTAMP_WITH_TIME_ZONE:
+                return TIMESTAMP_WITH_TIME_ZONE;
+            case StandardTypes.VARCHAR:
+            case StandardTypes.CHAR:
+            case StandardTypes.JSON:
+            case StandardTypes.INTERVAL_YEAR_TO_MONTH:
+            case StandardTypes.INTERVAL_DAY_TO_SECOND:
+            case StandardTypes.IPADDRESS:
+            case StandardTypes.GEOMETRY:
+                return STRING;
+            case StandardTypes.VARBINARY:
+                return BINARY;
+            default:
+                return JSON;
+        }
+    }
+
+    private static void writeValue(SliceOutput output, ConnectorSession session, ZoneId sessionZone, Type type, byte encoding, Block block, int position)
+    {
+        switch (encoding) {
+            case LONG:
+            case TIME_WITH_TIME_ZONE:
+            case TIMESTAMP_WITH_TIME_ZONE:
+            case SHORT_DECIMAL:
+                output.writeLong(type.getLong(block, position));
+                return;
+            case DATE:
+                output.writeInt(toIntExact(type.getLong(block, position)));
+                return;
+            case TIME:
+            case TIMESTAMP:
+                output.writeLong(toLocalMillis(type.getLong(block, position), sessionZone));
+                return;
+            case LONG_DECIMAL:
+                writeBytes(output, decodeUnscaledValue(type.getSlice(block, position)).toByteArray());
+                return;
+            case DOUBLE:
+                output.writeDouble(type.getDouble(block, position));
+                return;
+            case REAL:
+                output.writeFloat(intBitsToFloat((int) type.getLong(block, position)));
+                return;
+            case BOOLEAN:
+                output.writeBoolean(type.getBoolean(block, position));
+                return;
+            case STRING:
+                if (type instanceof VarcharType) {
+                    // varchar values are already UTF-8 encoded
+                    writeBytes(output, type.getSlice(block, position));
+                    return;
+                }
+                writeBytes(output, utf8Slice(type.getObjectValue(session, block, position).toString()));
+                return;
+            case BINARY:
+                writeBytes(output, ((SqlVarbinary) type.getObjectValue(session, block, position)).getBytes());
+                return;
+            case JSON:
+                try {
+                    writeBytes(output, OBJECT_MAPPER.writeValueAsBytes(type.getObjectValue(session, block, position)));
+                }
+                catch (JsonProcessingException e) {
+                    throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to encode value of type " + type, e);
+                }
+                return;
+            default:
+                throw new IllegalArgumentException("Unknown encoding: " + encoding);
+        }
+    }
+
+    private static long toLocalMillis(long millis, ZoneId sessionZone)
+    {
+        if (sessionZone == null) {
+            return millis;
+        }
+        return millis + SECONDS.toMillis(sessionZone.getRules().getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds());
+    }
+
+    private static void writeBytes(SliceOutput output, Slice slice)
+    {
+        output.writeInt(slice.length());
+        output.writeBytes(slice);
+    }
+
+    private static void writeBytes(SliceOutput output, byte[] bytes)
+    {
+        output.writeInt(bytes.length);
+        output.writeBytes(bytes);
+    }
+}
@@ -23,6 +23,7 @@ import com.facebook.presto.client.StatementStats;
 import com.facebook.presto.execution.QueryExecution;
 import com.facebook.presto.execution.QueryInfo;
 import com.facebook.presto.execution.QueryManager;
+import com.facebook.presto.execution.QueryResultCache;
 import com.facebook.presto.execution.QueryState;
 import com.facebook.presto.execution.QueryStats;
 import com.facebook.presto.execution.StageInfo;
@@ -33,6 +34,7 @@ import com.facebook.presto.execution.buffer.SerializedPage;
 import com.facebook.presto.metadata.SessionPropertyManager;
 import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.server.SessionContext;
+import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ErrorCode;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.QueryId;
@@ -77,6 +79,7 @@ import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static com.facebook.presto.util.Failures.toFailure;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Iterables.transform;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.MoreFutures.addSuccessCallback;
@@ -92,6 +95,7 @@ class Query
     private static final long DESIRED_RESULT_BYTES = new DataSize(1, MEGABYTE).toBytes();
 
     private final QueryManager queryManager;
+    private final QueryResultCache queryResultCache;
     private final QueryId queryId;
 
     @GuardedBy("this")
@@ -108,6 +112,7 @@ class Query
     private final QuerySubmissionFuture submissionFuture;
     private final SessionPropertyManager sessionPropertyManager;
     private final BlockEncodingSerde blockEncodingSerde;
+    private final boolean columnarResults;
 
     @GuardedBy("this")
     private Session session;
@@ -155,13 +160,15 @@ class Query
             SessionContext sessionContext,
             String query,
             QueryManager queryManager,
+            QueryResultCache queryResultCache,
             SessionPropertyManager sessionPropertyManager,
             ExchangeClient exchangeClient,
             Executor dataProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
-            BlockEncodingSerde blockEncodingSerde)
+            BlockEncodingSerde blockEncodingSerde,
+            boolean columnarResults)
     {
-        Query result = new Query(sessionContext, query, queryManager, sessionPropertyManager, exchangeClient, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde);
+        Query result = new Query(sessionContext, query, queryManager, queryResultCache, sessionPropertyManager, exchangeClient, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde, columnarResults);
 
         // register listeners after submission finishes
         addSuccessCallback(result.submissionFuture, () -> {
@@ -182,15 +189,18 @@ class Query
             SessionContext sessionContext,
             String query,
             QueryManager queryManager,
+            QueryResultCache queryResultCache,
             SessionPropertyManager sessionPropertyManager,
             ExchangeClient exchangeClient,
             Executor resultsProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
-            BlockEncodingSerde blockEncodingSerde)
+            BlockEncodingSerde blockEncodingSerde,
+            boolean columnarResults)
     {
         requireNonNull(sessionContext, "sessionContext is null");
         requireNonNull(query, "query is null");
         requireNonNull(queryManager, "queryManager is null");
+        requireNonNull(queryResultCache, "queryResultCache is null");
         requireNonNull(sessionPropertyManager, "sessionPropertyManager is null");
         requireNonNull(exchangeClient, "exchangeClient is null");
         requireNonNull(resultsProcessorExecutor, "resultsProcessorExecutor is null");
@@ -198,6 +208,7 @@ class Query
         requireNonNull(blockEncodingSerde, "serde is null");
 
         this.queryManager = queryManager;
+        this.queryResultCache = queryResultCache;
         this.sessionPropertyManager = sessionPropertyManager;
 
         queryId = queryManager.createQueryId();
@@ -206,6 +217,7 @@ class Query
         this.resultsProcessorExecutor = resultsProcessorExecutor;
         this.timeoutExecutor = timeoutExecutor;
         this.blockEncodingSerde = blockEncodingSerde;
+        this.columnarResults = columnarResults;
     }
 
     public boolean isSubmissionFinished()
@@ -227,6 +239,8 @@ class Query
 
     public synchronized void dispose()
     {
+        // the remaining output is dropped, so it cannot be cached
+        queryResultCache.abortCapture(queryId);
         exchangeClient.close();
     }
 
@@ -235,6 +249,11 @@ class Query
         return queryId;
     }
 
+    public boolean isColumnarResults()
+    {
+        return columnarResults;
+    }
+
     public synchronized Optional<String> getSetCatalog()
     {
         return setCatalog;
@@ -392,8 +411,9 @@ class Query
         // last page is removed.  If another thread observes this state before the response is cached
         // the pages will be lost.
         Iterable<List<Object>> data = null;
+        byte[] columnarData = null;
         try {
-            ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
             long bytes = 0;
             long rows = 0;
             while (bytes < DESIRED_RESULT_BYTES) {
@@ -405,11 +425,17 @@ class Query
                 Page page = serde.deserialize(serializedPage);
                 bytes += page.getSizeInBytes();
                 rows += page.getPositionCount();
-                pages.add(new RowIterable(session.toConnectorSession(), types, page));
+                pages.add(page);
             }
+            List<Page> resultPages = pages.build();
+            queryResultCache.addPages(queryId, resultPages);
             if (rows > 0) {
                 // client implementations do not properly handle empty list of data
-                data = Iterables.concat(pages.build());
+                ConnectorSession connectorSession = session.toConnectorSession();
+                data = Iterables.concat(transform(resultPages, page -> new RowIterable(connectorSession, types, page)));
+                if (columnarResults) {
+                    columnarData = ColumnarDataEncoder.encode(connectorSession, types, resultPages);
+                }
             }
         }
         catch (Throwable cause) {
@@ -440,6 +466,12 @@ class Query
         if ((queryInfo.getState() == QueryState.FINISHED) && !queryInfo.getOutputStage().isPresent()) {
             columns = ImmutableList.of(new Column("result", BooleanType.BOOLEAN));
             data = ImmutableSet.of(ImmutableList.of(true));
+            columnarData = null;
+        }
+
+        // the row data is only used for the update count when sent in the columnar encoding
+        if (columnarData != null) {
+            data = null;
         }
 
         // only return a next if the query is not done or there is more data to send (due to buffering)
@@ -447,6 +479,10 @@ class Query
         if (!queryInfo.isFinalQueryInfo() || !exchangeClient.isClosed()) {
             nextResultsUri = createNextResultsUri(scheme, uriInfo);
         }
+        else if (queryInfo.getState() == QueryState.FINISHED) {
+            // all the output has been read
+            queryResultCache.finishCapture(queryId);
+        }
 
         // update catalog and schema
         setCatalog = queryInfo.getSetCatalog();
@@ -472,6 +508,7 @@ class Query
                 nextResultsUri,
                 columns,
                 data,
+                columnarData,
                 toStatementStats(queryInfo),
                 toQueryError(queryInfo),
                 queryInfo.getUpdateType(),
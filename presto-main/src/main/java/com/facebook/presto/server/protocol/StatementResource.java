@@ -13,8 +13,10 @@
  */
 package com.facebook.presto.server.protocol;
 
+import com.facebook.presto.client.ColumnarData;
 import com.facebook.presto.client.QueryResults;
 import com.facebook.presto.execution.QueryManager;
+import com.facebook.presto.execution.QueryResultCache;
 import com.facebook.presto.memory.context.SimpleLocalMemoryContext;
 import com.facebook.presto.metadata.SessionPropertyManager;
 import com.facebook.presto.operator.ExchangeClient;
@@ -63,6 +65,7 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_ADDED_PREPARE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_TRANSACTION_ID;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_DEALLOCATED_PREPARE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_RESULT_FORMAT;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_CATALOG;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_SCHEMA;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_SESSION;
@@ -85,6 +88,7 @@ public class StatementResource
     private static final Ordering<Comparable<Duration>> WAIT_ORDERING = Ordering.natural().nullsLast();
 
     private final QueryManager queryManager;
+    private final QueryResultCache queryResultCache;
     private final SessionPropertyManager sessionPropertyManager;
     private final ExchangeClientSupplier exchangeClientSupplier;
     private final BlockEncodingSerde blockEncodingSerde;
@@ -97,6 +101,7 @@ public class StatementResource
     @Inject
     public StatementResource(
             QueryManager queryManager,
+            QueryResultCache queryResultCache,
             SessionPropertyManager sessionPropertyManager,
             ExchangeClientSupplier exchangeClientSupplier,
             BlockEncodingSerde blockEncodingSerde,
@@ -104,6 +109,7 @@ public class StatementResource
             @ForStatementResource ScheduledExecutorService timeoutExecutor)
     {
         this.queryManager = requireNonNull(queryManager, "queryManager is null");
+        this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
         this.sessionPropertyManager = requireNonNull(sessionPropertyManager, "sessionPropertyManager is null");
         this.exchangeClientSupplier = requireNonNull(exchangeClientSupplier, "exchangeClientSupplier is null");
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
@@ -120,10 +126,11 @@ public class StatementResource
     }
 
     @POST
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, ColumnarData.MEDIA_TYPE})
     public Response createQuery(
             String statement,
             @HeaderParam(X_FORWARDED_PROTO) String proto,
+            @HeaderParam(PRESTO_RESULT_FORMAT) String resultFormat,
             @Context HttpServletRequest servletRequest,
             @Context UriInfo uriInfo)
     {
@@ -145,11 +152,13 @@ public class StatementResource
                 sessionContext,
                 statement,
                 queryManager,
+                queryResultCache,
                 sessionPropertyManager,
                 exchangeClient,
                 responseExecutor,
                 timeoutExecutor,
-                blockEncodingSerde);
+                blockEncodingSerde,
+                ColumnarData.FORMAT_NAME.equalsIgnoreCase(resultFormat));
         queries.put(query.getQueryId(), query);
 
         QueryResults queryResults = query.getNextResult(OptionalLong.empty(), uriInfo, proto);
@@ -158,7 +167,7 @@ public class StatementResource
 
     @GET
     @Path("{queryId}/{token}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, ColumnarData.MEDIA_TYPE})
     public void getQueryResults(
             @PathParam("queryId") QueryId queryId,
             @PathParam("token") long token,
@@ -191,7 +200,14 @@ public class StatementResource
 
     private static Response toResponse(Query query, QueryResults queryResults)
     {
-        ResponseBuilder response = Response.ok(queryResults);
+        ResponseBuilder response;
+        if (query.isColumnarResults()) {
+            // binary data cannot be embedded in JSON without base64 encoding it
+            response = Response.ok(ColumnarDataEncoder.encodeResponse(queryResults), ColumnarData.MEDIA_TYPE);
+        }
+        else {
+            response = Response.ok(queryResults);
+        }
 
         // add set catalog and schema
         query.getSetCatalog().ifPresent(catalog -> response.header(PRESTO_SET_CATALOG, catalog));
@@ -59,6 +59,7 @@ import javax.annotation.concurrent.GuardedBy;
 import java.net.URI;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -88,9 +89,9 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
-import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
 import static io.airlift.http.client.Request.Builder.prepareDelete;
 import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
@@ -167,6 +168,7 @@ public final class HttpRemoteTask
             ScheduledExecutorService errorScheduledExecutor,
             Duration maxErrorDuration,
             Duration taskStatusRefreshMaxWait,
+            boolean binaryTaskStatusEnabled,
             Duration taskInfoUpdateInterval,
             boolean summarizeTaskInfo,
             JsonCodec<TaskStatus> taskStatusCodec,
@@ -228,6 +230,7 @@ public final class HttpRemoteTask
                     initialTask.getTaskStatus(),
                     taskStatusRefreshMaxWait,
                     taskStatusCodec,
+                    binaryTaskStatusEnabled,
                     executor,
                     httpClient,
                     maxErrorDuration,
@@ -448,11 +451,39 @@ public final class HttpRemoteTask
                 pendingSourceSplitCount -= removed;
             }
         }
+        removeAcknowledgedSplits(newValue);
         updateSplitQueueSpace();
 
         partitionedSplitCountTracker.setPartitionedSplitCount(getPartitionedSplitCount());
     }
 
+    /**
+     * Removes the pending splits the worker reports as already received, so that
+     * splits of a failed update which did reach the worker are not sent again.
+     */
+    private synchronized boolean removeAcknowledgedSplits(TaskInfo taskInfo)
+    {
+        if (!taskInfo.getMaxAcknowledgedSplit().isPresent()) {
+            return false;
+        }
+        long maxAcknowledgedSplit = taskInfo.getMaxAcknowledgedSplit().getAsLong();
+        boolean removedAny = false;
+        int removedPartitioned = 0;
+        Iterator<ScheduledSplit> splits = pendingSplits.values().iterator();
+        while (splits.hasNext()) {
+            ScheduledSplit split = splits.next();
+            if (split.getSequenceId() <= maxAcknowledgedSplit) {
+                splits.remove();
+                removedAny = true;
+                if (planFragment.isPartitionedSources(split.getPlanNodeId())) {
+                    removedPartitioned++;
+                }
+            }
+        }
+        pendingSourceSplitCount -= removedPartitioned;
+        return removedAny;
+    }
+
     private void updateTaskInfo(TaskInfo taskInfo)
     {
         taskStatusFetcher.updateTaskStatus(taskInfo.getTaskStatus());
@@ -484,6 +515,11 @@ public final class HttpRemoteTask
             return;
         }
 
+        // only send the splits the worker does not have yet
+        if (removeAcknowledgedSplits(getTaskInfo())) {
+            updateSplitQueueSpace();
+            partitionedSplitCountTracker.setPartitionedSplitCount(getPartitionedSplitCount());
+        }
         List<TaskSource> sources = getSources();
 
         Optional<PlanFragment> fragment = Optional.empty();
@@ -497,11 +533,14 @@ public final class HttpRemoteTask
                 outputBuffers.get(),
                 totalPartitions);
 
+        byte[] updateRequestJson = taskUpdateRequestCodec.toJsonBytes(updateRequest);
+        stats.updateRequestSize(updateRequestJson.length);
+
         HttpUriBuilder uriBuilder = getHttpUriBuilder(taskStatus);
         Request request = preparePost()
                 .setUri(uriBuilder.build())
                 .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
-                .setBodyGenerator(jsonBodyGenerator(taskUpdateRequestCodec, updateRequest))
+                .setBodyGenerator(createStaticBodyGenerator(updateRequestJson))
                 .build();
 
         updateErrorTracker.startRequest();
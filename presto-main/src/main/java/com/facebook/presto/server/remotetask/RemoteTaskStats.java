@@ -24,6 +24,7 @@ public class RemoteTaskStats
     private final IncrementalAverage infoRoundTripMillis = new IncrementalAverage();
     private final IncrementalAverage statusRoundTripMillis = new IncrementalAverage();
     private final IncrementalAverage responseSizeBytes = new IncrementalAverage();
+    private final IncrementalAverage updateRequestSizeBytes = new IncrementalAverage();
 
     private long requestSuccess;
     private long requestFailure;
@@ -48,6 +49,11 @@ public class RemoteTaskStats
         this.responseSizeBytes.add(responseSizeBytes);
     }
 
+    public void updateRequestSize(long updateRequestSizeBytes)
+    {
+        this.updateRequestSizeBytes.add(updateRequestSizeBytes);
+    }
+
     public void updateSuccess()
     {
         requestSuccess++;
@@ -64,6 +70,12 @@ public class RemoteTaskStats
         return responseSizeBytes.get();
     }
 
+    @Managed
+    public double getUpdateRequestSizeBytes()
+    {
+        return updateRequestSizeBytes.get();
+    }
+
     @Managed
     public double getStatusRoundTripMillis()
     {
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.remotetask;
+
+import com.facebook.presto.execution.TaskStatus;
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.FullJsonResponseHandler;
+import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+
+import java.io.IOException;
+
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_TASK_STATUS_TYPE;
+import static com.facebook.presto.execution.TaskStatusBinaryCodec.decode;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static io.airlift.slice.Slices.wrappedBuffer;
+
+/**
+ * Decodes a task status response using the encoding chosen by the worker,
+ * so that workers which only produce JSON keep working.
+ */
+class TaskStatusResponseHandler
+        implements ResponseHandler<JsonResponse<TaskStatus>, RuntimeException>
+{
+    private final FullJsonResponseHandler<TaskStatus> jsonResponseHandler;
+
+    public TaskStatusResponseHandler(JsonCodec<TaskStatus> taskStatusCodec)
+    {
+        this.jsonResponseHandler = createFullJsonResponseHandler(taskStatusCodec);
+    }
+
+    @Override
+    public JsonResponse<TaskStatus> handleException(Request request, Exception exception)
+    {
+        return jsonResponseHandler.handleException(request, exception);
+    }
+
+    @Override
+    public JsonResponse<TaskStatus> handle(Request request, Response response)
+    {
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (contentType == null || !MediaType.parse(contentType).is(PRESTO_TASK_STATUS_TYPE)) {
+            return jsonResponseHandler.handle(request, response);
+        }
+
+        byte[] bytes;
+        try {
+            bytes = ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw propagate(request, e);
+        }
+
+        try {
+            return new JsonResponse<>(response.getStatusCode(), response.getStatusMessage(), response.getHeaders(), decode(wrappedBuffer(bytes)), bytes);
+        }
+        catch (RuntimeException e) {
+            return new JsonResponse<>(response.getStatusCode(), response.getStatusMessage(), response.getHeaders(), new IllegalArgumentException("Unable to decode task status", e));
+        }
+    }
+}
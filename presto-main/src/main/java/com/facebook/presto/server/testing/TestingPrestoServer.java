@@ -27,6 +27,7 @@ import com.facebook.presto.metadata.AllNodes;
 import com.facebook.presto.metadata.CatalogManager;
 import com.facebook.presto.metadata.InternalNodeManager;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.operator.SharedBuildManager;
 import com.facebook.presto.security.AccessControl;
 import com.facebook.presto.security.AccessControlManager;
 import com.facebook.presto.server.GracefulShutdownHandler;
@@ -121,6 +122,7 @@ public class TestingPrestoServer
     private final Announcer announcer;
     private final QueryManager queryManager;
     private final TaskManager taskManager;
+    private final SharedBuildManager sharedBuildManager;
     private final GracefulShutdownHandler gracefulShutdownHandler;
     private final ShutdownAction shutdownAction;
     private final boolean coordinator;
@@ -275,6 +277,7 @@ public class TestingPrestoServer
         serviceSelectorManager = injector.getInstance(ServiceSelectorManager.class);
         gracefulShutdownHandler = injector.getInstance(GracefulShutdownHandler.class);
         taskManager = injector.getInstance(TaskManager.class);
+        sharedBuildManager = injector.getInstance(SharedBuildManager.class);
         shutdownAction = injector.getInstance(ShutdownAction.class);
         announcer = injector.getInstance(Announcer.class);
 
@@ -417,6 +420,11 @@ public class TestingPrestoServer
         return taskManager;
     }
 
+    public SharedBuildManager getSharedBuildManager()
+    {
+        return sharedBuildManager;
+    }
+
     public ShutdownAction getShutdownAction()
     {
         return shutdownAction;
@@ -20,11 +20,16 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.predicate.TupleDomain;
+
+import javax.inject.Inject;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import static com.facebook.presto.SystemSessionProperties.isShareScans;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
@@ -33,6 +38,18 @@ public class PageSourceManager
         implements PageSourceProvider
 {
     private final ConcurrentMap<ConnectorId, ConnectorPageSourceProvider> pageSourceProviders = new ConcurrentHashMap<>();
+    private final Optional<SharedScanManager> sharedScanManager;
+
+    public PageSourceManager()
+    {
+        this.sharedScanManager = Optional.empty();
+    }
+
+    @Inject
+    public PageSourceManager(SharedScanManager sharedScanManager)
+    {
+        this.sharedScanManager = Optional.of(requireNonNull(sharedScanManager, "sharedScanManager is null"));
+    }
 
     public void addConnectorPageSourceProvider(ConnectorId connectorId, ConnectorPageSourceProvider pageSourceProvider)
     {
@@ -53,7 +70,31 @@ public class PageSourceManager
         requireNonNull(columns, "columns is null");
 
         ConnectorSession connectorSession = session.toConnectorSession(split.getConnectorId());
-        return getPageSourceProvider(split).createPageSource(split.getTransactionHandle(), connectorSession, split.getConnectorSplit(), columns);
+        ConnectorPageSourceProvider provider = getPageSourceProvider(split);
+        if (sharedScanManager.isPresent() && isShareScans(session)) {
+            return sharedScanManager.get().createPageSource(
+                    session.getQueryId(),
+                    session.getIdentity(),
+                    split,
+                    columns,
+                    () -> provider.createPageSource(split.getTransactionHandle(), connectorSession, split.getConnectorSplit(), columns));
+        }
+        return provider.createPageSource(split.getTransactionHandle(), connectorSession, split.getConnectorSplit(), columns);
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        requireNonNull(split, "split is null");
+        requireNonNull(columns, "columns is null");
+        requireNonNull(dynamicFilter, "dynamicFilter is null");
+
+        if (dynamicFilter.isAll()) {
+            return createPageSource(session, split, columns);
+        }
+
+        ConnectorSession connectorSession = session.toConnectorSession(split.getConnectorId());
+        return getPageSourceProvider(split).createPageSource(split.getTransactionHandle(), connectorSession, split.getConnectorSplit(), columns, dynamicFilter);
     }
 
     private ConnectorPageSourceProvider getPageSourceProvider(Split split)
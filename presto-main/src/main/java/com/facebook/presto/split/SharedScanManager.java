@@ -0,0 +1,628 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.connector.ConnectorId;
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.memory.LocalMemoryManager;
+import com.facebook.presto.memory.MemoryPool;
+import com.facebook.presto.memory.MemoryPoolListener;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.UpdatablePageSource;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.security.Identity;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Lets the queries running on this worker read a split once when they scan it
+ * at the same time. The first scan of a split reads it from the connector.
+ * Scans of an equal split and the same columns by the same user that start before it produced
+ * its first page wait for it, and only then does the first scan load and record
+ * the pages it produces, so that scans nobody waits for keep their lazy blocks.
+ * Scans starting shortly after a recorded scan finished replay its pages. If the
+ * first scan does not complete in time, the waiting scans read the split
+ * themselves, so that queries blocked on each other cannot deadlock.
+ * <p>
+ * The recorded pages are accounted to the system memory of the scans using them.
+ * While they are only retained for later scans, they are accounted as revocable
+ * memory of the general pool, and dropped when the pool runs out of memory.
+ * Splits are only shared when {@link ConnectorSplit#isScanShareable()} is true.
+ */
+@ThreadSafe
+public class SharedScanManager
+{
+    // the pool reservation of the pages retained for later scans is not tied to a query, and
+    // is revocable so that the low memory killers do not consider it
+    private static final QueryId RETAINED_SCANS_QUERY_ID = new QueryId("shared_scans");
+
+    private final MemoryPool memoryPool;
+    private final MemoryPoolListener memoryPoolListener = MemoryPoolListener.onMemoryReserved(this::onMemoryReserved);
+    private final AtomicBoolean evictionPending = new AtomicBoolean();
+    private final long maxEntrySizeInBytes;
+    private final long maxWaitMillis;
+    private final Cache<ScanKey, SharedScan> scans;
+    private final ScheduledExecutorService timeoutExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("shared-scan-timeout"));
+
+    @Inject
+    public SharedScanManager(TaskManagerConfig config, LocalMemoryManager memoryManager)
+    {
+        this(
+                memoryManager.getPool(GENERAL_POOL),
+                config.getSharedScanMaxSize(),
+                config.getSharedScanMaxEntrySize(),
+                config.getSharedScanRetention(),
+                config.getSharedScanMaxWait());
+    }
+
+    public SharedScanManager(MemoryPool memoryPool, DataSize maxSize, DataSize maxEntrySize, Duration retention, Duration maxWait)
+    {
+        this.memoryPool = requireNonNull(memoryPool, "memoryPool is null");
+        requireNonNull(maxSize, "maxSize is null");
+        this.maxEntrySizeInBytes = requireNonNull(maxEntrySize, "maxEntrySize is null").toBytes();
+        requireNonNull(retention, "retention is null");
+        this.maxWaitMillis = requireNonNull(maxWait, "maxWait is null").toMillis();
+
+        // scans being read weigh nothing, their pages are accounted to the queries reading them
+        this.scans = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((ScanKey key, SharedScan scan) -> toIntExact(min(Integer.MAX_VALUE, scan.getRetainedSizeInBytes())))
+                .expireAfterWrite(retention.toMillis(), MILLISECONDS)
+                .removalListener((RemovalNotification<ScanKey, SharedScan> notification) -> {
+                    // an entry is replaced by itself when it is weighed again
+                    if (notification.getCause() != RemovalCause.REPLACED) {
+                        notification.getValue().release();
+                    }
+                })
+                .build();
+        // expired entries are otherwise only dropped when the cache is used, and may hold pool memory until then
+        timeoutExecutor.scheduleWithFixedDelay(scans::cleanUp, 1, 1, SECONDS);
+        memoryPool.addListener(memoryPoolListener);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        memoryPool.removeListener(memoryPoolListener);
+        timeoutExecutor.shutdownNow();
+    }
+
+    public ConnectorPageSource createPageSource(QueryId queryId, Identity identity, Split split, List<ColumnHandle> columns, Supplier<ConnectorPageSource> pageSourceFactory)
+    {
+        if (!split.getConnectorSplit().isScanShareable()) {
+            return pageSourceFactory.get();
+        }
+
+        // connectors may read the split with the permissions of the user, e.g. with HDFS impersonation
+        ScanKey key = new ScanKey(split.getConnectorId(), split.getConnectorSplit(), columns, identity);
+        SharedScan scan = scans.asMap().computeIfAbsent(key, ignored -> new SharedScan());
+        if (!scan.startReading(queryId)) {
+            CompletableFuture<?> waitTimeout = new CompletableFuture<>();
+            if (!scan.getDone().isDone()) {
+                if (scan.getQueryId().equals(queryId)) {
+                    // both sides of a self join could read the split, and one may wait for the other
+                    return pageSourceFactory.get();
+                }
+                timeoutExecutor.schedule(() -> waitTimeout.complete(null), maxWaitMillis, MILLISECONDS);
+            }
+            return new ReplayingPageSource(key, scan, pageSourceFactory, waitTimeout);
+        }
+
+        ConnectorPageSource pageSource;
+        try {
+            pageSource = pageSourceFactory.get();
+        }
+        catch (RuntimeException e) {
+            abort(key, scan);
+            throw e;
+        }
+        if (pageSource instanceof UpdatablePageSource) {
+            // deletes need the page source of the connector
+            abort(key, scan);
+            return pageSource;
+        }
+        return new RecordingPageSource(key, scan, pageSource);
+    }
+
+    @Managed
+    public long getSizeInBytes()
+    {
+        return scans.asMap().values().stream()
+                .mapToLong(SharedScan::getRetainedSizeInBytes)
+                .sum();
+    }
+
+    @Managed
+    public long getScanCount()
+    {
+        return scans.size();
+    }
+
+    private void onMemoryReserved(MemoryPool memoryPool)
+    {
+        if (memoryPool.getFreeBytes() <= 0 && evictionPending.compareAndSet(false, true)) {
+            // the listener may be called while the lock of a scan is held
+            timeoutExecutor.execute(this::evictRetainedScans);
+        }
+    }
+
+    private void evictRetainedScans()
+    {
+        evictionPending.set(false);
+        scans.asMap().values().removeIf(SharedScan::isRetained);
+    }
+
+    private void finish(ScanKey key, SharedScan scan)
+    {
+        scan.finish();
+        // weigh the entry again now that all its pages are recorded
+        scans.asMap().replace(key, scan, scan);
+    }
+
+    private void abort(ScanKey key, SharedScan scan)
+    {
+        scan.abort();
+        scans.asMap().remove(key, scan);
+    }
+
+    private void detach(ScanKey key, SharedScan scan)
+    {
+        if (!scan.detach()) {
+            // the pool has no room for the retained pages
+            scans.asMap().remove(key, scan);
+        }
+    }
+
+    private static Page loadPage(Page page)
+    {
+        // lazy blocks can only be loaded by the reader that produced them
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Block block = page.getBlock(channel);
+            if (block instanceof LazyBlock) {
+                block = ((LazyBlock) block).getBlock();
+            }
+            blocks[channel] = block;
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    private static final class ScanKey
+    {
+        private final ConnectorId connectorId;
+        private final ConnectorSplit split;
+        private final List<ColumnHandle> columns;
+        private final Identity identity;
+
+        public ScanKey(ConnectorId connectorId, ConnectorSplit split, List<ColumnHandle> columns, Identity identity)
+        {
+            this.connectorId = requireNonNull(connectorId, "connectorId is null");
+            this.split = requireNonNull(split, "split is null");
+            this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+            this.identity = requireNonNull(identity, "identity is null");
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ScanKey other = (ScanKey) o;
+            return Objects.equals(connectorId, other.connectorId) &&
+                    Objects.equals(split, other.split) &&
+                    Objects.equals(columns, other.columns) &&
+                    Objects.equals(identity, other.identity);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(connectorId, split, columns, identity);
+        }
+    }
+
+    private class SharedScan
+    {
+        // completed when the split was read to the end, or when the scan was aborted
+        private final CompletableFuture<?> done = new CompletableFuture<>();
+
+        @GuardedBy("this")
+        private int participants;
+        @GuardedBy("this")
+        private long reservedBytes;
+        @GuardedBy("this")
+        private boolean released;
+        @GuardedBy("this")
+        private QueryId queryId;
+        @GuardedBy("this")
+        private final List<Page> pages = new ArrayList<>();
+        @GuardedBy("this")
+        private long retainedSizeInBytes;
+        @GuardedBy("this")
+        private boolean aborted;
+
+        public synchronized boolean startReading(QueryId queryId)
+        {
+            if (this.queryId != null) {
+                return false;
+            }
+            this.queryId = requireNonNull(queryId, "queryId is null");
+            return true;
+        }
+
+        public synchronized QueryId getQueryId()
+        {
+            return queryId;
+        }
+
+        /**
+         * Returns whether another scan waits for the pages of this one.
+         */
+        public synchronized boolean hasWaitingScans()
+        {
+            return participants > 1;
+        }
+
+        public synchronized boolean addPage(Page page, long maxSizeInBytes)
+        {
+            pages.add(page);
+            retainedSizeInBytes += page.getRetainedSizeInBytes();
+            return retainedSizeInBytes <= maxSizeInBytes;
+        }
+
+        public void finish()
+        {
+            done.complete(null);
+        }
+
+        public void abort()
+        {
+            synchronized (this) {
+                aborted = true;
+                pages.clear();
+                retainedSizeInBytes = 0;
+            }
+            done.complete(null);
+        }
+
+        public CompletableFuture<?> getDone()
+        {
+            return done;
+        }
+
+        public synchronized boolean isAborted()
+        {
+            return aborted;
+        }
+
+        public synchronized List<Page> getPages()
+        {
+            return ImmutableList.copyOf(pages);
+        }
+
+        public synchronized long getRetainedSizeInBytes()
+        {
+            return retainedSizeInBytes;
+        }
+
+        /**
+         * Returns whether the pages are only retained for later scans.
+         */
+        public synchronized boolean isRetained()
+        {
+            return reservedBytes > 0;
+        }
+
+        public synchronized void attach()
+        {
+            participants++;
+            // the pages are accounted to the scans using them again
+            freeReservation();
+        }
+
+        /**
+         * Returns false if the pages of a finished scan that no other scan uses any
+         * more could not be reserved in the memory pool.
+         */
+        public synchronized boolean detach()
+        {
+            participants--;
+            if (participants > 0 || released || aborted || !done.isDone() || retainedSizeInBytes == 0) {
+                return true;
+            }
+            if (memoryPool.getFreeBytes() < retainedSizeInBytes) {
+                return false;
+            }
+            reservedBytes = retainedSizeInBytes;
+            memoryPool.reserveRevocable(RETAINED_SCANS_QUERY_ID, reservedBytes);
+            return true;
+        }
+
+        /**
+         * Called once the scan is no longer available to later scans.
+         */
+        public synchronized void release()
+        {
+            released = true;
+            freeReservation();
+        }
+
+        @GuardedBy("this")
+        private void freeReservation()
+        {
+            if (reservedBytes > 0) {
+                memoryPool.freeRevocable(RETAINED_SCANS_QUERY_ID, reservedBytes);
+                reservedBytes = 0;
+            }
+        }
+
+        public synchronized long getSharedSizeInBytes()
+        {
+            // the recorded pages are accounted evenly to the queries using them
+            return retainedSizeInBytes / max(1, participants);
+        }
+    }
+
+    private class RecordingPageSource
+            implements ConnectorPageSource
+    {
+        private final ScanKey key;
+        private final SharedScan scan;
+        private final ConnectorPageSource delegate;
+        private boolean recording = true;
+        private boolean recordingStarted;
+
+        public RecordingPageSource(ScanKey key, SharedScan scan, ConnectorPageSource delegate)
+        {
+            this.key = requireNonNull(key, "key is null");
+            this.scan = requireNonNull(scan, "scan is null");
+            this.delegate = requireNonNull(delegate, "delegate is null");
+            scan.attach();
+        }
+
+        @Override
+        public long getCompletedBytes()
+        {
+            return delegate.getCompletedBytes();
+        }
+
+        @Override
+        public long getReadTimeNanos()
+        {
+            return delegate.getReadTimeNanos();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            boolean finished = delegate.isFinished();
+            if (finished && recording) {
+                recording = false;
+                finish(key, scan);
+            }
+            return finished;
+        }
+
+        @Override
+        public Page getNextPage()
+        {
+            Page page = delegate.getNextPage();
+            if (page != null && recording && !recordingStarted && !scan.hasWaitingScans()) {
+                // nobody waits for this scan, so its pages are not loaded and recorded, and
+                // scans starting later can not replay it
+                recording = false;
+                abort(key, scan);
+            }
+            if (page != null && recording) {
+                recordingStarted = true;
+                page = loadPage(page);
+                if (!scan.addPage(page, maxEntrySizeInBytes)) {
+                    // too large to be kept, the waiting scans read the split themselves
+                    recording = false;
+                    abort(key, scan);
+                }
+            }
+            return page;
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            return delegate.getSystemMemoryUsage() + scan.getSharedSizeInBytes();
+        }
+
+        @Override
+        public CompletableFuture<?> isBlocked()
+        {
+            return delegate.isBlocked();
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (recording) {
+                recording = false;
+                abort(key, scan);
+            }
+            detach(key, scan);
+            delegate.close();
+        }
+    }
+
+    private class ReplayingPageSource
+            implements ConnectorPageSource
+    {
+        private final ScanKey key;
+        private final SharedScan scan;
+        private final Supplier<ConnectorPageSource> pageSourceFactory;
+        private final CompletableFuture<?> waitTimeout;
+
+        private List<Page> pages;
+        private int nextPage;
+        private long completedBytes;
+        private ConnectorPageSource delegate;
+
+        public ReplayingPageSource(ScanKey key, SharedScan scan, Supplier<ConnectorPageSource> pageSourceFactory, CompletableFuture<?> waitTimeout)
+        {
+            this.key = requireNonNull(key, "key is null");
+            this.scan = requireNonNull(scan, "scan is null");
+            this.pageSourceFactory = requireNonNull(pageSourceFactory, "pageSourceFactory is null");
+            this.waitTimeout = requireNonNull(waitTimeout, "waitTimeout is null");
+            scan.attach();
+        }
+
+        @Override
+        public long getCompletedBytes()
+        {
+            if (delegate != null) {
+                return delegate.getCompletedBytes();
+            }
+            return completedBytes;
+        }
+
+        @Override
+        public long getReadTimeNanos()
+        {
+            if (delegate != null) {
+                return delegate.getReadTimeNanos();
+            }
+            return 0;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            if (!resolve()) {
+                return false;
+            }
+            if (delegate != null) {
+                return delegate.isFinished();
+            }
+            return nextPage >= pages.size();
+        }
+
+        @Override
+        public Page getNextPage()
+        {
+            if (!resolve()) {
+                return null;
+            }
+            if (delegate != null) {
+                return delegate.getNextPage();
+            }
+            if (nextPage >= pages.size()) {
+                return null;
+            }
+            Page page = pages.get(nextPage++);
+            completedBytes += page.getSizeInBytes();
+            return page;
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            if (delegate != null) {
+                return delegate.getSystemMemoryUsage();
+            }
+            return scan.getSharedSizeInBytes();
+        }
+
+        @Override
+        public CompletableFuture<?> isBlocked()
+        {
+            if (delegate != null) {
+                return delegate.isBlocked();
+            }
+            if (scan.getDone().isDone() || waitTimeout.isDone()) {
+                return NOT_BLOCKED;
+            }
+            return CompletableFuture.anyOf(scan.getDone(), waitTimeout);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (delegate == null) {
+                detach(key, scan);
+            }
+            else {
+                delegate.close();
+            }
+        }
+
+        /**
+         * Returns true once the shared scan is done or the wait timed out, switching
+         * to reading the split from the connector if the pages are not available.
+         */
+        private boolean resolve()
+        {
+            if (pages != null || delegate != null) {
+                return true;
+            }
+            if (!scan.getDone().isDone() && !waitTimeout.isDone()) {
+                return false;
+            }
+            if (!scan.getDone().isDone() || scan.isAborted()) {
+                detach(key, scan);
+                delegate = pageSourceFactory.get();
+            }
+            else {
+                pages = scan.getPages();
+            }
+            return true;
+        }
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.sql.analyzer;
 
+import com.facebook.presto.execution.buffer.PageCompression;
 import com.facebook.presto.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import com.facebook.presto.operator.aggregation.histogram.HistogramGroupImplementation;
 import com.google.common.annotations.VisibleForTesting;
@@ -35,6 +36,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
+import static com.facebook.presto.execution.buffer.PageCompression.LZ4;
+import static com.facebook.presto.execution.buffer.PageCompression.UNCOMPRESSED;
 import static com.facebook.presto.sql.analyzer.RegexLibrary.JONI;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
@@ -74,6 +77,16 @@ public class FeaturesConfig
     private boolean enableIntermediateAggregations;
     private boolean pushTableWriteThroughUnion = true;
     private boolean exchangeCompressionEnabled;
+    private PageCompression exchangeCompressionCodec = LZ4;
+    private boolean exchangeAdaptiveCompressionEnabled;
+    private boolean adaptivePartialAggregationEnabled;
+    private long adaptivePartialAggregationMinRows = 100_000;
+    private double adaptivePartialAggregationUniqueRowsRatioThreshold = 0.8;
+    private boolean spreadNullJoinKeys;
+    private double spreadNullJoinKeysMinNullsFraction = 0.1;
+    private String skewedJoinKeyValues = "";
+    private DataSize joinMaxBroadcastTableSize = succinctBytes(0);
+    private int sortParallelism = 1;
     private boolean legacyArrayAgg;
     private boolean legacyLogFunction;
     private boolean groupByUsesEqualTo;
@@ -100,6 +113,7 @@ public class FeaturesConfig
     private List<Path> spillerSpillPaths = ImmutableList.of();
     private int spillerThreads = 4;
     private double spillMaxUsedSpaceThreshold = 0.9;
+    private PageCompression spillCompressionCodec = UNCOMPRESSED;
     private boolean iterativeOptimizerEnabled = true;
     private boolean enableNewStatsCalculator = true;
     private boolean pushAggregationThroughJoin = true;
@@ -115,6 +129,9 @@ public class FeaturesConfig
     private DataSize filterAndProjectMinOutputPageSize = new DataSize(500, KILOBYTE);
     private int filterAndProjectMinOutputPageRowCount = 256;
     private int maxGroupingSets = 2048;
+    private boolean enableDynamicFiltering;
+    private int dynamicFilteringMaxDistinctValues = 10_000;
+    private boolean tieredExpressionCompilationEnabled;
 
     public double getCpuCostWeight()
     {
@@ -646,6 +663,20 @@ public class FeaturesConfig
         return this;
     }
 
+    @NotNull
+    public PageCompression getSpillCompressionCodec()
+    {
+        return spillCompressionCodec;
+    }
+
+    @Config("experimental.spill-compression-codec")
+    @ConfigDescription("Codec used to compress spilled pages (UNCOMPRESSED, LZ4 or ZSTD)")
+    public FeaturesConfig setSpillCompressionCodec(PageCompression spillCompressionCodec)
+    {
+        this.spillCompressionCodec = spillCompressionCodec;
+        return this;
+    }
+
     public boolean isOptimizeMixedDistinctAggregations()
     {
         return optimizeMixedDistinctAggregations;
@@ -670,6 +701,145 @@ public class FeaturesConfig
         return this;
     }
 
+    @NotNull
+    public PageCompression getExchangeCompressionCodec()
+    {
+        return exchangeCompressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    @ConfigDescription("Codec used to compress exchanged pages when exchange compression is enabled (LZ4 or ZSTD)")
+    public FeaturesConfig setExchangeCompressionCodec(PageCompression exchangeCompressionCodec)
+    {
+        this.exchangeCompressionCodec = exchangeCompressionCodec;
+        return this;
+    }
+
+    public boolean isExchangeAdaptiveCompressionEnabled()
+    {
+        return exchangeAdaptiveCompressionEnabled;
+    }
+
+    @Config("exchange.adaptive-compression-enabled")
+    @ConfigDescription("Stop compressing the pages of an output stream while the observed compression ratio is poor")
+    public FeaturesConfig setExchangeAdaptiveCompressionEnabled(boolean exchangeAdaptiveCompressionEnabled)
+    {
+        this.exchangeAdaptiveCompressionEnabled = exchangeAdaptiveCompressionEnabled;
+        return this;
+    }
+
+    public boolean isAdaptivePartialAggregationEnabled()
+    {
+        return adaptivePartialAggregationEnabled;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-enabled")
+    @ConfigDescription("Stop aggregating in partial aggregations that do not reduce the number of rows")
+    public FeaturesConfig setAdaptivePartialAggregationEnabled(boolean adaptivePartialAggregationEnabled)
+    {
+        this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+        return this;
+    }
+
+    @Min(0)
+    public long getAdaptivePartialAggregationMinRows()
+    {
+        return adaptivePartialAggregationMinRows;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-min-rows")
+    @ConfigDescription("Number of input rows a partial aggregation processes before it decides whether to stop aggregating")
+    public FeaturesConfig setAdaptivePartialAggregationMinRows(long adaptivePartialAggregationMinRows)
+    {
+        this.adaptivePartialAggregationMinRows = adaptivePartialAggregationMinRows;
+        return this;
+    }
+
+    @DecimalMin(value = "0.0", inclusive = false)
+    @DecimalMax("1.0")
+    public double getAdaptivePartialAggregationUniqueRowsRatioThreshold()
+    {
+        return adaptivePartialAggregationUniqueRowsRatioThreshold;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-unique-rows-ratio-threshold")
+    @ConfigDescription("Ratio of output groups to input rows above which a partial aggregation stops aggregating")
+    public FeaturesConfig setAdaptivePartialAggregationUniqueRowsRatioThreshold(double adaptivePartialAggregationUniqueRowsRatioThreshold)
+    {
+        this.adaptivePartialAggregationUniqueRowsRatioThreshold = adaptivePartialAggregationUniqueRowsRatioThreshold;
+        return this;
+    }
+
+    public boolean isSpreadNullJoinKeys()
+    {
+        return spreadNullJoinKeys;
+    }
+
+    @Config("optimizer.spread-null-join-keys")
+    @ConfigDescription("Distribute rows with null join keys round robin in partitioned joins instead of sending them all to one node")
+    public FeaturesConfig setSpreadNullJoinKeys(boolean spreadNullJoinKeys)
+    {
+        this.spreadNullJoinKeys = spreadNullJoinKeys;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getSpreadNullJoinKeysMinNullsFraction()
+    {
+        return spreadNullJoinKeysMinNullsFraction;
+    }
+
+    @Config("optimizer.spread-null-join-keys-min-nulls-fraction")
+    @ConfigDescription("Estimated fraction of null join keys above which they are spread on the side of an outer join that keeps unmatched rows")
+    public FeaturesConfig setSpreadNullJoinKeysMinNullsFraction(double spreadNullJoinKeysMinNullsFraction)
+    {
+        this.spreadNullJoinKeysMinNullsFraction = spreadNullJoinKeysMinNullsFraction;
+        return this;
+    }
+
+    @NotNull
+    public String getSkewedJoinKeyValues()
+    {
+        return skewedJoinKeyValues;
+    }
+
+    @Config("optimizer.skewed-join-key-values")
+    @ConfigDescription("Comma separated join key values, such as sentinels for unknown ids, that are spread on the probe side and replicated on the build side of partitioned joins")
+    public FeaturesConfig setSkewedJoinKeyValues(String skewedJoinKeyValues)
+    {
+        this.skewedJoinKeyValues = skewedJoinKeyValues;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getJoinMaxBroadcastTableSize()
+    {
+        return joinMaxBroadcastTableSize;
+    }
+
+    @Config("join-max-broadcast-table-size")
+    @ConfigDescription("Maximum estimated size of the build side of a join for it to be broadcast regardless of distributed-joins-enabled, which still applies to joins without an estimate (0 to disable)")
+    public FeaturesConfig setJoinMaxBroadcastTableSize(DataSize joinMaxBroadcastTableSize)
+    {
+        this.joinMaxBroadcastTableSize = joinMaxBroadcastTableSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getSortParallelism()
+    {
+        return sortParallelism;
+    }
+
+    @Config("experimental.sort-parallelism")
+    @ConfigDescription("Number of threads used to sort the input of an order by operator")
+    public FeaturesConfig setSortParallelism(int sortParallelism)
+    {
+        this.sortParallelism = sortParallelism;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -816,4 +986,42 @@ public class FeaturesConfig
         this.maxGroupingSets = maxGroupingSets;
         return this;
     }
+
+    public boolean isEnableDynamicFiltering()
+    {
+        return enableDynamicFiltering;
+    }
+
+    @Config("experimental.enable-dynamic-filtering")
+    public FeaturesConfig setEnableDynamicFiltering(boolean enableDynamicFiltering)
+    {
+        this.enableDynamicFiltering = enableDynamicFiltering;
+        return this;
+    }
+
+    @Min(1)
+    public int getDynamicFilteringMaxDistinctValues()
+    {
+        return dynamicFilteringMaxDistinctValues;
+    }
+
+    @Config("experimental.dynamic-filtering-max-distinct-values")
+    public FeaturesConfig setDynamicFilteringMaxDistinctValues(int dynamicFilteringMaxDistinctValues)
+    {
+        this.dynamicFilteringMaxDistinctValues = dynamicFilteringMaxDistinctValues;
+        return this;
+    }
+
+    public boolean isTieredExpressionCompilationEnabled()
+    {
+        return tieredExpressionCompilationEnabled;
+    }
+
+    @Config("experimental.tiered-expression-compilation-enabled")
+    @ConfigDescription("Interpret new filter and projection expressions while they are compiled in the background")
+    public FeaturesConfig setTieredExpressionCompilationEnabled(boolean tieredExpressionCompilationEnabled)
+    {
+        this.tieredExpressionCompilationEnabled = tieredExpressionCompilationEnabled;
+        return this;
+    }
 }
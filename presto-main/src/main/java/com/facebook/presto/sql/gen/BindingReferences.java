@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.metadata.FunctionRegistry;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.project.InputChannels;
+import com.facebook.presto.operator.scalar.ScalarFunctionImplementation;
+import com.facebook.presto.operator.scalar.ScalarFunctionImplementation.ScalarImplementationChoice;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeSignature;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import io.airlift.json.JsonCodec;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Describes the call site bindings of a generated class in a form that
+ * outlives the server, and recreates them from these descriptions. This lets
+ * {@link GeneratedClassCache} load a stored class without generating it again.
+ * Types are described by their signature, functions by their signature and
+ * implementation choice, and constants by their value.
+ */
+public final class BindingReferences
+{
+    private static final JsonCodec<Signature> SIGNATURE_CODEC = jsonCodec(Signature.class);
+
+    private static final String TYPE = "type:";
+    private static final String SLICE = "slice:";
+    private static final String STRING = "string:";
+    private static final String INPUT_CHANNELS = "inputChannels:";
+    private static final String FUNCTION = "function:";
+    private static final String FUNCTION_INSTANCE = "functionInstance:";
+
+    private final Function<TypeSignature, Type> typeResolver;
+    private final Optional<FunctionRegistry> registry;
+
+    public BindingReferences(Function<TypeSignature, Type> typeResolver, Optional<FunctionRegistry> registry)
+    {
+        this.typeResolver = requireNonNull(typeResolver, "typeResolver is null");
+        this.registry = requireNonNull(registry, "registry is null");
+    }
+
+    /**
+     * Resolves types from the given types only, and no functions.
+     */
+    public static BindingReferences forTypes(List<? extends Type> types)
+    {
+        return forTypes(types, Optional.empty());
+    }
+
+    public static BindingReferences forTypes(List<? extends Type> types, Optional<FunctionRegistry> registry)
+    {
+        Map<TypeSignature, Type> typesBySignature = new HashMap<>();
+        for (Type type : types) {
+            typesBySignature.putIfAbsent(type.getTypeSignature(), type);
+        }
+        return new BindingReferences(typesBySignature::get, registry);
+    }
+
+    /**
+     * Returns the reference of a constant bound with {@link CallSiteBinder#bind(Object, Class)},
+     * or empty if the constant has no stable description.
+     */
+    public static Optional<String> constantReference(Object constant, Class<?> type)
+    {
+        if (type == Type.class && constant instanceof Type) {
+            return Optional.of(TYPE + ((Type) constant).getTypeSignature());
+        }
+        if (type == Slice.class && constant instanceof Slice) {
+            return Optional.of(SLICE + Base64.getEncoder().encodeToString(((Slice) constant).getBytes()));
+        }
+        if (type == String.class && constant instanceof String) {
+            return Optional.of(STRING + constant);
+        }
+        if (type == InputChannels.class && constant instanceof InputChannels) {
+            return Optional.of(INPUT_CHANNELS + Joiner.on(',').join(((InputChannels) constant).getInputChannels()));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Records the references of the method handles and instance factories of
+     * every implementation choice of the function, for the invocations
+     * generated for it.
+     */
+    public static void addFunctionReferences(CallSiteBinder callSiteBinder, Signature signature, ScalarFunctionImplementation function)
+    {
+        String json = SIGNATURE_CODEC.toJson(signature);
+        List<ScalarImplementationChoice> choices = function.getAllChoices();
+        for (int choice = 0; choice < choices.size(); choice++) {
+            callSiteBinder.addReference(choices.get(choice).getMethodHandle(), FUNCTION + choice + ":" + json);
+            Optional<MethodHandle> instanceFactory = choices.get(choice).getInstanceFactory();
+            if (instanceFactory.isPresent()) {
+                callSiteBinder.addReference(instanceFactory.get(), FUNCTION_INSTANCE + choice + ":" + json);
+            }
+        }
+    }
+
+    /**
+     * Recreates the binding of the reference, or returns empty if it cannot be
+     * recreated by this server.
+     */
+    public Optional<MethodHandle> resolve(String reference)
+    {
+        if (reference.startsWith(TYPE)) {
+            Type type = typeResolver.apply(parseTypeSignature(reference.substring(TYPE.length())));
+            return Optional.ofNullable(type).map(value -> MethodHandles.constant(Type.class, value));
+        }
+        if (reference.startsWith(SLICE)) {
+            Slice slice = Slices.wrappedBuffer(Base64.getDecoder().decode(reference.substring(SLICE.length())));
+            return Optional.of(MethodHandles.constant(Slice.class, slice));
+        }
+        if (reference.startsWith(STRING)) {
+            return Optional.of(MethodHandles.constant(String.class, reference.substring(STRING.length())));
+        }
+        if (reference.startsWith(INPUT_CHANNELS)) {
+            List<Integer> channels = Splitter.on(',').omitEmptyStrings().splitToList(reference.substring(INPUT_CHANNELS.length())).stream()
+                    .map(Integer::valueOf)
+                    .collect(toImmutableList());
+            return Optional.of(MethodHandles.constant(InputChannels.class, new InputChannels(channels)));
+        }
+        if (reference.startsWith(FUNCTION)) {
+            return resolveChoice(reference.substring(FUNCTION.length()))
+                    .map(ScalarImplementationChoice::getMethodHandle);
+        }
+        if (reference.startsWith(FUNCTION_INSTANCE)) {
+            return resolveChoice(reference.substring(FUNCTION_INSTANCE.length()))
+                    .flatMap(ScalarImplementationChoice::getInstanceFactory);
+        }
+        return Optional.empty();
+    }
+
+    private Optional<ScalarImplementationChoice> resolveChoice(String reference)
+    {
+        if (!registry.isPresent()) {
+            return Optional.empty();
+        }
+        int separator = reference.indexOf(':');
+        int choice = Integer.parseInt(reference.substring(0, separator));
+        Signature signature = SIGNATURE_CODEC.fromJson(reference.substring(separator + 1));
+        List<ScalarImplementationChoice> choices = registry.get().getScalarFunctionImplementation(signature).getAllChoices();
+        if (choice >= choices.size()) {
+            return Optional.empty();
+        }
+        return Optional.of(choices.get(choice));
+    }
+}
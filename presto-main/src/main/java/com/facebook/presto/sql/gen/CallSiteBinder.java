@@ -18,8 +18,11 @@ import com.google.common.collect.ImmutableMap;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Optional;
 
+import static com.facebook.presto.sql.gen.BindingReferences.constantReference;
 import static com.google.common.base.MoreObjects.toStringHelper;
 
 public final class CallSiteBinder
@@ -27,19 +30,35 @@ public final class CallSiteBinder
     private int nextId;
 
     private final Map<Long, MethodHandle> bindings = new HashMap<>();
+    private final Map<Long, String> references = new HashMap<>();
+    private final Map<MethodHandle, String> methodReferences = new IdentityHashMap<>();
 
     public Binding bind(MethodHandle method)
+    {
+        return bind(method, Optional.ofNullable(methodReferences.get(method)));
+    }
+
+    public Binding bind(Object constant, Class<?> type)
+    {
+        return bind(MethodHandles.constant(type, constant), constantReference(constant, type));
+    }
+
+    private Binding bind(MethodHandle method, Optional<String> reference)
     {
         long bindingId = nextId++;
         Binding binding = new Binding(bindingId, method.type());
 
         bindings.put(bindingId, method);
+        reference.ifPresent(value -> references.put(bindingId, value));
         return binding;
     }
 
-    public Binding bind(Object constant, Class<?> type)
+    /**
+     * Records how later bindings of the method can be recreated, see {@link BindingReferences}.
+     */
+    public void addReference(MethodHandle method, String reference)
     {
-        return bind(MethodHandles.constant(type, constant));
+        methodReferences.put(method, reference);
     }
 
     public Map<Long, MethodHandle> getBindings()
@@ -47,6 +66,17 @@ public final class CallSiteBinder
         return ImmutableMap.copyOf(bindings);
     }
 
+    /**
+     * Returns the references of all bindings, or empty if some binding cannot be recreated.
+     */
+    public Optional<Map<Long, String>> getReferences()
+    {
+        if (references.size() != bindings.size()) {
+            return Optional.empty();
+        }
+        return Optional.of(ImmutableMap.copyOf(references));
+    }
+
     @Override
     public String toString()
     {
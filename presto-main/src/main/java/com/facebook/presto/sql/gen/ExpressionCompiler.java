@@ -15,27 +15,38 @@ package com.facebook.presto.sql.gen;
 
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.operator.project.CursorProcessor;
+import com.facebook.presto.operator.project.InputChannels;
 import com.facebook.presto.operator.project.PageFilter;
 import com.facebook.presto.operator.project.PageProcessor;
 import com.facebook.presto.operator.project.PageProjection;
+import com.facebook.presto.operator.project.TieredPageFilter;
+import com.facebook.presto.operator.project.TieredPageProjection;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.sql.planner.CompilerConfig;
 import com.facebook.presto.sql.relational.RowExpression;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import io.airlift.bytecode.ClassDefinition;
 import io.airlift.bytecode.CompilationException;
+import io.airlift.concurrent.ThreadPoolExecutorMBean;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.operator.project.PageFieldsToInputParametersRewriter.rewritePageFieldsToInputParameters;
 import static com.facebook.presto.spi.StandardErrorCode.COMPILER_ERROR;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.sql.gen.BytecodeUtils.invoke;
@@ -43,29 +54,55 @@ import static com.facebook.presto.sql.relational.Expressions.constant;
 import static com.facebook.presto.util.CompilerUtils.defineClass;
 import static com.facebook.presto.util.CompilerUtils.makeClassName;
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static io.airlift.bytecode.Access.FINAL;
 import static io.airlift.bytecode.Access.PUBLIC;
 import static io.airlift.bytecode.Access.a;
 import static io.airlift.bytecode.ParameterizedType.type;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 public class ExpressionCompiler
 {
     private final PageFunctionCompiler pageFunctionCompiler;
     private final LoadingCache<CacheKey, Class<? extends CursorProcessor>> cursorProcessors;
     private final CacheStatsMBean cacheStatsMBean;
+    private final ThreadPoolExecutor backgroundExecutor;
+    private final ListeningExecutorService backgroundCompiler;
+    private final ThreadPoolExecutorMBean backgroundExecutorMBean;
 
-    @Inject
     public ExpressionCompiler(Metadata metadata, PageFunctionCompiler pageFunctionCompiler)
+    {
+        this(metadata, pageFunctionCompiler, new CompilerConfig());
+    }
+
+    @Inject
+    public ExpressionCompiler(Metadata metadata, PageFunctionCompiler pageFunctionCompiler, CompilerConfig config)
     {
         requireNonNull(metadata, "metadata is null");
+        requireNonNull(config, "config is null");
         this.pageFunctionCompiler = requireNonNull(pageFunctionCompiler, "pageFunctionCompiler is null");
         this.cursorProcessors = CacheBuilder.newBuilder()
                 .recordStats()
                 .maximumSize(1000)
                 .build(CacheLoader.from(key -> compile(key.getFilter(), key.getProjections(), new CursorProcessorCompiler(metadata), CursorProcessor.class)));
         this.cacheStatsMBean = new CacheStatsMBean(cursorProcessors);
+
+        // threads are only started once an expression is compiled in the background
+        int threads = config.getBackgroundCompilerThreads();
+        this.backgroundExecutor = new ThreadPoolExecutor(threads, threads, 1, MINUTES, new LinkedBlockingQueue<>(), daemonThreadsNamed("expression-compiler-%s"));
+        this.backgroundExecutor.allowCoreThreadTimeOut(true);
+        this.backgroundCompiler = listeningDecorator(backgroundExecutor);
+        this.backgroundExecutorMBean = new ThreadPoolExecutorMBean(backgroundExecutor);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        backgroundExecutor.shutdownNow();
     }
 
     @Managed
@@ -75,6 +112,13 @@ public class ExpressionCompiler
         return cacheStatsMBean;
     }
 
+    @Managed(description = "Background expression compiler executor")
+    @Nested
+    public ThreadPoolExecutorMBean getBackgroundCompilerExecutor()
+    {
+        return backgroundExecutorMBean;
+    }
+
     public Supplier<CursorProcessor> compileCursorProcessor(Optional<RowExpression> filter, List<? extends RowExpression> projections, Object uniqueKey)
     {
         Class<? extends CursorProcessor> cursorProcessor = cursorProcessors.getUnchecked(new CacheKey(filter, projections, uniqueKey));
@@ -95,6 +139,60 @@ public class ExpressionCompiler
                 .map(projection -> pageFunctionCompiler.compileProjection(projection, classNameSuffix))
                 .collect(toImmutableList());
 
+        return createPageProcessorSupplier(filterFunctionSupplier, pageProjectionSuppliers);
+    }
+
+    public Supplier<PageProcessor> compilePageProcessor(Optional<RowExpression> filter, List<? extends RowExpression> projections)
+    {
+        return compilePageProcessor(filter, projections, Optional.empty());
+    }
+
+    /**
+     * Creates page processors that evaluate the expressions not compiled yet with the given
+     * interpreted implementations, while they are compiled on the background compiler threads.
+     */
+    public Supplier<PageProcessor> compileTieredPageProcessor(
+            Optional<RowExpression> filter,
+            List<? extends RowExpression> projections,
+            Optional<String> classNameSuffix,
+            Optional<Supplier<PageFilter>> interpretedFilter,
+            List<Supplier<PageProjection>> interpretedProjections)
+    {
+        checkArgument(filter.isPresent() == interpretedFilter.isPresent(), "filter and interpretedFilter must both be present or absent");
+        checkArgument(projections.size() == interpretedProjections.size(), "projections and interpretedProjections have different sizes");
+
+        Optional<Supplier<PageFilter>> filterFunctionSupplier = filter.map(expression -> compileTieredFilter(expression, classNameSuffix, interpretedFilter.get()));
+        ImmutableList.Builder<Supplier<PageProjection>> pageProjectionSuppliers = ImmutableList.builder();
+        for (int i = 0; i < projections.size(); i++) {
+            pageProjectionSuppliers.add(compileTieredProjection(projections.get(i), classNameSuffix, interpretedProjections.get(i)));
+        }
+        return createPageProcessorSupplier(filterFunctionSupplier, pageProjectionSuppliers.build());
+    }
+
+    private Supplier<PageFilter> compileTieredFilter(RowExpression filter, Optional<String> classNameSuffix, Supplier<PageFilter> interpreted)
+    {
+        if (pageFunctionCompiler.isFilterCompiled(filter)) {
+            return pageFunctionCompiler.compileFilter(filter, classNameSuffix);
+        }
+
+        ListenableFuture<Supplier<PageFilter>> compiled = backgroundCompiler.submit(() -> pageFunctionCompiler.compileFilter(filter, classNameSuffix));
+        InputChannels compiledInputChannels = rewritePageFieldsToInputParameters(filter).getInputChannels();
+        return () -> new TieredPageFilter(interpreted.get(), compiledInputChannels, compiled);
+    }
+
+    private Supplier<PageProjection> compileTieredProjection(RowExpression projection, Optional<String> classNameSuffix, Supplier<PageProjection> interpreted)
+    {
+        if (pageFunctionCompiler.isProjectionCompiled(projection)) {
+            return pageFunctionCompiler.compileProjection(projection, classNameSuffix);
+        }
+
+        ListenableFuture<Supplier<PageProjection>> compiled = backgroundCompiler.submit(() -> pageFunctionCompiler.compileProjection(projection, classNameSuffix));
+        InputChannels compiledInputChannels = rewritePageFieldsToInputParameters(projection).getInputChannels();
+        return () -> new TieredPageProjection(interpreted.get(), compiledInputChannels, compiled);
+    }
+
+    private static Supplier<PageProcessor> createPageProcessorSupplier(Optional<Supplier<PageFilter>> filterFunctionSupplier, List<Supplier<PageProjection>> pageProjectionSuppliers)
+    {
         return () -> {
             Optional<PageFilter> filterFunction = filterFunctionSupplier.map(Supplier::get);
             List<PageProjection> pageProjections = pageProjectionSuppliers.stream()
@@ -104,11 +202,6 @@ public class ExpressionCompiler
         };
     }
 
-    public Supplier<PageProcessor> compilePageProcessor(Optional<RowExpression> filter, List<? extends RowExpression> projections)
-    {
-        return compilePageProcessor(filter, projections, Optional.empty());
-    }
-
     private <T> Class<? extends T> compile(Optional<RowExpression> filter, List<RowExpression> projections, BodyCompiler bodyCompiler, Class<? extends T> superType)
     {
         // create filter and project page iterator class
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.operator.scalar.ScalarFunctionImplementation.ArgumentType.VALUE_TYPE;
+import static com.facebook.presto.sql.gen.BindingReferences.addFunctionReferences;
 
 public class FunctionCallCodeGenerator
         implements BytecodeGenerator
@@ -35,6 +36,7 @@ public class FunctionCallCodeGenerator
         FunctionRegistry registry = context.getRegistry();
 
         ScalarFunctionImplementation function = registry.getScalarFunctionImplementation(signature);
+        addFunctionReferences(context.getCallSiteBinder(), signature, function);
 
         List<BytecodeNode> argumentsBytecode = new ArrayList<>();
         for (int i = 0; i < arguments.size(); i++) {
@@ -0,0 +1,564 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.client.NodeVersion;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.CompilerConfig;
+import com.facebook.presto.sql.relational.CallExpression;
+import com.facebook.presto.sql.relational.ConstantExpression;
+import com.facebook.presto.sql.relational.InputReferenceExpression;
+import com.facebook.presto.sql.relational.LambdaDefinitionExpression;
+import com.facebook.presto.sql.relational.RowExpression;
+import com.facebook.presto.sql.relational.RowExpressionVisitor;
+import com.facebook.presto.sql.relational.VariableReferenceExpression;
+import com.facebook.presto.util.CompilerUtils;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.bytecode.ClassDefinition;
+import io.airlift.bytecode.DynamicClassLoader;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static com.facebook.presto.util.CompilerUtils.recordCompileTime;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.hash.Hashing.sha256;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the bytecode of generated classes in a local directory, so that a
+ * restarted server loads the classes it compiled before instead of generating
+ * them again.
+ * <p>
+ * The call site bindings of a generated class are objects of the running
+ * server, so the class is stored with the {@link BindingReferences} of its
+ * bindings. When every binding has a reference, a stored class is loaded
+ * without generating its definition at all. Otherwise the definition is still
+ * generated to collect the bindings, and only writing the bytecode, including
+ * computing its stack map frames, is saved. In both cases a stored class is
+ * only used when its bindings have the same types as when it was stored.
+ */
+@ThreadSafe
+public class GeneratedClassCache
+{
+    private static final Logger log = Logger.get(GeneratedClassCache.class);
+
+    private static final String FILE_SUFFIX = ".bytecode";
+    private static final int FORMAT_VERSION = 2;
+
+    private final Optional<Path> directory;
+    private final long maxSizeInBytes;
+    private final String version;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong generatedHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @GuardedBy("this")
+    private long sizeInBytes;
+
+    @Inject
+    public GeneratedClassCache(CompilerConfig config, NodeVersion nodeVersion)
+    {
+        this(
+                Optional.ofNullable(requireNonNull(config, "config is null").getClassCacheDirectory()).map(File::toPath),
+                config.getClassCacheMaxSize(),
+                requireNonNull(nodeVersion, "nodeVersion is null").toString());
+    }
+
+    public GeneratedClassCache(Optional<Path> directory, DataSize maxSize, String version)
+    {
+        this.directory = requireNonNull(directory, "directory is null");
+        this.maxSizeInBytes = requireNonNull(maxSize, "maxSize is null").toBytes();
+        this.version = requireNonNull(version, "version is null");
+
+        if (directory.isPresent()) {
+            try {
+                Files.createDirectories(directory.get());
+                sizeInBytes = listFiles().mapToLong(GeneratedClassCache::fileSize).sum();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Failed to create class cache directory " + directory.get(), e);
+            }
+        }
+    }
+
+    public static GeneratedClassCache disabled()
+    {
+        return new GeneratedClassCache(Optional.empty(), new DataSize(0, BYTE), NodeVersion.UNKNOWN.toString());
+    }
+
+    @Managed
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Returns the hits whose bindings could not be recreated from their
+     * references, so that the class definition was still generated.
+     */
+    @Managed
+    public long getGeneratedHits()
+    {
+        return generatedHits.get();
+    }
+
+    @Managed
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    @Managed
+    public synchronized long getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+    /**
+     * Returns a key identifying the bytecode generated for the expressions, or
+     * empty if the generated bytecode could depend on a constant that has no
+     * stable description.
+     */
+    public static Optional<String> createKey(String generator, List<RowExpression> expressions)
+    {
+        StringBuilder key = new StringBuilder(generator);
+        for (RowExpression expression : expressions) {
+            key.append('|');
+            if (!expression.accept(new KeyBuilder(), key)) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(key.toString());
+    }
+
+    /**
+     * Returns a key identifying the bytecode generated for the types and the
+     * other parameters of a generator, which must have stable descriptions.
+     */
+    public static String createKey(String generator, List<? extends Type> types, Object... parameters)
+    {
+        StringBuilder key = new StringBuilder(generator);
+        for (Type type : types) {
+            key.append('|').append(type.getTypeSignature());
+        }
+        for (Object parameter : parameters) {
+            key.append('|').append(parameter);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Defines the class for the key, either from the stored bytecode, or from
+     * the definition the generator builds with the call site binder it is given.
+     */
+    public <T> Class<? extends T> defineClass(
+            Optional<String> key,
+            Class<T> superType,
+            BindingReferences bindingReferences,
+            ClassLoader parentClassLoader,
+            Function<CallSiteBinder, ClassDefinition> generator)
+    {
+        if (!directory.isPresent() || !key.isPresent()) {
+            CallSiteBinder callSiteBinder = new CallSiteBinder();
+            ClassDefinition classDefinition = generator.apply(callSiteBinder);
+            return CompilerUtils.defineClass(classDefinition, superType, callSiteBinder.getBindings(), parentClassLoader);
+        }
+
+        Path file = directory.get().resolve(sha256().hashString(FORMAT_VERSION + "|" + version + "|" + key.get(), UTF_8) + FILE_SUFFIX);
+
+        Optional<CachedClass> cachedClass = read(file);
+        if (cachedClass.isPresent()) {
+            Optional<Map<Long, MethodHandle>> callSiteBindings = resolveBindings(cachedClass.get(), bindingReferences);
+            if (callSiteBindings.isPresent()) {
+                Optional<Class<? extends T>> clazz = loadCachedClass(file, cachedClass.get(), superType, callSiteBindings.get(), parentClassLoader);
+                if (clazz.isPresent()) {
+                    hits.incrementAndGet();
+                    return clazz.get();
+                }
+                cachedClass = Optional.empty();
+            }
+        }
+
+        CallSiteBinder callSiteBinder = new CallSiteBinder();
+        ClassDefinition classDefinition = generator.apply(callSiteBinder);
+        Map<Long, MethodHandle> callSiteBindings = callSiteBinder.getBindings();
+        String bindingTypes = describeBindings(callSiteBindings);
+
+        if (cachedClass.isPresent() && cachedClass.get().getBindingTypes().equals(bindingTypes)) {
+            Optional<Class<? extends T>> clazz = loadCachedClass(file, cachedClass.get(), superType, callSiteBindings, parentClassLoader);
+            if (clazz.isPresent()) {
+                hits.incrementAndGet();
+                generatedHits.incrementAndGet();
+                return clazz.get();
+            }
+        }
+
+        misses.incrementAndGet();
+        RecordingClassLoader classLoader = new RecordingClassLoader(parentClassLoader, callSiteBindings);
+        Class<? extends T> clazz = CompilerUtils.defineClass(classDefinition, superType, classLoader);
+        String className = classDefinition.getType().getJavaClassName();
+        byte[] bytecode = classLoader.getBytecode(className);
+        if (bytecode != null) {
+            write(file, new CachedClass(className, bindingTypes, callSiteBinder.getReferences(), bytecode));
+        }
+        return clazz;
+    }
+
+    private static Optional<Map<Long, MethodHandle>> resolveBindings(CachedClass cachedClass, BindingReferences bindingReferences)
+    {
+        if (!cachedClass.getReferences().isPresent()) {
+            return Optional.empty();
+        }
+        ImmutableMap.Builder<Long, MethodHandle> callSiteBindings = ImmutableMap.builder();
+        for (Map.Entry<Long, String> entry : cachedClass.getReferences().get().entrySet()) {
+            Optional<MethodHandle> binding;
+            try {
+                binding = bindingReferences.resolve(entry.getValue());
+            }
+            catch (RuntimeException e) {
+                log.debug(e, "Failed to resolve binding %s", entry.getValue());
+                return Optional.empty();
+            }
+            if (!binding.isPresent()) {
+                return Optional.empty();
+            }
+            callSiteBindings.put(entry.getKey(), binding.get());
+        }
+        Map<Long, MethodHandle> resolved = callSiteBindings.build();
+        if (!describeBindings(resolved).equals(cachedClass.getBindingTypes())) {
+            return Optional.empty();
+        }
+        return Optional.of(resolved);
+    }
+
+    private static <T> Optional<Class<? extends T>> loadCachedClass(Path file, CachedClass cachedClass, Class<T> superType, Map<Long, MethodHandle> callSiteBindings, ClassLoader parentClassLoader)
+    {
+        long start = System.nanoTime();
+        try {
+            DynamicClassLoader classLoader = new DynamicClassLoader(parentClassLoader, callSiteBindings);
+            Class<?> clazz = classLoader.defineClasses(ImmutableMap.of(cachedClass.getClassName(), cachedClass.getBytecode()))
+                    .get(cachedClass.getClassName());
+            return Optional.of(clazz.asSubclass(superType));
+        }
+        catch (LinkageError | ClassCastException e) {
+            log.warn(e, "Failed to load cached class %s", cachedClass.getClassName());
+            delete(file);
+            return Optional.empty();
+        }
+        finally {
+            recordCompileTime(System.nanoTime() - start);
+        }
+    }
+
+    private Optional<CachedClass> read(Path file)
+    {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+            // the least recently used classes are removed first
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to read cached class %s", file);
+            return Optional.empty();
+        }
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+            String className = input.readUTF();
+            String bindingTypes = input.readUTF();
+            Optional<Map<Long, String>> references = Optional.empty();
+            if (input.readBoolean()) {
+                ImmutableMap.Builder<Long, String> builder = ImmutableMap.builder();
+                int count = input.readInt();
+                for (int i = 0; i < count; i++) {
+                    builder.put(input.readLong(), input.readUTF());
+                }
+                references = Optional.of(builder.build());
+            }
+            byte[] bytecode = new byte[input.readInt()];
+            input.readFully(bytecode);
+            return Optional.of(new CachedClass(className, bindingTypes, references, bytecode));
+        }
+        catch (IOException e) {
+            log.warn(e, "Removing corrupt cached class %s", file);
+            delete(file);
+            return Optional.empty();
+        }
+    }
+
+    private void write(Path file, CachedClass cachedClass)
+    {
+        ByteArrayOutputStream data = new ByteArrayOutputStream(cachedClass.getBytecode().length + 1024);
+        try (DataOutputStream output = new DataOutputStream(data)) {
+            output.writeUTF(cachedClass.getClassName());
+            output.writeUTF(cachedClass.getBindingTypes());
+            output.writeBoolean(cachedClass.getReferences().isPresent());
+            if (cachedClass.getReferences().isPresent()) {
+                output.writeInt(cachedClass.getReferences().get().size());
+                for (Map.Entry<Long, String> entry : cachedClass.getReferences().get().entrySet()) {
+                    output.writeLong(entry.getKey());
+                    output.writeUTF(entry.getValue());
+                }
+            }
+            output.writeInt(cachedClass.getBytecode().length);
+            output.write(cachedClass.getBytecode());
+        }
+        catch (IOException e) {
+            // the description of the bindings or one of their references is too long to be stored
+            return;
+        }
+
+        Path temporaryFile = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            Files.write(temporaryFile, data.toByteArray());
+            Files.move(temporaryFile, file, ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to write cached class %s", file);
+            delete(temporaryFile);
+            return;
+        }
+
+        synchronized (this) {
+            sizeInBytes += data.size();
+            if (sizeInBytes > maxSizeInBytes) {
+                evict();
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private void evict()
+    {
+        List<Path> files;
+        try {
+            files = listFiles()
+                    .sorted(Comparator.comparing(GeneratedClassCache::lastModifiedTime))
+                    .collect(toImmutableList());
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to list class cache directory %s", directory.get());
+            return;
+        }
+
+        sizeInBytes = files.stream().mapToLong(GeneratedClassCache::fileSize).sum();
+        for (Path file : files) {
+            if (sizeInBytes <= maxSizeInBytes) {
+                break;
+            }
+            long size = fileSize(file);
+            delete(file);
+            sizeInBytes -= size;
+        }
+    }
+
+    private Stream<Path> listFiles()
+            throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory.get())) {
+            return files
+                    .filter(file -> file.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .collect(toImmutableList())
+                    .stream();
+        }
+    }
+
+    private static long fileSize(Path file)
+    {
+        try {
+            return Files.size(file);
+        }
+        catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModifiedTime(Path file)
+    {
+        try {
+            return Files.getLastModifiedTime(file);
+        }
+        catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void delete(Path file)
+    {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete %s", file);
+        }
+    }
+
+    private static String describeBindings(Map<Long, MethodHandle> callSiteBindings)
+    {
+        StringBuilder description = new StringBuilder();
+        new TreeMap<>(callSiteBindings).forEach((id, method) -> description.append(id).append('=').append(method.type().toMethodDescriptorString()).append(';'));
+        return description.toString();
+    }
+
+    private static class KeyBuilder
+            implements RowExpressionVisitor<Boolean, StringBuilder>
+    {
+        @Override
+        public Boolean visitCall(CallExpression call, StringBuilder key)
+        {
+            key.append(call.getSignature()).append('(');
+            for (RowExpression argument : call.getArguments()) {
+                if (!argument.accept(this, key)) {
+                    return false;
+                }
+                key.append(',');
+            }
+            key.append(')');
+            return true;
+        }
+
+        @Override
+        public Boolean visitInputReference(InputReferenceExpression reference, StringBuilder key)
+        {
+            key.append('#').append(reference.getField()).append(':').append(reference.getType());
+            return true;
+        }
+
+        @Override
+        public Boolean visitConstant(ConstantExpression literal, StringBuilder key)
+        {
+            key.append(literal.getType()).append(':');
+            Object value = literal.getValue();
+            if (value == null || value instanceof Boolean || value instanceof Long || value instanceof Double) {
+                key.append(value);
+                return true;
+            }
+            if (value instanceof Slice) {
+                key.append(Base64.getEncoder().encodeToString(((Slice) value).getBytes()));
+                return true;
+            }
+            // blocks and other objects have no stable description
+            return false;
+        }
+
+        @Override
+        public Boolean visitLambda(LambdaDefinitionExpression lambda, StringBuilder key)
+        {
+            key.append("lambda").append(lambda.getArguments()).append(lambda.getArgumentTypes()).append("->");
+            return lambda.getBody().accept(this, key);
+        }
+
+        @Override
+        public Boolean visitVariableReference(VariableReferenceExpression reference, StringBuilder key)
+        {
+            key.append('$').append(reference.getName()).append(':').append(reference.getType());
+            return true;
+        }
+    }
+
+    private static class RecordingClassLoader
+            extends DynamicClassLoader
+    {
+        private final Map<String, byte[]> bytecodes = new ConcurrentHashMap<>();
+
+        public RecordingClassLoader(ClassLoader parentClassLoader, Map<Long, MethodHandle> callSiteBindings)
+        {
+            super(parentClassLoader, callSiteBindings);
+        }
+
+        @Override
+        public Map<String, Class<?>> defineClasses(Map<String, byte[]> newClasses)
+        {
+            bytecodes.putAll(newClasses);
+            return super.defineClasses(newClasses);
+        }
+
+        public byte[] getBytecode(String className)
+        {
+            return bytecodes.get(className);
+        }
+    }
+
+    private static class CachedClass
+    {
+        private final String className;
+        private final String bindingTypes;
+        private final Optional<Map<Long, String>> references;
+        private final byte[] bytecode;
+
+        public CachedClass(String className, String bindingTypes, Optional<Map<Long, String>> references, byte[] bytecode)
+        {
+            this.className = requireNonNull(className, "className is null");
+            this.bindingTypes = requireNonNull(bindingTypes, "bindingTypes is null");
+            this.references = requireNonNull(references, "references is null");
+            this.bytecode = requireNonNull(bytecode, "bytecode is null");
+        }
+
+        public String getClassName()
+        {
+            return className;
+        }
+
+        public String getBindingTypes()
+        {
+            return bindingTypes;
+        }
+
+        public Optional<Map<Long, String>> getReferences()
+        {
+            return references;
+        }
+
+        public byte[] getBytecode()
+        {
+            return bytecode;
+        }
+    }
+}
@@ -16,6 +16,9 @@ package com.facebook.presto.sql.gen;
 import com.facebook.presto.Session;
 import com.facebook.presto.metadata.FunctionRegistry;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.DefaultPagesHash;
+import com.facebook.presto.operator.FixedWidthPagesHash;
 import com.facebook.presto.operator.JoinHash;
 import com.facebook.presto.operator.JoinHashSupplier;
 import com.facebook.presto.operator.LookupSourceSupplier;
@@ -66,9 +69,10 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.sql.gen.BindingReferences.addFunctionReferences;
+import static com.facebook.presto.sql.gen.GeneratedClassCache.createKey;
 import static com.facebook.presto.sql.gen.InputReferenceCompiler.generateInputReference;
 import static com.facebook.presto.sql.gen.SqlTypeBytecodeExpression.constantType;
-import static com.facebook.presto.util.CompilerUtils.defineClass;
 import static com.facebook.presto.util.CompilerUtils.makeClassName;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.bytecode.Access.FINAL;
@@ -92,6 +96,7 @@ public class JoinCompiler
 {
     private final FunctionRegistry registry;
     private final boolean groupByUsesEqualTo;
+    private final GeneratedClassCache classCache;
 
     private final LoadingCache<CacheKey, LookupSourceSupplierFactory> lookupSourceFactories = CacheBuilder.newBuilder()
             .recordStats()
@@ -110,11 +115,17 @@ public class JoinCompiler
         return compileLookupSourceFactory(types, joinChannels, sortChannel, Optional.empty());
     }
 
-    @Inject
     public JoinCompiler(Metadata metadata, FeaturesConfig config)
+    {
+        this(metadata, config, GeneratedClassCache.disabled());
+    }
+
+    @Inject
+    public JoinCompiler(Metadata metadata, FeaturesConfig config, GeneratedClassCache classCache)
     {
         this.registry = requireNonNull(metadata, "metadata is null").getFunctionRegistry();
         this.groupByUsesEqualTo = requireNonNull(config, "config is null").isGroupByUsesEqualTo();
+        this.classCache = requireNonNull(classCache, "classCache is null");
     }
 
     @Managed
@@ -174,9 +185,14 @@ public class JoinCompiler
                 LookupSourceSupplier.class,
                 JoinHashSupplier.class,
                 JoinHash.class,
-                PagesHash.class);
+                PagesHash.class,
+                DefaultPagesHash.class,
+                FixedWidthPagesHash.class);
 
-        return new LookupSourceSupplierFactory(joinHashSupplierClass, new PagesHashStrategyFactory(pagesHashStrategyClass));
+        List<Type> joinChannelTypes = joinChannels.stream()
+                .map(types::get)
+                .collect(toImmutableList());
+        return new LookupSourceSupplierFactory(joinHashSupplierClass, new PagesHashStrategyFactory(pagesHashStrategyClass), joinChannelTypes, joinChannels);
     }
 
     private static FieldDefinition generateInstanceSize(ClassDefinition definition)
@@ -196,8 +212,16 @@ public class JoinCompiler
 
     private Class<? extends PagesHashStrategy> internalCompileHashStrategy(List<Type> types, List<Integer> outputChannels, List<Integer> joinChannels, Optional<Integer> sortChannel)
     {
-        CallSiteBinder callSiteBinder = new CallSiteBinder();
+        return classCache.defineClass(
+                Optional.of(createKey("PagesHashStrategy", types, outputChannels, joinChannels, sortChannel, groupByUsesEqualTo)),
+                PagesHashStrategy.class,
+                BindingReferences.forTypes(ImmutableList.<Type>builder().addAll(types).add(BigintType.BIGINT).build(), Optional.of(registry)),
+                getClass().getClassLoader(),
+                callSiteBinder -> defineHashStrategyClass(callSiteBinder, types, outputChannels, joinChannels, sortChannel));
+    }
 
+    private ClassDefinition defineHashStrategyClass(CallSiteBinder callSiteBinder, List<Type> types, List<Integer> outputChannels, List<Integer> joinChannels, Optional<Integer> sortChannel)
+    {
         ClassDefinition classDefinition = new ClassDefinition(
                 a(PUBLIC, FINAL),
                 makeClassName("PagesHashStrategy"),
@@ -237,7 +261,7 @@ public class JoinCompiler
         generateCompareSortChannelPositionsMethod(classDefinition, callSiteBinder, types, channelFields, sortChannel);
         generateIsSortChannelPositionNull(classDefinition, channelFields, sortChannel);
 
-        return defineClass(classDefinition, PagesHashStrategy.class, callSiteBinder.getBindings(), getClass().getClassLoader());
+        return classDefinition;
     }
 
     private static void generateConstructor(ClassDefinition classDefinition,
@@ -706,8 +730,9 @@ public class JoinCompiler
                         continue;
                 }
             }
-            ScalarFunctionImplementation operator = registry.getScalarFunctionImplementation(registry.resolveOperator(OperatorType.IS_DISTINCT_FROM, ImmutableList.of(type, type)));
-            Binding binding = callSiteBinder.bind(operator.getMethodHandle());
+            Signature operatorSignature = registry.resolveOperator(OperatorType.IS_DISTINCT_FROM, ImmutableList.of(type, type));
+            ScalarFunctionImplementation operator = registry.getScalarFunctionImplementation(operatorSignature);
+            addFunctionReferences(callSiteBinder, operatorSignature, operator);
             List<BytecodeNode> argumentsBytecode = new ArrayList<>();
             argumentsBytecode.add(generateInputReference(callSiteBinder, scope, type, leftBlock, leftBlockPosition));
             argumentsBytecode.add(generateInputReference(callSiteBinder, scope, type, rightBlock, rightPosition));
@@ -900,12 +925,16 @@ public class JoinCompiler
     {
         private final Constructor<? extends LookupSourceSupplier> constructor;
         private final PagesHashStrategyFactory pagesHashStrategyFactory;
+        private final List<Type> joinChannelTypes;
+        private final List<Integer> joinChannels;
 
-        public LookupSourceSupplierFactory(Class<? extends LookupSourceSupplier> joinHashSupplierClass, PagesHashStrategyFactory pagesHashStrategyFactory)
+        public LookupSourceSupplierFactory(Class<? extends LookupSourceSupplier> joinHashSupplierClass, PagesHashStrategyFactory pagesHashStrategyFactory, List<Type> joinChannelTypes, List<Integer> joinChannels)
         {
             this.pagesHashStrategyFactory = pagesHashStrategyFactory;
+            this.joinChannelTypes = ImmutableList.copyOf(requireNonNull(joinChannelTypes, "joinChannelTypes is null"));
+            this.joinChannels = ImmutableList.copyOf(requireNonNull(joinChannels, "joinChannels is null"));
             try {
-                constructor = joinHashSupplierClass.getConstructor(Session.class, PagesHashStrategy.class, LongArrayList.class, List.class, Optional.class, Optional.class, List.class);
+                constructor = joinHashSupplierClass.getConstructor(Session.class, PagesHashStrategy.class, LongArrayList.class, List.class, List.class, List.class, Optional.class, Optional.class, List.class);
             }
             catch (NoSuchMethodException e) {
                 throw new RuntimeException(e);
@@ -923,7 +952,7 @@ public class JoinCompiler
         {
             PagesHashStrategy pagesHashStrategy = pagesHashStrategyFactory.createPagesHashStrategy(channels, hashChannel);
             try {
-                return constructor.newInstance(session, pagesHashStrategy, addresses, channels, filterFunctionFactory, sortChannel, searchFunctionFactories);
+                return constructor.newInstance(session, pagesHashStrategy, addresses, channels, joinChannelTypes, joinChannels, filterFunctionFactory, sortChannel, searchFunctionFactories);
             }
             catch (ReflectiveOperationException e) {
                 throw new RuntimeException(e);
@@ -43,11 +43,14 @@ import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import javax.inject.Inject;
+
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
+import static com.facebook.presto.sql.gen.GeneratedClassCache.createKey;
 import static com.facebook.presto.sql.gen.SqlTypeBytecodeExpression.constantType;
-import static com.facebook.presto.util.CompilerUtils.defineClass;
 import static com.facebook.presto.util.CompilerUtils.makeClassName;
 import static io.airlift.bytecode.Access.FINAL;
 import static io.airlift.bytecode.Access.PUBLIC;
@@ -63,6 +66,8 @@ public class OrderingCompiler
 {
     private static final Logger log = Logger.get(OrderingCompiler.class);
 
+    private final GeneratedClassCache classCache;
+
     private final LoadingCache<PagesIndexComparatorCacheKey, PagesIndexOrdering> pagesIndexOrderings = CacheBuilder.newBuilder()
             .recordStats()
             .maximumSize(1000)
@@ -73,6 +78,17 @@ public class OrderingCompiler
             .maximumSize(1000)
             .build(CacheLoader.from(key -> internalCompilePageWithPositionComparator(key.getSortTypes(), key.getSortChannels(), key.getSortOrders())));
 
+    public OrderingCompiler()
+    {
+        this(GeneratedClassCache.disabled());
+    }
+
+    @Inject
+    public OrderingCompiler(GeneratedClassCache classCache)
+    {
+        this.classCache = requireNonNull(classCache, "classCache is null");
+    }
+
     @Managed
     @Nested
     public CacheStatsMBean getPagesIndexOrderingsStats()
@@ -121,18 +137,22 @@ public class OrderingCompiler
             List<Integer> sortChannels,
             List<SortOrder> sortOrders)
     {
-        CallSiteBinder callSiteBinder = new CallSiteBinder();
-
-        ClassDefinition classDefinition = new ClassDefinition(
-                a(PUBLIC, FINAL),
-                makeClassName("PagesIndexComparator"),
-                type(Object.class),
-                type(PagesIndexComparator.class));
-
-        classDefinition.declareDefaultConstructor(a(PUBLIC));
-        generatePageIndexCompareTo(classDefinition, callSiteBinder, sortTypes, sortChannels, sortOrders);
-
-        return defineClass(classDefinition, PagesIndexComparator.class, callSiteBinder.getBindings(), getClass().getClassLoader());
+        return classCache.defineClass(
+                Optional.of(createKey("PagesIndexComparator", sortTypes, sortChannels, sortOrders)),
+                PagesIndexComparator.class,
+                BindingReferences.forTypes(sortTypes),
+                getClass().getClassLoader(),
+                callSiteBinder -> {
+                    ClassDefinition classDefinition = new ClassDefinition(
+                            a(PUBLIC, FINAL),
+                            makeClassName("PagesIndexComparator"),
+                            type(Object.class),
+                            type(PagesIndexComparator.class));
+
+                    classDefinition.declareDefaultConstructor(a(PUBLIC));
+                    generatePageIndexCompareTo(classDefinition, callSiteBinder, sortTypes, sortChannels, sortOrders);
+                    return classDefinition;
+                });
     }
 
     private static void generatePageIndexCompareTo(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, List<Type> sortTypes, List<Integer> sortChannels, List<SortOrder> sortOrders)
@@ -256,19 +276,23 @@ public class OrderingCompiler
 
     private Class<? extends PageWithPositionComparator> generatePageWithPositionComparatorClass(List<Type> sortTypes, List<Integer> sortChannels, List<SortOrder> sortOrders)
     {
-        CallSiteBinder callSiteBinder = new CallSiteBinder();
-
-        ClassDefinition classDefinition = new ClassDefinition(
-                a(PUBLIC, FINAL),
-                makeClassName("PageWithPositionComparator"),
-                type(Object.class),
-                type(PageWithPositionComparator.class));
-
-        classDefinition.declareDefaultConstructor(a(PUBLIC));
-
-        generateMergeSortCompareTo(classDefinition, callSiteBinder, sortTypes, sortChannels, sortOrders);
-
-        return defineClass(classDefinition, PageWithPositionComparator.class, callSiteBinder.getBindings(), getClass().getClassLoader());
+        return classCache.defineClass(
+                Optional.of(createKey("PageWithPositionComparator", sortTypes, sortChannels, sortOrders)),
+                PageWithPositionComparator.class,
+                BindingReferences.forTypes(sortTypes),
+                getClass().getClassLoader(),
+                callSiteBinder -> {
+                    ClassDefinition classDefinition = new ClassDefinition(
+                            a(PUBLIC, FINAL),
+                            makeClassName("PageWithPositionComparator"),
+                            type(Object.class),
+                            type(PageWithPositionComparator.class));
+
+                    classDefinition.declareDefaultConstructor(a(PUBLIC));
+
+                    generateMergeSortCompareTo(classDefinition, callSiteBinder, sortTypes, sortChannels, sortOrders);
+                    return classDefinition;
+                });
     }
 
     private void generateMergeSortCompareTo(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, List<Type> types, List<Integer> sortChannels, List<SortOrder> sortOrders)
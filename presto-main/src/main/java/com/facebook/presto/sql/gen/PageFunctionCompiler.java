@@ -74,8 +74,8 @@ import static com.facebook.presto.operator.project.PageFieldsToInputParametersRe
 import static com.facebook.presto.spi.StandardErrorCode.COMPILER_ERROR;
 import static com.facebook.presto.sql.gen.BytecodeUtils.generateWrite;
 import static com.facebook.presto.sql.gen.BytecodeUtils.invoke;
+import static com.facebook.presto.sql.gen.GeneratedClassCache.createKey;
 import static com.facebook.presto.sql.gen.LambdaAndTryExpressionExtractor.extractLambdaAndTryExpressions;
-import static com.facebook.presto.util.CompilerUtils.defineClass;
 import static com.facebook.presto.util.CompilerUtils.makeClassName;
 import static com.facebook.presto.util.Reflection.constructorMethodHandle;
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -102,6 +102,8 @@ public class PageFunctionCompiler
 {
     private final Metadata metadata;
     private final DeterminismEvaluator determinismEvaluator;
+    private final GeneratedClassCache classCache;
+    private final BindingReferences bindingReferences;
 
     private final LoadingCache<RowExpression, Supplier<PageProjection>> projectionCache;
     private final LoadingCache<RowExpression, Supplier<PageFilter>> filterCache;
@@ -110,15 +112,22 @@ public class PageFunctionCompiler
     private final CacheStatsMBean filterCacheStats;
 
     @Inject
-    public PageFunctionCompiler(Metadata metadata, CompilerConfig config)
+    public PageFunctionCompiler(Metadata metadata, CompilerConfig config, GeneratedClassCache classCache)
     {
-        this(metadata, requireNonNull(config, "config is null").getExpressionCacheSize());
+        this(metadata, requireNonNull(config, "config is null").getExpressionCacheSize(), classCache);
     }
 
     public PageFunctionCompiler(Metadata metadata, int expressionCacheSize)
+    {
+        this(metadata, expressionCacheSize, GeneratedClassCache.disabled());
+    }
+
+    public PageFunctionCompiler(Metadata metadata, int expressionCacheSize, GeneratedClassCache classCache)
     {
         this.metadata = requireNonNull(metadata, "metadata is null");
         this.determinismEvaluator = new DeterminismEvaluator(metadata.getFunctionRegistry());
+        this.classCache = requireNonNull(classCache, "classCache is null");
+        this.bindingReferences = new BindingReferences(metadata::getType, Optional.of(metadata.getFunctionRegistry()));
 
         if (expressionCacheSize > 0) {
             projectionCache = CacheBuilder.newBuilder()
@@ -169,6 +178,16 @@ public class PageFunctionCompiler
         return projectionCache.getUnchecked(projection);
     }
 
+    /**
+     * Returns true if compiling the projection would not generate a new class.
+     */
+    public boolean isProjectionCompiled(RowExpression projection)
+    {
+        return projection instanceof InputReferenceExpression ||
+                projection instanceof ConstantExpression ||
+                (projectionCache != null && projectionCache.getIfPresent(projection) != null);
+    }
+
     private Supplier<PageProjection> compileProjectionInternal(RowExpression projection, Optional<String> classNameSuffix)
     {
         requireNonNull(projection, "projection is null");
@@ -187,14 +206,18 @@ public class PageFunctionCompiler
 
         PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(projection);
 
-        CallSiteBinder callSiteBinder = new CallSiteBinder();
-
         // generate Work
-        ClassDefinition pageProjectionWorkDefinition = definePageProjectWorkClass(result.getRewrittenExpression(), callSiteBinder, classNameSuffix);
-
         Class<? extends Work> pageProjectionWorkClass;
         try {
-            pageProjectionWorkClass = defineClass(pageProjectionWorkDefinition, Work.class, callSiteBinder.getBindings(), getClass().getClassLoader());
+            pageProjectionWorkClass = classCache.defineClass(
+                    createKey("PageProjectionWork", ImmutableList.of(result.getRewrittenExpression())),
+                    Work.class,
+                    bindingReferences,
+                    getClass().getClassLoader(),
+                    callSiteBinder -> definePageProjectWorkClass(result.getRewrittenExpression(), callSiteBinder, classNameSuffix));
+        }
+        catch (PrestoException e) {
+            throw e;
         }
         catch (Exception e) {
             throw new PrestoException(COMPILER_ERROR, e);
@@ -388,18 +411,33 @@ public class PageFunctionCompiler
         return filterCache.getUnchecked(filter);
     }
 
+    /**
+     * Returns true if compiling the filter would not generate a new class.
+     */
+    public boolean isFilterCompiled(RowExpression filter)
+    {
+        return filterCache != null && filterCache.getIfPresent(filter) != null;
+    }
+
     private Supplier<PageFilter> compileFilterInternal(RowExpression filter, Optional<String> classNameSuffix)
     {
         requireNonNull(filter, "filter is null");
 
         PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(filter);
 
-        CallSiteBinder callSiteBinder = new CallSiteBinder();
-        ClassDefinition classDefinition = defineFilterClass(result.getRewrittenExpression(), result.getInputChannels(), callSiteBinder, classNameSuffix);
-
         Class<? extends PageFilter> functionClass;
         try {
-            functionClass = defineClass(classDefinition, PageFilter.class, callSiteBinder.getBindings(), getClass().getClassLoader());
+            // the input channels are bound into the class, so filters on different channels must not share it
+            functionClass = classCache.defineClass(
+                    createKey(PageFilter.class.getSimpleName(), ImmutableList.of(result.getRewrittenExpression()))
+                            .map(key -> key + '|' + result.getInputChannels().getInputChannels()),
+                    PageFilter.class,
+                    bindingReferences,
+                    getClass().getClassLoader(),
+                    callSiteBinder -> defineFilterClass(result.getRewrittenExpression(), result.getInputChannels(), callSiteBinder, classNameSuffix));
+        }
+        catch (PrestoException e) {
+            throw e;
         }
         catch (Exception e) {
             throw new PrestoException(COMPILER_ERROR, filter.toString(), e.getCause());
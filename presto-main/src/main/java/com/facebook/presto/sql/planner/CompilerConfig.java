@@ -16,13 +16,22 @@ package com.facebook.presto.sql.planner;
 import com.facebook.presto.spi.function.Description;
 import io.airlift.configuration.Config;
 import io.airlift.configuration.DefunctConfig;
+import io.airlift.units.DataSize;
 
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import java.io.File;
+
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 
 @DefunctConfig("compiler.interpreter-enabled")
 public class CompilerConfig
 {
     private int expressionCacheSize = 10_000;
+    private File classCacheDirectory;
+    private DataSize classCacheMaxSize = new DataSize(1, GIGABYTE);
+    private int backgroundCompilerThreads = 2;
 
     @Min(0)
     public int getExpressionCacheSize()
@@ -37,4 +46,45 @@ public class CompilerConfig
         this.expressionCacheSize = expressionCacheSize;
         return this;
     }
+
+    public File getClassCacheDirectory()
+    {
+        return classCacheDirectory;
+    }
+
+    @Config("compiler.class-cache-directory")
+    @Description("Directory to keep the generated classes in across restarts")
+    public CompilerConfig setClassCacheDirectory(File classCacheDirectory)
+    {
+        this.classCacheDirectory = classCacheDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getClassCacheMaxSize()
+    {
+        return classCacheMaxSize;
+    }
+
+    @Config("compiler.class-cache-max-size")
+    @Description("Maximum size of the generated classes kept in the class cache directory")
+    public CompilerConfig setClassCacheMaxSize(DataSize classCacheMaxSize)
+    {
+        this.classCacheMaxSize = classCacheMaxSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getBackgroundCompilerThreads()
+    {
+        return backgroundCompilerThreads;
+    }
+
+    @Config("compiler.background-compiler-threads")
+    @Description("Number of threads compiling expressions that are interpreted in the meantime")
+    public CompilerConfig setBackgroundCompilerThreads(int backgroundCompilerThreads)
+    {
+        this.backgroundCompilerThreads = backgroundCompilerThreads;
+        return this;
+    }
 }
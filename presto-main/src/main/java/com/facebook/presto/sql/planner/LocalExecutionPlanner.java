@@ -41,6 +41,7 @@ import com.facebook.presto.operator.HashSemiJoinOperator.HashSemiJoinOperatorFac
 import com.facebook.presto.operator.JoinBridgeDataManager;
 import com.facebook.presto.operator.JoinOperatorFactory;
 import com.facebook.presto.operator.LimitOperator.LimitOperatorFactory;
+import com.facebook.presto.operator.LocalDynamicFilter;
 import com.facebook.presto.operator.LocalPlannerAware;
 import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.LookupOuterOperator.LookupOuterOperatorFactory;
@@ -63,6 +64,8 @@ import com.facebook.presto.operator.RowNumberOperator;
 import com.facebook.presto.operator.ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory;
 import com.facebook.presto.operator.SetBuilderOperator.SetBuilderOperatorFactory;
 import com.facebook.presto.operator.SetBuilderOperator.SetSupplier;
+import com.facebook.presto.operator.SharedBuildManager;
+import com.facebook.presto.operator.SortExecutor;
 import com.facebook.presto.operator.SourceOperatorFactory;
 import com.facebook.presto.operator.SpatialIndexBuilderOperator.SpatialIndexBuilderOperatorFactory;
 import com.facebook.presto.operator.SpatialIndexBuilderOperator.SpatialPredicate;
@@ -89,7 +92,11 @@ import com.facebook.presto.operator.index.IndexJoinLookupStats;
 import com.facebook.presto.operator.index.IndexLookupSourceFactory;
 import com.facebook.presto.operator.index.IndexSourceOperator;
 import com.facebook.presto.operator.project.CursorProcessor;
+import com.facebook.presto.operator.project.InterpretedPageFilter;
+import com.facebook.presto.operator.project.InterpretedPageProjection;
+import com.facebook.presto.operator.project.PageFilter;
 import com.facebook.presto.operator.project.PageProcessor;
+import com.facebook.presto.operator.project.PageProjection;
 import com.facebook.presto.operator.window.FrameInfo;
 import com.facebook.presto.operator.window.WindowFunctionSupplier;
 import com.facebook.presto.spi.ColumnHandle;
@@ -101,7 +108,9 @@ import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.predicate.NullableValue;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarcharType;
 import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.spiller.SingleStreamSpillerFactory;
 import com.facebook.presto.spiller.SpillerFactory;
@@ -166,6 +175,7 @@ import com.facebook.presto.sql.tree.NodeRef;
 import com.facebook.presto.sql.tree.OrderBy;
 import com.facebook.presto.sql.tree.SortItem;
 import com.facebook.presto.sql.tree.SymbolReference;
+import com.google.common.base.Suppliers;
 import com.google.common.base.VerifyException;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.HashMultimap;
@@ -177,9 +187,11 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
 import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
 
@@ -203,12 +215,19 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static com.facebook.presto.SystemSessionProperties.getAggregationOperatorUnspillMemoryLimit;
+import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringMaxDistinctValues;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionCodec;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageRowCount;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageSize;
+import static com.facebook.presto.SystemSessionProperties.getSortParallelism;
 import static com.facebook.presto.SystemSessionProperties.getTaskConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isEnableDynamicFiltering;
+import static com.facebook.presto.SystemSessionProperties.isExchangeAdaptiveCompressionEnabled;
 import static com.facebook.presto.SystemSessionProperties.isExchangeCompressionEnabled;
+import static com.facebook.presto.SystemSessionProperties.isShareBroadcastBuilds;
 import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
+import static com.facebook.presto.SystemSessionProperties.isTieredExpressionCompilationEnabled;
 import static com.facebook.presto.metadata.FunctionKind.SCALAR;
 import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
 import static com.facebook.presto.operator.NestedLoopBuildOperator.NestedLoopBuildOperatorFactory;
@@ -222,6 +241,9 @@ import static com.facebook.presto.operator.UnnestOperator.UnnestOperatorFactory;
 import static com.facebook.presto.operator.WindowFunctionDefinition.window;
 import static com.facebook.presto.spi.StandardErrorCode.COMPILER_ERROR;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
 import static com.facebook.presto.spi.type.TypeUtils.writeNativeValue;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypes;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypesFromInput;
@@ -233,6 +255,7 @@ import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SCALED_WR
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.LOCAL;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.FULL;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.CreateHandle;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.InsertHandle;
@@ -256,6 +279,7 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Range.closedOpen;
+import static io.airlift.slice.Slices.utf8Slice;
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static java.util.Objects.requireNonNull;
@@ -292,6 +316,8 @@ public class LocalExecutionPlanner
     private final JoinCompiler joinCompiler;
     private final LookupJoinOperators lookupJoinOperators;
     private final OrderingCompiler orderingCompiler;
+    private final SharedBuildManager sharedBuildManager;
+    private final SortExecutor sortExecutor;
 
     @Inject
     public LocalExecutionPlanner(
@@ -317,7 +343,9 @@ public class LocalExecutionPlanner
             PagesIndex.Factory pagesIndexFactory,
             JoinCompiler joinCompiler,
             LookupJoinOperators lookupJoinOperators,
-            OrderingCompiler orderingCompiler)
+            OrderingCompiler orderingCompiler,
+            SharedBuildManager sharedBuildManager,
+            SortExecutor sortExecutor)
     {
         this.queryPerformanceFetcher = requireNonNull(queryPerformanceFetcher, "queryPerformanceFetcher is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
@@ -345,6 +373,8 @@ public class LocalExecutionPlanner
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.lookupJoinOperators = requireNonNull(lookupJoinOperators, "lookupJoinOperators is null");
         this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
+        this.sharedBuildManager = requireNonNull(sharedBuildManager, "sharedBuildManager is null");
+        this.sortExecutor = requireNonNull(sortExecutor, "sortExecutor is null");
     }
 
     public LocalExecutionPlan plan(
@@ -355,6 +385,19 @@ public class LocalExecutionPlanner
             boolean planGrouped,
             List<PlanNodeId> partitionedSourceOrder,
             OutputBuffer outputBuffer)
+    {
+        return plan(taskContext, plan, types, partitioningScheme, planGrouped, partitionedSourceOrder, outputBuffer, ImmutableMap.of());
+    }
+
+    public LocalExecutionPlan plan(
+            TaskContext taskContext,
+            PlanNode plan,
+            Map<Symbol, Type> types,
+            PartitioningScheme partitioningScheme,
+            boolean planGrouped,
+            List<PlanNodeId> partitionedSourceOrder,
+            OutputBuffer outputBuffer,
+            Map<PlanNodeId, String> broadcastBuildKeys)
     {
         List<Symbol> outputLayout = partitioningScheme.getOutputLayout();
 
@@ -363,7 +406,7 @@ public class LocalExecutionPlanner
                 partitioningScheme.getPartitioning().getHandle().equals(SCALED_WRITER_DISTRIBUTION) ||
                 partitioningScheme.getPartitioning().getHandle().equals(SINGLE_DISTRIBUTION) ||
                 partitioningScheme.getPartitioning().getHandle().equals(COORDINATOR_DISTRIBUTION)) {
-            return plan(taskContext, planGrouped, plan, outputLayout, types, partitionedSourceOrder, new TaskOutputFactory(outputBuffer));
+            return plan(taskContext, planGrouped, plan, outputLayout, types, partitionedSourceOrder, new TaskOutputFactory(outputBuffer), broadcastBuildKeys);
         }
 
         // We can convert the symbols directly into channels, because the root must be a sink and therefore the layout is fixed
@@ -407,6 +450,26 @@ public class LocalExecutionPlanner
         if (partitioningScheme.isReplicateNullsAndAny() && partitioningColumns.size() == 1) {
             nullChannel = OptionalInt.of(outputLayout.indexOf(getOnlyElement(partitioningColumns)));
         }
+        List<Integer> spreadNullChannels = ImmutableList.of();
+        if (partitioningScheme.isSpreadNulls()) {
+            spreadNullChannels = partitioningColumns.stream()
+                    .map(outputLayout::indexOf)
+                    .collect(toImmutableList());
+        }
+        ImmutableMap.Builder<Integer, List<NullableValue>> skewedKeyValues = ImmutableMap.builder();
+        if (!partitioningScheme.getSkewedKeyValues().isEmpty()) {
+            for (Symbol column : partitioningColumns) {
+                Type type = types.get(column);
+                List<NullableValue> values = partitioningScheme.getSkewedKeyValues().stream()
+                        .map(value -> parseSkewedKeyValue(type, value))
+                        .filter(Optional::isPresent)
+                        .map(Optional::get)
+                        .collect(toImmutableList());
+                if (!values.isEmpty()) {
+                    skewedKeyValues.put(outputLayout.indexOf(column), values);
+                }
+            }
+        }
 
         return plan(
                 taskContext,
@@ -421,8 +484,12 @@ public class LocalExecutionPlanner
                         partitionConstants,
                         partitioningScheme.isReplicateNullsAndAny(),
                         nullChannel,
+                        spreadNullChannels,
+                        skewedKeyValues.build(),
+                        partitioningScheme.isReplicateSkewedKeys(),
                         outputBuffer,
-                        maxPagePartitioningBufferSize));
+                        maxPagePartitioningBufferSize),
+                broadcastBuildKeys);
     }
 
     public LocalExecutionPlan plan(
@@ -433,11 +500,24 @@ public class LocalExecutionPlanner
             Map<Symbol, Type> types,
             List<PlanNodeId> partitionedSourceOrder,
             OutputFactory outputOperatorFactory)
+    {
+        return plan(taskContext, planGrouped, plan, outputLayout, types, partitionedSourceOrder, outputOperatorFactory, ImmutableMap.of());
+    }
+
+    public LocalExecutionPlan plan(
+            TaskContext taskContext,
+            boolean planGrouped,
+            PlanNode plan,
+            List<Symbol> outputLayout,
+            Map<Symbol, Type> types,
+            List<PlanNodeId> partitionedSourceOrder,
+            OutputFactory outputOperatorFactory,
+            Map<PlanNodeId, String> broadcastBuildKeys)
     {
         Session session = taskContext.getSession();
         LocalExecutionPlanContext context = new LocalExecutionPlanContext(taskContext, types);
 
-        PhysicalOperation physicalOperation = plan.accept(new Visitor(session, planGrouped), context);
+        PhysicalOperation physicalOperation = plan.accept(new Visitor(session, planGrouped, broadcastBuildKeys), context);
 
         Function<Page, Page> pagePreprocessor = enforceLayoutProcessor(outputLayout, physicalOperation.getLayout());
 
@@ -455,7 +535,7 @@ public class LocalExecutionPlanner
                                 plan.getId(),
                                 outputTypes,
                                 pagePreprocessor,
-                                new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session))))
+                                createPagesSerdeFactory(session)))
                         .build(),
                 context.getDriverInstanceCount(),
                 physicalOperation.getPipelineExecutionStrategy());
@@ -473,6 +553,27 @@ public class LocalExecutionPlanner
         return new LocalExecutionPlan(context.getDriverFactories(), partitionedSourceOrder);
     }
 
+    private PagesSerdeFactory createPagesSerdeFactory(Session session)
+    {
+        if (!isExchangeCompressionEnabled(session)) {
+            return new PagesSerdeFactory(blockEncodingSerde, false);
+        }
+        return new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeAdaptiveCompressionEnabled(session));
+    }
+
+    private static Optional<NullableValue> parseSkewedKeyValue(Type type, String value)
+    {
+        // skewed key values are configured as strings, and only match columns of the types they can be read as
+        if (type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT)) {
+            return Optional.ofNullable(Longs.tryParse(value))
+                    .map(longValue -> NullableValue.of(type, longValue));
+        }
+        if (type instanceof VarcharType) {
+            return Optional.of(NullableValue.of(type, utf8Slice(value)));
+        }
+        return Optional.empty();
+    }
+
     private static void addLookupOuterDrivers(LocalExecutionPlanContext context)
     {
         // For an outer join on the lookup side (RIGHT or FULL) add an additional
@@ -663,11 +764,14 @@ public class LocalExecutionPlanner
     {
         private final Session session;
         private final boolean groupEnumerable;
+        private final Map<PlanNodeId, String> broadcastBuildKeys;
+        private final Map<PlanNodeId, List<LocalDynamicFilter>> dynamicFiltersByTableScan = new HashMap<>();
 
-        private Visitor(Session session, boolean groupEnumerable)
+        private Visitor(Session session, boolean groupEnumerable, Map<PlanNodeId, String> broadcastBuildKeys)
         {
             this.session = session;
             this.groupEnumerable = groupEnumerable;
+            this.broadcastBuildKeys = ImmutableMap.copyOf(broadcastBuildKeys);
         }
 
         @Override
@@ -701,7 +805,7 @@ public class LocalExecutionPlanner
                     context.getNextOperatorId(),
                     node.getId(),
                     exchangeClientSupplier,
-                    new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session)),
+                    createPagesSerdeFactory(session),
                     orderingCompiler,
                     types,
                     outputChannels,
@@ -721,7 +825,7 @@ public class LocalExecutionPlanner
                     context.getNextOperatorId(),
                     node.getId(),
                     exchangeClientSupplier,
-                    new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session)));
+                    createPagesSerdeFactory(session));
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, UNGROUPED_EXECUTION);
         }
@@ -920,7 +1024,9 @@ public class LocalExecutionPlanner
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
                     10_000,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    isSpillEnabled(context.getSession()),
+                    spillerFactory);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), context, source);
         }
@@ -977,7 +1083,11 @@ public class LocalExecutionPlanner
                     10_000,
                     orderByChannels,
                     sortOrder.build(),
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    isSpillEnabled(context.getSession()),
+                    spillerFactory,
+                    getSortParallelism(context.getSession()),
+                    sortExecutor.getExecutor());
 
             return new PhysicalOperation(operator, source.getLayout(), context, source);
         }
@@ -1082,7 +1192,15 @@ public class LocalExecutionPlanner
 
             List<Integer> channels = getChannelsForSymbols(node.getDistinctSymbols(), source.getLayout());
             Optional<Integer> hashChannel = node.getHashSymbol().map(channelGetter(source));
-            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), node.getId(), source.getTypes(), channels, hashChannel, joinCompiler);
+            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    source.getTypes(),
+                    channels,
+                    hashChannel,
+                    joinCompiler,
+                    isSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operator, makeLayout(node), context, source);
         }
 
@@ -1201,8 +1319,17 @@ public class LocalExecutionPlanner
 
             try {
                 if (columns != null) {
-                    Supplier<CursorProcessor> cursorProcessor = expressionCompiler.compileCursorProcessor(translatedFilter, translatedProjections, sourceNode.getId());
-                    Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(translatedFilter, translatedProjections, Optional.of(context.getStageId() + "_" + planNodeId));
+                    Supplier<CursorProcessor> cursorProcessor;
+                    if (isTieredExpressionCompilationEnabled(session)) {
+                        // only compile the cursor processor once a split is actually read through a record cursor
+                        PlanNodeId sourceNodeId = sourceNode.getId();
+                        Supplier<Supplier<CursorProcessor>> lazyCursorProcessor = Suppliers.memoize(() -> expressionCompiler.compileCursorProcessor(translatedFilter, translatedProjections, sourceNodeId));
+                        cursorProcessor = () -> lazyCursorProcessor.get().get();
+                    }
+                    else {
+                        cursorProcessor = expressionCompiler.compileCursorProcessor(translatedFilter, translatedProjections, sourceNode.getId());
+                    }
+                    Supplier<PageProcessor> pageProcessor = compilePageProcessor(context, planNodeId, filterExpression, assignments, outputSymbols, sourceLayout, translatedFilter, translatedProjections);
 
                     SourceOperatorFactory operatorFactory = new ScanFilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -1212,6 +1339,7 @@ public class LocalExecutionPlanner
                             cursorProcessor,
                             pageProcessor,
                             columns,
+                            getDynamicFilter(sourceNode.getId()),
                             getTypes(rewrittenProjections, expressionTypes),
                             getFilterAndProjectMinOutputPageSize(session),
                             getFilterAndProjectMinOutputPageRowCount(session));
@@ -1219,7 +1347,7 @@ public class LocalExecutionPlanner
                     return new PhysicalOperation(operatorFactory, outputMappings, context, groupEnumerable ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
                 }
                 else {
-                    Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(translatedFilter, translatedProjections, Optional.of(context.getStageId() + "_" + planNodeId));
+                    Supplier<PageProcessor> pageProcessor = compilePageProcessor(context, planNodeId, filterExpression, assignments, outputSymbols, sourceLayout, translatedFilter, translatedProjections);
 
                     OperatorFactory operatorFactory = new FilterAndProjectOperator.FilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -1237,6 +1365,31 @@ public class LocalExecutionPlanner
             }
         }
 
+        private Supplier<PageProcessor> compilePageProcessor(
+                LocalExecutionPlanContext context,
+                PlanNodeId planNodeId,
+                Optional<Expression> filterExpression,
+                Assignments assignments,
+                List<Symbol> outputSymbols,
+                Map<Symbol, Integer> sourceLayout,
+                Optional<RowExpression> translatedFilter,
+                List<RowExpression> translatedProjections)
+        {
+            Optional<String> classNameSuffix = Optional.of(context.getStageId() + "_" + planNodeId);
+            if (!isTieredExpressionCompilationEnabled(session)) {
+                return expressionCompiler.compilePageProcessor(translatedFilter, translatedProjections, classNameSuffix);
+            }
+
+            // the interpreted expressions are evaluated until the compiled ones are ready
+            Map<Symbol, Type> types = context.getTypes();
+            Optional<Supplier<PageFilter>> interpretedFilter = filterExpression.map(filter -> () -> new InterpretedPageFilter(filter, types, sourceLayout, metadata, sqlParser, session));
+            List<Supplier<PageProjection>> interpretedProjections = outputSymbols.stream()
+                    .map(assignments::get)
+                    .map(projection -> (Supplier<PageProjection>) () -> new InterpretedPageProjection(projection, types, sourceLayout, metadata, sqlParser, session))
+                    .collect(toImmutableList());
+            return expressionCompiler.compileTieredPageProcessor(translatedFilter, translatedProjections, classNameSuffix, interpretedFilter, interpretedProjections);
+        }
+
         private RowExpression toRowExpression(Expression expression, Map<NodeRef<Expression>, Type> types)
         {
             return SqlToRowExpressionTranslator.translate(expression, SCALAR, types, metadata.getFunctionRegistry(), metadata.getTypeManager(), session, true);
@@ -1260,10 +1413,21 @@ public class LocalExecutionPlanner
                 columns.add(node.getAssignments().get(symbol));
             }
 
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, columns);
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, columns, getDynamicFilter(node.getId()));
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, groupEnumerable ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
         }
 
+        private Supplier<TupleDomain<ColumnHandle>> getDynamicFilter(PlanNodeId tableScanId)
+        {
+            List<LocalDynamicFilter> dynamicFilters = ImmutableList.copyOf(dynamicFiltersByTableScan.getOrDefault(tableScanId, ImmutableList.of()));
+            if (dynamicFilters.isEmpty()) {
+                return TupleDomain::all;
+            }
+            return () -> dynamicFilters.stream()
+                    .map(LocalDynamicFilter::getCurrentPredicate)
+                    .reduce(TupleDomain.all(), TupleDomain::intersect);
+        }
+
         @Override
         public PhysicalOperation visitValues(ValuesNode node, LocalExecutionPlanContext context)
         {
@@ -1867,12 +2031,15 @@ public class LocalExecutionPlanner
                 Optional<Symbol> buildHashSymbol,
                 LocalExecutionPlanContext context)
         {
+            // Register the dynamic filter before planning the probe, so that the probe side table scan can pick it up
+            Optional<LocalDynamicFilter> dynamicFilter = createDynamicFilter(node, probeNode, probeSymbols, context);
+
             // Plan probe
             PhysicalOperation probeSource = probeNode.accept(this, context);
 
             // Plan build
             JoinBridgeDataManager<LookupSourceFactory> lookupSourceFactory =
-                    createLookupSourceFactory(node, buildNode, buildSymbols, buildHashSymbol, probeSource, context);
+                    createLookupSourceFactory(node, buildNode, buildSymbols, buildHashSymbol, probeSource, dynamicFilter, context);
 
             OperatorFactory operator = createLookupJoin(node, probeSource, probeSymbols, probeHashSymbol, lookupSourceFactory, context);
 
@@ -1886,12 +2053,73 @@ public class LocalExecutionPlanner
             return new PhysicalOperation(operator, outputMappings.build(), context, probeSource);
         }
 
+        private Optional<LocalDynamicFilter> createDynamicFilter(JoinNode node, PlanNode probeNode, List<Symbol> probeSymbols, LocalExecutionPlanContext context)
+        {
+            // unmatched probe rows are only discarded by inner and right joins
+            if (!isEnableDynamicFiltering(context.getSession()) || (node.getType() != INNER && node.getType() != RIGHT)) {
+                return Optional.empty();
+            }
+
+            // follow the join keys down to a table scan in the same pipeline as the join
+            Map<Integer, Symbol> keySymbols = new HashMap<>();
+            for (int i = 0; i < probeSymbols.size(); i++) {
+                keySymbols.put(i, probeSymbols.get(i));
+            }
+            PlanNode current = probeNode;
+            while (!(current instanceof TableScanNode)) {
+                if (current instanceof FilterNode) {
+                    current = ((FilterNode) current).getSource();
+                }
+                else if (current instanceof ProjectNode) {
+                    Assignments assignments = ((ProjectNode) current).getAssignments();
+                    Map<Integer, Symbol> sourceSymbols = new HashMap<>();
+                    keySymbols.forEach((key, symbol) -> {
+                        Expression expression = assignments.get(symbol);
+                        if (expression instanceof SymbolReference) {
+                            sourceSymbols.put(key, Symbol.from(expression));
+                        }
+                    });
+                    keySymbols = sourceSymbols;
+                    current = ((ProjectNode) current).getSource();
+                }
+                else if (current instanceof JoinNode && !((JoinNode) current).isSpatialJoin()) {
+                    // the probe side of a nested join runs in the same pipeline
+                    PlanNode left = ((JoinNode) current).getLeft();
+                    keySymbols = Maps.filterValues(keySymbols, left.getOutputSymbols()::contains);
+                    current = left;
+                }
+                else {
+                    return Optional.empty();
+                }
+            }
+
+            TableScanNode tableScan = (TableScanNode) current;
+            ImmutableMap.Builder<Integer, ColumnHandle> probeColumns = ImmutableMap.builder();
+            keySymbols.forEach((key, symbol) -> {
+                if (tableScan.getAssignments().containsKey(symbol) && LocalDynamicFilter.isSupportedType(context.getTypes().get(symbol))) {
+                    probeColumns.put(key, tableScan.getAssignments().get(symbol));
+                }
+            });
+            Map<Integer, ColumnHandle> columns = probeColumns.build();
+            if (columns.isEmpty()) {
+                return Optional.empty();
+            }
+
+            LocalDynamicFilter dynamicFilter = new LocalDynamicFilter(
+                    columns,
+                    getSymbolTypes(probeSymbols, context.getTypes()),
+                    getDynamicFilteringMaxDistinctValues(context.getSession()));
+            dynamicFiltersByTableScan.computeIfAbsent(tableScan.getId(), id -> new ArrayList<>()).add(dynamicFilter);
+            return Optional.of(dynamicFilter);
+        }
+
         private JoinBridgeDataManager<LookupSourceFactory> createLookupSourceFactory(
                 JoinNode node,
                 PlanNode buildNode,
                 List<Symbol> buildSymbols,
                 Optional<Symbol> buildHashSymbol,
                 PhysicalOperation probeSource,
+                Optional<LocalDynamicFilter> dynamicFilter,
                 LocalExecutionPlanContext context)
         {
             LocalExecutionPlanContext buildContext = context.createSubContext();
@@ -1960,6 +2188,22 @@ public class LocalExecutionPlanner
                             buildSource.getLayout(),
                             node.getType() == RIGHT || node.getType() == FULL),
                     buildOutputTypes);
+
+            // the collected domain spans all build partitions of the task, which is only known for ungrouped builds
+            Optional<LocalDynamicFilter> buildDynamicFilter = dynamicFilter
+                    .filter(filter -> buildSource.getPipelineExecutionStrategy() == UNGROUPED_EXECUTION);
+            buildDynamicFilter.ifPresent(filter -> filter.setPartitionCount(partitionCount));
+
+            boolean spillBuild = spillEnabled && !buildOuter && partitionCount > 1;
+            // the key from the coordinator identifies the build rows, the channels how this task indexes them
+            Optional<String> sharedBuildKey = Optional.ofNullable(broadcastBuildKeys.get(node.getId()))
+                    .filter(key -> isShareBroadcastBuilds(session) &&
+                            buildSource.getPipelineExecutionStrategy() == UNGROUPED_EXECUTION &&
+                            !spillBuild &&
+                            !buildDynamicFilter.isPresent() &&
+                            !filterFunctionFactory.isPresent())
+                    .map(key -> String.join("/", key, String.valueOf(partitionCount), buildSource.getTypes().toString(), buildOutputChannels.toString(), buildChannels.toString(), buildHashChannel.toString()));
+
             HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
                     buildContext.getNextOperatorId(),
                     node.getId(),
@@ -1972,8 +2216,11 @@ public class LocalExecutionPlanner
                     searchFunctionFactories,
                     10_000,
                     pagesIndexFactory,
-                    spillEnabled && !buildOuter && partitionCount > 1,
-                    singleStreamSpillerFactory);
+                    spillBuild,
+                    singleStreamSpillerFactory,
+                    buildDynamicFilter,
+                    sharedBuildManager,
+                    sharedBuildKey);
 
             context.addDriverFactory(
                     buildContext.isInputDriver(),
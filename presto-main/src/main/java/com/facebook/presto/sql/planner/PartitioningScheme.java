@@ -33,6 +33,9 @@ public class PartitioningScheme
     private final List<Symbol> outputLayout;
     private final Optional<Symbol> hashColumn;
     private final boolean replicateNullsAndAny;
+    private final boolean spreadNulls;
+    private final List<String> skewedKeyValues;
+    private final boolean replicateSkewedKeys;
     private final Optional<int[]> bucketToPartition;
 
     public PartitioningScheme(Partitioning partitioning, List<Symbol> outputLayout)
@@ -42,6 +45,9 @@ public class PartitioningScheme
                 outputLayout,
                 Optional.empty(),
                 false,
+                false,
+                ImmutableList.of(),
+                false,
                 Optional.empty());
     }
 
@@ -52,6 +58,9 @@ public class PartitioningScheme
                 outputLayout,
                 hashColumn,
                 false,
+                false,
+                ImmutableList.of(),
+                false,
                 Optional.empty());
     }
 
@@ -61,6 +70,9 @@ public class PartitioningScheme
             @JsonProperty("outputLayout") List<Symbol> outputLayout,
             @JsonProperty("hashColumn") Optional<Symbol> hashColumn,
             @JsonProperty("replicateNullsAndAny") boolean replicateNullsAndAny,
+            @JsonProperty("spreadNulls") boolean spreadNulls,
+            @JsonProperty("skewedKeyValues") List<String> skewedKeyValues,
+            @JsonProperty("replicateSkewedKeys") boolean replicateSkewedKeys,
             @JsonProperty("bucketToPartition") Optional<int[]> bucketToPartition)
     {
         this.partitioning = requireNonNull(partitioning, "partitioning is null");
@@ -76,6 +88,14 @@ public class PartitioningScheme
 
         checkArgument(!replicateNullsAndAny || columns.size() <= 1, "Must have at most one partitioning column when nullPartition is REPLICATE.");
         this.replicateNullsAndAny = replicateNullsAndAny;
+        checkArgument(!spreadNulls || !replicateNullsAndAny, "Nulls cannot be both spread and replicated");
+        checkArgument(!spreadNulls || !columns.isEmpty(), "Must have a partitioning column when spreading nulls");
+        this.spreadNulls = spreadNulls;
+        this.skewedKeyValues = ImmutableList.copyOf(requireNonNull(skewedKeyValues, "skewedKeyValues is null"));
+        checkArgument(skewedKeyValues.isEmpty() || !columns.isEmpty(), "Must have a partitioning column when distributing skewed keys");
+        checkArgument(skewedKeyValues.isEmpty() || !replicateNullsAndAny, "Skewed keys cannot be distributed when nulls and any are replicated");
+        checkArgument(!replicateSkewedKeys || !skewedKeyValues.isEmpty(), "Skewed keys must be specified to be replicated");
+        this.replicateSkewedKeys = replicateSkewedKeys;
         this.bucketToPartition = requireNonNull(bucketToPartition, "bucketToPartition is null");
     }
 
@@ -103,6 +123,33 @@ public class PartitioningScheme
         return replicateNullsAndAny;
     }
 
+    /**
+     * Rows with a null in any of the partitioning columns are distributed round robin
+     * over all the partitions instead of all being sent to the partition of the null key.
+     */
+    @JsonProperty
+    public boolean isSpreadNulls()
+    {
+        return spreadNulls;
+    }
+
+    /**
+     * Rows with one of these values in any of the partitioning columns are sent to every partition
+     * when {@link #isReplicateSkewedKeys()}, and round robin to one of the partitions otherwise.
+     * Values are in their string form, and only apply to integral and varchar columns.
+     */
+    @JsonProperty
+    public List<String> getSkewedKeyValues()
+    {
+        return skewedKeyValues;
+    }
+
+    @JsonProperty
+    public boolean isReplicateSkewedKeys()
+    {
+        return replicateSkewedKeys;
+    }
+
     @JsonProperty
     public Optional<int[]> getBucketToPartition()
     {
@@ -111,7 +158,7 @@ public class PartitioningScheme
 
     public PartitioningScheme withBucketToPartition(Optional<int[]> bucketToPartition)
     {
-        return new PartitioningScheme(partitioning, outputLayout, hashColumn, replicateNullsAndAny, bucketToPartition);
+        return new PartitioningScheme(partitioning, outputLayout, hashColumn, replicateNullsAndAny, spreadNulls, skewedKeyValues, replicateSkewedKeys, bucketToPartition);
     }
 
     public PartitioningScheme translateOutputLayout(List<Symbol> newOutputLayout)
@@ -126,7 +173,7 @@ public class PartitioningScheme
                 .map(outputLayout::indexOf)
                 .map(newOutputLayout::get);
 
-        return new PartitioningScheme(newPartitioning, newOutputLayout, newHashSymbol, replicateNullsAndAny, bucketToPartition);
+        return new PartitioningScheme(newPartitioning, newOutputLayout, newHashSymbol, replicateNullsAndAny, spreadNulls, skewedKeyValues, replicateSkewedKeys, bucketToPartition);
     }
 
     @Override
@@ -142,13 +189,16 @@ public class PartitioningScheme
         return Objects.equals(partitioning, that.partitioning) &&
                 Objects.equals(outputLayout, that.outputLayout) &&
                 replicateNullsAndAny == that.replicateNullsAndAny &&
+                spreadNulls == that.spreadNulls &&
+                Objects.equals(skewedKeyValues, that.skewedKeyValues) &&
+                replicateSkewedKeys == that.replicateSkewedKeys &&
                 Objects.equals(bucketToPartition, that.bucketToPartition);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(partitioning, outputLayout, replicateNullsAndAny, bucketToPartition);
+        return Objects.hash(partitioning, outputLayout, replicateNullsAndAny, spreadNulls, skewedKeyValues, replicateSkewedKeys, bucketToPartition);
     }
 
     @Override
@@ -159,6 +209,9 @@ public class PartitioningScheme
                 .add("outputLayout", outputLayout)
                 .add("hashChannel", hashColumn)
                 .add("replicateNullsAndAny", replicateNullsAndAny)
+                .add("spreadNulls", spreadNulls)
+                .add("skewedKeyValues", skewedKeyValues)
+                .add("replicateSkewedKeys", replicateSkewedKeys)
                 .add("bucketToPartition", bucketToPartition)
                 .toString();
     }
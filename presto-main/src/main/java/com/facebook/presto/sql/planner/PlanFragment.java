@@ -23,6 +23,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import javax.annotation.concurrent.Immutable;
@@ -51,6 +52,19 @@ public class PlanFragment
     private final List<RemoteSourceNode> remoteSourceNodes;
     private final PartitioningScheme partitioningScheme;
     private final PipelineExecutionStrategy pipelineExecutionStrategy;
+    private final Map<PlanNodeId, String> broadcastBuildKeys;
+
+    public PlanFragment(
+            PlanFragmentId id,
+            PlanNode root,
+            Map<Symbol, Type> symbols,
+            PartitioningHandle partitioning,
+            List<PlanNodeId> partitionedSources,
+            PartitioningScheme partitioningScheme,
+            PipelineExecutionStrategy pipelineExecutionStrategy)
+    {
+        this(id, root, symbols, partitioning, partitionedSources, partitioningScheme, pipelineExecutionStrategy, ImmutableMap.of());
+    }
 
     @JsonCreator
     public PlanFragment(
@@ -60,7 +74,8 @@ public class PlanFragment
             @JsonProperty("partitioning") PartitioningHandle partitioning,
             @JsonProperty("partitionedSources") List<PlanNodeId> partitionedSources,
             @JsonProperty("partitioningScheme") PartitioningScheme partitioningScheme,
-            @JsonProperty("pipelineExecutionStrategy") PipelineExecutionStrategy pipelineExecutionStrategy)
+            @JsonProperty("pipelineExecutionStrategy") PipelineExecutionStrategy pipelineExecutionStrategy,
+            @JsonProperty("broadcastBuildKeys") Map<PlanNodeId, String> broadcastBuildKeys)
     {
         this.id = requireNonNull(id, "id is null");
         this.root = requireNonNull(root, "root is null");
@@ -69,6 +84,7 @@ public class PlanFragment
         this.partitionedSources = ImmutableList.copyOf(requireNonNull(partitionedSources, "partitionedSources is null"));
         this.partitionedSourcesSet = ImmutableSet.copyOf(partitionedSources);
         this.pipelineExecutionStrategy = pipelineExecutionStrategy;
+        this.broadcastBuildKeys = ImmutableMap.copyOf(requireNonNull(broadcastBuildKeys, "broadcastBuildKeys is null"));
 
         checkArgument(partitionedSourcesSet.size() == partitionedSources.size(), "partitionedSources contains duplicates");
         checkArgument(ImmutableSet.copyOf(root.getOutputSymbols()).containsAll(partitioningScheme.getOutputLayout()),
@@ -134,6 +150,16 @@ public class PlanFragment
         return pipelineExecutionStrategy;
     }
 
+    /**
+     * Returns the keys under which workers share the lookup sources of the broadcast joins
+     * of this fragment with other queries, by join node.
+     */
+    @JsonProperty
+    public Map<PlanNodeId, String> getBroadcastBuildKeys()
+    {
+        return broadcastBuildKeys;
+    }
+
     public List<Type> getTypes()
     {
         return types;
@@ -185,12 +211,17 @@ public class PlanFragment
 
     public PlanFragment withBucketToPartition(Optional<int[]> bucketToPartition)
     {
-        return new PlanFragment(id, root, symbols, partitioning, partitionedSources, partitioningScheme.withBucketToPartition(bucketToPartition), pipelineExecutionStrategy);
+        return new PlanFragment(id, root, symbols, partitioning, partitionedSources, partitioningScheme.withBucketToPartition(bucketToPartition), pipelineExecutionStrategy, broadcastBuildKeys);
     }
 
     public PlanFragment withGroupedExecution(PipelineExecutionStrategy pipelineExecutionStrategy)
     {
-        return new PlanFragment(id, root, symbols, partitioning, partitionedSources, partitioningScheme, pipelineExecutionStrategy);
+        return new PlanFragment(id, root, symbols, partitioning, partitionedSources, partitioningScheme, pipelineExecutionStrategy, broadcastBuildKeys);
+    }
+
+    public PlanFragment withBroadcastBuildKeys(Map<PlanNodeId, String> broadcastBuildKeys)
+    {
+        return new PlanFragment(id, root, symbols, partitioning, partitionedSources, partitioningScheme, pipelineExecutionStrategy, broadcastBuildKeys);
     }
 
     @Override
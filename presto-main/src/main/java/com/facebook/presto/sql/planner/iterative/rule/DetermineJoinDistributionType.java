@@ -14,12 +14,15 @@
 
 package com.facebook.presto.sql.planner.iterative.rule;
 
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
 import com.facebook.presto.matching.Captures;
 import com.facebook.presto.matching.Pattern;
 import com.facebook.presto.sql.planner.iterative.Rule;
 import com.facebook.presto.sql.planner.plan.JoinNode;
 import com.facebook.presto.sql.planner.plan.JoinNode.DistributionType;
+import com.facebook.presto.sql.planner.plan.PlanNode;
 
+import static com.facebook.presto.SystemSessionProperties.getJoinMaxBroadcastTableSize;
 import static com.facebook.presto.SystemSessionProperties.isDistributedJoinEnabled;
 import static com.facebook.presto.sql.planner.optimizations.QueryCardinalityUtil.isAtMostScalar;
 import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
@@ -29,6 +32,7 @@ import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
 import static com.facebook.presto.sql.planner.plan.Patterns.join;
+import static java.lang.Double.isNaN;
 
 public class DetermineJoinDistributionType
         implements Rule<JoinNode>
@@ -65,10 +69,27 @@ public class DetermineJoinDistributionType
             return REPLICATED;
         }
 
+        long maxBroadcastTableSize = getJoinMaxBroadcastTableSize(context.getSession()).toBytes();
+        if (maxBroadcastTableSize > 0) {
+            double buildSideSize = getOutputSizeInBytes(node.getRight(), context);
+            // The distribution is fixed when the query is fragmented, so it can not wait for the actual size
+            // of the build side. Without an estimate, such as for tables without statistics, fall back to
+            // the distributed_join setting.
+            if (!isNaN(buildSideSize)) {
+                return buildSideSize <= maxBroadcastTableSize ? REPLICATED : PARTITIONED;
+            }
+        }
+
         if (isDistributedJoinEnabled(context.getSession())) {
             return PARTITIONED;
         }
 
         return REPLICATED;
     }
+
+    private static double getOutputSizeInBytes(PlanNode node, Context context)
+    {
+        PlanNodeStatsEstimate stats = context.getStatsProvider().getStats(node);
+        return stats.getOutputSizeInBytes(node.getOutputSymbols(), context.getSymbolAllocator().getTypes());
+    }
 }
@@ -181,6 +181,9 @@ public class PushPartialAggregationThroughExchange
                 aggregation.getOutputSymbols(),
                 exchange.getPartitioningScheme().getHashColumn(),
                 exchange.getPartitioningScheme().isReplicateNullsAndAny(),
+                exchange.getPartitioningScheme().isSpreadNulls(),
+                exchange.getPartitioningScheme().getSkewedKeyValues(),
+                exchange.getPartitioningScheme().isReplicateSkewedKeys(),
                 exchange.getPartitioningScheme().getBucketToPartition());
 
         return new ExchangeNode(
@@ -150,6 +150,9 @@ public class PushProjectionThroughExchange
                 outputBuilder.build(),
                 exchange.getPartitioningScheme().getHashColumn(),
                 exchange.getPartitioningScheme().isReplicateNullsAndAny(),
+                exchange.getPartitioningScheme().isSpreadNulls(),
+                exchange.getPartitioningScheme().getSkewedKeyValues(),
+                exchange.getPartitioningScheme().isReplicateSkewedKeys(),
                 exchange.getPartitioningScheme().getBucketToPartition());
 
         PlanNode result = new ExchangeNode(
@@ -80,6 +80,9 @@ public final class PushRemoteExchangeThroughAssignUniqueId
                                 removeSymbol(partitioningScheme.getOutputLayout(), assignUniqueId.getIdColumn()),
                                 partitioningScheme.getHashColumn(),
                                 partitioningScheme.isReplicateNullsAndAny(),
+                                partitioningScheme.isSpreadNulls(),
+                                partitioningScheme.getSkewedKeyValues(),
+                                partitioningScheme.isReplicateSkewedKeys(),
                                 partitioningScheme.getBucketToPartition()),
                         ImmutableList.of(assignUniqueId.getSource()),
                         ImmutableList.of(removeSymbol(getOnlyElement(node.getInputs()), assignUniqueId.getIdColumn())),
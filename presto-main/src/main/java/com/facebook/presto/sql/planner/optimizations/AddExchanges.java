@@ -15,6 +15,10 @@ package com.facebook.presto.sql.planner.optimizations;
 
 import com.facebook.presto.Session;
 import com.facebook.presto.SystemSessionProperties;
+import com.facebook.presto.cost.CachingStatsProvider;
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.StatsCalculator;
+import com.facebook.presto.cost.StatsProvider;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.TableLayoutResult;
 import com.facebook.presto.spi.ColumnHandle;
@@ -96,9 +100,12 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 
+import static com.facebook.presto.SystemSessionProperties.getSkewedJoinKeyValues;
+import static com.facebook.presto.SystemSessionProperties.getSpreadNullJoinKeysMinNullsFraction;
 import static com.facebook.presto.SystemSessionProperties.isColocatedJoinEnabled;
 import static com.facebook.presto.SystemSessionProperties.isDistributedSortEnabled;
 import static com.facebook.presto.SystemSessionProperties.isForceSingleNodeOutput;
+import static com.facebook.presto.SystemSessionProperties.isSpreadNullJoinKeys;
 import static com.facebook.presto.sql.ExpressionUtils.combineConjuncts;
 import static com.facebook.presto.sql.ExpressionUtils.filterDeterministicConjuncts;
 import static com.facebook.presto.sql.ExpressionUtils.filterNonDeterministicConjuncts;
@@ -109,6 +116,7 @@ import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_ARB
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SCALED_WRITER_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.optimizations.ActualProperties.Global.arbitraryPartition;
 import static com.facebook.presto.sql.planner.optimizations.ActualProperties.Global.partitionedOn;
 import static com.facebook.presto.sql.planner.optimizations.ActualProperties.Global.singleStreamPartition;
 import static com.facebook.presto.sql.planner.optimizations.LocalProperties.grouped;
@@ -120,6 +128,9 @@ import static com.facebook.presto.sql.planner.plan.ExchangeNode.mergingExchange;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.partitionedExchange;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.replicatedExchange;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.roundRobinExchange;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
@@ -136,18 +147,21 @@ public class AddExchanges
     private final SqlParser parser;
     private final Metadata metadata;
     private final DomainTranslator domainTranslator;
+    private final StatsCalculator statsCalculator;
 
-    public AddExchanges(Metadata metadata, SqlParser parser)
+    public AddExchanges(Metadata metadata, SqlParser parser, StatsCalculator statsCalculator)
     {
         this.metadata = metadata;
         this.domainTranslator = new DomainTranslator(new LiteralEncoder(metadata.getBlockEncodingSerde()));
         this.parser = parser;
+        this.statsCalculator = statsCalculator;
     }
 
     @Override
     public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
     {
-        PlanWithProperties result = plan.accept(new Rewriter(idAllocator, symbolAllocator, session), PreferredProperties.any());
+        StatsProvider statsProvider = new CachingStatsProvider(statsCalculator, session, symbolAllocator.getTypes());
+        PlanWithProperties result = plan.accept(new Rewriter(idAllocator, symbolAllocator, session, statsProvider), PreferredProperties.any());
         return result.getNode();
     }
 
@@ -158,17 +172,19 @@ public class AddExchanges
         private final SymbolAllocator symbolAllocator;
         private final Map<Symbol, Type> types;
         private final Session session;
+        private final StatsProvider statsProvider;
         private final boolean distributedIndexJoins;
         private final boolean preferStreamingOperators;
         private final boolean redistributeWrites;
         private final boolean scaleWriters;
 
-        public Rewriter(PlanNodeIdAllocator idAllocator, SymbolAllocator symbolAllocator, Session session)
+        public Rewriter(PlanNodeIdAllocator idAllocator, SymbolAllocator symbolAllocator, Session session, StatsProvider statsProvider)
         {
             this.idAllocator = idAllocator;
             this.symbolAllocator = symbolAllocator;
             this.types = ImmutableMap.copyOf(symbolAllocator.getTypes());
             this.session = session;
+            this.statsProvider = statsProvider;
             this.distributedIndexJoins = SystemSessionProperties.isDistributedIndexJoinEnabled(session);
             this.redistributeWrites = SystemSessionProperties.isRedistributeWrites(session);
             this.scaleWriters = SystemSessionProperties.isScaleWriters(session);
@@ -760,6 +776,8 @@ public class AddExchanges
             SetMultimap<Symbol, Symbol> leftToRight = createMapping(leftSymbols, rightSymbols);
 
             PlanWithProperties right;
+            boolean outerNullsSpread = false;
+            boolean skewedKeysSpread = false;
 
             if (left.getProperties().isNodePartitionedOn(leftSymbols) && !left.getProperties().isSingleNode()) {
                 Partitioning rightPartitioning = left.getProperties().translate(createTranslator(leftToRight)).getNodePartitioning().get();
@@ -780,11 +798,27 @@ public class AddExchanges
                             left.getProperties());
                 }
                 else {
+                    // rows with null keys are dropped by the join unless they are on the outer side of an outer join
+                    boolean leftNullsDropped = node.getType() == INNER || node.getType() == RIGHT;
+                    boolean rightNullsDropped = node.getType() == INNER || node.getType() == LEFT;
+                    boolean spreadLeftNulls = shouldSpreadNullJoinKeys(node.getLeft(), leftSymbols, leftNullsDropped);
+                    boolean spreadRightNulls = shouldSpreadNullJoinKeys(node.getRight(), rightSymbols, rightNullsDropped);
+                    outerNullsSpread = (spreadLeftNulls && !leftNullsDropped) || (spreadRightNulls && !rightNullsDropped);
+
+                    // probe rows with a skewed key are spread, and the build rows with that key are replicated so that
+                    // every probe row still meets all of them; replicated build rows would be duplicated if unmatched
+                    // build rows were output, so this is only done when they are not
+                    List<String> skewedKeyValues = ImmutableList.of();
+                    if (node.getType() == INNER || node.getType() == LEFT) {
+                        skewedKeyValues = getSkewedJoinKeyValues(session);
+                    }
+                    skewedKeysSpread = !skewedKeyValues.isEmpty();
+
                     left = withDerivedProperties(
-                            partitionedExchange(idAllocator.getNextId(), REMOTE, left.getNode(), leftSymbols, Optional.empty()),
+                            partitionedExchange(idAllocator.getNextId(), REMOTE, left.getNode(), hashPartitioningScheme(left.getNode(), leftSymbols, spreadLeftNulls, skewedKeyValues, false)),
                             left.getProperties());
                     right = withDerivedProperties(
-                            partitionedExchange(idAllocator.getNextId(), REMOTE, right.getNode(), rightSymbols, Optional.empty()),
+                            partitionedExchange(idAllocator.getNextId(), REMOTE, right.getNode(), hashPartitioningScheme(right.getNode(), rightSymbols, spreadRightNulls, skewedKeyValues, skewedKeysSpread)),
                             right.getProperties());
                 }
             }
@@ -799,7 +833,52 @@ public class AddExchanges
                         right.getProperties());
             }
 
-            return buildJoin(node, left, right, JoinNode.DistributionType.PARTITIONED);
+            PlanWithProperties result = buildJoin(node, left, right, JoinNode.DistributionType.PARTITIONED);
+            if (outerNullsSpread || skewedKeysSpread) {
+                // the unmatched rows with null keys or the rows with skewed keys are no longer co-located, so the output is not partitioned on the join keys
+                return new PlanWithProperties(
+                        result.getNode(),
+                        ActualProperties.builder()
+                                .global(arbitraryPartition())
+                                .constants(result.getProperties().getConstants())
+                                .build());
+            }
+            return result;
+        }
+
+        private PartitioningScheme hashPartitioningScheme(PlanNode source, List<Symbol> partitioningColumns, boolean spreadNulls, List<String> skewedKeyValues, boolean replicateSkewedKeys)
+        {
+            return new PartitioningScheme(
+                    Partitioning.create(FIXED_HASH_DISTRIBUTION, partitioningColumns),
+                    source.getOutputSymbols(),
+                    Optional.empty(),
+                    false,
+                    spreadNulls,
+                    skewedKeyValues,
+                    replicateSkewedKeys,
+                    Optional.empty());
+        }
+
+        /**
+         * Rows with null join keys all hash to the same partition, which turns the node
+         * processing it into a straggler when the keys are mostly null. Spreading them is
+         * free when the join drops them, otherwise it costs the partitioning of the join output,
+         * so it is only done when the statistics show enough nulls.
+         */
+        private boolean shouldSpreadNullJoinKeys(PlanNode source, List<Symbol> joinKeys, boolean nullsDropped)
+        {
+            if (!isSpreadNullJoinKeys(session) || joinKeys.isEmpty()) {
+                return false;
+            }
+            if (nullsDropped) {
+                return true;
+            }
+            PlanNodeStatsEstimate stats = statsProvider.getStats(source);
+            double nullsFraction = joinKeys.stream()
+                    .mapToDouble(symbol -> stats.getSymbolStatistics(symbol).getNullsFraction())
+                    .max()
+                    .getAsDouble();
+            return nullsFraction >= getSpreadNullJoinKeysMinNullsFraction(session);
         }
 
         private PlanWithProperties planReplicatedJoin(JoinNode node, PlanWithProperties left)
@@ -1072,6 +1151,9 @@ public class AddExchanges
                                                 source.getNode().getOutputSymbols(),
                                                 Optional.empty(),
                                                 nullsAndAnyReplicated,
+                                                false,
+                                                ImmutableList.of(),
+                                                false,
                                                 Optional.empty())),
                                 source.getProperties());
                     }
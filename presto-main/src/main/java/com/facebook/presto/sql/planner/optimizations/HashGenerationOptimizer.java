@@ -498,6 +498,9 @@ public class HashGenerationOptimizer
                             .build(),
                     partitionSymbols.map(newHashSymbols::get),
                     partitioningScheme.isReplicateNullsAndAny(),
+                    partitioningScheme.isSpreadNulls(),
+                    partitioningScheme.getSkewedKeyValues(),
+                    partitioningScheme.isReplicateSkewedKeys(),
                     partitioningScheme.getBucketToPartition());
 
             // add hash symbols to sources
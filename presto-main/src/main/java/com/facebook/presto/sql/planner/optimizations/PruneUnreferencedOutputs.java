@@ -151,6 +151,9 @@ public class PruneUnreferencedOutputs
                     newOutputSymbols,
                     node.getPartitioningScheme().getHashColumn(),
                     node.getPartitioningScheme().isReplicateNullsAndAny(),
+                    node.getPartitioningScheme().isSpreadNulls(),
+                    node.getPartitioningScheme().getSkewedKeyValues(),
+                    node.getPartitioningScheme().isReplicateSkewedKeys(),
                     node.getPartitioningScheme().getBucketToPartition());
 
             ImmutableList.Builder<PlanNode> rewrittenSources = ImmutableList.builder();
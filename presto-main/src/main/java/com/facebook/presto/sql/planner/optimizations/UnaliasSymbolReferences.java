@@ -279,6 +279,9 @@ public class UnaliasSymbolReferences
                     outputs.build(),
                     canonicalize(node.getPartitioningScheme().getHashColumn()),
                     node.getPartitioningScheme().isReplicateNullsAndAny(),
+                    node.getPartitioningScheme().isSpreadNulls(),
+                    node.getPartitioningScheme().getSkewedKeyValues(),
+                    node.getPartitioningScheme().isReplicateSkewedKeys(),
                     node.getPartitioningScheme().getBucketToPartition());
 
             Optional<OrderingScheme> orderingScheme = node.getOrderingScheme().map(this::canonicalizeAndDistinct);
@@ -744,6 +747,9 @@ public class UnaliasSymbolReferences
                     outputs.build(),
                     canonicalize(scheme.getHashColumn()),
                     scheme.isReplicateNullsAndAny(),
+                    scheme.isSpreadNulls(),
+                    scheme.getSkewedKeyValues(),
+                    scheme.isReplicateSkewedKeys(),
                     scheme.getBucketToPartition());
         }
     }
@@ -130,6 +130,9 @@ public class ExchangeNode
                         child.getOutputSymbols(),
                         hashColumns,
                         replicateNullsAndAny,
+                        false,
+                        ImmutableList.of(),
+                        false,
                         Optional.empty()));
     }
 
@@ -307,12 +307,13 @@ public class PlanPrinter
             double sdAmongTasks = Math.sqrt(squaredDifferences / stageInfo.get().getTasks().size());
 
             builder.append(indentString(1))
-                    .append(format("CPU: %s, Input: %s (%s); per task: avg.: %s std.dev.: %s, Output: %s (%s)\n",
+                    .append(format("CPU: %s, Input: %s (%s); per task: avg.: %s std.dev.: %s skew: %s, Output: %s (%s)\n",
                             stageStats.getTotalCpuTime(),
                             formatPositions(stageStats.getProcessedInputPositions()),
                             stageStats.getProcessedInputDataSize(),
                             formatDouble(avgPositionsPerTask),
                             formatDouble(sdAmongTasks),
+                            formatDouble(stageStats.getProcessedInputPositionsSkew()),
                             formatPositions(stageStats.getOutputPositions()),
                             stageStats.getOutputDataSize()));
         }
@@ -340,6 +341,12 @@ public class PlanPrinter
                     Joiner.on(", ").join(arguments),
                     formatHash(partitioningScheme.getHashColumn())));
         }
+        else if (partitioningScheme.isSpreadNulls()) {
+            builder.append(format("Output partitioning: %s (spread nulls) [%s]%s\n",
+                    partitioningScheme.getPartitioning().getHandle(),
+                    Joiner.on(", ").join(arguments),
+                    formatHash(partitioningScheme.getHashColumn())));
+        }
         else {
             builder.append(format("Output partitioning: %s [%s]%s\n",
                     partitioningScheme.getPartitioning().getHandle(),
@@ -1202,10 +1209,12 @@ public class PlanPrinter
                         formatOutputs(node.getOutputSymbols()));
             }
             else {
-                print(indent, "- %sExchange[%s%s]%s => %s",
+                print(indent, "- %sExchange[%s%s%s%s]%s => %s",
                         UPPER_UNDERSCORE.to(CaseFormat.UPPER_CAMEL, node.getScope().toString()),
                         node.getType(),
                         node.getPartitioningScheme().isReplicateNullsAndAny() ? " - REPLICATE NULLS AND ANY" : "",
+                        node.getPartitioningScheme().isSpreadNulls() ? " - SPREAD NULLS" : "",
+                        formatSkewedKeys(node.getPartitioningScheme()),
                         formatHash(node.getPartitioningScheme().getHashColumn()),
                         formatOutputs(node.getOutputSymbols()));
             }
@@ -1412,6 +1421,16 @@ public class PlanPrinter
         return isNaN(value) ? "?" : succinctBytes((long) value).toString();
     }
 
+    private static String formatSkewedKeys(PartitioningScheme partitioningScheme)
+    {
+        if (partitioningScheme.getSkewedKeyValues().isEmpty()) {
+            return "";
+        }
+        return format(" - %s SKEWED KEYS [%s]",
+                partitioningScheme.isReplicateSkewedKeys() ? "REPLICATE" : "SPREAD",
+                Joiner.on(", ").join(partitioningScheme.getSkewedKeyValues()));
+    }
+
     private static String formatHash(Optional<Symbol>... hashes)
     {
         List<Symbol> symbols = Arrays.stream(hashes)
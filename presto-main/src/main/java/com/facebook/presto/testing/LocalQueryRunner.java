@@ -84,6 +84,8 @@ import com.facebook.presto.operator.OperatorContext;
 import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PagesIndex;
 import com.facebook.presto.operator.PipelineExecutionStrategy;
+import com.facebook.presto.operator.SharedBuildManager;
+import com.facebook.presto.operator.SortExecutor;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.operator.index.IndexJoinLookupStats;
 import com.facebook.presto.server.NoOpSessionSupplier;
@@ -208,6 +210,7 @@ public class LocalQueryRunner
     private final Session defaultSession;
     private final ExecutorService notificationExecutor;
     private final ScheduledExecutorService yieldExecutor;
+    private final SortExecutor sortExecutor;
     private final FinalizerService finalizerService;
 
     private final SqlParser sqlParser;
@@ -286,6 +289,7 @@ public class LocalQueryRunner
         this.alwaysRevokeMemory = alwaysRevokeMemory;
         this.notificationExecutor = newCachedThreadPool(daemonThreadsNamed("local-query-runner-executor-%s"));
         this.yieldExecutor = newScheduledThreadPool(2, daemonThreadsNamed("local-query-runner-scheduler-%s"));
+        this.sortExecutor = new SortExecutor(new TaskManagerConfig());
         this.finalizerService = new FinalizerService();
         finalizerService.start();
 
@@ -441,6 +445,7 @@ public class LocalQueryRunner
     {
         notificationExecutor.shutdownNow();
         yieldExecutor.shutdownNow();
+        sortExecutor.close();
         connectorManager.stop();
         finalizerService.destroy();
         singleStreamSpillerFactory.destroy();
@@ -708,7 +713,9 @@ public class LocalQueryRunner
                 new PagesIndex.TestingFactory(false),
                 joinCompiler,
                 new LookupJoinOperators(),
-                new OrderingCompiler());
+                new OrderingCompiler(),
+                new SharedBuildManager(),
+                sortExecutor);
 
         // plan query
         PipelineExecutionStrategy pipelineExecutionStrategy = subplan.getFragment().getPipelineExecutionStrategy();
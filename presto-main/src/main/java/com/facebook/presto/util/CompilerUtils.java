@@ -37,6 +37,9 @@ public final class CompilerUtils
     private static final AtomicLong CLASS_ID = new AtomicLong();
     private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("YYYYMMdd_HHmmss");
 
+    // like the cpu time of a thread, lets callers measure the compilation done while planning on the thread
+    private static final ThreadLocal<long[]> THREAD_COMPILE_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
     private CompilerUtils() {}
 
     public static ParameterizedType makeClassName(String baseName, Optional<String> suffix)
@@ -60,6 +63,25 @@ public final class CompilerUtils
     public static <T> Class<? extends T> defineClass(ClassDefinition classDefinition, Class<T> superType, DynamicClassLoader classLoader)
     {
         log.debug("Defining class: %s", classDefinition.getName());
-        return classGenerator(classLoader).defineClass(classDefinition, superType);
+        long start = System.nanoTime();
+        try {
+            return classGenerator(classLoader).defineClass(classDefinition, superType);
+        }
+        finally {
+            recordCompileTime(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the time the current thread spent generating and loading classes.
+     */
+    public static long getCurrentThreadCompileNanos()
+    {
+        return THREAD_COMPILE_NANOS.get()[0];
+    }
+
+    public static void recordCompileTime(long nanos)
+    {
+        THREAD_COMPILE_NANOS.get()[0] += nanos;
     }
 }
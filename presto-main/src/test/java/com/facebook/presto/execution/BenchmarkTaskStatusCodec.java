@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.json.JsonCodec;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Compares the coordinator side cost of decoding a task status update
+ * in the JSON and the binary encoding.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkTaskStatusCodec
+{
+    private static final JsonCodec<TaskStatus> TASK_STATUS_CODEC = jsonCodec(TaskStatus.class);
+
+    @Benchmark
+    public Object encodeJson(BenchmarkData data)
+    {
+        return TASK_STATUS_CODEC.toJsonBytes(data.getTaskStatus());
+    }
+
+    @Benchmark
+    public Object encodeBinary(BenchmarkData data)
+    {
+        return TaskStatusBinaryCodec.encode(data.getTaskStatus());
+    }
+
+    @Benchmark
+    public Object decodeJson(BenchmarkData data)
+    {
+        return TASK_STATUS_CODEC.fromJson(data.getJson());
+    }
+
+    @Benchmark
+    public Object decodeBinary(BenchmarkData data)
+    {
+        return TaskStatusBinaryCodec.decode(data.getBinary());
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        private TaskStatus taskStatus;
+        private byte[] json;
+        private Slice binary;
+
+        @Setup
+        public void setup()
+        {
+            taskStatus = new TaskStatus(
+                    TaskId.valueOf("20180101_000000_00000_abcde.1.17"),
+                    "0f7a4bb1-5b0e-4c43-9f47-3d7e9a6e4f21",
+                    1234,
+                    TaskState.RUNNING,
+                    URI.create("http://worker-17.example.com:8080/v1/task/20180101_000000_00000_abcde.1.17"),
+                    "worker-17",
+                    ImmutableSet.of(Lifespan.driverGroup(0), Lifespan.driverGroup(1)),
+                    ImmutableList.of(),
+                    12,
+                    16,
+                    false,
+                    new DataSize(12345678, BYTE),
+                    new DataSize(256, MEGABYTE),
+                    new DataSize(3, MEGABYTE),
+                    1,
+                    new Duration(120, MILLISECONDS));
+            json = TASK_STATUS_CODEC.toJsonBytes(taskStatus);
+            binary = TaskStatusBinaryCodec.encode(taskStatus);
+        }
+
+        public TaskStatus getTaskStatus()
+        {
+            return taskStatus;
+        }
+
+        public byte[] getJson()
+        {
+            return json;
+        }
+
+        public Slice getBinary()
+        {
+            return binary;
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkTaskStatusCodec.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
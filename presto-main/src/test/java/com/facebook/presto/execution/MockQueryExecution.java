@@ -153,6 +153,8 @@ public class MockQueryExecution
 
                         new DataSize(30, BYTE),
 
+                        new Duration(31, NANOSECONDS),
+
                         ImmutableList.of(),
                         ImmutableList.of()),
                 Optional.empty(),
@@ -65,6 +65,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
@@ -253,6 +254,7 @@ public class MockRemoteTaskFactory
                     DateTime.now(),
                     outputBuffer.getInfo(),
                     ImmutableSet.of(),
+                    OptionalLong.empty(),
                     taskContext.getTaskStats(),
                     true,
                     false);
@@ -287,6 +287,26 @@ public class TestNodeScheduler
         }
     }
 
+    @Test
+    public void testPreferredNodes()
+    {
+        HostAddress preferredAddress = HostAddress.fromString("127.0.0.1:12");
+        Node preferredNode = nodeManager.getActiveConnectorNodes(CONNECTOR_ID).stream()
+                .filter(node -> node.getHostAndPort().equals(preferredAddress))
+                .findFirst()
+                .get();
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            splits.add(new Split(CONNECTOR_ID, TestingTransactionHandle.create(), new TestSplitPreferred(preferredAddress)));
+        }
+        Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.entries().size(), 25);
+
+        // the preferred node is filled up to the max splits per node, the rest goes elsewhere
+        assertEquals(assignments.get(preferredNode).size(), 20);
+    }
+
     @Test
     public void testMaxSplitsPerNode()
     {
@@ -481,6 +501,23 @@ public class TestNodeScheduler
         }
     }
 
+    private static class TestSplitPreferred
+            extends TestSplitRemote
+    {
+        private final HostAddress preferredNode;
+
+        public TestSplitPreferred(HostAddress preferredNode)
+        {
+            this.preferredNode = requireNonNull(preferredNode, "preferredNode is null");
+        }
+
+        @Override
+        public List<HostAddress> getPreferredNodes(List<HostAddress> candidates)
+        {
+            return candidates.contains(preferredNode) ? ImmutableList.of(preferredNode) : ImmutableList.of();
+        }
+    }
+
     private static class TestNetworkTopology
             implements NetworkTopology
     {
@@ -15,12 +15,17 @@ package com.facebook.presto.execution;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
 public class TestQueryManagerConfig
 {
     @Test
@@ -45,7 +50,11 @@ public class TestQueryManagerConfig
                 .setQueryMaxExecutionTime(new Duration(100, TimeUnit.DAYS))
                 .setQueryMaxCpuTime(new Duration(1_000_000_000, TimeUnit.DAYS))
                 .setInitializationRequiredWorkers(1)
-                .setInitializationTimeout(new Duration(5, TimeUnit.MINUTES)));
+                .setInitializationTimeout(new Duration(5, TimeUnit.MINUTES))
+                .setResultCacheEnabled(false)
+                .setResultCacheMaxSize(new DataSize(100, MEGABYTE))
+                .setResultCacheMaxEntrySize(new DataSize(1, MEGABYTE))
+                .setResultCacheTtl(new Duration(10, TimeUnit.MINUTES)));
     }
 
     @Test
@@ -71,6 +80,10 @@ public class TestQueryManagerConfig
                 .put("query.max-cpu-time", "2d")
                 .put("query-manager.initialization-required-workers", "200")
                 .put("query-manager.initialization-timeout", "1m")
+                .put("query.result-cache.enabled", "true")
+                .put("query.result-cache.max-size", "1GB")
+                .put("query.result-cache.max-entry-size", "512kB")
+                .put("query.result-cache.ttl", "1h")
                 .build();
 
         QueryManagerConfig expected = new QueryManagerConfig()
@@ -92,7 +105,11 @@ public class TestQueryManagerConfig
                 .setQueryMaxExecutionTime(new Duration(3, TimeUnit.HOURS))
                 .setQueryMaxCpuTime(new Duration(2, TimeUnit.DAYS))
                 .setInitializationRequiredWorkers(200)
-                .setInitializationTimeout(new Duration(1, TimeUnit.MINUTES));
+                .setInitializationTimeout(new Duration(1, TimeUnit.MINUTES))
+                .setResultCacheEnabled(true)
+                .setResultCacheMaxSize(new DataSize(1, GIGABYTE))
+                .setResultCacheMaxEntrySize(new DataSize(512, KILOBYTE))
+                .setResultCacheTtl(new Duration(1, TimeUnit.HOURS));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
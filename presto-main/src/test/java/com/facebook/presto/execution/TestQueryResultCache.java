@@ -0,0 +1,221 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.QueryResultCache.CacheKey;
+import com.facebook.presto.metadata.QualifiedObjectName;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.OutputNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.SequencePageBuilder.createSequencePage;
+import static com.facebook.presto.SystemSessionProperties.LEGACY_TIMESTAMP;
+import static com.facebook.presto.SystemSessionProperties.QUERY_RESULT_CACHE_ENABLED;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestQueryResultCache
+{
+    private static final QualifiedObjectName ORDERS = new QualifiedObjectName("tpch", "tiny", "orders");
+    private static final QualifiedObjectName LINEITEM = new QualifiedObjectName("tpch", "tiny", "lineitem");
+
+    @Test
+    public void testCaptureAndHit()
+    {
+        SqlQueryManagerStats stats = new SqlQueryManagerStats();
+        QueryResultCache cache = createCache(stats, new DataSize(1, MEGABYTE));
+        CacheKey key = createKey(ORDERS);
+        List<Page> pages = ImmutableList.of(createSequencePage(ImmutableList.of(BIGINT), 10));
+
+        assertFalse(cache.get(key).isPresent());
+        assertEquals(stats.getResultCacheMisses().getTotalCount(), 1);
+
+        QueryId queryId = new QueryId("query");
+        cache.startCapture(queryId, key);
+        cache.addPages(queryId, pages);
+        assertFalse(cache.get(key).isPresent());
+
+        cache.finishCapture(queryId);
+        Optional<List<Page>> cachedPages = cache.get(key);
+        assertTrue(cachedPages.isPresent());
+        assertEquals(cachedPages.get(), pages);
+        assertEquals(stats.getResultCacheHits().getTotalCount(), 1);
+        assertEquals(stats.getResultCacheMisses().getTotalCount(), 2);
+    }
+
+    @Test
+    public void testAbortCapture()
+    {
+        QueryResultCache cache = createCache(new SqlQueryManagerStats(), new DataSize(1, MEGABYTE));
+        CacheKey key = createKey(ORDERS);
+
+        QueryId queryId = new QueryId("query");
+        cache.startCapture(queryId, key);
+        cache.addPages(queryId, ImmutableList.of(createSequencePage(ImmutableList.of(BIGINT), 10)));
+        cache.abortCapture(queryId);
+        cache.finishCapture(queryId);
+
+        assertFalse(cache.get(key).isPresent());
+    }
+
+    @Test
+    public void testResultTooLarge()
+    {
+        QueryResultCache cache = createCache(new SqlQueryManagerStats(), new DataSize(100, BYTE));
+        CacheKey key = createKey(ORDERS);
+
+        QueryId queryId = new QueryId("query");
+        cache.startCapture(queryId, key);
+        cache.addPages(queryId, ImmutableList.of(createSequencePage(ImmutableList.of(BIGINT), 1000)));
+        cache.finishCapture(queryId);
+
+        assertFalse(cache.get(key).isPresent());
+    }
+
+    @Test
+    public void testRunningCapturesBounded()
+    {
+        Page page = createSequencePage(ImmutableList.of(BIGINT), 1000);
+        QueryResultCache cache = createCache(new SqlQueryManagerStats(), new DataSize(page.getRetainedSizeInBytes() * 3 / 2, BYTE), new DataSize(1, MEGABYTE));
+        QueryId first = new QueryId("first");
+        QueryId second = new QueryId("second");
+        cache.startCapture(first, createKey(ORDERS));
+        cache.startCapture(second, createKey(LINEITEM));
+        cache.addPages(first, ImmutableList.of(page));
+        assertEquals(cache.getCapturedBytes(), page.getRetainedSizeInBytes());
+
+        // each result fits into the cache, but both together do not, so the second capture is dropped
+        cache.addPages(second, ImmutableList.of(page));
+        assertEquals(cache.getCapturedBytes(), page.getRetainedSizeInBytes());
+        cache.addPages(second, ImmutableList.of(page));
+        assertEquals(cache.getCapturedBytes(), page.getRetainedSizeInBytes());
+
+        cache.finishCapture(first);
+        cache.finishCapture(second);
+        assertEquals(cache.getCapturedBytes(), 0);
+    }
+
+    @Test
+    public void testSessionPropertiesInKey()
+    {
+        QueryResultCache cache = createCache(new SqlQueryManagerStats(), new DataSize(1, MEGABYTE));
+        Symbol symbol = new Symbol("a");
+        Plan plan = new Plan(
+                new OutputNode(new PlanNodeId("output"), new ValuesNode(new PlanNodeId("values"), ImmutableList.of(symbol), ImmutableList.of()), ImmutableList.of("a"), ImmutableList.of(symbol)),
+                ImmutableMap.of(symbol, BIGINT));
+
+        Session session = testSessionBuilder()
+                .setSystemProperty(QUERY_RESULT_CACHE_ENABLED, "true")
+                .build();
+        Session legacyTimestampSession = testSessionBuilder()
+                .setSystemProperty(QUERY_RESULT_CACHE_ENABLED, "true")
+                .setSystemProperty(LEGACY_TIMESTAMP, "false")
+                .build();
+
+        Optional<CacheKey> key = cache.createCacheKey(session, plan);
+        assertTrue(key.isPresent());
+        assertEquals(cache.createCacheKey(session, plan), key);
+        assertNotEquals(cache.createCacheKey(legacyTimestampSession, plan), key);
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        QueryResultCache cache = createCache(new SqlQueryManagerStats(), new DataSize(1, MEGABYTE));
+        CacheKey key = createKey(ORDERS);
+
+        QueryId queryId = new QueryId("query");
+        cache.startCapture(queryId, key);
+        cache.addPages(queryId, ImmutableList.of(createSequencePage(ImmutableList.of(BIGINT), 10)));
+        cache.finishCapture(queryId);
+
+        cache.invalidate(LINEITEM);
+        assertTrue(cache.get(key).isPresent());
+
+        cache.invalidate(ORDERS);
+        assertFalse(cache.get(key).isPresent());
+    }
+
+    @Test
+    public void testDisabledForSession()
+    {
+        QueryResultCache cache = createCache(new SqlQueryManagerStats(), new DataSize(1, MEGABYTE));
+        Symbol symbol = new Symbol("a");
+        Plan plan = new Plan(
+                new OutputNode(new PlanNodeId("output"), new ValuesNode(new PlanNodeId("values"), ImmutableList.of(symbol), ImmutableList.of()), ImmutableList.of("a"), ImmutableList.of(symbol)),
+                ImmutableMap.of(symbol, BIGINT));
+
+        assertFalse(cache.createCacheKey(testSessionBuilder().build(), plan).isPresent());
+    }
+
+    @Test
+    public void testCachedResultPlan()
+    {
+        QueryResultCache cache = createCache(new SqlQueryManagerStats(), new DataSize(1, MEGABYTE));
+        Symbol symbol = new Symbol("a");
+        Plan plan = new Plan(
+                new OutputNode(new PlanNodeId("output"), new ValuesNode(new PlanNodeId("values"), ImmutableList.of(symbol), ImmutableList.of()), ImmutableList.of("a", "b"), ImmutableList.of(symbol, symbol)),
+                ImmutableMap.of(symbol, BIGINT));
+        Page page = createSequencePage(ImmutableList.of(BIGINT, BIGINT), 10);
+
+        Plan cachedPlan = cache.createCachedResultPlan(plan, ImmutableList.of(page, page), new PlanNodeIdAllocator());
+
+        OutputNode output = (OutputNode) cachedPlan.getRoot();
+        assertEquals(output.getColumnNames(), ImmutableList.of("a", "b"));
+        assertEquals(output.getOutputSymbols(), ImmutableList.of(symbol, symbol));
+        ValuesNode values = (ValuesNode) output.getSource();
+        assertEquals(values.getOutputSymbols(), ImmutableList.of(symbol));
+        assertEquals(values.getRows().size(), 20);
+    }
+
+    private static QueryResultCache createCache(SqlQueryManagerStats stats, DataSize maxEntrySize)
+    {
+        return createCache(stats, new DataSize(10, MEGABYTE), maxEntrySize);
+    }
+
+    private static QueryResultCache createCache(SqlQueryManagerStats stats, DataSize maxSize, DataSize maxEntrySize)
+    {
+        return new QueryResultCache(createTestMetadataManager(), jsonCodec(PlanNode.class), stats, maxSize, maxEntrySize, new Duration(10, MINUTES));
+    }
+
+    private static CacheKey createKey(QualifiedObjectName table)
+    {
+        return new CacheKey("plan", ImmutableMap.of(table, "1"), "user", UTC_KEY, ImmutableMap.of());
+    }
+}
@@ -58,6 +58,7 @@ public class TestQueryStats
                     succinctBytes(1L),
                     1L,
                     succinctBytes(1L),
+                    0L,
                     new Duration(1, NANOSECONDS),
                     0L,
                     new Duration(1, NANOSECONDS),
@@ -88,6 +89,7 @@ public class TestQueryStats
                     succinctBytes(500L),
                     100L,
                     succinctBytes(1L),
+                    0L,
                     new Duration(1, NANOSECONDS),
                     0L,
                     new Duration(1, NANOSECONDS),
@@ -118,6 +120,7 @@ public class TestQueryStats
                     succinctBytes(1L),
                     1L,
                     succinctBytes(1L),
+                    0L,
                     new Duration(1, NANOSECONDS),
                     0L,
                     new Duration(1, NANOSECONDS),
@@ -179,6 +182,8 @@ public class TestQueryStats
 
             new DataSize(30, BYTE),
 
+            new Duration(31, NANOSECONDS),
+
             ImmutableList.of(new StageGcStatistics(
                     101,
                     102,
@@ -249,6 +254,8 @@ public class TestQueryStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), new DataSize(30, BYTE));
 
+        assertEquals(actual.getTotalCompileTime(), new Duration(31, NANOSECONDS));
+
         assertEquals(actual.getStageGcStatistics().size(), 1);
         StageGcStatistics gcStatistics = actual.getStageGcStatistics().get(0);
         assertEquals(gcStatistics.getStageId(), 101);
@@ -64,6 +64,7 @@ public class TestStageStats
 
             new DataSize(21, BYTE),
             22,
+            1.5,
 
             new DataSize(23, BYTE),
             new DataSize(24, BYTE),
@@ -71,6 +72,8 @@ public class TestStageStats
 
             new DataSize(26, BYTE),
 
+            new Duration(27, NANOSECONDS),
+
             new StageGcStatistics(
                     101,
                     102,
@@ -126,6 +129,7 @@ public class TestStageStats
 
         assertEquals(actual.getProcessedInputDataSize(), new DataSize(21, BYTE));
         assertEquals(actual.getProcessedInputPositions(), 22);
+        assertEquals(actual.getProcessedInputPositionsSkew(), 1.5);
 
         assertEquals(actual.getBufferedDataSize(), new DataSize(23, BYTE));
         assertEquals(actual.getOutputDataSize(), new DataSize(24, BYTE));
@@ -133,6 +137,8 @@ public class TestStageStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), new DataSize(26, BYTE));
 
+        assertEquals(actual.getTotalCompileTime(), new Duration(27, NANOSECONDS));
+
         assertEquals(actual.getGcInfo().getStageId(), 101);
         assertEquals(actual.getGcInfo().getTasks(), 102);
         assertEquals(actual.getGcInfo().getFullGcTasks(), 103);
@@ -37,6 +37,7 @@ public class TestTaskManagerConfig
                 .setSplitConcurrencyAdjustmentInterval(new Duration(100, TimeUnit.MILLISECONDS))
                 .setStatusRefreshMaxWait(new Duration(1, TimeUnit.SECONDS))
                 .setInfoUpdateInterval(new Duration(3, TimeUnit.SECONDS))
+                .setBinaryStatusEnabled(true)
                 .setVerboseStats(false)
                 .setTaskCpuTimerEnabled(true)
                 .setMaxWorkerThreads(Runtime.getRuntime().availableProcessors() * 2)
@@ -47,6 +48,12 @@ public class TestTaskManagerConfig
                 .setClientTimeout(new Duration(2, TimeUnit.MINUTES))
                 .setMaxIndexMemoryUsage(new DataSize(64, Unit.MEGABYTE))
                 .setShareIndexLoading(false)
+                .setShareScans(false)
+                .setSharedScanMaxSize(new DataSize(256, Unit.MEGABYTE))
+                .setSharedScanMaxEntrySize(new DataSize(16, Unit.MEGABYTE))
+                .setSharedScanRetention(new Duration(10, TimeUnit.SECONDS))
+                .setSharedScanMaxWait(new Duration(5, TimeUnit.SECONDS))
+                .setShareBroadcastBuilds(false)
                 .setMaxPartialAggregationMemoryUsage(new DataSize(16, Unit.MEGABYTE))
                 .setMaxLocalExchangeBufferSize(new DataSize(32, Unit.MEGABYTE))
                 .setSinkMaxBufferSize(new DataSize(32, Unit.MEGABYTE))
@@ -57,6 +64,7 @@ public class TestTaskManagerConfig
                 .setHttpTimeoutThreads(3)
                 .setTaskNotificationThreads(5)
                 .setTaskYieldThreads(3)
+                .setTaskSortThreads(Runtime.getRuntime().availableProcessors())
                 .setLevelTimeMultiplier(new BigDecimal("2")));
     }
 
@@ -68,10 +76,17 @@ public class TestTaskManagerConfig
                 .put("task.split-concurrency-adjustment-interval", "1s")
                 .put("task.status-refresh-max-wait", "2s")
                 .put("task.info-update-interval", "2s")
+                .put("task.binary-status-enabled", "false")
                 .put("task.verbose-stats", "true")
                 .put("task.cpu-timer-enabled", "false")
                 .put("task.max-index-memory", "512MB")
                 .put("task.share-index-loading", "true")
+                .put("task.share-scans", "true")
+                .put("task.shared-scan.max-size", "1GB")
+                .put("task.shared-scan.max-entry-size", "64MB")
+                .put("task.shared-scan.retention", "1m")
+                .put("task.shared-scan.max-wait", "30s")
+                .put("task.share-broadcast-builds", "true")
                 .put("task.max-partial-aggregation-memory", "32MB")
                 .put("task.max-local-exchange-buffer-size", "33MB")
                 .put("task.max-worker-threads", "3")
@@ -88,6 +103,7 @@ public class TestTaskManagerConfig
                 .put("task.http-timeout-threads", "10")
                 .put("task.task-notification-threads", "13")
                 .put("task.task-yield-threads", "8")
+                .put("task.task-sort-threads", "7")
                 .put("task.level-time-multiplier", "2.1")
                 .build();
 
@@ -96,10 +112,17 @@ public class TestTaskManagerConfig
                 .setSplitConcurrencyAdjustmentInterval(new Duration(1, TimeUnit.SECONDS))
                 .setStatusRefreshMaxWait(new Duration(2, TimeUnit.SECONDS))
                 .setInfoUpdateInterval(new Duration(2, TimeUnit.SECONDS))
+                .setBinaryStatusEnabled(false)
                 .setVerboseStats(true)
                 .setTaskCpuTimerEnabled(false)
                 .setMaxIndexMemoryUsage(new DataSize(512, Unit.MEGABYTE))
                 .setShareIndexLoading(true)
+                .setShareScans(true)
+                .setSharedScanMaxSize(new DataSize(1, Unit.GIGABYTE))
+                .setSharedScanMaxEntrySize(new DataSize(64, Unit.MEGABYTE))
+                .setSharedScanRetention(new Duration(1, TimeUnit.MINUTES))
+                .setSharedScanMaxWait(new Duration(30, TimeUnit.SECONDS))
+                .setShareBroadcastBuilds(true)
                 .setMaxPartialAggregationMemoryUsage(new DataSize(32, Unit.MEGABYTE))
                 .setMaxLocalExchangeBufferSize(new DataSize(33, Unit.MEGABYTE))
                 .setMaxWorkerThreads(3)
@@ -116,6 +139,7 @@ public class TestTaskManagerConfig
                 .setHttpTimeoutThreads(10)
                 .setTaskNotificationThreads(13)
                 .setTaskYieldThreads(8)
+                .setTaskSortThreads(7)
                 .setLevelTimeMultiplier(new BigDecimal("2.1"));
 
         assertFullMapping(properties, expected);
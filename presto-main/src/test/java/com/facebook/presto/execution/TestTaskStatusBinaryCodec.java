@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+
+import static com.facebook.presto.execution.TaskStatusBinaryCodec.decode;
+import static com.facebook.presto.execution.TaskStatusBinaryCodec.encode;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.util.Failures.toFailure;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+
+public class TestTaskStatusBinaryCodec
+{
+    @Test
+    public void testRoundTrip()
+    {
+        TaskStatus expected = new TaskStatus(
+                TaskId.valueOf("query.1.2"),
+                "instance",
+                42,
+                TaskState.RUNNING,
+                URI.create("http://localhost:8080/v1/task/query.1.2"),
+                "node",
+                ImmutableSet.of(Lifespan.taskWide(), Lifespan.driverGroup(3)),
+                ImmutableList.of(),
+                7,
+                11,
+                true,
+                new DataSize(123, BYTE),
+                new DataSize(5, MEGABYTE),
+                new DataSize(1, MEGABYTE),
+                2,
+                new Duration(150, MILLISECONDS));
+
+        assertTaskStatusEquals(decode(encode(expected)), expected);
+    }
+
+    @Test
+    public void testFailures()
+    {
+        TaskStatus expected = TaskStatus.failWith(
+                TaskStatus.initialTaskStatus(TaskId.valueOf("query.0.0"), URI.create("http://localhost/task"), "node"),
+                TaskState.FAILED,
+                ImmutableList.of(toFailure(new PrestoException(GENERIC_INTERNAL_ERROR, "test failure"))));
+
+        TaskStatus actual = decode(encode(expected));
+        assertTaskStatusEquals(actual, expected);
+        ExecutionFailureInfo failure = actual.getFailures().get(0);
+        assertEquals(failure.getMessage(), "test failure");
+        assertEquals(failure.getErrorCode(), GENERIC_INTERNAL_ERROR.toErrorCode());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Unsupported task status format version: .*")
+    public void testUnknownVersion()
+    {
+        Slice slice = encode(TaskStatus.initialTaskStatus(TaskId.valueOf("query.0.0"), URI.create("http://localhost/task"), "node"));
+        slice.setByte(0, 99);
+        decode(slice);
+    }
+
+    private static void assertTaskStatusEquals(TaskStatus actual, TaskStatus expected)
+    {
+        assertEquals(actual.getTaskId(), expected.getTaskId());
+        assertEquals(actual.getTaskInstanceId(), expected.getTaskInstanceId());
+        assertEquals(actual.getVersion(), expected.getVersion());
+        assertEquals(actual.getState(), expected.getState());
+        assertEquals(actual.getSelf(), expected.getSelf());
+        assertEquals(actual.getNodeId(), expected.getNodeId());
+        assertEquals(actual.getCompletedDriverGroups(), expected.getCompletedDriverGroups());
+        assertEquals(actual.getFailures().size(), expected.getFailures().size());
+        assertEquals(actual.getQueuedPartitionedDrivers(), expected.getQueuedPartitionedDrivers());
+        assertEquals(actual.getRunningPartitionedDrivers(), expected.getRunningPartitionedDrivers());
+        assertEquals(actual.isOutputBufferOverutilized(), expected.isOutputBufferOverutilized());
+        assertEquals(actual.getPhysicalWrittenDataSize().toBytes(), expected.getPhysicalWrittenDataSize().toBytes());
+        assertEquals(actual.getMemoryReservation().toBytes(), expected.getMemoryReservation().toBytes());
+        assertEquals(actual.getSystemMemoryReservation().toBytes(), expected.getSystemMemoryReservation().toBytes());
+        assertEquals(actual.getFullGcCount(), expected.getFullGcCount());
+        assertEquals(actual.getFullGcTime().toMillis(), expected.getFullGcTime().toMillis());
+    }
+}
@@ -13,9 +13,11 @@
  */
 package com.facebook.presto.execution.buffer;
 
+import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.TestingTypeManager;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.DynamicSliceOutput;
@@ -24,7 +26,12 @@ import org.testng.annotations.Test;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 
+import static com.facebook.presto.execution.buffer.PageCompression.LZ4;
+import static com.facebook.presto.execution.buffer.PageCompression.UNCOMPRESSED;
+import static com.facebook.presto.execution.buffer.PageCompression.ZSTD;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.readPages;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writePages;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
@@ -32,6 +39,7 @@ import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -59,6 +67,58 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testCodecs()
+    {
+        Page page = createCompressiblePage();
+        for (PageCompression compression : PageCompression.values()) {
+            PageCompressionStats stats = new PageCompressionStats();
+            PagesSerde serde = new PagesSerde(new BlockEncodingManager(new TestingTypeManager()), compression, false, Optional.of(stats));
+
+            SerializedPage serializedPage = serde.serialize(page);
+            assertEquals(serializedPage.getCompression(), compression);
+            assertPageEquals(ImmutableList.of(VARCHAR), serde.deserialize(serializedPage), page);
+
+            // pages can be read regardless of the codec configured for the reader
+            PagesSerde uncompressedSerde = new PagesSerdeFactory(new BlockEncodingManager(new TestingTypeManager()), false).createPagesSerde();
+            assertPageEquals(ImmutableList.of(VARCHAR), uncompressedSerde.deserialize(serializedPage), page);
+        }
+    }
+
+    @Test
+    public void testCompressionStats()
+    {
+        PageCompressionStats stats = new PageCompressionStats();
+        PagesSerde serde = new PagesSerdeFactory(new BlockEncodingManager(new TestingTypeManager()), ZSTD, false).createPagesSerde(stats);
+
+        SerializedPage serializedPage = serde.serialize(createCompressiblePage());
+        serde.deserialize(serializedPage);
+
+        assertEquals(stats.getZstd().getUncompressedBytes().getTotalCount(), serializedPage.getUncompressedSizeInBytes());
+        assertEquals(stats.getZstd().getCompressedBytes().getTotalCount(), serializedPage.getSizeInBytes());
+        assertEquals(stats.getZstd().getCompressionRatio(), (double) serializedPage.getSizeInBytes() / serializedPage.getUncompressedSizeInBytes());
+        assertEquals(stats.getLz4().getUncompressedBytes().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testAdaptiveCompression()
+    {
+        PageCompressionStats stats = new PageCompressionStats();
+        PagesSerde serde = new PagesSerdeFactory(new BlockEncodingManager(new TestingTypeManager()), LZ4, true).createPagesSerde(stats);
+
+        Page page = createIncompressiblePage();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(serde.serialize(page).getCompression(), UNCOMPRESSED);
+        }
+        // compression is no longer attempted once a full sample has shown a poor ratio
+        long sampledBytes = stats.getLz4().getUncompressedBytes().getTotalCount();
+        assertTrue(sampledBytes > 0);
+        assertTrue(sampledBytes < 100L * serde.serialize(page).getUncompressedSizeInBytes());
+
+        // compressible data in the same stream is still sent uncompressed until the next sample
+        assertEquals(serde.serialize(createCompressiblePage()).getCompression(), UNCOMPRESSED);
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
@@ -106,6 +166,25 @@ public class TestPagesSerde
         assertEquals(secondValueSize, 4 + 3); // length + "bob" (null shared with first entry)
     }
 
+    private static Page createCompressiblePage()
+    {
+        BlockBuilder builder = VARCHAR.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            VARCHAR.writeString(builder, "value " + (i % 10));
+        }
+        return new Page(builder.build());
+    }
+
+    private static Page createIncompressiblePage()
+    {
+        Random random = new Random(0);
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(builder, random.nextLong());
+        }
+        return new Page(builder.build());
+    }
+
     private static int serializedSize(List<? extends Type> types, Page expectedPage)
     {
         PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
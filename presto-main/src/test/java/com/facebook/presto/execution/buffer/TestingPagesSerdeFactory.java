@@ -17,13 +17,11 @@ import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.type.TestingTypeManager;
-import io.airlift.compress.Compressor;
-import io.airlift.compress.Decompressor;
-import io.airlift.compress.lz4.Lz4Compressor;
-import io.airlift.compress.lz4.Lz4Decompressor;
 
 import java.util.Optional;
 
+import static com.facebook.presto.execution.buffer.PageCompression.LZ4;
+
 public class TestingPagesSerdeFactory
         extends PagesSerdeFactory
 {
@@ -35,18 +33,15 @@ public class TestingPagesSerdeFactory
 
     public static PagesSerde testingPagesSerde()
     {
-        return new SynchronizedPagesSerde(
-                new BlockEncodingManager(new TestingTypeManager()),
-                Optional.of(new Lz4Compressor()),
-                Optional.of(new Lz4Decompressor()));
+        return new SynchronizedPagesSerde(new BlockEncodingManager(new TestingTypeManager()), LZ4);
     }
 
     private static class SynchronizedPagesSerde
             extends PagesSerde
     {
-        public SynchronizedPagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor)
+        public SynchronizedPagesSerde(BlockEncodingSerde blockEncodingSerde, PageCompression compression)
         {
-            super(blockEncodingSerde, compressor, decompressor);
+            super(blockEncodingSerde, compression, false, Optional.empty());
         }
 
         @Override
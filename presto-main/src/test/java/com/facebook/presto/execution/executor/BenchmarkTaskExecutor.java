@@ -0,0 +1,198 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.facebook.presto.execution.SplitRunner;
+import com.facebook.presto.execution.TaskId;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Drives the task executor with a large number of tiny splits, so the time is
+ * dominated by the scheduling of the splits rather than by their processing.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 10, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkTaskExecutor
+{
+    @Benchmark
+    public void runSplits(BenchmarkData data)
+            throws ExecutionException, InterruptedException
+    {
+        TaskExecutor taskExecutor = data.getTaskExecutor();
+        List<TaskHandle> taskHandles = new ArrayList<>(data.getTaskCount());
+        List<ListenableFuture<?>> finishedFutures = new ArrayList<>(data.getTotalSplits());
+        for (int task = 0; task < data.getTaskCount(); task++) {
+            TaskHandle taskHandle = taskExecutor.addTask(data.nextTaskId(), () -> 0, 10, new Duration(1, MILLISECONDS));
+            taskHandles.add(taskHandle);
+            finishedFutures.addAll(taskExecutor.enqueueSplits(taskHandle, false, data.createSplits()));
+        }
+
+        Futures.allAsList(finishedFutures).get();
+
+        for (TaskHandle taskHandle : taskHandles) {
+            taskExecutor.removeTask(taskHandle);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        private static final int TOTAL_SPLITS = 32_768;
+
+        @Param({"4", "16", "64"})
+        private int runnerThreads = 16;
+
+        @Param({"1", "16", "256"})
+        private int taskCount = 16;
+
+        @Param({"1", "10"})
+        private int quantaPerSplit = 1;
+
+        private final AtomicInteger nextTaskId = new AtomicInteger();
+        private TaskExecutor taskExecutor;
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            taskExecutor = new TaskExecutor(runnerThreads, runnerThreads * 2, 3, Integer.MAX_VALUE, Ticker.systemTicker());
+            taskExecutor.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+        {
+            taskExecutor.stop();
+        }
+
+        public TaskExecutor getTaskExecutor()
+        {
+            return taskExecutor;
+        }
+
+        public int getTaskCount()
+        {
+            return taskCount;
+        }
+
+        public int getTotalSplits()
+        {
+            return TOTAL_SPLITS;
+        }
+
+        public TaskId nextTaskId()
+        {
+            return new TaskId("benchmark", 0, nextTaskId.getAndIncrement());
+        }
+
+        public List<SplitRunner> createSplits()
+        {
+            ImmutableList.Builder<SplitRunner> splits = ImmutableList.builder();
+            for (int i = 0; i < TOTAL_SPLITS / taskCount; i++) {
+                splits.add(new TinySplit(quantaPerSplit));
+            }
+            return splits.build();
+        }
+    }
+
+    private static class TinySplit
+            implements SplitRunner
+    {
+        private final int quantaCount;
+        private int completedQuanta;
+
+        public TinySplit(int quantaCount)
+        {
+            this.quantaCount = quantaCount;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return completedQuanta >= quantaCount;
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            completedQuanta++;
+            return immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "tiny-split";
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException, ExecutionException, InterruptedException
+    {
+        // assure the benchmarks are valid before running
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        try {
+            new BenchmarkTaskExecutor().runSplits(data);
+        }
+        finally {
+            data.tearDown();
+        }
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkTaskExecutor.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
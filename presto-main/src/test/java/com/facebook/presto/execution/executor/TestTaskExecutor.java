@@ -19,11 +19,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
 import io.airlift.testing.TestingTicker;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.Future;
 import java.util.concurrent.Phaser;
@@ -367,6 +370,51 @@ public class TestTaskExecutor
         }
     }
 
+    @Test(timeOut = 30_000)
+    public void testRemoveWaitingSplits()
+            throws Exception
+    {
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2);
+        TestingTicker ticker = new TestingTicker();
+        TaskHandle handle = new TaskHandle(new TaskId("test", 0, 0), splitQueue, () -> 1, 1, new Duration(1, SECONDS));
+
+        PrioritizedSplitRunner split1 = createSplitRunner(handle, ticker);
+        PrioritizedSplitRunner split2 = createSplitRunner(handle, ticker);
+        PrioritizedSplitRunner split3 = createSplitRunner(handle, ticker);
+        splitQueue.offer(split1);
+        splitQueue.offer(split2);
+        splitQueue.offer(split3);
+        assertEquals(splitQueue.size(), 3);
+
+        splitQueue.remove(split2);
+        assertEquals(splitQueue.size(), 2);
+
+        // the permits of the removed split must not be handed out
+        assertEquals(new HashSet<>(Arrays.asList(splitQueue.take(), splitQueue.take())), new HashSet<>(Arrays.asList(split1, split3)));
+        assertEquals(splitQueue.size(), 0);
+
+        PrioritizedSplitRunner split4 = createSplitRunner(handle, ticker);
+        splitQueue.offer(split4);
+        splitQueue.removeAll(ImmutableList.of(split4));
+        assertEquals(splitQueue.size(), 0);
+
+        PrioritizedSplitRunner split5 = createSplitRunner(handle, ticker);
+        splitQueue.offer(split5);
+        assertEquals(splitQueue.take(), split5);
+    }
+
+    private static PrioritizedSplitRunner createSplitRunner(TaskHandle handle, TestingTicker ticker)
+    {
+        return new PrioritizedSplitRunner(
+                handle,
+                new TestingJob(ticker, new Phaser(), new Phaser(), new Phaser(), 1, 0),
+                ticker,
+                new CounterStat(),
+                new CounterStat(),
+                new TimeStat(),
+                new TimeStat());
+    }
+
     @Test(timeOut = 30_000)
     public void testMinMaxDriversPerTask()
     {
@@ -134,6 +134,12 @@ public abstract class AbstractMockMetadata
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Optional<String> getTableDataVersion(Session session, TableHandle tableHandle)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public List<QualifiedObjectName> listTables(Session session, QualifiedTablePrefix prefix)
     {
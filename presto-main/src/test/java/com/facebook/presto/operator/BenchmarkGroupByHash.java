@@ -116,6 +116,37 @@ public class BenchmarkGroupByHash
         return pageBuilder.build();
     }
 
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public Object fixedWidthGroupByHash(FixedWidthBenchmarkData data)
+    {
+        GroupByHash groupByHash = new FixedWidthGroupByHash(data.getTypes(), data.getChannels(), data.getHashChannel(), EXPECTED_SIZE, NOOP);
+        return groupByHashGetGroupIds(groupByHash, data.getPages());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public Object fixedWidthMultiChannelGroupByHash(FixedWidthBenchmarkData data)
+    {
+        GroupByHash groupByHash = new MultiChannelGroupByHash(data.getTypes(), data.getChannels(), data.getHashChannel(), EXPECTED_SIZE, false, getJoinCompiler(false), NOOP);
+        return groupByHashGetGroupIds(groupByHash, data.getPages());
+    }
+
+    private static Object groupByHashGetGroupIds(GroupByHash groupByHash, List<Page> pages)
+    {
+        pages.forEach(p -> groupByHash.getGroupIds(p).process());
+
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+            if (pageBuilder.isFull()) {
+                pageBuilder.reset();
+            }
+        }
+        return pageBuilder.build();
+    }
+
     @Benchmark
     @OperationsPerInvocation(POSITIONS)
     public Object bigintGroupByHash(SingleChannelBenchmarkData data)
@@ -321,6 +352,57 @@ public class BenchmarkGroupByHash
         }
     }
 
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class FixedWidthBenchmarkData
+    {
+        @Param({"2", "3", "4"})
+        private int channelCount = 2;
+
+        @Param(GROUP_COUNT_STRING)
+        private int groupCount = GROUP_COUNT;
+
+        @Param({"true", "false"})
+        private boolean hashEnabled;
+
+        private List<Page> pages;
+        private Optional<Integer> hashChannel;
+        private List<Type> types;
+        private int[] channels;
+
+        @Setup
+        public void setup()
+        {
+            types = Collections.nCopies(channelCount, BIGINT);
+            pages = createBigintPages(POSITIONS, groupCount, channelCount, hashEnabled);
+            hashChannel = hashEnabled ? Optional.of(channelCount) : Optional.empty();
+            channels = new int[channelCount];
+            for (int i = 0; i < channelCount; i++) {
+                channels[i] = i;
+            }
+        }
+
+        public List<Page> getPages()
+        {
+            return pages;
+        }
+
+        public Optional<Integer> getHashChannel()
+        {
+            return hashChannel;
+        }
+
+        public List<Type> getTypes()
+        {
+            return types;
+        }
+
+        public int[] getChannels()
+        {
+            return channels;
+        }
+    }
+
     @SuppressWarnings("FieldMayBeFinal")
     @State(Scope.Thread)
     public static class BenchmarkData
@@ -420,6 +502,11 @@ public class BenchmarkGroupByHash
         singleChannelBenchmarkData.setup();
         new BenchmarkGroupByHash().bigintGroupByHash(singleChannelBenchmarkData);
 
+        FixedWidthBenchmarkData fixedWidthBenchmarkData = new FixedWidthBenchmarkData();
+        fixedWidthBenchmarkData.setup();
+        new BenchmarkGroupByHash().fixedWidthGroupByHash(fixedWidthBenchmarkData);
+        new BenchmarkGroupByHash().fixedWidthMultiChannelGroupByHash(fixedWidthBenchmarkData);
+
         Options options = new OptionsBuilder()
                 .verbosity(VerboseMode.NORMAL)
                 .include(".*" + BenchmarkGroupByHash.class.getSimpleName() + ".*")
@@ -37,7 +37,9 @@ import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.runner.Runner;
@@ -93,15 +95,42 @@ public class BenchmarkPartitionedOutputOperator
     public static class BenchmarkData
     {
         private static final int PAGE_COUNT = 5000;
-        private static final int PARTITION_COUNT = 512;
-        private static final int ENTRIES_PER_PAGE = 256;
+        private static final int ENTRIES_PER_PAGE = 1024;
         private static final DataSize MAX_MEMORY = new DataSize(1, GIGABYTE);
         private static final RowType rowType = RowType.anonymous(ImmutableList.of(VARCHAR, VARCHAR, VARCHAR, VARCHAR));
-        private static final List<Type> TYPES = ImmutableList.of(BIGINT, rowType, rowType, rowType);
         private static final ExecutorService EXECUTOR = newCachedThreadPool(daemonThreadsNamed("test-EXECUTOR-%s"));
         private static final ScheduledExecutorService SCHEDULER = newScheduledThreadPool(1, daemonThreadsNamed("test-%s"));
 
-        private final Page dataPage = createPage();
+        @Param({"1", "2", "16", "256", "1024"})
+        private int partitionCount = 512;
+
+        @Param({"BIGINT", "VARCHAR", "BIGINT_VARCHAR", "ROW"})
+        private String types = "ROW";
+
+        private List<Type> pageTypes;
+        private Page dataPage;
+
+        @Setup
+        public void setup()
+        {
+            switch (types) {
+                case "BIGINT":
+                    pageTypes = ImmutableList.of(BIGINT, BIGINT, BIGINT, BIGINT);
+                    break;
+                case "VARCHAR":
+                    pageTypes = ImmutableList.of(BIGINT, VARCHAR, VARCHAR, VARCHAR);
+                    break;
+                case "BIGINT_VARCHAR":
+                    pageTypes = ImmutableList.of(BIGINT, VARCHAR, BIGINT, VARCHAR);
+                    break;
+                case "ROW":
+                    pageTypes = ImmutableList.of(BIGINT, rowType, rowType, rowType);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported types: " + types);
+            }
+            dataPage = createPage();
+        }
 
         private int getPageCount()
         {
@@ -115,10 +144,10 @@ public class BenchmarkPartitionedOutputOperator
 
         private PartitionedOutputOperator createPartitionedOutputOperator()
         {
-            PartitionFunction partitionFunction = new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0}), PARTITION_COUNT);
+            PartitionFunction partitionFunction = new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0}), partitionCount);
             PagesSerdeFactory serdeFactory = new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false);
             OutputBuffers buffers = createInitialEmptyOutputBuffers(PARTITIONED);
-            for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            for (int partition = 0; partition < partitionCount; partition++) {
                 buffers = buffers.withBuffer(new OutputBuffers.OutputBufferId(partition), partition);
             }
             PartitionedOutputBuffer buffer = createPartitionedBuffer(
@@ -130,26 +159,32 @@ public class BenchmarkPartitionedOutputOperator
                     ImmutableList.of(Optional.empty()),
                     false,
                     OptionalInt.empty(),
+                    ImmutableList.of(),
                     buffer,
                     new DataSize(1, GIGABYTE));
             return (PartitionedOutputOperator) operatorFactory
-                    .createOutputOperator(0, new PlanNodeId("plan-node-0"), TYPES, Function.identity(), serdeFactory)
+                    .createOutputOperator(0, new PlanNodeId("plan-node-0"), pageTypes, Function.identity(), serdeFactory)
                     .createOperator(createDriverContext());
         }
 
         private Page createPage()
         {
             List<Object>[] testRows = generateTestRows(ImmutableList.of(VARCHAR, VARCHAR, VARCHAR, VARCHAR), ENTRIES_PER_PAGE);
-            PageBuilder pageBuilder = new PageBuilder(TYPES);
-            BlockBuilder bigintBlockBuilder = pageBuilder.getBlockBuilder(0);
-            BlockBuilder rowBlockBuilder = pageBuilder.getBlockBuilder(1);
-            BlockBuilder rowBlockBuilder2 = pageBuilder.getBlockBuilder(2);
-            BlockBuilder rowBlockBuilder3 = pageBuilder.getBlockBuilder(3);
+            PageBuilder pageBuilder = new PageBuilder(pageTypes);
             for (int i = 0; i < ENTRIES_PER_PAGE; i++) {
-                BIGINT.writeLong(bigintBlockBuilder, i);
-                writeRow(testRows[i], rowBlockBuilder);
-                writeRow(testRows[i], rowBlockBuilder2);
-                writeRow(testRows[i], rowBlockBuilder3);
+                for (int channel = 0; channel < pageTypes.size(); channel++) {
+                    Type type = pageTypes.get(channel);
+                    BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(channel);
+                    if (type == BIGINT) {
+                        BIGINT.writeLong(blockBuilder, channel == 0 ? i : ThreadLocalRandom.current().nextLong());
+                    }
+                    else if (type == VARCHAR) {
+                        VARCHAR.writeSlice(blockBuilder, utf8Slice((String) testRows[i].get(channel)));
+                    }
+                    else {
+                        writeRow(testRows[i], blockBuilder);
+                    }
+                }
             }
             pageBuilder.declarePositions(ENTRIES_PER_PAGE);
             return pageBuilder.build();
@@ -216,6 +251,7 @@ public class BenchmarkPartitionedOutputOperator
     {
         // assure the benchmarks are valid before running
         BenchmarkData data = new BenchmarkData();
+        data.setup();
         new BenchmarkPartitionedOutputOperator().addPage(data);
         Options options = new OptionsBuilder()
                 .verbosity(VerboseMode.NORMAL)
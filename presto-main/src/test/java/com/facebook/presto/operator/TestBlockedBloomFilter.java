@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.type.BigintType;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestBlockedBloomFilter
+{
+    private static final int ENTRIES = 100_000;
+
+    @Test
+    public void testNoFalseNegatives()
+    {
+        BlockedBloomFilter bloomFilter = createBloomFilter(ENTRIES);
+        for (long value = 0; value < ENTRIES; value++) {
+            assertTrue(bloomFilter.mightContain(BigintType.hash(value)));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate()
+    {
+        BlockedBloomFilter bloomFilter = createBloomFilter(ENTRIES);
+        int falsePositives = 0;
+        for (long value = ENTRIES; value < 2 * ENTRIES; value++) {
+            if (bloomFilter.mightContain(BigintType.hash(value))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < ENTRIES * 0.05, "too many false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testFilter()
+    {
+        BlockedBloomFilter bloomFilter = createBloomFilter(ENTRIES);
+        int count = 2 * ENTRIES;
+        int[] positions = new int[count];
+        long[] rawHashes = new long[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = i;
+            rawHashes[i] = BigintType.hash(i);
+        }
+
+        int candidateCount = bloomFilter.filter(positions, rawHashes, count);
+        assertTrue(candidateCount >= ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            assertEquals(positions[i], i);
+        }
+        for (int i = ENTRIES; i < candidateCount; i++) {
+            assertTrue(bloomFilter.mightContain(rawHashes[positions[i]]));
+        }
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(0);
+        assertFalse(bloomFilter.mightContain(BigintType.hash(42)));
+    }
+
+    private static BlockedBloomFilter createBloomFilter(int entries)
+    {
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(entries);
+        for (long value = 0; value < entries; value++) {
+            bloomFilter.add(BigintType.hash(value));
+        }
+        return bloomFilter;
+    }
+}
@@ -43,7 +43,9 @@ import static com.facebook.presto.block.BlockAssertions.createStringSequenceBloc
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.facebook.presto.spi.block.DictionaryId.randomDictionaryId;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.type.TypeUtils.getHashBlock;
 import static com.google.common.math.DoubleMath.log2;
@@ -232,6 +234,74 @@ public class TestGroupByHash
         assertTrue(groupByHash.contains(0, new Page(testValuesBlock, testStringValuesBlock, testHashBlock), hashChannels));
     }
 
+    @Test
+    public void testFixedWidthKeys()
+    {
+        List<Type> types = ImmutableList.of(INTEGER, BIGINT, BOOLEAN);
+        int[] hashChannels = {0, 1, 2};
+        PageBuilder pageBuilder = new PageBuilder(types);
+        for (int position = 0; position < 1000; position++) {
+            pageBuilder.declarePosition();
+            if (position % 7 == 0) {
+                pageBuilder.getBlockBuilder(0).appendNull();
+            }
+            else {
+                INTEGER.writeLong(pageBuilder.getBlockBuilder(0), position % 5);
+            }
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(1), position % 11);
+            if (position % 13 == 0) {
+                pageBuilder.getBlockBuilder(2).appendNull();
+            }
+            else {
+                BOOLEAN.writeBoolean(pageBuilder.getBlockBuilder(2), position % 2 == 0);
+            }
+        }
+        Page page = pageBuilder.build();
+        Block hashBlock = getHashBlock(types, page.getBlock(0), page.getBlock(1), page.getBlock(2));
+        Page pageWithHash = new Page(page.getBlock(0), page.getBlock(1), page.getBlock(2), hashBlock);
+
+        for (Optional<Integer> inputHashChannel : ImmutableList.of(Optional.<Integer>empty(), Optional.of(3))) {
+            GroupByHash groupByHash = createGroupByHash(TEST_SESSION, types, hashChannels, inputHashChannel, 4, JOIN_COMPILER);
+            assertTrue(groupByHash instanceof FixedWidthGroupByHash);
+            GroupByHash expectedGroupByHash = new MultiChannelGroupByHash(types, hashChannels, inputHashChannel, 4, false, JOIN_COMPILER, UpdateMemory.NOOP);
+
+            Work<GroupByIdBlock> work = groupByHash.getGroupIds(pageWithHash);
+            assertTrue(work.process());
+            Work<GroupByIdBlock> expectedWork = expectedGroupByHash.getGroupIds(pageWithHash);
+            assertTrue(expectedWork.process());
+
+            GroupByIdBlock groupIds = work.getResult();
+            GroupByIdBlock expectedGroupIds = expectedWork.getResult();
+            assertEquals(groupByHash.getGroupCount(), expectedGroupByHash.getGroupCount());
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                assertEquals(groupIds.getGroupId(position), expectedGroupIds.getGroupId(position));
+                assertTrue(groupByHash.contains(position, pageWithHash, hashChannels));
+            }
+
+            PageBuilder actualValues = new PageBuilder(groupByHash.getTypes());
+            PageBuilder expectedValues = new PageBuilder(expectedGroupByHash.getTypes());
+            for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+                actualValues.declarePosition();
+                groupByHash.appendValuesTo(groupId, actualValues, 0);
+                expectedValues.declarePosition();
+                expectedGroupByHash.appendValuesTo(groupId, expectedValues, 0);
+                assertEquals(groupByHash.getRawHash(groupId), expectedGroupByHash.getRawHash(groupId));
+            }
+            Page actualPage = actualValues.build();
+            Page expectedPage = expectedValues.build();
+            for (int channel = 0; channel < groupByHash.getTypes().size(); channel++) {
+                Type type = groupByHash.getTypes().get(channel);
+                for (int position = 0; position < actualPage.getPositionCount(); position++) {
+                    assertTrue(TypeUtils.positionEqualsPosition(type, actualPage.getBlock(channel), position, expectedPage.getBlock(channel), position));
+                }
+            }
+
+            Block missingValue = BlockAssertions.createLongsBlock(100);
+            Page missingPage = new Page(page.getBlock(0).getRegion(0, 1), missingValue, page.getBlock(2).getRegion(0, 1));
+            assertFalse(groupByHash.contains(0, missingPage, hashChannels));
+        }
+    }
+
     @Test
     public void testForceRehash()
     {
@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.Session;
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.Signature;
@@ -56,6 +57,9 @@ import java.util.concurrent.ScheduledExecutorService;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.SystemSessionProperties.ADAPTIVE_PARTIAL_AGGREGATION;
+import static com.facebook.presto.SystemSessionProperties.ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS;
+import static com.facebook.presto.SystemSessionProperties.ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD;
 import static com.facebook.presto.metadata.FunctionKind.AGGREGATE;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.GroupByHashYieldResult;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
@@ -70,11 +74,10 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static com.google.common.base.Strings.nullToEmpty;
-import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
-import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
 import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
@@ -560,6 +563,61 @@ public class TestHashAggregationOperator
         }
     }
 
+    @Test(dataProvider = "hashEnabled")
+    public void testAdaptivePartialAggregation(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(500, 0)
+                .addSequencePage(500, 500)
+                .addSequencePage(500, 1000)
+                .addSequencePage(500, 1500)
+                .build();
+
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.PARTIAL,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                new DataSize(16, MEGABYTE),
+                joinCompiler);
+
+        Session session = testSessionBuilder()
+                .setSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION, "true")
+                .setSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS, "500")
+                .setSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD, "0.5")
+                .build();
+        DriverContext driverContext = TestingTaskContext.builder(executor, scheduledExecutor, session)
+                .build()
+                .addPipelineContext(0, true, true)
+                .addDriverContext();
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                .pages(rowPagesBuilder(BIGINT, BIGINT).addSequencePage(2000, 0, 0).build())
+                .build();
+
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            List<Page> outputPages = toPages(operator, input.iterator());
+            if (hashEnabled) {
+                outputPages = dropChannel(outputPages, ImmutableList.of(1));
+            }
+            MaterializedResult actual = toMaterializedResult(driverContext.getSession(), expected.getTypes(), outputPages);
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+
+            // the first page is aggregated, the rest is passed through
+            HashCollisionsInfo info = (HashCollisionsInfo) operator.getOperatorContext().getOperatorStats().getInfo();
+            assertEquals(info.getPartialAggregationSkippedPositions(), 1500);
+        }
+    }
+
     @Test
     public void testMergeWithMemorySpill()
     {
@@ -682,47 +740,6 @@ public class TestHashAggregationOperator
         return ((InMemoryHashAggregationBuilder) aggregationBuilder).getCapacity();
     }
 
-    private static class DummySpillerFactory
-            implements SpillerFactory
-    {
-        private long spillsCount;
-
-        @Override
-        public Spiller create(List<Type> types, SpillContext spillContext, AggregatedMemoryContext memoryContext)
-        {
-            return new Spiller()
-            {
-                private final List<Iterable<Page>> spills = new ArrayList<>();
-
-                @Override
-                public ListenableFuture<?> spill(Iterator<Page> pageIterator)
-                {
-                    spillsCount++;
-                    spills.add(ImmutableList.copyOf(pageIterator));
-                    return immediateFuture(null);
-                }
-
-                @Override
-                public List<Iterator<Page>> getSpills()
-                {
-                    return spills.stream()
-                            .map(Iterable::iterator)
-                            .collect(toImmutableList());
-                }
-
-                @Override
-                public void close()
-                {
-                }
-            };
-        }
-
-        public long getSpillsCount()
-        {
-            return spillsCount;
-        }
-    }
-
     private static class FailingSpillerFactory
             implements SpillerFactory
     {
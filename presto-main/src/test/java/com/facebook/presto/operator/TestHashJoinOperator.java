@@ -1143,6 +1143,126 @@ public class TestHashJoinOperator
                 {false, false}};
     }
 
+    @Test
+    public void testSharedBuildFollowerDiscardsInput()
+    {
+        SharedBuildManager sharedBuildManager = new SharedBuildManager();
+        RowPagesBuilder buildPages = rowPagesBuilder(false, Ints.asList(0), ImmutableList.of(BIGINT))
+                .addSequencePage(10, 0)
+                .addSequencePage(10, 10);
+        List<Page> input = buildPages.build();
+
+        JoinBridgeDataManager<LookupSourceFactory> ownerLookupSourceFactory = createLookupSourceFactoryManager(buildPages, 1);
+        HashBuilderOperator owner = createSharedBuildOperator(createTaskContext(new TaskId("query_1", 0, 0)), sharedBuildManager, ownerLookupSourceFactory, buildPages);
+        JoinBridgeDataManager<LookupSourceFactory> followerLookupSourceFactory = createLookupSourceFactoryManager(buildPages, 1);
+        HashBuilderOperator follower = createSharedBuildOperator(createTaskContext(new TaskId("query_2", 0, 0)), sharedBuildManager, followerLookupSourceFactory, buildPages);
+
+        // the follower keeps its input until the owner publishes the lookup source
+        follower.addInput(input.get(0));
+        assertEquals(follower.getState(), HashBuilderOperator.State.CONSUMING_INPUT);
+        assertTrue(follower.getOperatorContext().getOperatorStats().getUserMemoryReservation().toBytes() > 0);
+
+        input.forEach(owner::addInput);
+        owner.finish();
+        assertEquals(owner.getState(), HashBuilderOperator.State.LOOKUP_SOURCE_BUILT);
+
+        // the follower uses the published lookup source and drains the rest of its input
+        follower.addInput(input.get(1));
+        assertEquals(follower.getState(), HashBuilderOperator.State.DISCARDING_INPUT);
+        assertTrue(follower.needsInput());
+        assertTrue(follower.isBlocked().isDone());
+        follower.addInput(input.get(1));
+        follower.finish();
+        assertEquals(follower.getState(), HashBuilderOperator.State.LOOKUP_SOURCE_BUILT);
+        assertEquals(getJoinPositionCount(followerLookupSourceFactory), 20);
+        assertEquals(sharedBuildManager.getFollowerCount(), 1);
+
+        owner.close();
+        follower.close();
+        assertEquals(sharedBuildManager.getBuildCount(), 0);
+    }
+
+    @Test
+    public void testSharedBuildFollowerBuildsUnpublishedPartition()
+    {
+        SharedBuildManager sharedBuildManager = new SharedBuildManager();
+        RowPagesBuilder buildPages = rowPagesBuilder(false, Ints.asList(0), ImmutableList.of(BIGINT))
+                .addSequencePage(10, 0)
+                .addSequencePage(10, 10);
+        List<Page> input = buildPages.build();
+
+        HashBuilderOperator owner = createSharedBuildOperator(createTaskContext(new TaskId("query_1", 0, 0)), sharedBuildManager, createLookupSourceFactoryManager(buildPages, 1), buildPages);
+        JoinBridgeDataManager<LookupSourceFactory> followerLookupSourceFactory = createLookupSourceFactoryManager(buildPages, 1);
+        HashBuilderOperator follower = createSharedBuildOperator(createTaskContext(new TaskId("query_2", 0, 0)), sharedBuildManager, followerLookupSourceFactory, buildPages);
+
+        // the owner has not published the lookup source when the follower finishes its input,
+        // so the follower builds from its own input instead of waiting
+        owner.addInput(input.get(0));
+        input.forEach(follower::addInput);
+        follower.finish();
+        assertEquals(follower.getState(), HashBuilderOperator.State.LOOKUP_SOURCE_BUILT);
+        assertTrue(follower.isBlocked().isDone());
+        assertEquals(getJoinPositionCount(followerLookupSourceFactory), 20);
+        assertEquals(sharedBuildManager.getFollowerCount(), 0);
+
+        owner.close();
+        follower.close();
+        assertEquals(sharedBuildManager.getBuildCount(), 0);
+    }
+
+    private static JoinBridgeDataManager<LookupSourceFactory> createLookupSourceFactoryManager(RowPagesBuilder buildPages, int partitionCount)
+    {
+        return JoinBridgeDataManager.lookupAllAtOnce(new PartitionedLookupSourceFactory(
+                buildPages.getTypes(),
+                buildPages.getTypes(),
+                ImmutableList.of(buildPages.getTypes().get(0)),
+                partitionCount,
+                ImmutableMap.of(),
+                false));
+    }
+
+    private static HashBuilderOperator createSharedBuildOperator(
+            TaskContext taskContext,
+            SharedBuildManager sharedBuildManager,
+            JoinBridgeDataManager<LookupSourceFactory> lookupSourceFactoryManager,
+            RowPagesBuilder buildPages)
+    {
+        HashBuilderOperatorFactory buildOperatorFactory = new HashBuilderOperatorFactory(
+                1,
+                new PlanNodeId("build"),
+                lookupSourceFactoryManager,
+                rangeList(buildPages.getTypes().size()),
+                Ints.asList(0),
+                OptionalInt.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                ImmutableList.of(),
+                100,
+                new PagesIndex.TestingFactory(false),
+                false,
+                SINGLE_STREAM_SPILLER_FACTORY,
+                Optional.empty(),
+                sharedBuildManager,
+                Optional.of("build"));
+        HashBuilderOperator operator = buildOperatorFactory.createOperator(taskContext.addPipelineContext(0, true, true).addDriverContext());
+        buildOperatorFactory.noMoreOperators();
+        return operator;
+    }
+
+    private static long getJoinPositionCount(JoinBridgeDataManager<LookupSourceFactory> lookupSourceFactoryManager)
+    {
+        ListenableFuture<LookupSourceProvider> lookupSourceProvider = lookupSourceFactoryManager.forLifespan(Lifespan.taskWide()).createLookupSourceProvider();
+        assertTrue(lookupSourceProvider.isDone());
+        try (LookupSourceProvider provider = getFutureValue(lookupSourceProvider)) {
+            return provider.withLease(lease -> lease.getLookupSource().getJoinPositionCount());
+        }
+    }
+
+    private TaskContext createTaskContext(TaskId taskId)
+    {
+        return TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION, new TaskStateMachine(taskId, executor));
+    }
+
     private TaskContext createTaskContext()
     {
         return TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION);
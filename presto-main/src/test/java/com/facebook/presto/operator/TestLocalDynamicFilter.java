@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.testing.TestingMetadata.TestingColumnHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalDynamicFilter
+{
+    private static final ColumnHandle PROBE_COLUMN = new TestingColumnHandle("probe");
+
+    @Test
+    public void testCollectDistinctValues()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, PROBE_COLUMN), ImmutableList.of(BIGINT), 10);
+        filter.setPartitionCount(2);
+
+        LocalDynamicFilter.Collector first = filter.createCollector(ImmutableList.of(1));
+        LocalDynamicFilter.Collector second = filter.createCollector(ImmutableList.of(1));
+        first.add(new Page(createLongsBlock(100L, 101L), createLongsBlock(1L, null)));
+        second.add(new Page(createLongsBlock(100L, 101L), createLongsBlock(3L, 1L)));
+
+        first.finish();
+        assertFalse(filter.getPredicateFuture().isDone());
+        assertEquals(filter.getCurrentPredicate(), TupleDomain.all());
+
+        second.finish();
+        assertTrue(filter.getPredicateFuture().isDone());
+        assertEquals(
+                filter.getCurrentPredicate(),
+                TupleDomain.withColumnDomains(ImmutableMap.of(PROBE_COLUMN, Domain.create(ValueSet.of(BIGINT, 1L, 3L), false))));
+    }
+
+    @Test
+    public void testFallbackToRange()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, PROBE_COLUMN), ImmutableList.of(BIGINT), 10);
+        filter.setPartitionCount(1);
+
+        LocalDynamicFilter.Collector collector = filter.createCollector(ImmutableList.of(0));
+        collector.add(new Page(createLongSequenceBlock(5, 100)));
+        collector.finish();
+
+        assertEquals(
+                filter.getCurrentPredicate(),
+                TupleDomain.withColumnDomains(ImmutableMap.of(PROBE_COLUMN, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 5L, true, 99L, true)), false))));
+    }
+
+    @Test
+    public void testEmptyBuild()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, PROBE_COLUMN), ImmutableList.of(VARCHAR), 10);
+        LocalDynamicFilter.Collector collector = filter.createCollector(ImmutableList.of(0));
+        collector.add(new Page(createStringsBlock((String) null)));
+        collector.finish();
+
+        // the partition count is set once the build side has been planned
+        assertFalse(filter.getPredicateFuture().isDone());
+        filter.setPartitionCount(1);
+        assertTrue(filter.getCurrentPredicate().isNone());
+    }
+
+    @Test
+    public void testUnmappedKeys()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(1, PROBE_COLUMN), ImmutableList.of(BIGINT, VARCHAR), 10);
+        filter.setPartitionCount(1);
+
+        LocalDynamicFilter.Collector collector = filter.createCollector(ImmutableList.of(0, 1));
+        collector.add(new Page(createLongsBlock(1L, 2L), createStringsBlock("a", "b")));
+        collector.finish();
+
+        assertEquals(
+                filter.getCurrentPredicate(),
+                TupleDomain.withColumnDomains(ImmutableMap.of(PROBE_COLUMN, Domain.multipleValues(VARCHAR, ImmutableList.of(utf8Slice("a"), utf8Slice("b"))))));
+    }
+
+    @Test
+    public void testKeysOnSameProbeColumn()
+    {
+        // e.g. ON a.x = b.y AND a.x = b.z
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, PROBE_COLUMN, 1, PROBE_COLUMN), ImmutableList.of(BIGINT, BIGINT), 10);
+        filter.setPartitionCount(1);
+
+        LocalDynamicFilter.Collector collector = filter.createCollector(ImmutableList.of(0, 1));
+        collector.add(new Page(createLongsBlock(1L, 2L, 3L), createLongsBlock(2L, 3L, 4L)));
+        collector.finish();
+
+        assertEquals(
+                filter.getCurrentPredicate(),
+                TupleDomain.withColumnDomains(ImmutableMap.of(PROBE_COLUMN, Domain.create(ValueSet.of(BIGINT, 2L, 3L), false))));
+    }
+
+    @Test
+    public void testSupportedTypes()
+    {
+        assertTrue(LocalDynamicFilter.isSupportedType(BIGINT));
+        assertTrue(LocalDynamicFilter.isSupportedType(VARCHAR));
+        assertFalse(LocalDynamicFilter.isSupportedType(DOUBLE));
+    }
+}
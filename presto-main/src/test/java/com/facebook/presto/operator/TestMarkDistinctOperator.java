@@ -14,21 +14,29 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.operator.MarkDistinctOperator.MarkDistinctOperatorFactory;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.GenericPartitioningSpillerFactory;
+import com.facebook.presto.spiller.SingleStreamSpiller;
+import com.facebook.presto.spiller.SingleStreamSpillerFactory;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -43,11 +51,13 @@ import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.testing.Assertions.assertGreaterThan;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestMarkDistinctOperator
@@ -106,6 +116,41 @@ public class TestMarkDistinctOperator
         OperatorAssertion.assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(1));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testMarkDistinctWithSpill(boolean hashEnabled)
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(100, 0)
+                .addSequencePage(100, 0)
+                .addSequencePage(100, 50)
+                .build();
+
+        // the first page is marked in memory, the rest is marked after its values are spilled
+        InMemorySpillerFactory spillerFactory = new InMemorySpillerFactory();
+        OperatorFactory operatorFactory = new MarkDistinctOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes(),
+                ImmutableList.of(0),
+                rowPagesBuilder.getHashChannel(),
+                joinCompiler,
+                true,
+                new GenericPartitioningSpillerFactory(spillerFactory));
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BOOLEAN);
+        for (long i = 0; i < 100; i++) {
+            expected.row(i, true);
+            expected.row(i, false);
+        }
+        for (long i = 50; i < 150; i++) {
+            expected.row(i, i >= 100);
+        }
+
+        OperatorAssertion.assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(1));
+        assertTrue(spillerFactory.getSpilledPages() > 0);
+    }
+
     @Test(dataProvider = "dataType")
     public void testMemoryReservationYield(Type type)
     {
@@ -128,4 +173,58 @@ public class TestMarkDistinctOperator
         }
         assertEquals(count, 6_000 * 600);
     }
+
+    private static class InMemorySpillerFactory
+            implements SingleStreamSpillerFactory
+    {
+        private long spilledPages;
+
+        @Override
+        public SingleStreamSpiller create(List<Type> types, SpillContext spillContext, LocalMemoryContext memoryContext)
+        {
+            return new SingleStreamSpiller()
+            {
+                private final List<Page> spills = new ArrayList<>();
+
+                @Override
+                public ListenableFuture<?> spill(Iterator<Page> pageIterator)
+                {
+                    int pages = spills.size();
+                    Iterators.addAll(spills, pageIterator);
+                    spilledPages += spills.size() - pages;
+                    return immediateFuture(null);
+                }
+
+                @Override
+                public Iterator<Page> getSpilledPages()
+                {
+                    return spills.iterator();
+                }
+
+                @Override
+                public long getSpilledPagesInMemorySize()
+                {
+                    return spills.stream()
+                            .mapToLong(Page::getSizeInBytes)
+                            .sum();
+                }
+
+                @Override
+                public ListenableFuture<List<Page>> getAllSpilledPages()
+                {
+                    return immediateFuture(ImmutableList.copyOf(spills));
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+        }
+
+        public long getSpilledPages()
+        {
+            return spilledPages;
+        }
+    }
 }
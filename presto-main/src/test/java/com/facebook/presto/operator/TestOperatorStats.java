@@ -56,6 +56,8 @@ public class TestOperatorStats
 
             new DataSize(23, BYTE),
 
+            24,
+
             new Duration(15, NANOSECONDS),
 
             16,
@@ -94,6 +96,8 @@ public class TestOperatorStats
 
             new DataSize(23, BYTE),
 
+            24,
+
             new Duration(15, NANOSECONDS),
 
             16,
@@ -141,6 +145,8 @@ public class TestOperatorStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), new DataSize(23, BYTE));
 
+        assertEquals(actual.getInterpretedInputPositions(), 24);
+
         assertEquals(actual.getBlockedWall(), new Duration(15, NANOSECONDS));
 
         assertEquals(actual.getFinishCalls(), 16);
@@ -181,6 +187,8 @@ public class TestOperatorStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), new DataSize(3 * 23, BYTE));
 
+        assertEquals(actual.getInterpretedInputPositions(), 3 * 24);
+
         assertEquals(actual.getBlockedWall(), new Duration(3 * 15, NANOSECONDS));
 
         assertEquals(actual.getFinishCalls(), 3 * 16);
@@ -219,6 +227,8 @@ public class TestOperatorStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), new DataSize(3 * 23, BYTE));
 
+        assertEquals(actual.getInterpretedInputPositions(), 3 * 24);
+
         assertEquals(actual.getBlockedWall(), new Duration(3 * 15, NANOSECONDS));
 
         assertEquals(actual.getFinishCalls(), 3 * 16);
@@ -23,6 +23,7 @@ import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.List;
@@ -32,6 +33,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.finishOperator;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.operator.OperatorAssertion.toPages;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
 import static com.facebook.presto.spi.block.SortOrder.DESC_NULLS_LAST;
@@ -43,6 +46,9 @@ import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
@@ -50,6 +56,13 @@ public class TestOrderByOperator
     private ExecutorService executor;
     private ScheduledExecutorService scheduledExecutor;
     private DriverContext driverContext;
+    private DummySpillerFactory spillerFactory;
+
+    @DataProvider
+    public static Object[][] spillEnabled()
+    {
+        return new Object[][] {{false}, {true}};
+    }
 
     @BeforeMethod
     public void setUp()
@@ -59,6 +72,7 @@ public class TestOrderByOperator
         driverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION)
                 .addPipelineContext(0, true, true)
                 .addDriverContext();
+        spillerFactory = new DummySpillerFactory();
     }
 
     @AfterMethod
@@ -68,8 +82,8 @@ public class TestOrderByOperator
         scheduledExecutor.shutdownNow();
     }
 
-    @Test
-    public void testSingleFieldKey()
+    @Test(dataProvider = "spillEnabled")
+    public void testSingleFieldKey(boolean spillEnabled)
     {
         List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
                 .row(1L, 0.1)
@@ -87,7 +101,9 @@ public class TestOrderByOperator
                 10,
                 ImmutableList.of(0),
                 ImmutableList.of(ASC_NULLS_LAST),
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                spillEnabled,
+                spillerFactory);
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE)
                 .row(-0.1)
@@ -97,10 +113,11 @@ public class TestOrderByOperator
                 .build();
 
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
+        assertEquals(spillerFactory.getSpillsCount() > 0, spillEnabled);
     }
 
-    @Test
-    public void testMultiFieldKey()
+    @Test(dataProvider = "spillEnabled")
+    public void testMultiFieldKey(boolean spillEnabled)
     {
         List<Page> input = rowPagesBuilder(VARCHAR, BIGINT)
                 .row("a", 1L)
@@ -118,7 +135,9 @@ public class TestOrderByOperator
                 10,
                 ImmutableList.of(0, 1),
                 ImmutableList.of(ASC_NULLS_LAST, DESC_NULLS_LAST),
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                spillEnabled,
+                spillerFactory);
 
         MaterializedResult expected = MaterializedResult.resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
                 .row("a", 4L)
@@ -128,10 +147,11 @@ public class TestOrderByOperator
                 .build();
 
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
+        assertEquals(spillerFactory.getSpillsCount() > 0, spillEnabled);
     }
 
-    @Test
-    public void testReverseOrder()
+    @Test(dataProvider = "spillEnabled")
+    public void testReverseOrder(boolean spillEnabled)
     {
         List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
                 .row(1L, 0.1)
@@ -149,7 +169,9 @@ public class TestOrderByOperator
                 10,
                 ImmutableList.of(0),
                 ImmutableList.of(DESC_NULLS_LAST),
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                spillEnabled,
+                spillerFactory);
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
                 .row(4L)
@@ -159,6 +181,61 @@ public class TestOrderByOperator
                 .build();
 
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
+        assertEquals(spillerFactory.getSpillsCount() > 0, spillEnabled);
+    }
+
+    @Test
+    public void testFinishWhileRevokingMemory()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
+                .row(1L, 0.1)
+                .row(2L, 0.2)
+                .pageBreak()
+                .row(-1L, -0.1)
+                .row(4L, 0.4)
+                .build();
+
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                ImmutableList.of(1),
+                10,
+                ImmutableList.of(0),
+                ImmutableList.of(ASC_NULLS_LAST),
+                new PagesIndex.TestingFactory(false),
+                true,
+                spillerFactory);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE)
+                .row(-0.1)
+                .row(0.1)
+                .row(0.2)
+                .row(0.4)
+                .build();
+
+        spillerFactory.blockSpills();
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            input.forEach(operator::addInput);
+            assertFalse(operator.startMemoryRevoke().isDone());
+            spillerFactory.completePendingSpills();
+
+            // the driver can finish the operator after the spill is done, but before the revoke is finished
+            operator.finish();
+            assertEquals(spillerFactory.getSpillsCount(), 1);
+            operator.finishMemoryRevoke();
+
+            // the operator is blocked on the spill of the last run
+            operator.finish();
+            assertEquals(spillerFactory.getSpillsCount(), 2);
+            assertFalse(operator.isBlocked().isDone());
+            assertNull(operator.getOutput());
+            spillerFactory.completePendingSpills();
+
+            List<Page> output = finishOperator(operator);
+            assertEquals(toMaterializedResult(driverContext.getSession(), expected.getTypes(), output), expected);
+        }
     }
 
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded local user memory limit of 10B")
@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPagesHash
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, INTEGER);
+    private static final List<Integer> JOIN_CHANNELS = ImmutableList.of(0, 1);
+
+    @Test
+    public void testSupportedTypes()
+    {
+        assertTrue(FixedWidthPagesHash.isSupported(ImmutableList.of(BIGINT), 1000));
+        assertTrue(FixedWidthPagesHash.isSupported(ImmutableList.of(BIGINT, INTEGER), 1000));
+        assertFalse(FixedWidthPagesHash.isSupported(ImmutableList.of(), 1000));
+        assertFalse(FixedWidthPagesHash.isSupported(ImmutableList.of(DOUBLE), 1000));
+        assertFalse(FixedWidthPagesHash.isSupported(ImmutableList.of(BIGINT, VARCHAR), 1000));
+        assertFalse(FixedWidthPagesHash.isSupported(ImmutableList.of(BIGINT, BIGINT, BIGINT, BIGINT, BIGINT), 1000));
+    }
+
+    @Test
+    public void testFixedWidthPagesHash()
+    {
+        RowPagesBuilder buildPages = rowPagesBuilder(TYPES);
+        for (int i = 0; i < 1000; i++) {
+            // every key is present three times, so matching rows are linked
+            buildPages.row((long) (i % 333), i % 7);
+        }
+        buildPages.row(null, 1);
+        buildPages.row(1L, null);
+        Page buildPage = getOnlyElement(buildPages.build());
+
+        RowPagesBuilder probePages = rowPagesBuilder(TYPES);
+        for (int i = 0; i < 2000; i++) {
+            probePages.row((long) (i % 500), i % 7);
+        }
+        Page probePage = getOnlyElement(probePages.build());
+
+        PagesHash defaultPagesHash = new DefaultPagesHash(addresses(buildPage), pagesHashStrategy(buildPage), ArrayPositionLinks.builder(buildPage.getPositionCount()));
+        PagesHash fixedWidthPagesHash = new FixedWidthPagesHash(
+                addresses(buildPage),
+                pagesHashStrategy(buildPage),
+                ArrayPositionLinks.builder(buildPage.getPositionCount()),
+                TYPES,
+                ImmutableList.of(ImmutableList.of(buildPage.getBlock(0)), ImmutableList.of(buildPage.getBlock(1))));
+        assertEquals(fixedWidthPagesHash.getPositionCount(), defaultPagesHash.getPositionCount());
+
+        int positionCount = probePage.getPositionCount();
+        int[] positions = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            positions[position] = position;
+        }
+        int[] expected = new int[positionCount];
+        int[] actual = new int[positionCount];
+        defaultPagesHash.getAddressIndexes(positions, positionCount, probePage, null, expected);
+        fixedWidthPagesHash.getAddressIndexes(positions, positionCount, probePage, null, actual);
+
+        int matches = 0;
+        for (int position = 0; position < positionCount; position++) {
+            assertEquals(actual[position], expected[position]);
+            assertEquals(defaultPagesHash.getAddressIndex(position, probePage), expected[position]);
+            assertEquals(fixedWidthPagesHash.getAddressIndex(position, probePage), expected[position]);
+            if (expected[position] >= 0) {
+                matches++;
+                assertEquals(BIGINT.getLong(buildPage.getBlock(0), expected[position]), BIGINT.getLong(probePage.getBlock(0), position));
+                assertEquals(INTEGER.getLong(buildPage.getBlock(1), expected[position]), INTEGER.getLong(probePage.getBlock(1), position));
+            }
+        }
+        assertTrue(matches > 0);
+    }
+
+    private static PagesHashStrategy pagesHashStrategy(Page page)
+    {
+        List<List<Block>> channels = ImmutableList.of(ImmutableList.of(page.getBlock(0)), ImmutableList.of(page.getBlock(1)));
+        return new SimplePagesHashStrategy(
+                TYPES,
+                ImmutableList.of(0, 1),
+                channels,
+                JOIN_CHANNELS,
+                OptionalInt.empty(),
+                Optional.empty(),
+                MetadataManager.createTestMetadataManager().getFunctionRegistry(),
+                new FeaturesConfig().isGroupByUsesEqualTo());
+    }
+
+    private static LongArrayList addresses(Page page)
+    {
+        LongArrayList addresses = new LongArrayList();
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            addresses.add(encodeSyntheticAddress(0, position));
+        }
+        return addresses;
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
@@ -20,11 +21,18 @@ import org.testng.annotations.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.SequencePageBuilder.createSequencePage;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.lang.String.format;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
@@ -82,6 +90,40 @@ public class TestPagesIndex
         assertEquals(lazyCompactPagesIndex.getEstimatedSize(), eagerCompactPagesIndex.getEstimatedSize());
     }
 
+    @Test
+    public void testParallelSort()
+    {
+        Random random = new Random(42);
+        PagesIndex pagesIndex = newPagesIndex(ImmutableList.of(BIGINT), 100_000, false);
+        long[] values = new long[100_000];
+        for (int page = 0; page < 4; page++) {
+            Long[] pageValues = new Long[values.length / 4];
+            for (int position = 0; position < pageValues.length; position++) {
+                // a narrow range of values, so that the runs have many equal keys
+                pageValues[position] = (long) random.nextInt(1000);
+                values[page * pageValues.length + position] = pageValues[position];
+            }
+            pagesIndex.addPage(new Page(createLongsBlock(pageValues)));
+        }
+
+        LocalMemoryContext mergeMemoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext();
+        ExecutorService executor = newFixedThreadPool(3, daemonThreadsNamed("test-parallel-sort-%s"));
+        try {
+            pagesIndex.parallelSort(ImmutableList.of(0), ImmutableList.of(ASC_NULLS_FIRST), 4, executor, mergeMemoryContext);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        // the merge buffer is released once the sort is done
+        assertEquals(mergeMemoryContext.getBytes(), 0);
+
+        Arrays.sort(values);
+        assertEquals(pagesIndex.getPositionCount(), values.length);
+        for (int position = 0; position < values.length; position++) {
+            assertEquals(pagesIndex.getLong(0, position), values[position]);
+        }
+    }
+
     private static PagesIndex newPagesIndex(List<Type> types, int expectedPositions, boolean eagerCompact)
     {
         return new PagesIndex.TestingFactory(eagerCompact).newPagesIndex(types, expectedPositions);
@@ -0,0 +1,332 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.OutputBuffers;
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.execution.StateMachine;
+import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.execution.buffer.PagesSerde;
+import com.facebook.presto.execution.buffer.PagesSerdeFactory;
+import com.facebook.presto.execution.buffer.PartitionedOutputBuffer;
+import com.facebook.presto.execution.buffer.SerializedPage;
+import com.facebook.presto.memory.context.SimpleLocalMemoryContext;
+import com.facebook.presto.operator.PartitionedOutputOperator.PartitionedOutputFactory;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.predicate.NullableValue;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.testing.TestingTaskContext;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static com.facebook.presto.OutputBuffers.BufferType.PARTITIONED;
+import static com.facebook.presto.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.execution.buffer.BufferState.OPEN;
+import static com.facebook.presto.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPartitionedOutputOperator
+{
+    private static final int PARTITION_COUNT = 4;
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+
+    private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+    private final ScheduledExecutorService scheduler = newScheduledThreadPool(1, daemonThreadsNamed("test-scheduler-%s"));
+    private final PagesSerde serde = new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false).createPagesSerde();
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testPartitioning()
+    {
+        PartitionFunction partitionFunction = createPartitionFunction();
+        PartitionedOutputBuffer buffer = createPartitionedBuffer();
+        PartitionedOutputOperator operator = createOperator(partitionFunction, buffer, OptionalInt.empty(), ImmutableList.of());
+
+        // a large page, with a dictionary encoded column
+        Block dictionary = createStringSequenceBlock(0, 10);
+        int[] ids = new int[5000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i % 10;
+        }
+        Page largePage = new Page(createLongSequenceBlock(0, ids.length), new DictionaryBlock(dictionary, ids));
+        // a small page, whose rows are accumulated per partition
+        Page smallPage = new Page(createLongSequenceBlock(10_000, 10_010), createStringSequenceBlock(0, 10));
+
+        operator.addInput(largePage);
+        operator.addInput(smallPage);
+        operator.finish();
+
+        ImmutableMultiset.Builder<List<Object>> expected = ImmutableMultiset.builder();
+        expected.addAll(getRows(largePage));
+        expected.addAll(getRows(smallPage));
+
+        ImmutableMultiset.Builder<List<Object>> actual = ImmutableMultiset.builder();
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            for (Page page : getPartitionPages(buffer, partition)) {
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    assertEquals(partitionFunction.getPartition(page, position), partition);
+                }
+                actual.addAll(getRows(page));
+            }
+        }
+        assertEquals(actual.build(), expected.build());
+    }
+
+    @Test
+    public void testPageOfOnePartitionKeepsEncodedBlocks()
+    {
+        PartitionFunction partitionFunction = createPartitionFunction();
+        PartitionedOutputBuffer buffer = createPartitionedBuffer();
+        PartitionedOutputOperator operator = createOperator(partitionFunction, buffer, OptionalInt.empty(), ImmutableList.of());
+
+        // all rows have the same key, so the page is sent as it is to a single partition
+        int[] ids = new int[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i % 10;
+        }
+        Page page = new Page(
+                new RunLengthEncodedBlock(createLongsBlock(42L), ids.length),
+                new DictionaryBlock(createStringSequenceBlock(0, 10), ids));
+        operator.addInput(page);
+        operator.finish();
+
+        List<Page> partitionPages = getPartitionPages(buffer, partitionFunction.getPartition(page, 0));
+        assertEquals(partitionPages.size(), 1);
+        Page partitionPage = partitionPages.get(0);
+        assertTrue(partitionPage.getBlock(0) instanceof RunLengthEncodedBlock);
+        assertTrue(partitionPage.getBlock(1) instanceof DictionaryBlock);
+        assertEquals(getRows(partitionPage), getRows(page));
+    }
+
+    @Test
+    public void testReplicateNulls()
+    {
+        PartitionedOutputBuffer buffer = createPartitionedBuffer();
+        PartitionedOutputOperator operator = createOperator(createPartitionFunction(), buffer, OptionalInt.of(0), ImmutableList.of());
+
+        operator.addInput(new Page(createLongsBlock(1L, null, 2L), createStringSequenceBlock(0, 3)));
+        operator.finish();
+
+        int totalRows = 0;
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            boolean foundNull = false;
+            for (Page page : getPartitionPages(buffer, partition)) {
+                totalRows += page.getPositionCount();
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    foundNull |= page.getBlock(0).isNull(position);
+                }
+            }
+            assertTrue(foundNull, "null row not replicated to partition " + partition);
+        }
+        assertEquals(totalRows, PARTITION_COUNT + 2);
+    }
+
+    @Test
+    public void testSpreadNulls()
+    {
+        PartitionedOutputBuffer buffer = createPartitionedBuffer();
+        PartitionedOutputOperator operator = createOperator(createPartitionFunction(), buffer, OptionalInt.empty(), ImmutableList.of(0));
+
+        Long[] values = new Long[200];
+        for (int i = 0; i < values.length; i += 2) {
+            values[i] = 42L;
+        }
+        operator.addInput(new Page(createLongsBlock(values), createStringSequenceBlock(0, values.length)));
+        operator.finish();
+
+        int totalRows = 0;
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            int nullRows = 0;
+            for (Page page : getPartitionPages(buffer, partition)) {
+                totalRows += page.getPositionCount();
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    if (page.getBlock(0).isNull(position)) {
+                        nullRows++;
+                    }
+                }
+            }
+            assertEquals(nullRows, values.length / 2 / PARTITION_COUNT, "nulls not spread evenly to partition " + partition);
+        }
+        assertEquals(totalRows, values.length);
+    }
+
+    @Test
+    public void testSpreadSkewedKeys()
+    {
+        PartitionedOutputBuffer buffer = createPartitionedBuffer();
+        PartitionedOutputOperator operator = createOperator(createPartitionFunction(), buffer, OptionalInt.empty(), ImmutableList.of(), ImmutableMap.of(0, ImmutableList.of(NullableValue.of(BIGINT, -1L))), false);
+
+        Long[] values = new Long[200];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0 ? -1L : i;
+        }
+        operator.addInput(new Page(createLongsBlock(values), createStringSequenceBlock(0, values.length)));
+        operator.finish();
+
+        int totalRows = 0;
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            int skewedRows = 0;
+            for (Page page : getPartitionPages(buffer, partition)) {
+                totalRows += page.getPositionCount();
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    if (BIGINT.getLong(page.getBlock(0), position) == -1L) {
+                        skewedRows++;
+                    }
+                }
+            }
+            assertEquals(skewedRows, values.length / 2 / PARTITION_COUNT, "skewed keys not spread evenly to partition " + partition);
+        }
+        assertEquals(totalRows, values.length);
+    }
+
+    @Test
+    public void testReplicateSkewedKeys()
+    {
+        PartitionedOutputBuffer buffer = createPartitionedBuffer();
+        PartitionedOutputOperator operator = createOperator(createPartitionFunction(), buffer, OptionalInt.empty(), ImmutableList.of(), ImmutableMap.of(0, ImmutableList.of(NullableValue.of(BIGINT, -1L))), true);
+
+        operator.addInput(new Page(createLongsBlock(1L, -1L, null, 2L), createStringSequenceBlock(0, 4)));
+        operator.finish();
+
+        int totalRows = 0;
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            boolean foundSkewedKey = false;
+            for (Page page : getPartitionPages(buffer, partition)) {
+                totalRows += page.getPositionCount();
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    foundSkewedKey |= !page.getBlock(0).isNull(position) && BIGINT.getLong(page.getBlock(0), position) == -1L;
+                }
+            }
+            assertTrue(foundSkewedKey, "skewed key not replicated to partition " + partition);
+        }
+        assertEquals(totalRows, PARTITION_COUNT + 3);
+    }
+
+    private static PartitionFunction createPartitionFunction()
+    {
+        return new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0}), PARTITION_COUNT);
+    }
+
+    private PartitionedOutputOperator createOperator(PartitionFunction partitionFunction, PartitionedOutputBuffer buffer, OptionalInt nullChannel, List<Integer> spreadNullChannels)
+    {
+        return createOperator(partitionFunction, buffer, nullChannel, spreadNullChannels, ImmutableMap.of(), false);
+    }
+
+    private PartitionedOutputOperator createOperator(
+            PartitionFunction partitionFunction,
+            PartitionedOutputBuffer buffer,
+            OptionalInt nullChannel,
+            List<Integer> spreadNullChannels,
+            Map<Integer, List<NullableValue>> skewedKeyValues,
+            boolean replicateSkewedKeys)
+    {
+        PartitionedOutputFactory operatorFactory = new PartitionedOutputFactory(
+                partitionFunction,
+                ImmutableList.of(0),
+                ImmutableList.of(Optional.empty()),
+                false,
+                nullChannel,
+                spreadNullChannels,
+                skewedKeyValues,
+                replicateSkewedKeys,
+                buffer,
+                new DataSize(1, GIGABYTE));
+        DriverContext driverContext = TestingTaskContext.builder(executor, scheduler, TEST_SESSION)
+                .build()
+                .addPipelineContext(0, true, true)
+                .addDriverContext();
+        return (PartitionedOutputOperator) operatorFactory
+                .createOutputOperator(0, new PlanNodeId("plan-node-0"), TYPES, Function.identity(), new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false))
+                .createOperator(driverContext);
+    }
+
+    private PartitionedOutputBuffer createPartitionedBuffer()
+    {
+        OutputBuffers buffers = createInitialEmptyOutputBuffers(PARTITIONED);
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            buffers = buffers.withBuffer(new OutputBuffers.OutputBufferId(partition), partition);
+        }
+        return new PartitionedOutputBuffer(
+                "task-instance-id",
+                new StateMachine<>("bufferState", scheduler, OPEN, TERMINAL_BUFFER_STATES),
+                buffers.withNoMoreBufferIds(),
+                new DataSize(Long.MAX_VALUE, BYTE),
+                () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext()),
+                scheduler);
+    }
+
+    private List<Page> getPartitionPages(PartitionedOutputBuffer buffer, int partition)
+    {
+        BufferResult result = getFutureValue(buffer.get(new OutputBuffers.OutputBufferId(partition), 0, new DataSize(1, GIGABYTE)));
+        assertFalse(result.isEmpty());
+        List<Page> pages = new ArrayList<>();
+        for (SerializedPage serializedPage : result.getSerializedPages()) {
+            pages.add(serde.deserialize(serializedPage));
+        }
+        return pages;
+    }
+
+    private static Multiset<List<Object>> getRows(Page page)
+    {
+        ImmutableMultiset.Builder<List<Object>> rows = ImmutableMultiset.builder();
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            List<Object> row = new ArrayList<>();
+            row.add(BIGINT.getObjectValue(null, page.getBlock(0), position));
+            row.add(VARCHAR.getObjectValue(null, page.getBlock(1), position));
+            rows.add(row);
+        }
+        return rows.build();
+    }
+}
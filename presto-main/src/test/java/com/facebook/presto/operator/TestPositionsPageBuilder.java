@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.ArrayType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.facebook.presto.block.BlockAssertions.createArrayBigintBlock;
+import static com.facebook.presto.block.BlockAssertions.createBooleansBlock;
+import static com.facebook.presto.block.BlockAssertions.createDoublesBlock;
+import static com.facebook.presto.block.BlockAssertions.createIntsBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.block.BlockAssertions.createTypedLongsBlock;
+import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPositionsPageBuilder
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, INTEGER, SMALLINT, TINYINT, BOOLEAN, DOUBLE, VARCHAR, new ArrayType(BIGINT));
+
+    @Test
+    public void testAppendPositions()
+    {
+        Page page = new Page(
+                createLongsBlock(1L, null, 3L, 4L, 5L, 6L),
+                createIntsBlock(1, 2, null, 4, 5, 6),
+                createTypedLongsBlock(SMALLINT, Arrays.asList(1L, null, 3L, 4L, 5L, 6L)),
+                createTypedLongsBlock(TINYINT, Arrays.asList(1L, 2L, 3L, null, 5L, 6L)),
+                createBooleansBlock(true, null, false, true, false, true),
+                createDoublesBlock(1.0, 2.0, 3.0, 4.0, null, 6.0),
+                createStringsBlock("a", null, "c", "d", "e", "f"),
+                createArrayBigintBlock(Arrays.asList(ImmutableList.of(1L), null, ImmutableList.of(), ImmutableList.of(4L, 4L), ImmutableList.of(5L), ImmutableList.of(6L))));
+        Page dictionaryPage = mapBlocks(page, block -> new DictionaryBlock(block, new int[] {5, 4, 3, 2, 1, 0}));
+        Page nullRunLengthPage = mapBlocks(page, block -> new RunLengthEncodedBlock(block.getSingleValueBlock(1), 6));
+        Page runLengthPage = mapBlocks(page, block -> new RunLengthEncodedBlock(block.getSingleValueBlock(0), 6));
+
+        PositionsPageBuilder pageBuilder = new PositionsPageBuilder(TYPES, Long.MAX_VALUE);
+        PageBuilder expectedPageBuilder = new PageBuilder(TYPES);
+        assertTrue(pageBuilder.isEmpty());
+        appendPositions(pageBuilder, expectedPageBuilder, page, 5, 1, 3);
+        appendPositions(pageBuilder, expectedPageBuilder, dictionaryPage, 0, 2, 4, 5);
+        appendPositions(pageBuilder, expectedPageBuilder, nullRunLengthPage, 0, 1);
+        appendPositions(pageBuilder, expectedPageBuilder, runLengthPage, 3);
+        assertFalse(pageBuilder.isEmpty());
+        assertPageEquals(TYPES, pageBuilder.build(), expectedPageBuilder.build());
+
+        // the builder starts over after a page is built
+        assertTrue(pageBuilder.isEmpty());
+        expectedPageBuilder.reset();
+        appendPositions(pageBuilder, expectedPageBuilder, page, 0, 1, 2, 3, 4, 5);
+        assertPageEquals(TYPES, pageBuilder.build(), expectedPageBuilder.build());
+    }
+
+    @Test
+    public void testIsFull()
+    {
+        // a bigint position takes a long and a null flag
+        PositionsPageBuilder pageBuilder = new PositionsPageBuilder(ImmutableList.of(BIGINT), 10 * (Long.BYTES + Byte.BYTES));
+        Page page = new Page(createLongSequenceBlock(0, 10));
+
+        pageBuilder.appendPositions(page, new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8}, 9);
+        assertFalse(pageBuilder.isFull());
+        pageBuilder.appendPositions(page, new int[] {9}, 1);
+        assertTrue(pageBuilder.isFull());
+
+        pageBuilder.build();
+        assertFalse(pageBuilder.isFull());
+    }
+
+    private static void appendPositions(PositionsPageBuilder pageBuilder, PageBuilder expectedPageBuilder, Page page, int... positions)
+    {
+        pageBuilder.appendPositions(page, positions, positions.length);
+        for (int position : positions) {
+            expectedPageBuilder.declarePosition();
+            for (int channel = 0; channel < TYPES.size(); channel++) {
+                TYPES.get(channel).appendTo(page.getBlock(channel), position, expectedPageBuilder.getBlockBuilder(channel));
+            }
+        }
+    }
+
+    private static Page mapBlocks(Page page, Function<Block, Block> function)
+    {
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = function.apply(page.getBlock(channel));
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.SharedBuildManager.SharedBuild;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestSharedBuildManager
+{
+    private static final String KEY = "build";
+    private static final TaskId TASK_1 = new TaskId("query_1", 0, 0);
+    private static final TaskId TASK_2 = new TaskId("query_2", 0, 0);
+    private static final TaskId TASK_3 = new TaskId("query_3", 0, 0);
+
+    @Test
+    public void testShareLookupSource()
+            throws Exception
+    {
+        SharedBuildManager manager = new SharedBuildManager();
+        SharedBuild owner = manager.acquire(KEY, 1, TASK_1);
+        SharedBuild follower = manager.acquire(KEY, 1, TASK_2);
+        assertSame(follower, owner);
+        assertTrue(owner.isOwner(TASK_1));
+        assertFalse(follower.isOwner(TASK_2));
+        assertEquals(manager.getBuildCount(), 1);
+
+        ListenableFuture<LookupSourceSupplier> lookupSource = follower.getLookupSource(0);
+        assertFalse(lookupSource.isDone());
+
+        LookupSourceSupplier supplier = new TestingLookupSourceSupplier();
+        LocalMemoryContext ownerMemory = newSimpleAggregatedMemoryContext().newLocalMemoryContext();
+        ownerMemory.setBytes(100);
+        owner.publish(0, supplier, 100, ownerMemory);
+        assertSame(lookupSource.get(), supplier);
+
+        // the memory of the lookup source is divided between the holders
+        LocalMemoryContext followerMemory = newSimpleAggregatedMemoryContext().newLocalMemoryContext();
+        follower.hold(0, followerMemory);
+        assertEquals(ownerMemory.getBytes(), 50);
+        assertEquals(followerMemory.getBytes(), 50);
+        assertEquals(manager.getFollowerCount(), 1);
+
+        owner.release(0, ownerMemory);
+        assertEquals(followerMemory.getBytes(), 100);
+        assertEquals(manager.getBuildCount(), 1);
+
+        follower.release(0, followerMemory);
+        assertEquals(manager.getBuildCount(), 0);
+    }
+
+    @Test
+    public void testAbortedBuild()
+            throws Exception
+    {
+        SharedBuildManager manager = new SharedBuildManager();
+        SharedBuild owner = manager.acquire(KEY, 2, TASK_1);
+        SharedBuild follower = manager.acquire(KEY, 2, TASK_2);
+
+        owner.abort(1);
+        assertFalse(follower.getLookupSource(0).isDone());
+        assertTrue(follower.getLookupSource(1).isDone());
+        try {
+            follower.getLookupSource(1).get();
+            fail("expected the lookup source to fail");
+        }
+        catch (ExecutionException expected) {
+        }
+
+        // tasks arriving later build on their own
+        assertEquals(manager.getBuildCount(), 0);
+        SharedBuild other = manager.acquire(KEY, 2, TASK_3);
+        assertNotSame(other, owner);
+        assertTrue(other.isOwner(TASK_3));
+    }
+
+    @Test
+    public void testReleasedBuild()
+    {
+        SharedBuildManager manager = new SharedBuildManager();
+        SharedBuild build = manager.acquire(KEY, 1, TASK_1);
+        build.retain();
+        build.release(0, newSimpleAggregatedMemoryContext().newLocalMemoryContext());
+        assertEquals(manager.getBuildCount(), 1);
+        build.release(0, newSimpleAggregatedMemoryContext().newLocalMemoryContext());
+        assertEquals(manager.getBuildCount(), 0);
+
+        assertTrue(manager.acquire(KEY, 1, TASK_2).isOwner(TASK_2));
+    }
+
+    private static class TestingLookupSourceSupplier
+            implements LookupSourceSupplier
+    {
+        @Override
+        public LookupSource get()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getHashCollisions()
+        {
+            return 0;
+        }
+
+        @Override
+        public double getExpectedHashCollisions()
+        {
+            return 0;
+        }
+
+        @Override
+        public long checksum()
+        {
+            return 0;
+        }
+    }
+}
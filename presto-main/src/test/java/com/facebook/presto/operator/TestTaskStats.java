@@ -71,6 +71,8 @@ public class TestTaskStats
             26,
             new Duration(27, NANOSECONDS),
 
+            new Duration(28, NANOSECONDS),
+
             ImmutableList.of(TestPipelineStats.EXPECTED));
 
     @Test
@@ -123,6 +125,8 @@ public class TestTaskStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), new DataSize(25, BYTE));
 
+        assertEquals(actual.getCompileTime(), new Duration(28, NANOSECONDS));
+
         assertEquals(actual.getPipelines().size(), 1);
         assertExpectedPipelineStats(actual.getPipelines().get(0));
     }
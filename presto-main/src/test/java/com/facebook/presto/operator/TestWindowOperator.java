@@ -34,6 +34,7 @@ import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.List;
@@ -45,6 +46,8 @@ import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
+import static com.facebook.presto.operator.OperatorAssertion.finishOperator;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.operator.OperatorAssertion.toPages;
 import static com.facebook.presto.operator.WindowFunctionDefinition.window;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -60,6 +63,8 @@ import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 
 @Test(singleThreaded = true)
 public class TestWindowOperator
@@ -87,6 +92,13 @@ public class TestWindowOperator
     private ExecutorService executor;
     private ScheduledExecutorService scheduledExecutor;
     private DriverContext driverContext;
+    private DummySpillerFactory spillerFactory;
+
+    @DataProvider
+    public static Object[][] spillEnabled()
+    {
+        return new Object[][] {{false}, {true}};
+    }
 
     @BeforeMethod
     public void setUp()
@@ -96,6 +108,7 @@ public class TestWindowOperator
         driverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION)
                 .addPipelineContext(0, true, true)
                 .addDriverContext();
+        spillerFactory = new DummySpillerFactory();
     }
 
     @AfterMethod
@@ -105,8 +118,8 @@ public class TestWindowOperator
         scheduledExecutor.shutdownNow();
     }
 
-    @Test
-    public void testRowNumber()
+    @Test(dataProvider = "spillEnabled")
+    public void testRowNumber(boolean spillEnabled)
     {
         List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
                 .row(2L, 0.3)
@@ -123,7 +136,8 @@ public class TestWindowOperator
                 ROW_NUMBER,
                 Ints.asList(),
                 Ints.asList(0),
-                ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}));
+                ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                spillEnabled);
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, BIGINT, BIGINT)
                 .row(-0.1, -1L, 1L)
@@ -134,10 +148,64 @@ public class TestWindowOperator
                 .build();
 
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
+        assertEquals(spillerFactory.getSpillsCount() > 0, spillEnabled);
     }
 
     @Test
-    public void testRowNumberPartition()
+    public void testFinishWhileRevokingMemory()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
+                .row(2L, 0.3)
+                .row(4L, 0.2)
+                .row(6L, 0.1)
+                .pageBreak()
+                .row(-1L, -0.1)
+                .row(5L, 0.4)
+                .build();
+
+        WindowOperatorFactory operatorFactory = createFactoryUnbounded(
+                ImmutableList.of(BIGINT, DOUBLE),
+                Ints.asList(1, 0),
+                ROW_NUMBER,
+                Ints.asList(),
+                Ints.asList(0),
+                ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                true);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE, BIGINT, BIGINT)
+                .row(-0.1, -1L, 1L)
+                .row(0.3, 2L, 2L)
+                .row(0.2, 4L, 3L)
+                .row(0.4, 5L, 4L)
+                .row(0.1, 6L, 5L)
+                .build();
+
+        spillerFactory.blockSpills();
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            input.forEach(operator::addInput);
+            assertFalse(operator.startMemoryRevoke().isDone());
+            spillerFactory.completePendingSpills();
+
+            // the driver can finish the operator after the spill is done, but before the revoke is finished
+            operator.finish();
+            assertEquals(spillerFactory.getSpillsCount(), 1);
+            operator.finishMemoryRevoke();
+
+            // the operator is blocked on the spill of the last run
+            operator.finish();
+            assertEquals(spillerFactory.getSpillsCount(), 2);
+            assertFalse(operator.isBlocked().isDone());
+            assertNull(operator.getOutput());
+            spillerFactory.completePendingSpills();
+
+            List<Page> output = finishOperator(operator);
+            assertEquals(toMaterializedResult(driverContext.getSession(), expected.getTypes(), output), expected);
+        }
+    }
+
+    @Test(dataProvider = "spillEnabled")
+    public void testRowNumberPartition(boolean spillEnabled)
     {
         List<Page> input = rowPagesBuilder(VARCHAR, BIGINT, DOUBLE, BOOLEAN)
                 .row("b", -1L, -0.1, true)
@@ -154,7 +222,8 @@ public class TestWindowOperator
                 ROW_NUMBER,
                 Ints.asList(0),
                 Ints.asList(1),
-                ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}));
+                ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                spillEnabled);
 
         MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, DOUBLE, BOOLEAN, BIGINT)
                 .row("a", 2L, 0.3, false, 1L)
@@ -165,6 +234,7 @@ public class TestWindowOperator
                 .build();
 
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
+        assertEquals(spillerFactory.getSpillsCount() > 0, spillEnabled);
     }
 
     @Test
@@ -614,13 +684,32 @@ public class TestWindowOperator
         assertEquals(WindowOperator.findEndPosition(0, array.length, (first, second) -> array[first] == array[second]), expected);
     }
 
-    private static WindowOperatorFactory createFactoryUnbounded(
+    private WindowOperatorFactory createFactoryUnbounded(
             List<? extends Type> sourceTypes,
             List<Integer> outputChannels,
             List<WindowFunctionDefinition> functions,
             List<Integer> partitionChannels,
             List<Integer> sortChannels,
             List<SortOrder> sortOrder)
+    {
+        return createFactoryUnbounded(
+                sourceTypes,
+                outputChannels,
+                functions,
+                partitionChannels,
+                sortChannels,
+                sortOrder,
+                false);
+    }
+
+    private WindowOperatorFactory createFactoryUnbounded(
+            List<? extends Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> functions,
+            List<Integer> partitionChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            boolean spillEnabled)
     {
         return createFactoryUnbounded(
                 sourceTypes,
@@ -630,10 +719,11 @@ public class TestWindowOperator
                 ImmutableList.of(),
                 sortChannels,
                 sortOrder,
-                0);
+                0,
+                spillEnabled);
     }
 
-    private static WindowOperatorFactory createFactoryUnbounded(
+    private WindowOperatorFactory createFactoryUnbounded(
             List<? extends Type> sourceTypes,
             List<Integer> outputChannels,
             List<WindowFunctionDefinition> functions,
@@ -642,6 +732,29 @@ public class TestWindowOperator
             List<Integer> sortChannels,
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix)
+    {
+        return createFactoryUnbounded(
+                sourceTypes,
+                outputChannels,
+                functions,
+                partitionChannels,
+                preGroupedChannels,
+                sortChannels,
+                sortOrder,
+                preSortedChannelPrefix,
+                false);
+    }
+
+    private WindowOperatorFactory createFactoryUnbounded(
+            List<? extends Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> functions,
+            List<Integer> partitionChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int preSortedChannelPrefix,
+            boolean spillEnabled)
     {
         return new WindowOperatorFactory(
                 0,
@@ -655,6 +768,8 @@ public class TestWindowOperator
                 sortOrder,
                 preSortedChannelPrefix,
                 10,
-                new PagesIndex.TestingFactory(false));
+                new PagesIndex.TestingFactory(false),
+                spillEnabled,
+                spillerFactory);
     }
 }
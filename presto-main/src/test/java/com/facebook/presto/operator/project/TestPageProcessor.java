@@ -20,9 +20,11 @@ import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.block.LazyBlockLoader;
 import com.facebook.presto.spi.block.VariableWidthBlock;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.openjdk.jol.info.ClassLayout;
@@ -33,14 +35,17 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
 
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
 import static com.facebook.presto.block.BlockAssertions.createSlicesBlock;
 import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.operator.project.PageProcessor.MAX_BATCH_SIZE;
 import static com.facebook.presto.operator.project.PageProcessor.MAX_PAGE_SIZE_IN_BYTES;
 import static com.facebook.presto.operator.project.PageProcessor.MIN_PAGE_SIZE_IN_BYTES;
+import static com.facebook.presto.operator.project.SelectedPositions.positionsList;
 import static com.facebook.presto.operator.project.SelectedPositions.positionsRange;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
@@ -188,6 +193,85 @@ public class TestPageProcessor
         assertPageEquals(ImmutableList.of(BIGINT), outputPages.get(0).orElse(null), new Page(createLongSequenceBlock(0, 100)));
     }
 
+    @Test
+    public void testSelectiveLazyLoad()
+    {
+        int[] selected = {3, 10, 42, 99};
+        PageProcessor pageProcessor = new PageProcessor(Optional.of(new TestingPageFilter(positionsList(selected, 0, selected.length))), ImmutableList.of(new InputPageProjection(1, BIGINT)));
+
+        Block values = createLongSequenceBlock(100, 200);
+        int[] loadedPositions = new int[1];
+        Page inputPage = new Page(createLongSequenceBlock(0, 100), new LazyBlock(100, new LazyBlockLoader<LazyBlock>()
+        {
+            @Override
+            public void load(LazyBlock block)
+            {
+                throw new AssertionError("Lazy block should not be fully loaded");
+            }
+
+            @Override
+            public boolean isSelectiveLoadSupported()
+            {
+                return true;
+            }
+
+            @Override
+            public Block loadPositions(LazyBlock block, int[] positions, int offset, int length)
+            {
+                loadedPositions[0] += length;
+                return values.copyPositions(positions, offset, length);
+            }
+        }));
+
+        PageProcessorOutput output = pageProcessor.process(SESSION, new DriverYieldSignal(), inputPage);
+        List<Optional<Page>> outputPages = ImmutableList.copyOf(output);
+        assertEquals(outputPages.size(), 1);
+        assertPageEquals(ImmutableList.of(BIGINT), outputPages.get(0).orElse(null), new Page(createLongsBlock(103, 110, 142, 199)));
+        assertEquals(loadedPositions[0], selected.length);
+    }
+
+    @Test
+    public void testSelectiveLazyLoadOfDuplicatedChannel()
+    {
+        int[] selected = {3, 10, 42, 99};
+        PageProcessor pageProcessor = new PageProcessor(
+                Optional.of(new TestingPageFilter(positionsList(selected, 0, selected.length))),
+                ImmutableList.of(new InputPageProjection(1, BIGINT), new InputPageProjection(2, BIGINT)));
+
+        Block values = createLongSequenceBlock(100, 200);
+        int[] selectiveLoads = new int[1];
+        LazyBlock lazyBlock = new LazyBlock(100, new LazyBlockLoader<LazyBlock>()
+        {
+            @Override
+            public void load(LazyBlock block)
+            {
+                throw new AssertionError("Lazy block should not be fully loaded");
+            }
+
+            @Override
+            public boolean isSelectiveLoadSupported()
+            {
+                return true;
+            }
+
+            @Override
+            public Block loadPositions(LazyBlock block, int[] positions, int offset, int length)
+            {
+                selectiveLoads[0]++;
+                return values.copyPositions(positions, offset, length);
+            }
+        });
+        // the same column is projected twice, so the page has the same lazy block in two channels
+        Page inputPage = new Page(createLongSequenceBlock(0, 100), lazyBlock, lazyBlock);
+
+        PageProcessorOutput output = pageProcessor.process(SESSION, new DriverYieldSignal(), inputPage);
+        List<Optional<Page>> outputPages = ImmutableList.copyOf(output);
+        assertEquals(outputPages.size(), 1);
+        Block expected = createLongsBlock(103, 110, 142, 199);
+        assertPageEquals(ImmutableList.of(BIGINT, BIGINT), outputPages.get(0).orElse(null), new Page(expected, expected));
+        assertEquals(selectiveLoads[0], 1);
+    }
+
     @Test
     public void testBatchedOutput()
     {
@@ -355,6 +439,61 @@ public class TestPageProcessor
         assertFalse(output.hasNext());
     }
 
+    @Test
+    public void testTieredProjection()
+    {
+        // the interpreted and compiled projections read different channels so that the switch is visible
+        SettableFuture<Supplier<PageProjection>> compiled = SettableFuture.create();
+        PageProcessor pageProcessor = new PageProcessor(Optional.empty(), ImmutableList.of(new TieredPageProjection(new InputPageProjection(1, BIGINT), new InputChannels(0), compiled)));
+
+        Page inputPage = new Page(createLongSequenceBlock(0, 100), createLongSequenceBlock(100, 200));
+
+        assertTrue(pageProcessor.isInterpreted());
+        assertPageEquals(ImmutableList.of(BIGINT), processSinglePage(pageProcessor, inputPage), new Page(createLongSequenceBlock(100, 200)));
+
+        compiled.set(() -> new InputPageProjection(0, BIGINT));
+        assertFalse(pageProcessor.isInterpreted());
+        assertPageEquals(ImmutableList.of(BIGINT), processSinglePage(pageProcessor, inputPage), new Page(createLongSequenceBlock(0, 100)));
+    }
+
+    @Test
+    public void testTieredFilter()
+    {
+        SettableFuture<Supplier<PageFilter>> compiled = SettableFuture.create();
+        PageProcessor pageProcessor = new PageProcessor(
+                Optional.of(new TieredPageFilter(new TestingPageFilter(positionsRange(0, 50)), new InputChannels(0), compiled)),
+                ImmutableList.of(new InputPageProjection(0, BIGINT)));
+
+        Page inputPage = new Page(createLongSequenceBlock(0, 100));
+
+        assertTrue(pageProcessor.isInterpreted());
+        assertPageEquals(ImmutableList.of(BIGINT), processSinglePage(pageProcessor, inputPage), new Page(createLongSequenceBlock(0, 50)));
+
+        compiled.set(SelectAllFilter::new);
+        assertFalse(pageProcessor.isInterpreted());
+        assertPageEquals(ImmutableList.of(BIGINT), processSinglePage(pageProcessor, inputPage), new Page(createLongSequenceBlock(0, 100)));
+    }
+
+    @Test
+    public void testTieredCompilationFailure()
+    {
+        SettableFuture<Supplier<PageProjection>> compiled = SettableFuture.create();
+        PageProcessor pageProcessor = new PageProcessor(Optional.empty(), ImmutableList.of(new TieredPageProjection(new InputPageProjection(0, BIGINT), new InputChannels(0), compiled)));
+
+        compiled.setException(new RuntimeException("compilation failed"));
+        assertTrue(pageProcessor.isInterpreted());
+
+        Page inputPage = new Page(createLongSequenceBlock(0, 100));
+        assertPageEquals(ImmutableList.of(BIGINT), processSinglePage(pageProcessor, inputPage), inputPage);
+    }
+
+    private static Page processSinglePage(PageProcessor pageProcessor, Page inputPage)
+    {
+        List<Optional<Page>> outputPages = ImmutableList.copyOf(pageProcessor.process(SESSION, new DriverYieldSignal(), inputPage));
+        assertEquals(outputPages.size(), 1);
+        return outputPages.get(0).orElse(null);
+    }
+
     private static class InvocationCountPageProjection
             implements PageProjection
     {
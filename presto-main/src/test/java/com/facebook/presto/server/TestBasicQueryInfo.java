@@ -91,6 +91,7 @@ public class TestBasicQueryInfo
                                 DataSize.valueOf("31GB"),
                                 32,
                                 DataSize.valueOf("32GB"),
+                                Duration.valueOf("33m"),
                                 ImmutableList.of(new StageGcStatistics(
                                         101,
                                         102,
@@ -142,6 +142,7 @@ public class TestQueryStateInfo
                         DataSize.valueOf("31GB"),
                         32,
                         DataSize.valueOf("33GB"),
+                        Duration.valueOf("34m"),
                         ImmutableList.of(),
                         ImmutableList.of()),
                 Optional.empty(),
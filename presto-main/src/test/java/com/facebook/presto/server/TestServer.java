@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.server;
 
+import com.facebook.presto.client.ColumnarData;
 import com.facebook.presto.client.QueryError;
 import com.facebook.presto.client.QueryResults;
 import com.facebook.presto.execution.QueryInfo;
@@ -21,10 +22,13 @@ import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.type.TimeZoneNotSupportedException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
 import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpUriBuilder;
 import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
 import io.airlift.http.client.StatusResponseHandler;
 import io.airlift.http.client.jetty.JettyHttpClient;
 import io.airlift.json.JsonCodec;
@@ -33,7 +37,11 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.List;
 
 import static com.facebook.presto.SystemSessionProperties.DISTRIBUTED_JOIN;
@@ -42,6 +50,7 @@ import static com.facebook.presto.SystemSessionProperties.QUERY_MAX_MEMORY;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CATALOG;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLIENT_INFO;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PREPARED_STATEMENT;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_RESULT_FORMAT;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SCHEMA;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SOURCE;
@@ -50,18 +59,24 @@ import static com.facebook.presto.client.PrestoHeaders.PRESTO_TIME_ZONE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TRANSACTION_ID;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_USER;
 import static com.facebook.presto.spi.StandardErrorCode.INCOMPATIBLE_CLIENT;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
 import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
 import static io.airlift.json.JsonCodec.jsonCodec;
+import static java.lang.String.format;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.ws.rs.core.Response.Status.OK;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestServer
@@ -175,6 +190,62 @@ public class TestServer
         assertEquals(rows, ImmutableList.of(ImmutableList.of("system")));
     }
 
+    @Test
+    public void testColumnarResults()
+    {
+        String query = "SELECT * FROM (VALUES " +
+                "(1, 'abc', 1.5E0, ARRAY[BIGINT '1', 2], true, DATE '2018-01-02', DECIMAL '-12.34', DECIMAL '-1234567890123456789012.345', " +
+                "TIME '03:04:05.678', TIMESTAMP '2018-01-02 03:04:05.678', TIMESTAMP '2018-01-02 03:04:05.678 Asia/Kathmandu'), " +
+                "(NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL))";
+        QueryResultsResponseHandler jsonHandler = new QueryResultsResponseHandler();
+        List<List<Object>> rows = executeQuery(query, false, jsonHandler);
+        assertEquals(rows.get(0).subList(0, 8), ImmutableList.of(1, "abc", 1.5, ImmutableList.of(1L, 2L), true, "2018-01-02", "-12.34", "-1234567890123456789012.345"));
+        assertEquals(rows.get(1), Collections.nCopies(11, null));
+        assertFalse(jsonHandler.isColumnarResponse());
+
+        QueryResultsResponseHandler columnarHandler = new QueryResultsResponseHandler();
+        assertEquals(executeQuery(query, true, columnarHandler), rows);
+        assertTrue(columnarHandler.isColumnarResponse());
+    }
+
+    @Test
+    public void testColumnarResultsSize()
+    {
+        String query = "SELECT x, x * 1.5E0, DATE '2018-01-01' + x * INTERVAL '1' DAY, CAST(x AS DECIMAL(10, 2)) FROM UNNEST(sequence(1, 10000)) t(x)";
+        QueryResultsResponseHandler jsonHandler = new QueryResultsResponseHandler();
+        List<List<Object>> rows = executeQuery(query, false, jsonHandler);
+        assertEquals(rows.size(), 10000);
+
+        QueryResultsResponseHandler columnarHandler = new QueryResultsResponseHandler();
+        assertEquals(executeQuery(query, true, columnarHandler), rows);
+        // about 32 bytes per row against about 37 for JSON, which base64 encoding would inflate to about 43
+        assertTrue(columnarHandler.getResponseBytes() < jsonHandler.getResponseBytes(),
+                format("columnar responses: %s bytes, JSON responses: %s bytes", columnarHandler.getResponseBytes(), jsonHandler.getResponseBytes()));
+    }
+
+    private List<List<Object>> executeQuery(String query, boolean columnarResults, QueryResultsResponseHandler responseHandler)
+    {
+        Request.Builder request = preparePost()
+                .setUri(uriFor("/v1/statement"))
+                .setBodyGenerator(createStaticBodyGenerator(query, UTF_8))
+                .setHeader(PRESTO_USER, "user")
+                .setHeader(PRESTO_SOURCE, "source");
+        if (columnarResults) {
+            request.setHeader(PRESTO_RESULT_FORMAT, ColumnarData.FORMAT_NAME);
+        }
+
+        QueryResults queryResults = client.execute(request.build(), responseHandler);
+        ImmutableList.Builder<List<Object>> data = ImmutableList.builder();
+        while (queryResults.getNextUri() != null) {
+            queryResults = client.execute(prepareGet().setUri(queryResults.getNextUri()).build(), responseHandler);
+            if (queryResults.getData() != null) {
+                data.addAll(queryResults.getData());
+            }
+        }
+        assertNull(queryResults.getError());
+        return data.build();
+    }
+
     @Test
     public void testTransactionSupport()
     {
@@ -225,4 +296,52 @@ public class TestServer
     {
         return HttpUriBuilder.uriBuilderFrom(server.getBaseUrl()).replacePath(path).build();
     }
+
+    private static class QueryResultsResponseHandler
+            implements ResponseHandler<QueryResults, RuntimeException>
+    {
+        private long responseBytes;
+        private boolean columnarResponse;
+
+        public long getResponseBytes()
+        {
+            return responseBytes;
+        }
+
+        public boolean isColumnarResponse()
+        {
+            return columnarResponse;
+        }
+
+        @Override
+        public QueryResults handleException(Request request, Exception exception)
+        {
+            throw propagate(request, exception);
+        }
+
+        @Override
+        public QueryResults handle(Request request, Response response)
+        {
+            assertEquals(response.getStatusCode(), OK.getStatusCode());
+            byte[] body;
+            try {
+                body = ByteStreams.toByteArray(response.getInputStream());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            responseBytes += body.length;
+
+            if (!ColumnarData.MEDIA_TYPE.equals(response.getHeader(CONTENT_TYPE))) {
+                return QUERY_RESULTS_CODEC.fromJson(body);
+            }
+            columnarResponse = true;
+            ByteBuffer buffer = ByteBuffer.wrap(body).order(LITTLE_ENDIAN);
+            byte[] json = new byte[buffer.getInt()];
+            buffer.get(json);
+            byte[] data = new byte[buffer.remaining()];
+            buffer.get(data);
+            return ColumnarData.decodeResults(QUERY_RESULTS_CODEC.fromJson(json), data);
+        }
+    }
 }
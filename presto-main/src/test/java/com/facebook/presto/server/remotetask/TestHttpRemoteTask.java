@@ -14,6 +14,7 @@
 package com.facebook.presto.server.remotetask;
 
 import com.facebook.presto.OutputBuffers;
+import com.facebook.presto.ScheduledSplit;
 import com.facebook.presto.TaskSource;
 import com.facebook.presto.client.NodeVersion;
 import com.facebook.presto.connector.ConnectorId;
@@ -44,6 +45,7 @@ import com.facebook.presto.testing.TestingSplit;
 import com.facebook.presto.testing.TestingTransactionHandle;
 import com.facebook.presto.type.TypeDeserializer;
 import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Binder;
@@ -70,14 +72,19 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -170,6 +177,49 @@ public class TestHttpRemoteTask
         httpRemoteTaskFactory.stop();
     }
 
+    @Test(timeOut = 30000)
+    public void testAcknowledgedSplitsNotResent()
+            throws Exception
+    {
+        AtomicLong lastActivityNanos = new AtomicLong(System.nanoTime());
+        TestingTaskResource testingTaskResource = new TestingTaskResource(lastActivityNanos, FailureScenario.NO_FAILURE);
+
+        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource);
+
+        RemoteTask remoteTask = createRemoteTask(httpRemoteTaskFactory);
+
+        testingTaskResource.setInitialTaskInfo(remoteTask.getTaskInfo());
+        remoteTask.start();
+
+        // the worker receives the split, but the coordinator only sees the update fail
+        testingTaskResource.setFailUpdates(true);
+        remoteTask.addSplits(ImmutableMultimap.of(TABLE_SCAN_NODE_ID, createSplit()));
+        poll(() -> testingTaskResource.getReceivedSplitSequenceIds().contains(0L));
+
+        // once the worker reports the split as acknowledged, it is dropped from the pending update
+        poll(() -> remoteTask.getTaskInfo().getMaxAcknowledgedSplit().equals(OptionalLong.of(0)));
+        poll(() -> remoteTask.getPartitionedSplitCount() == 0);
+
+        testingTaskResource.clearReceivedSplitSequenceIds();
+        testingTaskResource.setFailUpdates(false);
+        remoteTask.addSplits(ImmutableMultimap.of(TABLE_SCAN_NODE_ID, createSplit()));
+        poll(() -> testingTaskResource.getTaskSource(TABLE_SCAN_NODE_ID).getSplits().size() == 2);
+        poll(() -> remoteTask.getPartitionedSplitCount() == 0);
+
+        // only the unacknowledged split is sent
+        assertEquals(testingTaskResource.getReceivedSplitSequenceIds(), ImmutableList.of(1L));
+
+        remoteTask.cancel();
+        poll(() -> remoteTask.getTaskStatus().getState().isDone());
+
+        httpRemoteTaskFactory.stop();
+    }
+
+    private static Split createSplit()
+    {
+        return new Split(new ConnectorId("test"), TestingTransactionHandle.create(), TestingSplit.createLocalSplit());
+    }
+
     private void runTest(FailureScenario failureScenario)
             throws Exception
     {
@@ -331,6 +381,10 @@ public class TestHttpRemoteTask
 
         private long statusFetchCounter;
 
+        private boolean failUpdates;
+        private final List<Long> receivedSplitSequenceIds = new ArrayList<>();
+        private OptionalLong maxAcknowledgedSplit = OptionalLong.empty();
+
         public TestingTaskResource(AtomicLong lastActivityNanos, FailureScenario failureScenario)
         {
             this.lastActivityNanos = requireNonNull(lastActivityNanos, "lastActivityNanos is null");
@@ -367,12 +421,36 @@ public class TestHttpRemoteTask
                 @Context UriInfo uriInfo)
         {
             for (TaskSource source : taskUpdateRequest.getSources()) {
+                for (ScheduledSplit split : source.getSplits()) {
+                    receivedSplitSequenceIds.add(split.getSequenceId());
+                    if (!maxAcknowledgedSplit.isPresent() || split.getSequenceId() > maxAcknowledgedSplit.getAsLong()) {
+                        maxAcknowledgedSplit = OptionalLong.of(split.getSequenceId());
+                    }
+                }
                 taskSourceMap.compute(source.getPlanNodeId(), (planNodeId, taskSource) -> taskSource == null ? source : taskSource.update(source));
             }
             lastActivityNanos.set(System.nanoTime());
+            if (failUpdates) {
+                throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+            }
             return buildTaskInfo();
         }
 
+        public synchronized void setFailUpdates(boolean failUpdates)
+        {
+            this.failUpdates = failUpdates;
+        }
+
+        public synchronized List<Long> getReceivedSplitSequenceIds()
+        {
+            return ImmutableList.copyOf(receivedSplitSequenceIds);
+        }
+
+        public synchronized void clearReceivedSplitSequenceIds()
+        {
+            receivedSplitSequenceIds.clear();
+        }
+
         public synchronized TaskSource getTaskSource(PlanNodeId planNodeId)
         {
             TaskSource source = taskSourceMap.get(planNodeId);
@@ -440,6 +518,7 @@ public class TestHttpRemoteTask
                     initialTaskInfo.getLastHeartbeat(),
                     initialTaskInfo.getOutputBuffers(),
                     initialTaskInfo.getNoMoreSplits(),
+                    maxAcknowledgedSplit,
                     initialTaskInfo.getStats(),
                     initialTaskInfo.isNeedsPlan(),
                     initialTaskInfo.isComplete());
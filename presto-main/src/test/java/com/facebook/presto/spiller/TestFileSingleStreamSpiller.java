@@ -14,6 +14,7 @@
 package com.facebook.presto.spiller;
 
 import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.execution.buffer.PageCompression;
 import com.facebook.presto.execution.buffer.PagesSerde;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
 import com.facebook.presto.memory.context.LocalMemoryContext;
@@ -26,12 +27,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.ListeningExecutorService;
-import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -52,7 +55,7 @@ public class TestFileSingleStreamSpiller
     private final ListeningExecutorService executor = listeningDecorator(newCachedThreadPool());
     private final File spillPath = Files.createTempDir();
 
-    @AfterMethod
+    @AfterClass(alwaysRun = true)
     public void tearDown()
             throws Exception
     {
@@ -60,11 +63,19 @@ public class TestFileSingleStreamSpiller
         deleteRecursively(spillPath.toPath(), ALLOW_INSECURE);
     }
 
-    @Test
-    public void testSpill()
+    @DataProvider
+    public static Object[][] compression()
+    {
+        return Stream.of(PageCompression.values())
+                .map(compression -> new Object[] {compression})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "compression")
+    public void testSpill(PageCompression compression)
             throws Exception
     {
-        PagesSerdeFactory serdeFactory = new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false);
+        PagesSerdeFactory serdeFactory = new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), compression, false);
         PagesSerde serde = serdeFactory.createPagesSerde();
         SpillerStats spillerStats = new SpillerStats();
         LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext();
@@ -0,0 +1,317 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.connector.ConnectorId;
+import com.facebook.presto.memory.MemoryPool;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.memory.MemoryPoolId;
+import com.facebook.presto.spi.security.Identity;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.SequencePageBuilder.createSequencePage;
+import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.testing.TestingSplit.createLocalSplit;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestSharedScanManager
+{
+    private static final List<ColumnHandle> COLUMNS = ImmutableList.of();
+    private static final QueryId QUERY_1 = new QueryId("query_1");
+    private static final QueryId QUERY_2 = new QueryId("query_2");
+
+    private static final QueryId QUERY_3 = new QueryId("query_3");
+    private static final Identity USER = new Identity("user", Optional.empty());
+
+    private final Split split = new Split(new ConnectorId("test"), TestingTransactionHandle.create(), new ShareableSplit());
+    private final MemoryPool memoryPool = new MemoryPool(new MemoryPoolId("test"), new DataSize(1, GIGABYTE));
+    private final List<Page> pages = ImmutableList.of(createSequencePage(ImmutableList.of(BIGINT), 10), createSequencePage(ImmutableList.of(BIGINT), 20));
+    private final AtomicInteger reads = new AtomicInteger();
+    private SharedScanManager manager;
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+    {
+        if (manager != null) {
+            manager.stop();
+            manager = null;
+        }
+        reads.set(0);
+    }
+
+    @Test
+    public void testReplayFinishedScan()
+            throws Exception
+    {
+        manager = createManager(new DataSize(1, MEGABYTE), new Duration(1, MINUTES));
+
+        ConnectorPageSource producer = manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit);
+        ConnectorPageSource consumer = manager.createPageSource(QUERY_2, USER, split, COLUMNS, this::readSplit);
+        assertPages(producer);
+        assertPages(consumer);
+        assertEquals(manager.getScanCount(), 1);
+        assertTrue(manager.getSizeInBytes() > 0);
+
+        // the retained pages are accounted to the pool while no scan uses them, but not to a query
+        assertEquals(memoryPool.getReservedRevocableBytes(), manager.getSizeInBytes());
+        assertEquals(memoryPool.getReservedBytes(), 0);
+        assertTrue(memoryPool.getInfo().getQueryMemoryReservations().isEmpty());
+
+        ConnectorPageSource replay = manager.createPageSource(QUERY_3, USER, split, COLUMNS, this::readSplit);
+        assertEquals(memoryPool.getReservedRevocableBytes(), 0);
+        assertPages(replay);
+        assertEquals(reads.get(), 1);
+        assertEquals(memoryPool.getReservedRevocableBytes(), manager.getSizeInBytes());
+    }
+
+    @Test
+    public void testRetainedScanEvictedWhenPoolIsFull()
+            throws Exception
+    {
+        manager = createManager(new DataSize(1, MEGABYTE), new Duration(1, MINUTES));
+
+        ConnectorPageSource producer = manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit);
+        ConnectorPageSource consumer = manager.createPageSource(QUERY_2, USER, split, COLUMNS, this::readSplit);
+        assertPages(producer);
+        assertPages(consumer);
+        assertEquals(manager.getScanCount(), 1);
+        assertTrue(memoryPool.getReservedRevocableBytes() > 0);
+
+        QueryId otherQuery = new QueryId("other_query");
+        memoryPool.reserve(otherQuery, memoryPool.getFreeBytes());
+        try {
+            long start = System.nanoTime();
+            while (manager.getScanCount() > 0 || memoryPool.getReservedRevocableBytes() > 0) {
+                assertTrue(System.nanoTime() - start < SECONDS.toNanos(10), "retained scan was not evicted");
+                MILLISECONDS.sleep(10);
+            }
+        }
+        finally {
+            memoryPool.free(otherQuery, memoryPool.getInfo().getQueryMemoryReservations().get(otherQuery));
+        }
+    }
+
+    @Test
+    public void testDifferentUsersDoNotShareScan()
+            throws Exception
+    {
+        manager = createManager(new DataSize(1, MEGABYTE), new Duration(1, MINUTES));
+        Identity otherUser = new Identity("other_user", Optional.empty());
+
+        ConnectorPageSource producer = manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit);
+        ConnectorPageSource otherUserScan = manager.createPageSource(QUERY_2, otherUser, split, COLUMNS, this::readSplit);
+        ConnectorPageSource consumer = manager.createPageSource(QUERY_3, USER, split, COLUMNS, this::readSplit);
+        assertEquals(reads.get(), 2);
+        assertPages(producer);
+        assertPages(consumer);
+        assertPages(otherUserScan);
+        assertEquals(reads.get(), 2);
+
+        // a later scan by another user does not replay the retained pages either
+        assertPages(manager.createPageSource(new QueryId("query_4"), otherUser, split, COLUMNS, this::readSplit));
+        assertEquals(reads.get(), 3);
+    }
+
+    @Test
+    public void testScanWithoutWaitingScansIsNotRecorded()
+            throws Exception
+    {
+        manager = createManager(new DataSize(1, MEGABYTE), new Duration(1, MINUTES));
+
+        assertPages(manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit));
+        assertEquals(manager.getScanCount(), 0);
+        assertEquals(memoryPool.getReservedRevocableBytes(), 0);
+
+        assertPages(manager.createPageSource(QUERY_2, USER, split, COLUMNS, this::readSplit));
+        assertEquals(reads.get(), 2);
+    }
+
+    @Test
+    public void testSplitNotShareable()
+            throws Exception
+    {
+        manager = createManager(new DataSize(1, MEGABYTE), new Duration(1, MINUTES));
+        Split unshareableSplit = new Split(new ConnectorId("test"), TestingTransactionHandle.create(), createLocalSplit());
+
+        ConnectorPageSource first = manager.createPageSource(QUERY_1, USER, unshareableSplit, COLUMNS, this::readSplit);
+        ConnectorPageSource second = manager.createPageSource(QUERY_2, USER, unshareableSplit, COLUMNS, this::readSplit);
+        assertEquals(manager.getScanCount(), 0);
+        assertPages(first);
+        assertPages(second);
+        assertEquals(reads.get(), 2);
+    }
+
+    @Test
+    public void testWaitForScan()
+            throws Exception
+    {
+        manager = createManager(new DataSize(1, MEGABYTE), new Duration(1, MINUTES));
+
+        ConnectorPageSource producer = manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit);
+        ConnectorPageSource consumer = manager.createPageSource(QUERY_2, USER, split, COLUMNS, this::readSplit);
+        assertFalse(consumer.isBlocked().isDone());
+        assertFalse(consumer.isFinished());
+        assertEquals(consumer.getNextPage(), null);
+
+        assertPages(producer);
+        assertTrue(consumer.isBlocked().isDone());
+        assertPages(consumer);
+        assertEquals(reads.get(), 1);
+    }
+
+    @Test
+    public void testSameQueryReadsSplit()
+            throws Exception
+    {
+        manager = createManager(new DataSize(1, MEGABYTE), new Duration(1, MINUTES));
+
+        ConnectorPageSource producer = manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit);
+        ConnectorPageSource other = manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit);
+        assertEquals(reads.get(), 2);
+
+        assertPages(other);
+        assertPages(producer);
+    }
+
+    @Test
+    public void testAbortedScan()
+            throws Exception
+    {
+        manager = createManager(new DataSize(1, MEGABYTE), new Duration(1, MINUTES));
+
+        ConnectorPageSource producer = manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit);
+        ConnectorPageSource consumer = manager.createPageSource(QUERY_2, USER, split, COLUMNS, this::readSplit);
+        producer.close();
+        assertEquals(manager.getScanCount(), 0);
+
+        assertTrue(consumer.isBlocked().isDone());
+        assertPages(consumer);
+        assertEquals(reads.get(), 2);
+    }
+
+    @Test
+    public void testScanTooLarge()
+            throws Exception
+    {
+        manager = createManager(new DataSize(100, BYTE), new Duration(1, MINUTES));
+
+        ConnectorPageSource producer = manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit);
+        ConnectorPageSource consumer = manager.createPageSource(QUERY_2, USER, split, COLUMNS, this::readSplit);
+        assertPages(producer);
+        assertEquals(manager.getScanCount(), 0);
+
+        assertPages(consumer);
+        assertEquals(reads.get(), 2);
+    }
+
+    @Test
+    public void testWaitTimeout()
+            throws Exception
+    {
+        manager = createManager(new DataSize(1, MEGABYTE), new Duration(1, MILLISECONDS));
+
+        ConnectorPageSource producer = manager.createPageSource(QUERY_1, USER, split, COLUMNS, this::readSplit);
+        ConnectorPageSource consumer = manager.createPageSource(QUERY_2, USER, split, COLUMNS, this::readSplit);
+        consumer.isBlocked().get(10, SECONDS);
+
+        assertPages(consumer);
+        assertEquals(reads.get(), 2);
+        assertPages(producer);
+    }
+
+    private ConnectorPageSource readSplit()
+    {
+        reads.incrementAndGet();
+        return new FixedPageSource(pages);
+    }
+
+    private void assertPages(ConnectorPageSource pageSource)
+            throws IOException
+    {
+        ImmutableList.Builder<Page> actual = ImmutableList.builder();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                actual.add(page);
+            }
+        }
+        pageSource.close();
+
+        List<Page> actualPages = actual.build();
+        assertEquals(actualPages.size(), pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            assertPageEquals(ImmutableList.of(BIGINT), actualPages.get(i), pages.get(i));
+        }
+    }
+
+    private SharedScanManager createManager(DataSize maxEntrySize, Duration maxWait)
+    {
+        return new SharedScanManager(memoryPool, new DataSize(10, MEGABYTE), maxEntrySize, new Duration(1, MINUTES), maxWait);
+    }
+
+    private static class ShareableSplit
+            implements ConnectorSplit
+    {
+        @Override
+        public boolean isRemotelyAccessible()
+        {
+            return false;
+        }
+
+        @Override
+        public List<HostAddress> getAddresses()
+        {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            return this;
+        }
+
+        @Override
+        public boolean isScanShareable()
+        {
+            return true;
+        }
+    }
+}
@@ -24,6 +24,9 @@ import org.testng.annotations.Test;
 
 import java.util.Map;
 
+import static com.facebook.presto.execution.buffer.PageCompression.LZ4;
+import static com.facebook.presto.execution.buffer.PageCompression.UNCOMPRESSED;
+import static com.facebook.presto.execution.buffer.PageCompression.ZSTD;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.SPILLER_SPILL_PATH;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.SPILL_ENABLED;
 import static com.facebook.presto.sql.analyzer.RegexLibrary.JONI;
@@ -72,6 +75,7 @@ public class TestFeaturesConfig
                 .setSpillerSpillPaths("")
                 .setSpillerThreads(4)
                 .setSpillMaxUsedSpaceThreshold(0.9)
+                .setSpillCompressionCodec(UNCOMPRESSED)
                 .setMemoryRevokingThreshold(0.9)
                 .setMemoryRevokingTarget(0.5)
                 .setOptimizeMixedDistinctAggregations(false)
@@ -80,6 +84,16 @@ public class TestFeaturesConfig
                 .setIterativeOptimizerTimeout(new Duration(3, MINUTES))
                 .setEnableNewStatsCalculator(true)
                 .setExchangeCompressionEnabled(false)
+                .setExchangeCompressionCodec(LZ4)
+                .setExchangeAdaptiveCompressionEnabled(false)
+                .setAdaptivePartialAggregationEnabled(false)
+                .setAdaptivePartialAggregationMinRows(100_000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.8)
+                .setSpreadNullJoinKeys(false)
+                .setSpreadNullJoinKeysMinNullsFraction(0.1)
+                .setSkewedJoinKeyValues("")
+                .setJoinMaxBroadcastTableSize(succinctBytes(0))
+                .setSortParallelism(1)
                 .setLegacyTimestamp(true)
                 .setLegacyRoundNBigint(false)
                 .setLegacyJoinUsing(false)
@@ -98,7 +112,10 @@ public class TestFeaturesConfig
                 .setArrayAggGroupImplementation(ArrayAggGroupImplementation.NEW)
                 .setDistributedSortEnabled(true)
                 .setMaxGroupingSets(2048)
-                .setPreAllocateMemoryThreshold(succinctBytes(0)));
+                .setPreAllocateMemoryThreshold(succinctBytes(0))
+                .setEnableDynamicFiltering(false)
+                .setDynamicFilteringMaxDistinctValues(10_000)
+                .setTieredExpressionCompilationEnabled(false));
     }
 
     @Test
@@ -144,9 +161,20 @@ public class TestFeaturesConfig
                 .put("experimental.spiller-spill-path", "/tmp/custom/spill/path1,/tmp/custom/spill/path2")
                 .put("experimental.spiller-threads", "42")
                 .put("experimental.spiller-max-used-space-threshold", "0.8")
+                .put("experimental.spill-compression-codec", "LZ4")
                 .put("experimental.memory-revoking-threshold", "0.2")
                 .put("experimental.memory-revoking-target", "0.8")
                 .put("exchange.compression-enabled", "true")
+                .put("exchange.compression-codec", "ZSTD")
+                .put("exchange.adaptive-compression-enabled", "true")
+                .put("experimental.adaptive-partial-aggregation-enabled", "true")
+                .put("experimental.adaptive-partial-aggregation-min-rows", "1000")
+                .put("experimental.adaptive-partial-aggregation-unique-rows-ratio-threshold", "0.5")
+                .put("optimizer.spread-null-join-keys", "true")
+                .put("optimizer.spread-null-join-keys-min-nulls-fraction", "0.3")
+                .put("optimizer.skewed-join-key-values", "-1,unknown")
+                .put("join-max-broadcast-table-size", "100MB")
+                .put("experimental.sort-parallelism", "8")
                 .put("deprecated.legacy-timestamp", "false")
                 .put("optimizer.enable-intermediate-aggregations", "true")
                 .put("parse-decimal-literals-as-double", "true")
@@ -161,6 +189,9 @@ public class TestFeaturesConfig
                 .put("distributed-sort", "false")
                 .put("analyzer.max-grouping-sets", "2047")
                 .put("experimental.preallocate-memory-threshold", "5TB")
+                .put("experimental.enable-dynamic-filtering", "true")
+                .put("experimental.dynamic-filtering-max-distinct-values", "100")
+                .put("experimental.tiered-expression-compilation-enabled", "true")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -198,10 +229,21 @@ public class TestFeaturesConfig
                 .setSpillerSpillPaths("/tmp/custom/spill/path1,/tmp/custom/spill/path2")
                 .setSpillerThreads(42)
                 .setSpillMaxUsedSpaceThreshold(0.8)
+                .setSpillCompressionCodec(LZ4)
                 .setMemoryRevokingThreshold(0.2)
                 .setMemoryRevokingTarget(0.8)
                 .setLegacyLogFunction(true)
                 .setExchangeCompressionEnabled(true)
+                .setExchangeCompressionCodec(ZSTD)
+                .setExchangeAdaptiveCompressionEnabled(true)
+                .setAdaptivePartialAggregationEnabled(true)
+                .setAdaptivePartialAggregationMinRows(1000)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.5)
+                .setSpreadNullJoinKeys(true)
+                .setSpreadNullJoinKeysMinNullsFraction(0.3)
+                .setSkewedJoinKeyValues("-1,unknown")
+                .setJoinMaxBroadcastTableSize(new DataSize(100, MEGABYTE))
+                .setSortParallelism(8)
                 .setLegacyTimestamp(false)
                 .setLegacyRoundNBigint(true)
                 .setLegacyJoinUsing(true)
@@ -219,7 +261,10 @@ public class TestFeaturesConfig
                 .setArrayAggGroupImplementation(ArrayAggGroupImplementation.LEGACY)
                 .setDistributedSortEnabled(false)
                 .setMaxGroupingSets(2047)
-                .setPreAllocateMemoryThreshold(DataSize.valueOf("5TB"));
+                .setPreAllocateMemoryThreshold(DataSize.valueOf("5TB"))
+                .setEnableDynamicFiltering(true)
+                .setDynamicFilteringMaxDistinctValues(100)
+                .setTieredExpressionCompilationEnabled(true);
         assertFullMapping(properties, expected);
     }
 
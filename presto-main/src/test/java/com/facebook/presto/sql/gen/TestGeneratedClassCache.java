@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.PageWithPositionComparator;
+import com.facebook.presto.operator.PagesHashStrategy;
+import com.facebook.presto.operator.project.PageFilter;
+import com.facebook.presto.operator.project.SelectedPositions;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.relational.RowExpression;
+import com.google.common.collect.ImmutableList;
+import io.airlift.bytecode.ClassDefinition;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.block.BlockAssertions.createDoublesBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.spi.block.SortOrder.DESC_NULLS_LAST;
+import static com.facebook.presto.spi.function.OperatorType.GREATER_THAN;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.gen.BytecodeUtils.loadConstant;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static com.facebook.presto.util.CompilerUtils.makeClassName;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.bytecode.Access.FINAL;
+import static io.airlift.bytecode.Access.PUBLIC;
+import static io.airlift.bytecode.Access.a;
+import static io.airlift.bytecode.ParameterizedType.type;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.nio.file.Files.createTempDirectory;
+import static org.testng.Assert.assertEquals;
+
+@Test(singleThreaded = true)
+public class TestGeneratedClassCache
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, DOUBLE, VARCHAR);
+
+    private final Metadata metadata = createTestMetadataManager();
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        directory = createTempDirectory("class-cache");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testLoadWithoutGenerating()
+            throws Exception
+    {
+        AtomicInteger generated = new AtomicInteger();
+        GeneratedClassCache classCache = createClassCache();
+        assertEquals(defineSupplier(classCache, generated, "value", String.class).get(), "value");
+        assertEquals(generated.get(), 1);
+        assertEquals(classCache.getMisses(), 1);
+
+        // the binding of a string is recreated from its reference, so the class is not generated again
+        GeneratedClassCache restartedClassCache = createClassCache();
+        assertEquals(defineSupplier(restartedClassCache, generated, "value", String.class).get(), "value");
+        assertEquals(generated.get(), 1);
+        assertEquals(restartedClassCache.getHits(), 1);
+        assertEquals(restartedClassCache.getGeneratedHits(), 0);
+        assertEquals(restartedClassCache.getMisses(), 0);
+    }
+
+    @Test
+    public void testGenerateForBindingsWithoutReference()
+            throws Exception
+    {
+        AtomicInteger generated = new AtomicInteger();
+        GeneratedClassCache classCache = createClassCache();
+        assertEquals(defineSupplier(classCache, generated, 42L, Object.class).get(), 42L);
+        assertEquals(classCache.getMisses(), 1);
+
+        // an arbitrary object has no reference, so the class is generated to collect its binding
+        GeneratedClassCache restartedClassCache = createClassCache();
+        assertEquals(defineSupplier(restartedClassCache, generated, 43L, Object.class).get(), 43L);
+        assertEquals(generated.get(), 2);
+        assertEquals(restartedClassCache.getHits(), 1);
+        assertEquals(restartedClassCache.getGeneratedHits(), 1);
+    }
+
+    @Test
+    public void testJoinCompiler()
+    {
+        List<List<Block>> channels = ImmutableList.of(
+                ImmutableList.of(createLongsBlock(1L, null, 3L)),
+                ImmutableList.of(createDoublesBlock(1.0, 2.0, null)),
+                ImmutableList.of(createStringsBlock("a", "b", null)));
+        Page page = new Page(channels.get(0).get(0), channels.get(1).get(0), channels.get(2).get(0));
+
+        GeneratedClassCache classCache = createClassCache();
+        PagesHashStrategy hashStrategy = new JoinCompiler(metadata, new FeaturesConfig(), classCache)
+                .compilePagesHashStrategyFactory(TYPES, ImmutableList.of(0, 1, 2))
+                .createPagesHashStrategy(channels, OptionalInt.empty());
+        assertEquals(classCache.getMisses(), 1);
+
+        GeneratedClassCache restartedClassCache = createClassCache();
+        PagesHashStrategy cachedHashStrategy = new JoinCompiler(metadata, new FeaturesConfig(), restartedClassCache)
+                .compilePagesHashStrategyFactory(TYPES, ImmutableList.of(0, 1, 2))
+                .createPagesHashStrategy(channels, OptionalInt.empty());
+        assertEquals(restartedClassCache.getHits(), 1);
+        assertEquals(restartedClassCache.getGeneratedHits(), 0);
+        assertEquals(restartedClassCache.getMisses(), 0);
+
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            assertEquals(cachedHashStrategy.hashPosition(0, position), hashStrategy.hashPosition(0, position));
+            for (int rightPosition = 0; rightPosition < page.getPositionCount(); rightPosition++) {
+                assertEquals(
+                        cachedHashStrategy.positionNotDistinctFromRow(0, position, rightPosition, page, new int[] {0, 1, 2}),
+                        hashStrategy.positionNotDistinctFromRow(0, position, rightPosition, page, new int[] {0, 1, 2}));
+            }
+        }
+    }
+
+    @Test
+    public void testOrderingCompiler()
+    {
+        Page page = new Page(createLongsBlock(1L, null, 1L), createDoublesBlock(1.0, 2.0, null), createStringsBlock("a", "b", "c"));
+
+        GeneratedClassCache classCache = createClassCache();
+        PageWithPositionComparator comparator = new OrderingCompiler(classCache)
+                .compilePageWithPositionComparator(TYPES, ImmutableList.of(0, 1), ImmutableList.of(ASC_NULLS_FIRST, DESC_NULLS_LAST));
+        assertEquals(classCache.getMisses(), 1);
+
+        GeneratedClassCache restartedClassCache = createClassCache();
+        PageWithPositionComparator cachedComparator = new OrderingCompiler(restartedClassCache)
+                .compilePageWithPositionComparator(TYPES, ImmutableList.of(0, 1), ImmutableList.of(ASC_NULLS_FIRST, DESC_NULLS_LAST));
+        assertEquals(restartedClassCache.getHits(), 1);
+        assertEquals(restartedClassCache.getGeneratedHits(), 0);
+        assertEquals(restartedClassCache.getMisses(), 0);
+
+        for (int left = 0; left < page.getPositionCount(); left++) {
+            for (int right = 0; right < page.getPositionCount(); right++) {
+                assertEquals(
+                        Integer.signum(cachedComparator.compareTo(page, left, page, right)),
+                        Integer.signum(comparator.compareTo(page, left, page, right)));
+            }
+        }
+    }
+
+    @Test
+    public void testFilterOnDifferentChannels()
+    {
+        Page page = new Page(createLongsBlock(1L, 10L, 1L, 10L), createLongsBlock(10L, 10L, 1L, 1L));
+
+        GeneratedClassCache classCache = createClassCache();
+        PageFilter firstChannelFilter = new PageFunctionCompiler(metadata, 0, classCache)
+                .compileFilter(greaterThanFive(0), Optional.empty())
+                .get();
+        assertEquals(classCache.getMisses(), 1);
+
+        // the same predicate on another channel binds other input channels, so it is not served from the cache
+        GeneratedClassCache restartedClassCache = createClassCache();
+        PageFilter secondChannelFilter = new PageFunctionCompiler(metadata, 0, restartedClassCache)
+                .compileFilter(greaterThanFive(1), Optional.empty())
+                .get();
+        assertEquals(restartedClassCache.getHits(), 0);
+        assertEquals(restartedClassCache.getMisses(), 1);
+
+        assertEquals(firstChannelFilter.getInputChannels().getInputChannels(), ImmutableList.of(0));
+        assertEquals(secondChannelFilter.getInputChannels().getInputChannels(), ImmutableList.of(1));
+        assertEquals(selectPositions(firstChannelFilter, page), ImmutableList.of(1, 3));
+        assertEquals(selectPositions(secondChannelFilter, page), ImmutableList.of(0, 1));
+    }
+
+    private static RowExpression greaterThanFive(int channel)
+    {
+        return call(
+                Signature.internalOperator(GREATER_THAN, BOOLEAN.getTypeSignature(), ImmutableList.of(BIGINT.getTypeSignature(), BIGINT.getTypeSignature())),
+                BOOLEAN,
+                field(channel, BIGINT),
+                constant(5L, BIGINT));
+    }
+
+    private static List<Integer> selectPositions(PageFilter filter, Page page)
+    {
+        SelectedPositions selectedPositions = filter.filter(SESSION, filter.getInputChannels().getInputChannels(page));
+        ImmutableList.Builder<Integer> positions = ImmutableList.builder();
+        for (int i = 0; i < selectedPositions.size(); i++) {
+            positions.add(selectedPositions.isList() ? selectedPositions.getPositions()[selectedPositions.getOffset() + i] : selectedPositions.getOffset() + i);
+        }
+        return positions.build();
+    }
+
+    private GeneratedClassCache createClassCache()
+    {
+        return new GeneratedClassCache(Optional.of(directory), new DataSize(1, MEGABYTE), "test");
+    }
+
+    private static Supplier<?> defineSupplier(GeneratedClassCache classCache, AtomicInteger generated, Object value, Class<?> type)
+            throws ReflectiveOperationException
+    {
+        return classCache.defineClass(
+                Optional.of("supplier"),
+                Supplier.class,
+                BindingReferences.forTypes(ImmutableList.of()),
+                TestGeneratedClassCache.class.getClassLoader(),
+                callSiteBinder -> {
+                    generated.incrementAndGet();
+                    ClassDefinition classDefinition = new ClassDefinition(
+                            a(PUBLIC, FINAL),
+                            makeClassName("Supplier"),
+                            type(Object.class),
+                            type(Supplier.class));
+                    classDefinition.declareDefaultConstructor(a(PUBLIC));
+                    classDefinition.declareMethod(a(PUBLIC), "get", type(Object.class))
+                            .getBody()
+                            .append(loadConstant(callSiteBinder.bind(value, type)))
+                            .retObject();
+                    return classDefinition;
+                })
+                .getConstructor()
+                .newInstance();
+    }
+}
@@ -24,9 +24,11 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.sql.relational.CallExpression;
 import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.nio.file.Path;
 import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
@@ -39,7 +41,11 @@ import static com.facebook.presto.sql.relational.Expressions.call;
 import static com.facebook.presto.sql.relational.Expressions.constant;
 import static com.facebook.presto.sql.relational.Expressions.field;
 import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.nio.file.Files.createTempDirectory;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotSame;
@@ -157,6 +163,46 @@ public class TestPageFunctionCompiler
                 noCacheCompiler.compileProjection(ADD_10_EXPRESSION, Optional.of("hint2")));
     }
 
+    @Test
+    public void testClassCache()
+            throws Exception
+    {
+        Path classCacheDirectory = createTempDirectory("class-cache");
+        try {
+            GeneratedClassCache classCache = new GeneratedClassCache(Optional.of(classCacheDirectory), new DataSize(1, MEGABYTE), "test");
+            PageProjection projection = new PageFunctionCompiler(createTestMetadataManager(), 0, classCache)
+                    .compileProjection(ADD_10_EXPRESSION, Optional.empty())
+                    .get();
+            assertEquals(classCache.getMisses(), 1);
+            assertEquals(classCache.getHits(), 0);
+            assertTrue(classCache.getSizeInBytes() > 0);
+
+            // a restarted server loads the stored class
+            GeneratedClassCache restartedClassCache = new GeneratedClassCache(Optional.of(classCacheDirectory), new DataSize(1, MEGABYTE), "test");
+            PageProjection cachedProjection = new PageFunctionCompiler(createTestMetadataManager(), 0, restartedClassCache)
+                    .compileProjection(ADD_10_EXPRESSION, Optional.empty())
+                    .get();
+            assertEquals(restartedClassCache.getHits(), 1);
+            assertEquals(restartedClassCache.getGeneratedHits(), 0);
+            assertEquals(restartedClassCache.getMisses(), 0);
+
+            Page page = createLongBlockPage(1, 2, 3);
+            Block expected = projectWithoutYield(projection, page, SelectedPositions.positionsRange(0, page.getPositionCount()));
+            Block actual = projectWithoutYield(cachedProjection, page, SelectedPositions.positionsRange(0, page.getPositionCount()));
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                assertEquals(BIGINT.getLong(actual, position), BIGINT.getLong(expected, position));
+            }
+
+            // another version does not use the stored class
+            GeneratedClassCache upgradedClassCache = new GeneratedClassCache(Optional.of(classCacheDirectory), new DataSize(1, MEGABYTE), "upgraded");
+            new PageFunctionCompiler(createTestMetadataManager(), 0, upgradedClassCache).compileProjection(ADD_10_EXPRESSION, Optional.empty());
+            assertEquals(upgradedClassCache.getHits(), 0);
+        }
+        finally {
+            deleteRecursively(classCacheDirectory, ALLOW_INSECURE);
+        }
+    }
+
     private Block projectWithYield(PageProjection projection, Page page, SelectedPositions selectedPositions, int expectedYields)
     {
         DriverYieldSignal yieldSignal = new DriverYieldSignal();
@@ -14,13 +14,17 @@
 package com.facebook.presto.sql.planner;
 
 import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.Map;
 
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
 import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class TestCompilerConfig
 {
@@ -28,7 +32,10 @@ public class TestCompilerConfig
     public void testDefaults()
     {
         assertRecordedDefaults(recordDefaults(CompilerConfig.class)
-                .setExpressionCacheSize(10_000));
+                .setExpressionCacheSize(10_000)
+                .setClassCacheDirectory(null)
+                .setClassCacheMaxSize(new DataSize(1, GIGABYTE))
+                .setBackgroundCompilerThreads(2));
     }
 
     @Test
@@ -36,10 +43,16 @@ public class TestCompilerConfig
     {
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("compiler.expression-cache-size", "52")
+                .put("compiler.class-cache-directory", "/tmp/classes")
+                .put("compiler.class-cache-max-size", "10MB")
+                .put("compiler.background-compiler-threads", "4")
                 .build();
 
         CompilerConfig expected = new CompilerConfig()
-                .setExpressionCacheSize(52);
+                .setExpressionCacheSize(52)
+                .setClassCacheDirectory(new File("/tmp/classes"))
+                .setClassCacheMaxSize(new DataSize(10, MEGABYTE))
+                .setBackgroundCompilerThreads(4);
 
         assertFullMapping(properties, expected);
     }
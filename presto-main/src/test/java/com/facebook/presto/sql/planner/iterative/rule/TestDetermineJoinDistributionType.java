@@ -13,10 +13,14 @@
  */
 package com.facebook.presto.sql.planner.iterative.rule;
 
+import com.facebook.presto.connector.ConnectorId;
+import com.facebook.presto.metadata.TableHandle;
 import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
 import com.facebook.presto.sql.planner.plan.JoinNode;
 import com.facebook.presto.sql.planner.plan.JoinNode.DistributionType;
 import com.facebook.presto.sql.planner.plan.JoinNode.Type;
+import com.facebook.presto.tpch.TpchColumnHandle;
+import com.facebook.presto.tpch.TpchTableHandle;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.testng.annotations.Test;
@@ -24,10 +28,12 @@ import org.testng.annotations.Test;
 import java.util.Optional;
 
 import static com.facebook.presto.SystemSessionProperties.DISTRIBUTED_JOIN;
+import static com.facebook.presto.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.enforceSingleRow;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.equiJoinClause;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.join;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.tableScan;
 import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.values;
 import static com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder.expression;
 import static com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder.expressions;
@@ -107,6 +113,73 @@ public class TestDetermineJoinDistributionType
                         values(ImmutableMap.of("B1", 0))));
     }
 
+    @Test
+    public void testJoinMaxBroadcastTableSize()
+    {
+        // the build side is estimated at 18 bytes: two bigint values and their null flags
+        testJoinMaxBroadcastTableSize(true, "1kB", REPLICATED);
+        testJoinMaxBroadcastTableSize(false, "10B", PARTITIONED);
+        testJoinMaxBroadcastTableSize(true, "0B", PARTITIONED);
+        testJoinMaxBroadcastTableSize(false, "0B", REPLICATED);
+    }
+
+    private void testJoinMaxBroadcastTableSize(boolean sessionDistributedJoin, String maxBroadcastTableSize, DistributionType expectedDistribution)
+    {
+        tester().assertThat(new DetermineJoinDistributionType())
+                .on(p ->
+                        p.join(
+                                INNER,
+                                p.values(ImmutableList.of(p.symbol("A1")), ImmutableList.of(expressions("10"), expressions("11"))),
+                                p.values(ImmutableList.of(p.symbol("B1")), ImmutableList.of(expressions("50"), expressions("11"))),
+                                ImmutableList.of(new JoinNode.EquiJoinClause(p.symbol("A1", BIGINT), p.symbol("B1", BIGINT))),
+                                ImmutableList.of(p.symbol("A1", BIGINT), p.symbol("B1", BIGINT)),
+                                Optional.empty()))
+                .setSystemProperty(DISTRIBUTED_JOIN, Boolean.toString(sessionDistributedJoin))
+                .setSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, maxBroadcastTableSize)
+                .matches(join(
+                        INNER,
+                        ImmutableList.of(equiJoinClause("A1", "B1")),
+                        Optional.empty(),
+                        Optional.of(expectedDistribution),
+                        values(ImmutableMap.of("A1", 0)),
+                        values(ImmutableMap.of("B1", 0))));
+    }
+
+    @Test
+    public void testJoinMaxBroadcastTableSizeWithoutEstimate()
+    {
+        // there are no statistics for this scale factor, so the size of the build side is unknown
+        testJoinMaxBroadcastTableSizeWithoutEstimate(true, PARTITIONED);
+        testJoinMaxBroadcastTableSizeWithoutEstimate(false, REPLICATED);
+    }
+
+    private void testJoinMaxBroadcastTableSizeWithoutEstimate(boolean sessionDistributedJoin, DistributionType expectedDistribution)
+    {
+        ConnectorId connectorId = tester().getCurrentConnectorId();
+        TableHandle ordersTableHandle = new TableHandle(connectorId, new TpchTableHandle(connectorId.toString(), "orders", 0.5));
+        tester().assertThat(new DetermineJoinDistributionType())
+                .on(p ->
+                        p.join(
+                                INNER,
+                                p.values(ImmutableList.of(p.symbol("A1")), ImmutableList.of(expressions("10"), expressions("11"))),
+                                p.tableScan(
+                                        ordersTableHandle,
+                                        ImmutableList.of(p.symbol("B1", BIGINT)),
+                                        ImmutableMap.of(p.symbol("B1", BIGINT), new TpchColumnHandle("orderkey", BIGINT))),
+                                ImmutableList.of(new JoinNode.EquiJoinClause(p.symbol("A1", BIGINT), p.symbol("B1", BIGINT))),
+                                ImmutableList.of(p.symbol("A1", BIGINT), p.symbol("B1", BIGINT)),
+                                Optional.empty()))
+                .setSystemProperty(DISTRIBUTED_JOIN, Boolean.toString(sessionDistributedJoin))
+                .setSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, "1kB")
+                .matches(join(
+                        INNER,
+                        ImmutableList.of(equiJoinClause("A1", "B1")),
+                        Optional.empty(),
+                        Optional.of(expectedDistribution),
+                        values(ImmutableMap.of("A1", 0)),
+                        tableScan("orders")));
+    }
+
     @Test
     public void testReplicateScalar()
     {
@@ -89,7 +89,7 @@ public class TestEliminateSorts
     {
         List<PlanOptimizer> optimizers = ImmutableList.of(
                 new UnaliasSymbolReferences(),
-                new AddExchanges(getQueryRunner().getMetadata(), new SqlParser()),
+                new AddExchanges(getQueryRunner().getMetadata(), new SqlParser(), getQueryRunner().getStatsCalculator()),
                 new PruneUnreferencedOutputs(),
                 new IterativeOptimizer(
                         new RuleStatsRecorder(),
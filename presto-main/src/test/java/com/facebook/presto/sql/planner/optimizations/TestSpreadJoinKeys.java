@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.sql.planner.LogicalPlanner;
+import com.facebook.presto.sql.planner.PartitioningScheme;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.assertions.BasePlanTest;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.google.common.collect.ImmutableList;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.SystemSessionProperties.SKEWED_JOIN_KEY_VALUES;
+import static com.facebook.presto.SystemSessionProperties.SPREAD_NULL_JOIN_KEYS;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.REMOTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestSpreadJoinKeys
+        extends BasePlanTest
+{
+    @Test
+    public void testNullsNotSpreadByDefault()
+    {
+        Plan plan = plan("SELECT * FROM orders o JOIN customer c ON o.custkey = c.custkey", session(false, ""));
+        JoinNode join = getJoin(plan);
+        assertFalse(getExchangePartitioning(join.getLeft()).isSpreadNulls());
+        assertFalse(getExchangePartitioning(join.getRight()).isSpreadNulls());
+    }
+
+    @Test
+    public void testInnerJoinSpreadsNullsOnBothSides()
+    {
+        Plan plan = plan("SELECT * FROM orders o JOIN customer c ON o.custkey = c.custkey", session(true, ""));
+        JoinNode join = getJoin(plan);
+        assertTrue(getExchangePartitioning(join.getLeft()).isSpreadNulls());
+        assertTrue(getExchangePartitioning(join.getRight()).isSpreadNulls());
+    }
+
+    @Test
+    public void testOuterJoinSpreadsNullsOfInnerSide()
+    {
+        // the outer side keeps its rows with null keys, and the statistics show too few nulls to spread them
+        Plan plan = plan("SELECT * FROM orders o LEFT JOIN customer c ON o.custkey = c.custkey", session(true, ""));
+        JoinNode join = getJoin(plan);
+        assertFalse(getExchangePartitioning(join.getLeft()).isSpreadNulls());
+        assertTrue(getExchangePartitioning(join.getRight()).isSpreadNulls());
+    }
+
+    @Test
+    public void testSkewedKeysSpreadOnProbeSideAndReplicatedOnBuildSide()
+    {
+        Plan plan = plan("SELECT * FROM orders o JOIN customer c ON o.custkey = c.custkey", session(false, "1, 2"));
+        JoinNode join = getJoin(plan);
+        PartitioningScheme probePartitioning = getExchangePartitioning(join.getLeft());
+        assertEquals(probePartitioning.getSkewedKeyValues(), ImmutableList.of("1", "2"));
+        assertFalse(probePartitioning.isReplicateSkewedKeys());
+        PartitioningScheme buildPartitioning = getExchangePartitioning(join.getRight());
+        assertEquals(buildPartitioning.getSkewedKeyValues(), ImmutableList.of("1", "2"));
+        assertTrue(buildPartitioning.isReplicateSkewedKeys());
+    }
+
+    @Test
+    public void testSkewedKeysNotDistributedForFullJoin()
+    {
+        // replicated build rows would be output once per partition when they are unmatched
+        Plan plan = plan("SELECT * FROM orders o FULL JOIN customer c ON o.custkey = c.custkey", session(false, "1"));
+        JoinNode join = getJoin(plan);
+        assertEquals(getExchangePartitioning(join.getLeft()).getSkewedKeyValues(), ImmutableList.of());
+        assertEquals(getExchangePartitioning(join.getRight()).getSkewedKeyValues(), ImmutableList.of());
+    }
+
+    private Plan plan(@Language("SQL") String sql, Session session)
+    {
+        return getQueryRunner().inTransaction(session, transactionSession -> getQueryRunner().createPlan(transactionSession, sql, LogicalPlanner.Stage.OPTIMIZED_AND_VALIDATED, false));
+    }
+
+    private Session session(boolean spreadNullJoinKeys, String skewedJoinKeyValues)
+    {
+        return Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(SPREAD_NULL_JOIN_KEYS, Boolean.toString(spreadNullJoinKeys))
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, skewedJoinKeyValues)
+                .build();
+    }
+
+    private static JoinNode getJoin(Plan plan)
+    {
+        return searchFrom(plan.getRoot())
+                .where(JoinNode.class::isInstance)
+                .findOnlyElement();
+    }
+
+    private static PartitioningScheme getExchangePartitioning(PlanNode joinSource)
+    {
+        ExchangeNode exchange = searchFrom(joinSource)
+                .where(node -> node instanceof ExchangeNode && ((ExchangeNode) node).getScope() == REMOTE)
+                .findOnlyElement();
+        return exchange.getPartitioningScheme();
+    }
+}
@@ -333,6 +333,21 @@ public class MemoryMetadata
         return ImmutableList.of(new ConnectorTableLayoutResult(getTableLayout(session, layoutHandle), constraint.getSummary()));
     }
 
+    @Override
+    public synchronized Optional<String> getTableDataVersion(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        MemoryTableHandle memoryTableHandle = (MemoryTableHandle) tableHandle;
+        Map<HostAddress, MemoryDataFragment> dataFragments = tableDataFragments.get(memoryTableHandle.getTableId());
+        if (dataFragments == null) {
+            return Optional.empty();
+        }
+        // rows are only ever appended to a table, and a recreated table gets a new id
+        long rows = dataFragments.values().stream()
+                .mapToLong(MemoryDataFragment::getRows)
+                .sum();
+        return Optional.of(memoryTableHandle.getTableId() + ":" + rows);
+    }
+
     @Override
     public synchronized ConnectorTableLayout getTableLayout(ConnectorSession session, ConnectorTableLayoutHandle handle)
     {
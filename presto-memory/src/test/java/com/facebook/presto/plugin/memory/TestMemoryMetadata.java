@@ -21,6 +21,7 @@ import com.facebook.presto.spi.ConnectorTableLayoutResult;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.ConnectorViewDefinition;
 import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaNotFoundException;
 import com.facebook.presto.spi.SchemaTableName;
@@ -41,6 +42,7 @@ import static com.facebook.presto.spi.StandardErrorCode.NOT_FOUND;
 import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
 import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.expectThrows;
@@ -157,6 +159,33 @@ public class TestMemoryMetadata
         metadata.finishCreateTable(SESSION, table, ImmutableList.of());
     }
 
+    @Test
+    public void testTableDataVersion()
+    {
+        assertNoTables();
+
+        SchemaTableName tableName = new SchemaTableName("default", "temp_table");
+        metadata.createTable(SESSION, new ConnectorTableMetadata(tableName, ImmutableList.of(), ImmutableMap.of()), false);
+        MemoryTableHandle tableHandle = (MemoryTableHandle) metadata.getTableHandle(SESSION, tableName);
+
+        Optional<String> emptyTableVersion = metadata.getTableDataVersion(SESSION, tableHandle);
+        assertTrue(emptyTableVersion.isPresent());
+        assertEquals(metadata.getTableDataVersion(SESSION, tableHandle), emptyTableVersion);
+
+        MemoryDataFragment fragment = new MemoryDataFragment(HostAddress.fromParts("localhost", 8080), 10);
+        metadata.finishInsert(SESSION, metadata.beginInsert(SESSION, tableHandle), ImmutableList.of(fragment.toSlice()));
+        Optional<String> version = metadata.getTableDataVersion(SESSION, tableHandle);
+        assertTrue(version.isPresent());
+        assertNotEquals(version, emptyTableVersion);
+
+        // a table created again under the same name starts over
+        metadata.dropTable(SESSION, tableHandle);
+        metadata.createTable(SESSION, new ConnectorTableMetadata(tableName, ImmutableList.of(), ImmutableMap.of()), false);
+        ConnectorTableHandle newTableHandle = metadata.getTableHandle(SESSION, tableName);
+        assertNotEquals(metadata.getTableDataVersion(SESSION, newTableHandle), emptyTableVersion);
+        assertFalse(metadata.getTableDataVersion(SESSION, tableHandle).isPresent());
+    }
+
     @Test
     public void testCreateSchema()
     {
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.memory;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.SqlQueryManagerStats;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.tests.AbstractTestQueryFramework;
+import com.facebook.presto.tests.DistributedQueryRunner;
+import com.facebook.presto.tests.ResultWithQueryId;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.SystemSessionProperties.QUERY_RESULT_CACHE_ENABLED;
+import static com.facebook.presto.testing.assertions.Assert.assertEquals;
+import static com.facebook.presto.tests.QueryAssertions.assertEqualsIgnoreOrder;
+
+@Test(singleThreaded = true)
+public class TestMemoryQueryResultCache
+        extends AbstractTestQueryFramework
+{
+    public TestMemoryQueryResultCache()
+    {
+        super(MemoryQueryRunner::createQueryRunner);
+    }
+
+    @Test
+    public void testRepeatedQueryIsServedFromCache()
+    {
+        @Language("SQL") String sql = "SELECT orderstatus, count(*), sum(totalprice) FROM tpch.tiny.orders GROUP BY orderstatus";
+        MaterializedResult expected = computeActual(sql);
+
+        long hits = getStats().getResultCacheHits().getTotalCount();
+        long misses = getStats().getResultCacheMisses().getTotalCount();
+        ResultWithQueryId<MaterializedResult> first = getDistributedQueryRunner().executeWithQueryId(getCachingSession(), sql);
+        assertEquals(getStats().getResultCacheHits().getTotalCount(), hits);
+        assertEquals(getStats().getResultCacheMisses().getTotalCount(), misses + 1);
+        assertEquals(getRawInputPositions(first), 15_000L);
+
+        ResultWithQueryId<MaterializedResult> second = getDistributedQueryRunner().executeWithQueryId(getCachingSession(), sql);
+        assertEquals(getStats().getResultCacheHits().getTotalCount(), hits + 1);
+        assertEquals(getStats().getResultCacheMisses().getTotalCount(), misses + 1);
+        // the cached rows are served without scanning the table
+        assertEquals(getRawInputPositions(second), 0L);
+
+        assertEqualsIgnoreOrder(first.getResult().getMaterializedRows(), expected.getMaterializedRows());
+        // a hit returns exactly the captured rows
+        assertEquals(second.getResult().getMaterializedRows(), first.getResult().getMaterializedRows());
+        assertEquals(second.getResult().getTypes(), first.getResult().getTypes());
+    }
+
+    @Test
+    public void testWriteInvalidatesCachedResult()
+    {
+        assertUpdate("CREATE TABLE test_result_cache AS SELECT * FROM tpch.tiny.nation", 25);
+
+        @Language("SQL") String sql = "SELECT count(*), sum(nationkey) FROM test_result_cache";
+        long hits = getStats().getResultCacheHits().getTotalCount();
+        assertEquals(getQueryRunner().execute(getCachingSession(), sql).getMaterializedRows(), computeActual("SELECT BIGINT '25', BIGINT '300'").getMaterializedRows());
+        assertEquals(getQueryRunner().execute(getCachingSession(), sql).getMaterializedRows(), computeActual("SELECT BIGINT '25', BIGINT '300'").getMaterializedRows());
+        assertEquals(getStats().getResultCacheHits().getTotalCount(), hits + 1);
+
+        assertUpdate("INSERT INTO test_result_cache SELECT * FROM tpch.tiny.nation", 25);
+
+        assertEquals(getQueryRunner().execute(getCachingSession(), sql).getMaterializedRows(), computeActual("SELECT BIGINT '50', BIGINT '600'").getMaterializedRows());
+        assertEquals(getStats().getResultCacheHits().getTotalCount(), hits + 1);
+
+        assertUpdate("DROP TABLE test_result_cache");
+    }
+
+    private Session getCachingSession()
+    {
+        return Session.builder(getSession())
+                .setSystemProperty(QUERY_RESULT_CACHE_ENABLED, "true")
+                .build();
+    }
+
+    private DistributedQueryRunner getDistributedQueryRunner()
+    {
+        return (DistributedQueryRunner) getQueryRunner();
+    }
+
+    private SqlQueryManagerStats getStats()
+    {
+        return getDistributedQueryRunner().getCoordinator().getQueryManager().getStats();
+    }
+
+    private long getRawInputPositions(ResultWithQueryId<MaterializedResult> result)
+    {
+        return getDistributedQueryRunner().getQueryInfo(result.getQueryId()).getQueryStats().getRawInputPositions();
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Cache of decoded ORC file tails, stripe footers and row indexes, shared by all
+ * readers in the process. Entries are keyed by the data source id and the file
+ * size, and are weighed by the size of the encoded metadata they were decoded from.
+ * <p>
+ * The cache assumes files are not rewritten in place with the same size, so the
+ * time to live bounds how long a reader can observe stale metadata.
+ */
+public class OrcMetadataCache
+{
+    public static final OrcMetadataCache NO_CACHE = new OrcMetadataCache(new DataSize(0, BYTE), new Duration(0, MILLISECONDS));
+
+    private final boolean enabled;
+    private final Cache<CacheKey, CacheEntry> cache;
+    private final AtomicLong sizeInBytes = new AtomicLong();
+
+    public OrcMetadataCache(DataSize maxSize, Duration ttlSinceLastAccess)
+    {
+        requireNonNull(maxSize, "maxSize is null");
+        requireNonNull(ttlSinceLastAccess, "ttlSinceLastAccess is null");
+        this.enabled = maxSize.toBytes() > 0 && ttlSinceLastAccess.toMillis() > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((CacheKey key, CacheEntry entry) -> entry.getSizeInBytes())
+                .expireAfterAccess(ttlSinceLastAccess.toMillis(), MILLISECONDS)
+                .removalListener((RemovalNotification<CacheKey, CacheEntry> notification) -> sizeInBytes.addAndGet(-notification.getValue().getSizeInBytes()))
+                .recordStats()
+                .build();
+    }
+
+    OrcFileTail getFileTail(OrcDataSource dataSource, MetadataLoader<OrcFileTail> loader)
+            throws IOException
+    {
+        return get(new CacheKey(MetadataKind.FILE_TAIL, dataSource, 0, 0), loader, OrcFileTail::getEncodedSize);
+    }
+
+    StripeFooter getStripeFooter(OrcDataSource dataSource, long stripeOffset, int encodedSize, MetadataLoader<StripeFooter> loader)
+            throws IOException
+    {
+        return get(new CacheKey(MetadataKind.STRIPE_FOOTER, dataSource, stripeOffset, 0), loader, footer -> encodedSize);
+    }
+
+    Optional<List<RowGroupIndex>> getRowIndexes(OrcDataSource dataSource, long stripeOffset, int column)
+    {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CacheEntry entry = cache.getIfPresent(new CacheKey(MetadataKind.ROW_INDEX, dataSource, stripeOffset, column));
+        if (entry == null) {
+            return Optional.empty();
+        }
+        @SuppressWarnings("unchecked")
+        List<RowGroupIndex> rowIndexes = (List<RowGroupIndex>) entry.getValue();
+        return Optional.of(rowIndexes);
+    }
+
+    void putRowIndexes(OrcDataSource dataSource, long stripeOffset, int column, List<RowGroupIndex> rowIndexes, int encodedSize)
+    {
+        if (!enabled) {
+            return;
+        }
+        CacheEntry entry = new CacheEntry(rowIndexes, encodedSize);
+        if (cache.asMap().putIfAbsent(new CacheKey(MetadataKind.ROW_INDEX, dataSource, stripeOffset, column), entry) == null) {
+            sizeInBytes.addAndGet(encodedSize);
+        }
+    }
+
+    private <T> T get(CacheKey key, MetadataLoader<T> loader, SizeFunction<T> sizeFunction)
+            throws IOException
+    {
+        if (!enabled) {
+            return loader.load();
+        }
+        try {
+            CacheEntry entry = cache.get(key, () -> {
+                T value = loader.load();
+                int size = sizeFunction.getSizeInBytes(value);
+                sizeInBytes.addAndGet(size);
+                return new CacheEntry(value, size);
+            });
+            @SuppressWarnings("unchecked")
+            T value = (T) entry.getValue();
+            return value;
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            throwIfInstanceOf(e.getCause(), IOException.class);
+            throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Managed
+    public long getSizeInBytes()
+    {
+        return sizeInBytes.get();
+    }
+
+    @Managed
+    public long getEntryCount()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    @Managed
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+
+    interface MetadataLoader<T>
+    {
+        T load()
+                throws IOException;
+    }
+
+    private interface SizeFunction<T>
+    {
+        int getSizeInBytes(T value);
+    }
+
+    private enum MetadataKind
+    {
+        FILE_TAIL,
+        STRIPE_FOOTER,
+        ROW_INDEX,
+    }
+
+    private static final class CacheKey
+    {
+        private final MetadataKind kind;
+        private final OrcDataSourceId dataSourceId;
+        private final long fileSize;
+        private final long stripeOffset;
+        private final int column;
+
+        public CacheKey(MetadataKind kind, OrcDataSource dataSource, long stripeOffset, int column)
+        {
+            this.kind = requireNonNull(kind, "kind is null");
+            this.dataSourceId = dataSource.getId();
+            this.fileSize = dataSource.getSize();
+            this.stripeOffset = stripeOffset;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey that = (CacheKey) o;
+            return kind == that.kind &&
+                    fileSize == that.fileSize &&
+                    stripeOffset == that.stripeOffset &&
+                    column == that.column &&
+                    Objects.equals(dataSourceId, that.dataSourceId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(kind, dataSourceId, fileSize, stripeOffset, column);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("kind", kind)
+                    .add("dataSourceId", dataSourceId)
+                    .add("fileSize", fileSize)
+                    .add("stripeOffset", stripeOffset)
+                    .add("column", column)
+                    .toString();
+        }
+    }
+
+    private static final class CacheEntry
+    {
+        private final Object value;
+        private final int sizeInBytes;
+
+        public CacheEntry(Object value, int sizeInBytes)
+        {
+            this.value = requireNonNull(value, "value is null");
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        public Object getValue()
+        {
+            return value;
+        }
+
+        public int getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+    }
+}
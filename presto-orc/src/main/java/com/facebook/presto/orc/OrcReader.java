@@ -70,12 +70,26 @@ public class OrcReader
     private final Metadata metadata;
 
     private final Optional<OrcWriteValidation> writeValidation;
+    private final OrcMetadataCache metadataCache;
 
     // This is based on the Apache Hive ORC code
     public OrcReader(OrcDataSource orcDataSource, OrcEncoding orcEncoding, DataSize maxMergeDistance, DataSize maxReadSize, DataSize tinyStripeThreshold, DataSize maxBlockSize)
             throws IOException
     {
-        this(orcDataSource, orcEncoding, maxMergeDistance, maxReadSize, tinyStripeThreshold, maxBlockSize, Optional.empty());
+        this(orcDataSource, orcEncoding, maxMergeDistance, maxReadSize, tinyStripeThreshold, maxBlockSize, OrcMetadataCache.NO_CACHE);
+    }
+
+    public OrcReader(
+            OrcDataSource orcDataSource,
+            OrcEncoding orcEncoding,
+            DataSize maxMergeDistance,
+            DataSize maxReadSize,
+            DataSize tinyStripeThreshold,
+            DataSize maxBlockSize,
+            OrcMetadataCache metadataCache)
+            throws IOException
+    {
+        this(orcDataSource, orcEncoding, maxMergeDistance, maxReadSize, tinyStripeThreshold, maxBlockSize, Optional.empty(), metadataCache);
     }
 
     OrcReader(
@@ -85,7 +99,8 @@ public class OrcReader
             DataSize maxReadSize,
             DataSize tinyStripeThreshold,
             DataSize maxBlockSize,
-            Optional<OrcWriteValidation> writeValidation)
+            Optional<OrcWriteValidation> writeValidation,
+            OrcMetadataCache metadataCache)
             throws IOException
     {
         orcDataSource = wrapWithCacheIfTiny(orcDataSource, tinyStripeThreshold);
@@ -98,46 +113,11 @@ public class OrcReader
         this.maxBlockSize = requireNonNull(maxBlockSize, "maxBlockSize is null");
 
         this.writeValidation = requireNonNull(writeValidation, "writeValidation is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
 
-        //
-        // Read the file tail:
-        //
-        // variable: Footer
-        // variable: Metadata
-        // variable: PostScript - contains length of footer and metadata
-        // 1 byte: postScriptSize
-
-        // figure out the size of the file using the option or filesystem
-        long size = orcDataSource.getSize();
-        if (size <= MAGIC.length()) {
-            throw new OrcCorruptionException(orcDataSource.getId(), "Invalid file size %s", size);
-        }
-
-        // Read the tail of the file
-        byte[] buffer = new byte[toIntExact(min(size, EXPECTED_FOOTER_SIZE))];
-        orcDataSource.readFully(size - buffer.length, buffer);
-
-        // get length of PostScript - last byte of the file
-        int postScriptSize = buffer[buffer.length - SIZE_OF_BYTE] & 0xff;
-        if (postScriptSize >= buffer.length) {
-            throw new OrcCorruptionException(orcDataSource.getId(), "Invalid postscript length %s", postScriptSize);
-        }
+        OrcFileTail fileTail = metadataCache.getFileTail(orcDataSource, () -> readFileTail(this.orcDataSource, metadataReader));
+        PostScript postScript = fileTail.getPostScript();
 
-        // decode the post script
-        PostScript postScript;
-        try {
-            postScript = metadataReader.readPostScript(buffer, buffer.length - SIZE_OF_BYTE - postScriptSize, postScriptSize);
-        }
-        catch (OrcCorruptionException e) {
-            // check if this is an ORC file and not an RCFile or something else
-            if (!isValidHeaderMagic(orcDataSource)) {
-                throw new OrcCorruptionException(orcDataSource.getId(), "Not an ORC file");
-            }
-            throw e;
-        }
-
-        // verify this is a supported version
-        checkOrcVersion(orcDataSource, postScript.getVersion());
         validateWrite(validation -> validation.getVersion().equals(postScript.getVersion()), "Unexpected version");
 
         this.bufferSize = toIntExact(postScript.getCompressionBlockSize());
@@ -148,40 +128,8 @@ public class OrcReader
         validateWrite(validation -> validation.getCompression() == compressionKind, "Unexpected compression");
 
         this.hiveWriterVersion = postScript.getHiveWriterVersion();
-
-        int footerSize = toIntExact(postScript.getFooterLength());
-        int metadataSize = toIntExact(postScript.getMetadataLength());
-
-        // check if extra bytes need to be read
-        Slice completeFooterSlice;
-        int completeFooterSize = footerSize + metadataSize + postScriptSize + SIZE_OF_BYTE;
-        if (completeFooterSize > buffer.length) {
-            // allocate a new buffer large enough for the complete footer
-            byte[] newBuffer = new byte[completeFooterSize];
-            completeFooterSlice = Slices.wrappedBuffer(newBuffer);
-
-            // initial read was not large enough, so read missing section
-            orcDataSource.readFully(size - completeFooterSize, newBuffer, 0, completeFooterSize - buffer.length);
-
-            // copy already read bytes into the new buffer
-            completeFooterSlice.setBytes(completeFooterSize - buffer.length, buffer);
-        }
-        else {
-            // footer is already in the bytes in buffer, just adjust position, length
-            completeFooterSlice = Slices.wrappedBuffer(buffer, buffer.length - completeFooterSize, completeFooterSize);
-        }
-
-        // read metadata
-        Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
-        try (InputStream metadataInputStream = new OrcInputStream(orcDataSource.getId(), metadataSlice.getInput(), decompressor, newSimpleAggregatedMemoryContext(), metadataSize)) {
-            this.metadata = metadataReader.readMetadata(hiveWriterVersion, metadataInputStream);
-        }
-
-        // read footer
-        Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
-        try (InputStream footerInputStream = new OrcInputStream(orcDataSource.getId(), footerSlice.getInput(), decompressor, newSimpleAggregatedMemoryContext(), footerSize)) {
-            this.footer = metadataReader.readFooter(hiveWriterVersion, footerInputStream);
-        }
+        this.footer = fileTail.getFooter();
+        this.metadata = fileTail.getMetadata();
 
         validateWrite(validation -> validation.getColumnNames().equals(getColumnNames()), "Unexpected column names");
         validateWrite(validation -> validation.getRowGroupMaxRowCount() == footer.getRowsInRowGroup(), "Unexpected rows in group");
@@ -246,6 +194,7 @@ public class OrcReader
                 requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null"),
                 hiveWriterVersion,
                 metadataReader,
+                metadataCache,
                 maxMergeDistance,
                 tinyStripeThreshold,
                 maxBlockSize,
@@ -254,6 +203,93 @@ public class OrcReader
                 writeValidation);
     }
 
+    private static OrcFileTail readFileTail(OrcDataSource orcDataSource, ExceptionWrappingMetadataReader metadataReader)
+            throws IOException
+    {
+        //
+        // Read the file tail:
+        //
+        // variable: Footer
+        // variable: Metadata
+        // variable: PostScript - contains length of footer and metadata
+        // 1 byte: postScriptSize
+
+        // figure out the size of the file using the option or filesystem
+        long size = orcDataSource.getSize();
+        if (size <= MAGIC.length()) {
+            throw new OrcCorruptionException(orcDataSource.getId(), "Invalid file size %s", size);
+        }
+
+        // Read the tail of the file
+        byte[] buffer = new byte[toIntExact(min(size, EXPECTED_FOOTER_SIZE))];
+        orcDataSource.readFully(size - buffer.length, buffer);
+
+        // get length of PostScript - last byte of the file
+        int postScriptSize = buffer[buffer.length - SIZE_OF_BYTE] & 0xff;
+        if (postScriptSize >= buffer.length) {
+            throw new OrcCorruptionException(orcDataSource.getId(), "Invalid postscript length %s", postScriptSize);
+        }
+
+        // decode the post script
+        PostScript postScript;
+        try {
+            postScript = metadataReader.readPostScript(buffer, buffer.length - SIZE_OF_BYTE - postScriptSize, postScriptSize);
+        }
+        catch (OrcCorruptionException e) {
+            // check if this is an ORC file and not an RCFile or something else
+            if (!isValidHeaderMagic(orcDataSource)) {
+                throw new OrcCorruptionException(orcDataSource.getId(), "Not an ORC file");
+            }
+            throw e;
+        }
+
+        // verify this is a supported version
+        checkOrcVersion(orcDataSource, postScript.getVersion());
+
+        // check compression codec is supported
+        int bufferSize = toIntExact(postScript.getCompressionBlockSize());
+        Optional<OrcDecompressor> decompressor = createOrcDecompressor(orcDataSource.getId(), postScript.getCompression(), bufferSize);
+        HiveWriterVersion hiveWriterVersion = postScript.getHiveWriterVersion();
+
+        int footerSize = toIntExact(postScript.getFooterLength());
+        int metadataSize = toIntExact(postScript.getMetadataLength());
+
+        // check if extra bytes need to be read
+        Slice completeFooterSlice;
+        int completeFooterSize = footerSize + metadataSize + postScriptSize + SIZE_OF_BYTE;
+        if (completeFooterSize > buffer.length) {
+            // allocate a new buffer large enough for the complete footer
+            byte[] newBuffer = new byte[completeFooterSize];
+            completeFooterSlice = Slices.wrappedBuffer(newBuffer);
+
+            // initial read was not large enough, so read missing section
+            orcDataSource.readFully(size - completeFooterSize, newBuffer, 0, completeFooterSize - buffer.length);
+
+            // copy already read bytes into the new buffer
+            completeFooterSlice.setBytes(completeFooterSize - buffer.length, buffer);
+        }
+        else {
+            // footer is already in the bytes in buffer, just adjust position, length
+            completeFooterSlice = Slices.wrappedBuffer(buffer, buffer.length - completeFooterSize, completeFooterSize);
+        }
+
+        // read metadata
+        Metadata metadata;
+        Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
+        try (InputStream metadataInputStream = new OrcInputStream(orcDataSource.getId(), metadataSlice.getInput(), decompressor, newSimpleAggregatedMemoryContext(), metadataSize)) {
+            metadata = metadataReader.readMetadata(hiveWriterVersion, metadataInputStream);
+        }
+
+        // read footer
+        Footer footer;
+        Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
+        try (InputStream footerInputStream = new OrcInputStream(orcDataSource.getId(), footerSlice.getInput(), decompressor, newSimpleAggregatedMemoryContext(), footerSize)) {
+            footer = metadataReader.readFooter(hiveWriterVersion, footerInputStream);
+        }
+
+        return new OrcFileTail(postScript, footer, metadata, completeFooterSize);
+    }
+
     private static OrcDataSource wrapWithCacheIfTiny(OrcDataSource dataSource, DataSize maxCacheSize)
     {
         if (dataSource instanceof CachingOrcDataSource) {
@@ -323,7 +359,7 @@ public class OrcReader
             readTypes.put(columnIndex, types.get(columnIndex));
         }
         try {
-            OrcReader orcReader = new OrcReader(input, orcEncoding, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(16, MEGABYTE), Optional.of(writeValidation));
+            OrcReader orcReader = new OrcReader(input, orcEncoding, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(16, MEGABYTE), Optional.of(writeValidation), OrcMetadataCache.NO_CACHE);
             try (OrcRecordReader orcRecordReader = orcReader.createRecordReader(readTypes.build(), OrcPredicate.TRUE, hiveStorageTimeZone, newSimpleAggregatedMemoryContext())) {
                 while (orcRecordReader.nextBatch() >= 0) {
                     // ignored
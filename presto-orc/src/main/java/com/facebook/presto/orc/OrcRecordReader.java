@@ -123,6 +123,7 @@ public class OrcRecordReader
             DateTimeZone hiveStorageTimeZone,
             HiveWriterVersion hiveWriterVersion,
             MetadataReader metadataReader,
+            OrcMetadataCache metadataCache,
             DataSize maxMergeDistance,
             DataSize tinyStripeThreshold,
             DataSize maxBlockSize,
@@ -221,6 +222,7 @@ public class OrcRecordReader
                 predicate,
                 hiveWriterVersion,
                 metadataReader,
+                metadataCache,
                 writeValidation);
 
         streamReaders = createStreamReaders(orcDataSource, types, hiveStorageTimeZone, presentColumnsAndTypes.build());
@@ -378,6 +380,25 @@ public class OrcRecordReader
             throws IOException
     {
         Block block = streamReaders[columnIndex].readBlock(type);
+        updateMaxBytesPerCell(columnIndex, block);
+        return block;
+    }
+
+    /**
+     * Reads only the specified positions of the current batch for the column.
+     * The positions must be sorted in increasing order.
+     */
+    public Block readBlock(Type type, int columnIndex, int[] positions, int positionCount)
+            throws IOException
+    {
+        checkArgument(positionCount <= positions.length, "positionCount is greater than the positions array");
+        Block block = streamReaders[columnIndex].readBlock(type, positions, positionCount);
+        updateMaxBytesPerCell(columnIndex, block);
+        return block;
+    }
+
+    private void updateMaxBytesPerCell(int columnIndex, Block block)
+    {
         if (block.getPositionCount() > 0) {
             long bytesPerCell = block.getSizeInBytes() / block.getPositionCount();
             if (maxBytesPerCell[columnIndex] < bytesPerCell) {
@@ -386,7 +407,6 @@ public class OrcRecordReader
                 maxBatchSize = toIntExact(min(maxBatchSize, max(1, maxBlockBytes / maxCombinedBytesPerRow)));
             }
         }
-        return block;
     }
 
     public StreamReader getStreamReader(int index)
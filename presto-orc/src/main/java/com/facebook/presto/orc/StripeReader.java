@@ -35,7 +35,6 @@ import com.facebook.presto.orc.stream.OrcInputStream;
 import com.facebook.presto.orc.stream.ValueInputStream;
 import com.facebook.presto.orc.stream.ValueInputStreamSource;
 import com.facebook.presto.orc.stream.ValueStreams;
-import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -78,6 +77,7 @@ public class StripeReader
     private final int rowsInRowGroup;
     private final OrcPredicate predicate;
     private final MetadataReader metadataReader;
+    private final OrcMetadataCache metadataCache;
     private final Optional<OrcWriteValidation> writeValidation;
 
     public StripeReader(OrcDataSource orcDataSource,
@@ -88,6 +88,7 @@ public class StripeReader
             OrcPredicate predicate,
             HiveWriterVersion hiveWriterVersion,
             MetadataReader metadataReader,
+            OrcMetadataCache metadataCache,
             Optional<OrcWriteValidation> writeValidation)
     {
         this.orcDataSource = requireNonNull(orcDataSource, "orcDataSource is null");
@@ -98,6 +99,7 @@ public class StripeReader
         this.predicate = requireNonNull(predicate, "predicate is null");
         this.hiveWriterVersion = requireNonNull(hiveWriterVersion, "hiveWriterVersion is null");
         this.metadataReader = requireNonNull(metadataReader, "metadataReader is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
         this.writeValidation = requireNonNull(writeValidation, "writeValidation is null");
     }
 
@@ -125,18 +127,25 @@ public class StripeReader
         // handle stripes with more than one row group or a dictionary
         boolean invalidCheckPoint = false;
         if ((stripe.getNumberOfRows() > rowsInRowGroup) || hasRowGroupDictionary) {
+            // row indexes found in the metadata cache do not need to be read again
+            Map<Integer, List<RowGroupIndex>> cachedColumnIndexes = getCachedColumnIndexes(stripe, streams);
+
             // determine ranges of the stripe to read
             Map<StreamId, DiskRange> diskRanges = getDiskRanges(stripeFooter.getStreams());
-            diskRanges = Maps.filterKeys(diskRanges, Predicates.in(streams.keySet()));
+            diskRanges = Maps.filterKeys(diskRanges, streamId -> streams.containsKey(streamId) &&
+                    !(isIndexStream(streams.get(streamId)) && cachedColumnIndexes.containsKey(streamId.getColumn())));
 
             // read the file regions
             Map<StreamId, OrcInputStream> streamsData = readDiskRanges(stripe.getOffset(), diskRanges, systemMemoryUsage);
 
             // read the bloom filter for each column
-            Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
+            Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData, cachedColumnIndexes.keySet());
 
             // read the row index for each column
-            Map<Integer, List<RowGroupIndex>> columnIndexes = readColumnIndexes(streams, streamsData, bloomFilterIndexes);
+            Map<Integer, List<RowGroupIndex>> columnIndexes = ImmutableMap.<Integer, List<RowGroupIndex>>builder()
+                    .putAll(cachedColumnIndexes)
+                    .putAll(readColumnIndexes(stripe, streams, streamsData, bloomFilterIndexes, cachedColumnIndexes.keySet()))
+                    .build();
             if (writeValidation.isPresent()) {
                 writeValidation.get().validateRowGroupStatistics(orcDataSource.getId(), stripe.getOffset(), columnIndexes);
             }
@@ -360,12 +369,26 @@ public class StripeReader
         long offset = stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength();
         int tailLength = toIntExact(stripe.getFooterLength());
 
-        // read the footer
-        byte[] tailBuffer = new byte[tailLength];
-        orcDataSource.readFully(offset, tailBuffer);
-        try (InputStream inputStream = new OrcInputStream(orcDataSource.getId(), Slices.wrappedBuffer(tailBuffer).getInput(), decompressor, systemMemoryUsage, tailLength)) {
-            return metadataReader.readStripeFooter(types, inputStream);
+        return metadataCache.getStripeFooter(orcDataSource, stripe.getOffset(), tailLength, () -> {
+            // read the footer
+            byte[] tailBuffer = new byte[tailLength];
+            orcDataSource.readFully(offset, tailBuffer);
+            try (InputStream inputStream = new OrcInputStream(orcDataSource.getId(), Slices.wrappedBuffer(tailBuffer).getInput(), decompressor, systemMemoryUsage, tailLength)) {
+                return metadataReader.readStripeFooter(types, inputStream);
+            }
+        });
+    }
+
+    private Map<Integer, List<RowGroupIndex>> getCachedColumnIndexes(StripeInformation stripe, Map<StreamId, Stream> streams)
+    {
+        ImmutableMap.Builder<Integer, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
+        for (StreamId streamId : streams.keySet()) {
+            if (streamId.getStreamKind() == ROW_INDEX) {
+                metadataCache.getRowIndexes(orcDataSource, stripe.getOffset(), streamId.getColumn())
+                        .ifPresent(rowGroupIndexes -> columnIndexes.put(streamId.getColumn(), rowGroupIndexes));
+            }
         }
+        return columnIndexes.build();
     }
 
     static boolean isIndexStream(Stream stream)
@@ -373,13 +396,13 @@ public class StripeReader
         return stream.getStreamKind() == ROW_INDEX || stream.getStreamKind() == DICTIONARY_COUNT || stream.getStreamKind() == BLOOM_FILTER || stream.getStreamKind() == BLOOM_FILTER_UTF8;
     }
 
-    private Map<Integer, List<HiveBloomFilter>> readBloomFilterIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData)
+    private Map<Integer, List<HiveBloomFilter>> readBloomFilterIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData, Set<Integer> cachedColumns)
             throws IOException
     {
         ImmutableMap.Builder<Integer, List<HiveBloomFilter>> bloomFilters = ImmutableMap.builder();
         for (Entry<StreamId, Stream> entry : streams.entrySet()) {
             Stream stream = entry.getValue();
-            if (stream.getStreamKind() == BLOOM_FILTER) {
+            if (stream.getStreamKind() == BLOOM_FILTER && !cachedColumns.contains(stream.getColumn())) {
                 OrcInputStream inputStream = streamsData.get(entry.getKey());
                 bloomFilters.put(stream.getColumn(), metadataReader.readBloomFilterIndexes(inputStream));
             }
@@ -388,13 +411,18 @@ public class StripeReader
         return bloomFilters.build();
     }
 
-    private Map<Integer, List<RowGroupIndex>> readColumnIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData, Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes)
+    private Map<Integer, List<RowGroupIndex>> readColumnIndexes(
+            StripeInformation stripe,
+            Map<StreamId, Stream> streams,
+            Map<StreamId, OrcInputStream> streamsData,
+            Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes,
+            Set<Integer> cachedColumns)
             throws IOException
     {
         ImmutableMap.Builder<Integer, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
         for (Entry<StreamId, Stream> entry : streams.entrySet()) {
             Stream stream = entry.getValue();
-            if (stream.getStreamKind() == ROW_INDEX) {
+            if (stream.getStreamKind() == ROW_INDEX && !cachedColumns.contains(stream.getColumn())) {
                 OrcInputStream inputStream = streamsData.get(entry.getKey());
                 List<HiveBloomFilter> bloomFilters = bloomFilterIndexes.get(stream.getColumn());
                 List<RowGroupIndex> rowGroupIndexes = metadataReader.readRowIndexes(hiveWriterVersion, inputStream);
@@ -409,6 +437,10 @@ public class StripeReader
                     rowGroupIndexes = newRowGroupIndexes.build();
                 }
                 columnIndexes.put(stream.getColumn(), rowGroupIndexes);
+
+                Stream bloomFilterStream = streams.get(new StreamId(stream.getColumn(), BLOOM_FILTER));
+                long encodedSize = stream.getLength() + (bloomFilterStream == null ? 0 : bloomFilterStream.getLength());
+                metadataCache.putRowIndexes(orcDataSource, stripe.getOffset(), stream.getColumn(), rowGroupIndexes, toIntExact(encodedSize));
             }
         }
         return columnIndexes.build();
@@ -91,6 +91,19 @@ public class LongDictionaryStreamReader
     @Override
     public Block readBlock(Type type)
             throws IOException
+    {
+        return readValues(type, null, nextBatchSize);
+    }
+
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        return readValues(type, requireNonNull(positions, "positions is null"), positionCount);
+    }
+
+    private Block readValues(Type type, @Nullable int[] positions, int positionCount)
+            throws IOException
     {
         if (!rowGroupOpen) {
             openRowGroup();
@@ -117,7 +130,9 @@ public class LongDictionaryStreamReader
 
         assureVectorSize();
 
-        BlockBuilder builder = type.createBlockBuilder(null, nextBatchSize);
+        BlockBuilder builder = type.createBlockBuilder(null, positionCount);
+        int subBatchOffset = 0;
+        int selected = 0;
         while (nextBatchSize > 0) {
             int subBatchSize = min(nextBatchSize, MAX_BATCH_SIZE);
             if (presentStream == null) {
@@ -144,17 +159,19 @@ public class LongDictionaryStreamReader
                 inDictionaryStream.getSetBits(subBatchSize, inDictionaryVector, nullVector);
             }
 
-            for (int i = 0; i < subBatchSize; i++) {
-                if (nullVector[i]) {
-                    builder.appendNull();
+            if (positions == null) {
+                for (int i = 0; i < subBatchSize; i++) {
+                    writeValue(type, builder, i);
                 }
-                else if (inDictionaryVector[i]) {
-                    type.writeLong(builder, dictionary[((int) dataVector[i])]);
-                }
-                else {
-                    type.writeLong(builder, dataVector[i]);
+            }
+            else {
+                // only the selected values are written, the others were decoded as part of the runs
+                while (selected < positionCount && positions[selected] < subBatchOffset + subBatchSize) {
+                    writeValue(type, builder, positions[selected] - subBatchOffset);
+                    selected++;
                 }
             }
+            subBatchOffset += subBatchSize;
             nextBatchSize -= subBatchSize;
         }
         readOffset = 0;
@@ -163,6 +180,19 @@ public class LongDictionaryStreamReader
         return builder.build();
     }
 
+    private void writeValue(Type type, BlockBuilder builder, int index)
+    {
+        if (nullVector[index]) {
+            builder.appendNull();
+        }
+        else if (inDictionaryVector[index]) {
+            type.writeLong(builder, dictionary[((int) dataVector[index])]);
+        }
+        else {
+            type.writeLong(builder, dataVector[index]);
+        }
+    }
+
     private void assureVectorSize()
     {
         int requiredVectorLength = min(nextBatchSize, MAX_BATCH_SIZE);
@@ -127,6 +127,57 @@ public class LongDirectStreamReader
         return builder.build();
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        if (readOffset > 0) {
+            skipValues(readOffset);
+        }
+
+        BlockBuilder builder = type.createBlockBuilder(null, positionCount);
+        int nextPosition = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            skipValues(position - nextPosition);
+            if (presentStream != null && !presentStream.nextBit()) {
+                builder.appendNull();
+            }
+            else {
+                if (dataStream == null) {
+                    throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+                }
+                type.writeLong(builder, dataStream.next());
+            }
+            nextPosition = position + 1;
+        }
+
+        // the values after the last selected position are skipped by the next read
+        readOffset = nextBatchSize - nextPosition;
+        nextBatchSize = 0;
+
+        return builder.build();
+    }
+
+    private void skipValues(int items)
+            throws IOException
+    {
+        if (items == 0) {
+            return;
+        }
+        int dataItems = presentStream == null ? items : presentStream.countBitsSet(items);
+        if (dataItems > 0) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+            }
+            dataStream.skip(dataItems);
+        }
+    }
+
     private void assureVectorSize()
     {
         int requiredVectorLength = min(nextBatchSize, MAX_BATCH_SIZE);
@@ -202,6 +202,14 @@ public class SliceDictionaryStreamReader
         return block;
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        // the values are not decoded, so selecting the ids is all that is needed
+        return readBlock(type).getPositions(positions, 0, positionCount);
+    }
+
     private void assureVectorSize()
     {
         int requiredVectorLength = min(nextBatchSize, MAX_BATCH_SIZE);
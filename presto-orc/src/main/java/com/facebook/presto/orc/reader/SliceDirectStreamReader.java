@@ -205,6 +205,118 @@ public class SliceDirectStreamReader
         return new VariableWidthBlock(currentBatchSize, slice, offsetVector, Optional.ofNullable(isNullVector));
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        if (readOffset > 0) {
+            if (presentStream != null) {
+                readOffset = presentStream.countBitsSet(readOffset);
+            }
+            if (readOffset > 0) {
+                if (lengthStream == null) {
+                    throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but length stream is not present");
+                }
+                skipData(lengthStream.sum(readOffset));
+            }
+        }
+
+        // the lengths of the whole batch are needed to skip the data of the other positions
+        int batchSize = nextBatchSize;
+        int[] lengthVector = new int[batchSize];
+        boolean[] isNullVector = null;
+        if (presentStream == null) {
+            if (lengthStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but length stream is not present");
+            }
+            lengthStream.nextIntVector(batchSize, lengthVector);
+        }
+        else {
+            isNullVector = new boolean[batchSize];
+            int nullValues = presentStream.getUnsetBits(batchSize, isNullVector);
+            if (nullValues != batchSize) {
+                if (lengthStream == null) {
+                    throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but length stream is not present");
+                }
+                lengthStream.nextIntVector(batchSize, lengthVector, isNullVector);
+            }
+        }
+
+        long totalLength = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (isNullVector == null || !isNullVector[position]) {
+                totalLength += lengthVector[position];
+            }
+        }
+        if (totalLength > ONE_GIGABYTE) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR,
+                    format("Values in column \"%s\" are too large to process for Presto. %s column values are larger than 1GB [%s]", streamDescriptor.getFieldName(), positionCount, streamDescriptor.getOrcDataSourceId()));
+        }
+
+        byte[] data = new byte[toIntExact(totalLength)];
+        Slice slice = Slices.wrappedBuffer(data);
+        int[] offsetVector = new int[positionCount + 1];
+        boolean[] selectedIsNullVector = isNullVector == null ? null : new boolean[positionCount];
+        int nextPosition = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            skipData(sumLengths(lengthVector, isNullVector, nextPosition, position));
+
+            int offset = offsetVector[i];
+            if (isNullVector != null && isNullVector[position]) {
+                selectedIsNullVector[i] = true;
+                offsetVector[i + 1] = offset;
+            }
+            else {
+                int length = lengthVector[position];
+                if (length > 0) {
+                    if (dataStream == null) {
+                        throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+                    }
+                    dataStream.next(data, offset, offset + length);
+                }
+                int truncatedLength = computeTruncatedLength(slice, offset, length, type);
+                verify(truncatedLength >= 0);
+                offsetVector[i + 1] = offset + truncatedLength;
+            }
+            nextPosition = position + 1;
+        }
+        skipData(sumLengths(lengthVector, isNullVector, nextPosition, batchSize));
+
+        readOffset = 0;
+        nextBatchSize = 0;
+
+        return new VariableWidthBlock(positionCount, slice, offsetVector, Optional.ofNullable(selectedIsNullVector));
+    }
+
+    private static long sumLengths(int[] lengthVector, boolean[] isNullVector, int from, int to)
+    {
+        long sum = 0;
+        for (int position = from; position < to; position++) {
+            if (isNullVector == null || !isNullVector[position]) {
+                sum += lengthVector[position];
+            }
+        }
+        return sum;
+    }
+
+    private void skipData(long skipSize)
+            throws IOException
+    {
+        if (skipSize == 0) {
+            return;
+        }
+        if (dataStream == null) {
+            throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+        }
+        dataStream.skip(skipSize);
+    }
+
     private void openRowGroup()
             throws IOException
     {
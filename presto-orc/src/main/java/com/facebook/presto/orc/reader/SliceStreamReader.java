@@ -60,6 +60,13 @@ public class SliceStreamReader
         return currentReader.readBlock(type);
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        return currentReader.readBlock(type, positions, positionCount);
+    }
+
     @Override
     public void prepareNextRead(int batchSize)
     {
@@ -26,6 +26,17 @@ public interface StreamReader
     Block readBlock(Type type)
             throws IOException;
 
+    /**
+     * Reads only the given positions of the next batch. The positions must be
+     * increasing. Readers that can skip the values of the other positions
+     * override this; by default the whole batch is decoded and then copied.
+     */
+    default Block readBlock(Type type, int[] positions, int positionCount)
+            throws IOException
+    {
+        return readBlock(type).copyPositions(positions, 0, positionCount);
+    }
+
     void prepareNextRead(int batchSize);
 
     void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
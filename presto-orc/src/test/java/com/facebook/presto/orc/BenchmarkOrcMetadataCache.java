@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcTester.Format.ORC_12;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.OrcTester.writeOrcColumnHive;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.UUID.randomUUID;
+
+/**
+ * Measures the latency of opening a split and reading its first batch, with the
+ * file metadata either served from a warm {@link OrcMetadataCache} or decoded from
+ * the file every time.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+@Warmup(iterations = 20, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkOrcMetadataCache
+{
+    @Benchmark
+    public Block openSplit(BenchmarkData data)
+            throws IOException
+    {
+        try (OrcRecordReader recordReader = data.createRecordReader()) {
+            recordReader.nextBatch();
+            return recordReader.readBlock(BIGINT, 0);
+        }
+    }
+
+    @Test
+    public void testOpenSplit()
+            throws Exception
+    {
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        try {
+            openSplit(data);
+        }
+        finally {
+            data.tearDown();
+        }
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"true", "false"})
+        private boolean cacheEnabled = true;
+
+        private File temporary;
+        private File dataPath;
+        private OrcMetadataCache metadataCache;
+
+        @Setup
+        public void setup()
+                throws Exception
+        {
+            temporary = createTempDir();
+            dataPath = new File(temporary, randomUUID().toString());
+
+            Random random = new Random(0);
+            writeOrcColumnHive(dataPath, ORC_12, ZLIB, BIGINT, LongStream.range(0, 1_000_000).map(i -> random.nextLong()).boxed().iterator());
+
+            metadataCache = cacheEnabled ? new OrcMetadataCache(new DataSize(64, MEGABYTE), new Duration(1, TimeUnit.HOURS)) : OrcMetadataCache.NO_CACHE;
+        }
+
+        @TearDown
+        public void tearDown()
+                throws IOException
+        {
+            deleteRecursively(temporary.toPath(), ALLOW_INSECURE);
+        }
+
+        private OrcRecordReader createRecordReader()
+                throws IOException
+        {
+            OrcDataSource dataSource = new FileOrcDataSource(dataPath, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(8, MEGABYTE), true);
+            // disable the tiny file cache, which would otherwise read the whole file up front
+            OrcReader orcReader = new OrcReader(dataSource, ORC, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(1, BYTE), new DataSize(16, MEGABYTE), metadataCache);
+            return orcReader.createRecordReader(
+                    ImmutableMap.of(0, BIGINT),
+                    OrcPredicate.TRUE,
+                    HIVE_STORAGE_TIME_ZONE,
+                    newSimpleAggregatedMemoryContext());
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        new BenchmarkOrcMetadataCache().testOpenSplit();
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkOrcMetadataCache.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcTester.Format.ORC_12;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.OrcTester.writeOrcColumnHive;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.testing.Assertions.assertGreaterThan;
+import static io.airlift.testing.Assertions.assertLessThan;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.testng.Assert.assertEquals;
+
+public class TestOrcMetadataCache
+{
+    private static final int POSITION_COUNT = 50000;
+    private static final long EXPECTED_SUM = LongStream.range(0, POSITION_COUNT).sum();
+
+    private TempFile tempFile;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        tempFile = new TempFile();
+        writeOrcColumnHive(tempFile.getFile(), ORC_12, ZLIB, BIGINT, LongStream.range(0, POSITION_COUNT).boxed().iterator());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        tempFile.close();
+    }
+
+    @Test
+    public void testWarmCache()
+            throws IOException
+    {
+        OrcMetadataCache metadataCache = new OrcMetadataCache(new DataSize(1, MEGABYTE), new Duration(1, HOURS));
+
+        TestingOrcDataSource coldDataSource = createDataSource();
+        assertEquals(readFile(coldDataSource, metadataCache), EXPECTED_SUM);
+        assertEquals(metadataCache.getHitCount(), 0);
+        assertGreaterThan(metadataCache.getEntryCount(), 0L);
+        assertGreaterThan(metadataCache.getSizeInBytes(), 0L);
+
+        // the file tail, stripe footers and row indexes are not read again
+        TestingOrcDataSource warmDataSource = createDataSource();
+        assertEquals(readFile(warmDataSource, metadataCache), EXPECTED_SUM);
+        assertEquals(metadataCache.getHitCount(), metadataCache.getMissCount());
+        assertLessThan(warmDataSource.getReadCount(), coldDataSource.getReadCount());
+
+        metadataCache.invalidateAll();
+        assertEquals(metadataCache.getEntryCount(), 0);
+        assertEquals(metadataCache.getSizeInBytes(), 0);
+    }
+
+    @Test
+    public void testDisabledCache()
+            throws IOException
+    {
+        OrcMetadataCache metadataCache = new OrcMetadataCache(new DataSize(0, BYTE), new Duration(1, HOURS));
+
+        TestingOrcDataSource firstDataSource = createDataSource();
+        assertEquals(readFile(firstDataSource, metadataCache), EXPECTED_SUM);
+        TestingOrcDataSource secondDataSource = createDataSource();
+        assertEquals(readFile(secondDataSource, metadataCache), EXPECTED_SUM);
+
+        assertEquals(secondDataSource.getReadCount(), firstDataSource.getReadCount());
+        assertEquals(metadataCache.getEntryCount(), 0);
+        assertEquals(metadataCache.getHitCount(), 0);
+    }
+
+    private TestingOrcDataSource createDataSource()
+            throws IOException
+    {
+        return new TestingOrcDataSource(new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true));
+    }
+
+    private static long readFile(OrcDataSource orcDataSource, OrcMetadataCache metadataCache)
+            throws IOException
+    {
+        // disable the tiny file and stripe caching so every metadata read reaches the data source
+        DataSize tinyStripeThreshold = new DataSize(1, BYTE);
+        OrcReader orcReader = new OrcReader(orcDataSource, ORC, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), tinyStripeThreshold, new DataSize(1, MEGABYTE), metadataCache);
+        long sum = 0;
+        try (OrcRecordReader recordReader = orcReader.createRecordReader(ImmutableMap.of(0, BIGINT), OrcPredicate.TRUE, HIVE_STORAGE_TIME_ZONE, newSimpleAggregatedMemoryContext())) {
+            while (recordReader.nextBatch() > 0) {
+                Block block = recordReader.readBlock(BIGINT, 0);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    sum += BIGINT.getLong(block, position);
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -13,10 +13,12 @@
  */
 package com.facebook.presto.orc;
 
+import com.facebook.presto.orc.OrcTester.Format;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.facebook.presto.orc.metadata.Footer;
 import com.facebook.presto.orc.metadata.statistics.IntegerStatistics;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import io.airlift.slice.Slice;
@@ -41,18 +43,25 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.orc.OrcEncoding.ORC;
 import static com.facebook.presto.orc.OrcReader.MAX_BATCH_SIZE;
+import static com.facebook.presto.orc.OrcTester.Format.DWRF;
 import static com.facebook.presto.orc.OrcTester.Format.ORC_12;
 import static com.facebook.presto.orc.OrcTester.MAX_BLOCK_SIZE;
 import static com.facebook.presto.orc.OrcTester.createCustomOrcRecordReader;
 import static com.facebook.presto.orc.OrcTester.createOrcRecordWriter;
 import static com.facebook.presto.orc.OrcTester.createSettableStructObjectInspector;
+import static com.facebook.presto.orc.OrcTester.writeOrcColumnHive;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.toIntExact;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.hadoop.hive.ql.io.orc.CompressionKind.SNAPPY;
 import static org.testng.Assert.assertEquals;
@@ -281,6 +290,131 @@ public class TestOrcReaderPositions
         }
     }
 
+    @Test
+    public void testReadSelectedPositions()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            int rowCount = 30_000;
+            createSequentialFile(tempFile.getFile(), rowCount);
+
+            try (OrcRecordReader reader = createCustomOrcRecordReader(tempFile, ORC, OrcPredicate.TRUE, BIGINT)) {
+                int batchCount = 0;
+                while (true) {
+                    int batchSize = reader.nextBatch();
+                    if (batchSize == -1) {
+                        break;
+                    }
+                    long batchStart = reader.getFilePosition();
+
+                    // skip over entire batches now and then
+                    batchCount++;
+                    if (batchCount % 5 == 0) {
+                        continue;
+                    }
+
+                    int[] positions = selectPositions(batchSize, batchCount);
+                    Block block = reader.readBlock(BIGINT, 0, positions, positions.length);
+                    assertEquals(block.getPositionCount(), positions.length);
+                    for (int i = 0; i < positions.length; i++) {
+                        assertEquals(BIGINT.getLong(block, i), batchStart + positions[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadSelectedPositionsForVariableWidth()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            int rowsInRowGroup = 10_000;
+            int baseStringBytes = 10;
+            int rowCount = rowsInRowGroup * 3;
+            createGrowingSequentialFile(tempFile.getFile(), rowCount, rowsInRowGroup, baseStringBytes);
+
+            try (OrcRecordReader reader = createCustomOrcRecordReader(tempFile, ORC, OrcPredicate.TRUE, VARCHAR)) {
+                int batchCount = 0;
+                while (true) {
+                    int batchSize = reader.nextBatch();
+                    if (batchSize == -1) {
+                        break;
+                    }
+                    long batchStart = reader.getFilePosition();
+
+                    batchCount++;
+                    if (batchCount % 5 == 0) {
+                        continue;
+                    }
+
+                    int[] positions = selectPositions(batchSize, batchCount);
+                    Block block = reader.readBlock(VARCHAR, 0, positions, positions.length);
+                    assertEquals(block.getPositionCount(), positions.length);
+                    for (int i = 0; i < positions.length; i++) {
+                        long expectedLength = ((batchStart + positions[i]) / rowsInRowGroup + 1) * baseStringBytes;
+                        assertEquals(VARCHAR.getSlice(block, i).length(), expectedLength);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadSelectedPositionsFromLongDictionary()
+            throws Exception
+    {
+        // DWRF dictionary encodes integers with few distinct values
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            values.add(i % 7 == 0 ? null : (long) (i % 10));
+        }
+        assertReadSelectedPositions(DWRF, BIGINT, values);
+    }
+
+    @Test
+    public void testReadSelectedPositionsFromSliceDictionary()
+            throws Exception
+    {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            values.add(i % 7 == 0 ? null : "value " + (i % 10));
+        }
+        assertReadSelectedPositions(ORC_12, VARCHAR, values);
+    }
+
+    private static void assertReadSelectedPositions(Format format, Type type, List<?> values)
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            writeOrcColumnHive(tempFile.getFile(), format, CompressionKind.NONE, type, values.iterator());
+
+            try (OrcRecordReader reader = createCustomOrcRecordReader(tempFile, format.getOrcEncoding(), OrcPredicate.TRUE, type)) {
+                int batchCount = 0;
+                while (true) {
+                    int batchSize = reader.nextBatch();
+                    if (batchSize == -1) {
+                        break;
+                    }
+                    int batchStart = toIntExact(reader.getFilePosition());
+
+                    // skip over entire batches now and then
+                    batchCount++;
+                    if (batchCount % 5 == 0) {
+                        continue;
+                    }
+
+                    int[] positions = selectPositions(batchSize, batchCount);
+                    Block block = reader.readBlock(type, 0, positions, positions.length);
+                    assertEquals(block.getPositionCount(), positions.length);
+                    for (int i = 0; i < positions.length; i++) {
+                        assertEquals(type.getObjectValue(SESSION, block, i), values.get(batchStart + positions[i]));
+                    }
+                }
+            }
+        }
+    }
+
     @Test
     public void testReadUserMetadata()
             throws Exception
@@ -309,6 +443,14 @@ public class TestOrcReaderPositions
         }
     }
 
+    private static int[] selectPositions(int batchSize, int seed)
+    {
+        int step = (seed % 7) + 1;
+        return IntStream.range(0, batchSize)
+                .filter(position -> position % step == 0 || position == batchSize - 1)
+                .toArray();
+    }
+
     // write 5 stripes of 20 values each: (0,3,6,..,57), (60,..,117), .., (..297)
     private static void createMultiStripeFile(File file)
             throws IOException, ReflectiveOperationException, SerDeException
@@ -15,11 +15,35 @@ package com.facebook.presto.spi;
 
 import java.util.List;
 
+import static java.util.Collections.emptyList;
+
 public interface ConnectorSplit
 {
     boolean isRemotelyAccessible();
 
     List<HostAddress> getAddresses();
 
+    /**
+     * Returns the nodes, chosen from the candidates, that this remotely accessible
+     * split should preferably run on, for example because they are likely to have
+     * its data cached. This is only a preference: the split is scheduled on another
+     * node when the preferred nodes are busy. An empty list means no preference.
+     */
+    default List<HostAddress> getPreferredNodes(List<HostAddress> candidates)
+    {
+        return emptyList();
+    }
+
     Object getInfo();
+
+    /**
+     * Returns whether the data read from this split depends only on the split, the
+     * columns read and the user, so that concurrent scans of equal splits by different
+     * queries of the same user may be served by a single read. Splits returning true must implement {@code equals} and
+     * {@code hashCode} over everything that determines the data they read.
+     */
+    default boolean isScanShareable()
+    {
+        return false;
+    }
 }
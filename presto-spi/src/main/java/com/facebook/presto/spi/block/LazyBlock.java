@@ -253,12 +253,44 @@ public class LazyBlock
         return block != null;
     }
 
+    /**
+     * Returns true if {@link #loadPositions} can avoid decoding the positions
+     * that are not requested.
+     */
+    public boolean isSelectiveLoadSupported()
+    {
+        return block == null && loader != null && loader.isSelectiveLoadSupported();
+    }
+
+    /**
+     * Returns a compact block with the values at the specified positions. If the
+     * loader supports selective loading, only these positions are decoded and
+     * this block can not be loaded afterwards.
+     */
+    public Block loadPositions(int[] positions, int offset, int length)
+    {
+        if (!isSelectiveLoadSupported()) {
+            return copyPositions(positions, offset, length);
+        }
+        Block selected = loader.loadPositions(this, positions, offset, length);
+        if (selected == null || selected.getPositionCount() != length) {
+            throw new IllegalArgumentException("Lazy block loader did not load the selected positions");
+        }
+
+        // the remaining positions are lost, so the block can not be loaded anymore
+        loader = null;
+        return selected;
+    }
+
     @Override
     public void assureLoaded()
     {
         if (block != null) {
             return;
         }
+        if (loader == null) {
+            throw new IllegalStateException("Lazy block was consumed by a selective load");
+        }
         loader.load(this);
 
         if (block == null) {
@@ -16,4 +16,22 @@ package com.facebook.presto.spi.block;
 public interface LazyBlockLoader<T extends Block>
 {
     void load(T block);
+
+    /**
+     * Returns true if the loader can load a subset of the positions without
+     * decoding the rest of the block.
+     */
+    default boolean isSelectiveLoadSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Loads only the specified positions of the block. The positions must be
+     * sorted in increasing order. The block can not be loaded after this call.
+     */
+    default Block loadPositions(T block, int[] positions, int offset, int length)
+    {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -148,6 +148,16 @@ public interface ConnectorMetadata
         return EMPTY_STATISTICS;
     }
 
+    /**
+     * Returns an opaque token that changes whenever the data of the table changes,
+     * or empty if the connector cannot tell. Results of queries reading only
+     * tables with a data version may be cached by the engine.
+     */
+    default Optional<String> getTableDataVersion(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Creates a schema.
      */
@@ -52,6 +52,9 @@ import java.util.stream.IntStream;
 
 import static com.facebook.presto.SystemSessionProperties.DISTRIBUTED_SORT;
 import static com.facebook.presto.SystemSessionProperties.REORDER_JOINS;
+import static com.facebook.presto.SystemSessionProperties.SKEWED_JOIN_KEY_VALUES;
+import static com.facebook.presto.SystemSessionProperties.SPREAD_NULL_JOIN_KEYS;
+import static com.facebook.presto.SystemSessionProperties.SPREAD_NULL_JOIN_KEYS_MIN_NULLS_FRACTION;
 import static com.facebook.presto.connector.informationSchema.InformationSchemaMetadata.INFORMATION_SCHEMA;
 import static com.facebook.presto.operator.scalar.ApplyFunction.APPLY_FUNCTION;
 import static com.facebook.presto.operator.scalar.InvokeFunction.INVOKE_FUNCTION;
@@ -1986,6 +1989,29 @@ public abstract class AbstractTestQueries
         assertQuery("SELECT * FROM orders b LEFT JOIN (SELECT * FROM orders WHERE orderkey = rand()) a ON b.orderkey > b.totalprice");
     }
 
+    @Test
+    public void testJoinWithSpreadNullAndSkewedKeys()
+    {
+        Session spreadJoinKeys = Session.builder(getSession())
+                .setSystemProperty(SPREAD_NULL_JOIN_KEYS, "true")
+                .setSystemProperty(SPREAD_NULL_JOIN_KEYS_MIN_NULLS_FRACTION, "0")
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, "7, 1")
+                .build();
+        // both sides have null keys and many rows with a skewed key
+        String probe = "SELECT orderkey, CASE WHEN orderkey % 5 = 0 THEN NULL WHEN orderkey % 5 = 1 THEN 7 ELSE custkey END custkey FROM orders";
+        String build = "SELECT CASE WHEN custkey % 7 = 0 THEN NULL WHEN custkey % 7 = 1 THEN 7 ELSE custkey END custkey, name FROM customer";
+        String query = "SELECT o.orderkey, o.custkey, c.custkey, c.name FROM (%s) o %s (%s) c ON o.custkey = c.custkey";
+        for (String joinType : ImmutableList.of("JOIN", "LEFT JOIN", "RIGHT JOIN")) {
+            assertQuery(format(query, probe, joinType, build));
+            assertQuery(spreadJoinKeys, format(query, probe, joinType, build));
+        }
+
+        String fullJoin = format(query, probe, "FULL JOIN", build);
+        String expectedFullJoin = format(query, probe, "LEFT JOIN", build) + " UNION ALL " + format(query, probe, "RIGHT JOIN", build) + " WHERE o.orderkey IS NULL";
+        assertQuery(fullJoin, expectedFullJoin);
+        assertQuery(spreadJoinKeys, fullJoin, expectedFullJoin);
+    }
+
     @Test
     public void testNonEqualityRightJoin()
     {
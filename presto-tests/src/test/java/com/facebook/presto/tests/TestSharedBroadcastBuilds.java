@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.tests;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.QueryInfo;
+import com.facebook.presto.execution.StageInfo;
+import com.facebook.presto.server.testing.TestingPrestoServer;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.tests.tpch.TpchQueryRunnerBuilder;
+import com.google.common.collect.ImmutableList;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.facebook.presto.SystemSessionProperties.DISTRIBUTED_JOIN;
+import static com.facebook.presto.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
+import static com.facebook.presto.SystemSessionProperties.TASK_SHARE_BROADCAST_BUILDS;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestSharedBroadcastBuilds
+{
+    @Language("SQL")
+    private static final String QUERY = "SELECT count(*), sum(l.quantity) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.orderpriority = '1-URGENT'";
+
+    private DistributedQueryRunner queryRunner;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        queryRunner = TpchQueryRunnerBuilder.builder().build();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        queryRunner.close();
+        queryRunner = null;
+    }
+
+    @Test(timeOut = 120_000L)
+    public void testBroadcastBuildKeys()
+    {
+        Set<String> keys = getBroadcastBuildKeys(sharingSession(true), QUERY);
+        assertFalse(keys.isEmpty());
+
+        // another query building from the same rows gets the same keys
+        assertEquals(getBroadcastBuildKeys(sharingSession(true), QUERY), keys);
+        assertEquals(getBroadcastBuildKeys(sharingSession(true), QUERY.replace("count(*)", "max(l.partkey)")), keys);
+
+        // a build from other rows gets another key
+        Set<String> otherKeys = getBroadcastBuildKeys(sharingSession(true), QUERY.replace("1-URGENT", "2-HIGH"));
+        assertFalse(otherKeys.isEmpty());
+        assertTrue(otherKeys.stream().noneMatch(keys::contains));
+
+        assertTrue(getBroadcastBuildKeys(sharingSession(false), QUERY).isEmpty());
+    }
+
+    @Test(timeOut = 120_000L)
+    public void testConcurrentQueries()
+            throws Exception
+    {
+        MaterializedResult expected = queryRunner.execute(sharingSession(false), QUERY);
+
+        ExecutorService executor = newFixedThreadPool(2, daemonThreadsNamed("test-shared-broadcast-builds-%s"));
+        try {
+            for (int round = 0; round < 5; round++) {
+                ImmutableList.Builder<Future<MaterializedResult>> results = ImmutableList.builder();
+                for (int query = 0; query < 2; query++) {
+                    results.add(executor.submit(() -> queryRunner.execute(sharingSession(true), QUERY)));
+                }
+                for (Future<MaterializedResult> result : results.build()) {
+                    assertEquals(result.get().getMaterializedRows(), expected.getMaterializedRows());
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        // the builds are dropped once the tasks using them are done
+        for (TestingPrestoServer server : queryRunner.getServers()) {
+            while (server.getSharedBuildManager().getBuildCount() > 0) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private Session sharingSession(boolean shareBroadcastBuilds)
+    {
+        return Session.builder(queryRunner.getDefaultSession())
+                .setSystemProperty(TASK_SHARE_BROADCAST_BUILDS, String.valueOf(shareBroadcastBuilds))
+                .setSystemProperty(DISTRIBUTED_JOIN, "false")
+                .setSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, "0B")
+                .build();
+    }
+
+    private Set<String> getBroadcastBuildKeys(Session session, @Language("SQL") String sql)
+    {
+        QueryId queryId = queryRunner.executeWithQueryId(session, sql).getQueryId();
+        QueryInfo queryInfo = queryRunner.getQueryInfo(queryId);
+        List<StageInfo> stages = StageInfo.getAllStages(queryInfo.getOutputStage());
+        return stages.stream()
+                .flatMap(stage -> stage.getPlan().getBroadcastBuildKeys().values().stream())
+                .collect(toImmutableSet());
+    }
+}
@@ -319,6 +319,13 @@ public class TpchMetadata
                 .orElse(TableStatistics.EMPTY_STATISTICS);
     }
 
+    @Override
+    public Optional<String> getTableDataVersion(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        // the generated data only depends on the scale factor, which is part of the handle
+        return Optional.of("generated");
+    }
+
     private Map<TpchColumn<?>, List<Object>> getColumnValuesRestrictions(TpchTable<?> tpchTable, Constraint<ColumnHandle> constraint)
     {
         TupleDomain<ColumnHandle> constraintSummary = constraint.getSummary();